@@ -0,0 +1,139 @@
+package de.fullben.hermes.representation;
+
+import static de.fullben.hermes.util.Preconditions.notNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The fields of a {@link SearchResultRepresentation}. Used for limiting the fields that are
+ * extracted from web search result pages and returned to clients.
+ *
+ * @author Benedikt Full
+ */
+public enum SearchResultField {
+  /** The title of a result. */
+  TITLE("title"),
+  /** The text snippet of a result. */
+  SNIPPET("snippet"),
+  /** The web address of a result. */
+  URL("url"),
+  /** The page hierarchy (breadcrumbs) of a result. */
+  PAGE_HIERARCHY("pageHierarchy");
+
+  private static final Set<SearchResultField> ALL =
+      Collections.unmodifiableSet(EnumSet.allOf(SearchResultField.class));
+  private final String propertyName;
+
+  SearchResultField(String propertyName) {
+    this.propertyName = propertyName;
+  }
+
+  /**
+   * Returns a set containing all fields.
+   *
+   * @return an unmodifiable set of all fields
+   */
+  public static Set<SearchResultField> all() {
+    return ALL;
+  }
+
+  /**
+   * Returns the field with the given property name.
+   *
+   * @param propertyName the name of a property of {@link SearchResultRepresentation}, case
+   *     insensitive
+   * @return the field
+   * @throws IllegalArgumentException if there is no field with the given property name
+   */
+  public static SearchResultField fromPropertyName(String propertyName) {
+    notNull(propertyName);
+    for (SearchResultField field : values()) {
+      if (field.propertyName.equalsIgnoreCase(propertyName.strip())) {
+        return field;
+      }
+    }
+    throw new IllegalArgumentException("Unknown search result field: " + propertyName);
+  }
+
+  /**
+   * Converts the given results into property maps containing only the given fields, so that the
+   * other fields are omitted when serialized, rather than being serialized as {@code null}.
+   *
+   * @param results the results to be converted, not {@code null}
+   * @param fields the fields to be retained, not {@code null}
+   * @return the property maps, one per result, in the order of the results
+   */
+  public static List<Map<String, String>> project(
+      List<SearchResultRepresentation> results, Set<SearchResultField> fields) {
+    List<Map<String, String>> projection = new ArrayList<>(results.size());
+    for (SearchResultRepresentation result : results) {
+      Map<String, String> properties = new LinkedHashMap<>();
+      for (SearchResultField field : fields) {
+        properties.put(field.getPropertyName(), field.valueOf(result));
+      }
+      projection.add(properties);
+    }
+    return projection;
+  }
+
+  /**
+   * The name of the property of {@link SearchResultRepresentation} which holds this field.
+   *
+   * @return the property name
+   */
+  public String getPropertyName() {
+    return propertyName;
+  }
+
+  /**
+   * Returns the value of this field in the given result.
+   *
+   * @param result a search result, not {@code null}
+   * @return the value, may be {@code null}
+   */
+  public String valueOf(SearchResultRepresentation result) {
+    switch (this) {
+      case TITLE:
+        return result.getTitle();
+      case SNIPPET:
+        return result.getSnippet();
+      case URL:
+        return result.getUrl();
+      case PAGE_HIERARCHY:
+        return result.getPageHierarchy();
+      default:
+        throw new AssertionError("Unhandled field: " + this);
+    }
+  }
+
+  /**
+   * Copies the value of this field from the given source to the given target result.
+   *
+   * @param source the result to read from, not {@code null}
+   * @param target the result to write to, not {@code null}
+   */
+  public void copy(SearchResultRepresentation source, SearchResultRepresentation target) {
+    switch (this) {
+      case TITLE:
+        target.setTitle(source.getTitle());
+        break;
+      case SNIPPET:
+        target.setSnippet(source.getSnippet());
+        break;
+      case URL:
+        target.setUrl(source.getUrl());
+        break;
+      case PAGE_HIERARCHY:
+        target.setPageHierarchy(source.getPageHierarchy());
+        break;
+      default:
+        throw new AssertionError("Unhandled field: " + this);
+    }
+  }
+}
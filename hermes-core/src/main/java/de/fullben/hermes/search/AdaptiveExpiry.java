@@ -0,0 +1,134 @@
+package de.fullben.hermes.search;
+
+import static de.fullben.hermes.util.Preconditions.notNull;
+
+import de.fullben.hermes.representation.SearchResultRepresentation;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.OptionalDouble;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Determines for how long the results of a query remain in the cache, based on how much they
+ * changed since the query was last searched.
+ *
+ * <p>Results of a query that is searched for the first time are cached for an initial duration.
+ * Whenever the query is searched again after its results expired, the new results are compared
+ * with the previous ones: if most of the top results are still the same, the query is considered
+ * stable and the duration is doubled; if most of them changed, the query is considered volatile
+ * and the duration is halved. The duration never leaves the configured bounds. Thus, queries whose
+ * results hardly ever change (e.g., <i>python list sort</i>) quickly reach the maximum duration,
+ * while queries about current events are refreshed frequently.
+ *
+ * @author Benedikt Full
+ */
+public class AdaptiveExpiry {
+
+  private static final int COMPARED_RESULTS = 10;
+  private static final double STABLE_SIMILARITY = 0.8;
+  private static final double VOLATILE_SIMILARITY = 0.5;
+  private final Duration initial;
+  private final Duration min;
+  private final Duration max;
+
+  /**
+   * Creates a new instance.
+   *
+   * @param initial the duration for which results of a query are cached for the first time, is
+   *     clamped to the given bounds
+   * @param min the minimum duration for which results are cached
+   * @param max the maximum duration for which results are cached
+   * @throws IllegalArgumentException if any of the durations is {@code null} or not positive, or
+   *     the minimum exceeds the maximum
+   */
+  public AdaptiveExpiry(Duration initial, Duration min, Duration max) {
+    if (notNull(min).isNegative() || min.isZero() || min.compareTo(notNull(max)) > 0) {
+      throw new IllegalArgumentException(
+          "Bounds must be positive, with the minimum not exceeding the maximum");
+    }
+    this.min = min;
+    this.max = max;
+    this.initial = clamp(notNull(initial));
+  }
+
+  /**
+   * Returns the duration for which the results of a query are cached for the first time.
+   *
+   * @return the initial duration
+   */
+  public Duration initial() {
+    return initial;
+  }
+
+  /**
+   * Limits the given duration to the bounds of this instance.
+   *
+   * @param duration a duration
+   * @return the minimum if the duration is shorter, the maximum if it is longer, or the duration
+   *     itself
+   */
+  public Duration clamp(Duration duration) {
+    if (duration.compareTo(min) < 0) {
+      return min;
+    }
+    return duration.compareTo(max) > 0 ? max : duration;
+  }
+
+  /**
+   * Returns the duration for which refreshed results of a query are cached.
+   *
+   * @param previousExpireAfter the duration for which the previous results were cached
+   * @param previous the previous results of the query
+   * @param current the refreshed results of the query
+   * @return the adapted duration, or the previous one (within bounds) if the results cannot be
+   *     compared, e.g., because they have neither URLs nor titles
+   */
+  public Duration next(
+      Duration previousExpireAfter,
+      List<SearchResultRepresentation> previous,
+      List<SearchResultRepresentation> current) {
+    OptionalDouble similarity = similarity(previous, current);
+    if (similarity.isEmpty()) {
+      return clamp(previousExpireAfter);
+    }
+    if (similarity.getAsDouble() >= STABLE_SIMILARITY) {
+      return clamp(previousExpireAfter.multipliedBy(2));
+    }
+    if (similarity.getAsDouble() < VOLATILE_SIMILARITY) {
+      return clamp(previousExpireAfter.dividedBy(2));
+    }
+    return clamp(previousExpireAfter);
+  }
+
+  /**
+   * Computes the share of the top results of the previous list that are also among the top
+   * results of the current list, regardless of their order. Results are identified by their URL,
+   * or, if it was not extracted, by their title.
+   *
+   * @param previous the previous results
+   * @param current the current results
+   * @return a value between zero (no result in common) and one (same results), or an empty value
+   *     if the lists contain no identifiable results
+   */
+  static OptionalDouble similarity(
+      List<SearchResultRepresentation> previous, List<SearchResultRepresentation> current) {
+    int compared = Math.min(COMPARED_RESULTS, Math.min(previous.size(), current.size()));
+    Set<String> previousKeys = keys(previous.subList(0, compared));
+    if (previousKeys.isEmpty()) {
+      return OptionalDouble.empty();
+    }
+    Set<String> common = new HashSet<>(previousKeys);
+    common.retainAll(keys(current.subList(0, compared)));
+    return OptionalDouble.of((double) common.size() / previousKeys.size());
+  }
+
+  private static Set<String> keys(List<SearchResultRepresentation> results) {
+    return results.stream()
+        .map(result -> result.getUrl() != null ? result.getUrl() : result.getTitle())
+        .filter(Objects::nonNull)
+        .collect(Collectors.toSet());
+  }
+}
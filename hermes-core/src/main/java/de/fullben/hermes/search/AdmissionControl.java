@@ -0,0 +1,280 @@
+package de.fullben.hermes.search;
+
+import static de.fullben.hermes.util.Preconditions.greaterThan;
+import static de.fullben.hermes.util.Preconditions.notNull;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Admission control for searches which have to contact a web search provider. Limits the number
+ * of such searches executed at the same time, as well as the number of searches waiting for their
+ * execution. Searches which cannot be admitted are rejected, rather than tying up a request thread
+ * while waiting for a provider that is overloaded already. This keeps request threads available for
+ * searches which can be answered from the cache.
+ *
+ * <p>Searches are admitted according to their {@link SearchPriority}. Each priority class has its
+ * own queue, in which searches are admitted in the order of their arrival. Whenever an execution
+ * slot becomes available while searches of several classes are waiting, the slot is handed to one
+ * of the classes by means of weighted round-robin, so that each class receives a share of the slots
+ * proportional to its weight. Thus, interactive searches are admitted first, while background
+ * searches still make progress. Additionally, background searches may never occupy more than half
+ * of the execution slots, so that interactive searches find a free slot quickly even while large
+ * background workloads are running.
+ *
+ * @author Benedikt Full
+ */
+public class AdmissionControl {
+
+  private final int maxConcurrent;
+  private final int maxQueued;
+  private final Duration maxWait;
+  private final ReentrantLock lock;
+  private final Map<SearchPriority, PriorityClass> classes;
+  private int running;
+
+  /**
+   * Creates a new admission control.
+   *
+   * @param maxConcurrent the maximum number of searches executed at the same time, greater than
+   *     zero
+   * @param maxQueued the maximum number of searches of each priority class waiting for their
+   *     execution, not negative
+   * @param maxWait the maximum amount of time a search waits for its execution, not negative
+   */
+  public AdmissionControl(int maxConcurrent, int maxQueued, Duration maxWait) {
+    this.maxConcurrent = greaterThan(0, maxConcurrent);
+    this.maxQueued = greaterThan(-1, maxQueued);
+    if (notNull(maxWait).isNegative()) {
+      throw new IllegalArgumentException("Maximum wait time must not be negative");
+    }
+    this.maxWait = maxWait;
+    lock = new ReentrantLock();
+    classes = new EnumMap<>(SearchPriority.class);
+    classes.put(
+        SearchPriority.INTERACTIVE, new PriorityClass(SearchPriority.INTERACTIVE, maxConcurrent));
+    classes.put(
+        SearchPriority.BACKGROUND,
+        new PriorityClass(SearchPriority.BACKGROUND, Math.max(1, maxConcurrent / 2)));
+    running = 0;
+  }
+
+  /**
+   * Admits an interactive search for execution, waiting for one of the execution slots if
+   * necessary. Every successful call of this method must be followed by a call of {@link
+   * #release()} once the search has been executed.
+   *
+   * @return the time spent waiting in nanoseconds
+   * @throws SearchRejectedException if too many searches are waiting already, or no execution slot
+   *     became available within the maximum wait time
+   * @throws SearchException if the current thread is interrupted while waiting
+   */
+  public long admit() throws SearchException {
+    return admit(SearchPriority.INTERACTIVE, Long.MAX_VALUE);
+  }
+
+  /**
+   * Admits a search of the given priority for execution, waiting for one of the execution slots if
+   * necessary, but at most the given amount of time, if that is shorter than the maximum wait time.
+   * Every successful call of this method must be followed by a call of {@link
+   * #release(SearchPriority)} with the same priority once the search has been executed.
+   *
+   * @param priority the priority of the search
+   * @param maxWaitNanos the maximum time to wait in nanoseconds, e.g., the time left until the
+   *     deadline of the search
+   * @return the time spent waiting in nanoseconds
+   * @throws SearchRejectedException if too many searches of the same priority are waiting already,
+   *     or no execution slot became available in time
+   * @throws SearchException if the current thread is interrupted while waiting
+   */
+  public long admit(SearchPriority priority, long maxWaitNanos) throws SearchException {
+    PriorityClass priorityClass = classes.get(notNull(priority));
+    lock.lock();
+    try {
+      if (priorityClass.waiters.isEmpty() && hasSlotFor(priorityClass)) {
+        occupySlot(priorityClass);
+        return 0;
+      }
+      if (priorityClass.waiters.size() >= maxQueued) {
+        throw new SearchRejectedException(
+            "Too many searches are waiting for their execution", retryAfter());
+      }
+      Waiter waiter = new Waiter(lock.newCondition());
+      priorityClass.waiters.addLast(waiter);
+      long waitStart = System.nanoTime();
+      long remainingNanos = Math.min(maxWait.toNanos(), maxWaitNanos);
+      try {
+        while (!waiter.admitted) {
+          if (remainingNanos <= 0) {
+            priorityClass.waiters.remove(waiter);
+            throw new SearchRejectedException(
+                "Timed out while waiting for the execution of the search", retryAfter());
+          }
+          remainingNanos = waiter.condition.awaitNanos(remainingNanos);
+        }
+        return System.nanoTime() - waitStart;
+      } catch (InterruptedException e) {
+        if (waiter.admitted) {
+          // The slot has been handed over already, pass it on to the next waiting search
+          releaseSlot(priorityClass);
+        } else {
+          priorityClass.waiters.remove(waiter);
+        }
+        Thread.currentThread().interrupt();
+        throw new SearchException("Interrupted while waiting for the execution of the search", e);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Admits a background search for execution only if an execution slot is available right away
+   * and no other search is waiting for one. Intended for optional background work, which must not
+   * delay other searches. Every successful call of this method must be followed by a call of
+   * {@link #release(SearchPriority)} with {@link SearchPriority#BACKGROUND} once the search has
+   * been executed.
+   *
+   * @return {@code true} if the search was admitted
+   */
+  public boolean tryAdmit() {
+    PriorityClass priorityClass = classes.get(SearchPriority.BACKGROUND);
+    lock.lock();
+    try {
+      if (getQueued() > 0 || !hasSlotFor(priorityClass)) {
+        return false;
+      }
+      occupySlot(priorityClass);
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Releases the execution slot of an interactive search previously {@link #admit() admitted}. */
+  public void release() {
+    release(SearchPriority.INTERACTIVE);
+  }
+
+  /**
+   * Releases the execution slot of a search previously {@link #admit(SearchPriority, long)
+   * admitted} with the given priority, handing it to the next waiting search, if any.
+   *
+   * @param priority the priority with which the search was admitted
+   */
+  public void release(SearchPriority priority) {
+    PriorityClass priorityClass = classes.get(notNull(priority));
+    lock.lock();
+    try {
+      releaseSlot(priorityClass);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the number of searches currently waiting for their execution.
+   *
+   * @return the number of waiting searches
+   */
+  public int getQueued() {
+    lock.lock();
+    try {
+      return classes.values().stream().mapToInt(c -> c.waiters.size()).sum();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the number of searches of the given priority currently waiting for their execution.
+   *
+   * @param priority the priority
+   * @return the number of waiting searches
+   */
+  public int getQueued(SearchPriority priority) {
+    PriorityClass priorityClass = classes.get(notNull(priority));
+    lock.lock();
+    try {
+      return priorityClass.waiters.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private boolean hasSlotFor(PriorityClass priorityClass) {
+    return running < maxConcurrent && priorityClass.running < priorityClass.maxRunning;
+  }
+
+  private void occupySlot(PriorityClass priorityClass) {
+    running++;
+    priorityClass.running++;
+  }
+
+  private void releaseSlot(PriorityClass priorityClass) {
+    running--;
+    priorityClass.running--;
+    // Hand out the free slots via smooth weighted round-robin among the classes that can use them
+    while (true) {
+      PriorityClass next = null;
+      int totalWeight = 0;
+      for (PriorityClass candidate : classes.values()) {
+        if (candidate.waiters.isEmpty() || !hasSlotFor(candidate)) {
+          continue;
+        }
+        candidate.credit += candidate.weight;
+        totalWeight += candidate.weight;
+        if (next == null || candidate.credit > next.credit) {
+          next = candidate;
+        }
+      }
+      if (next == null) {
+        return;
+      }
+      next.credit -= totalWeight;
+      Waiter waiter = next.waiters.removeFirst();
+      occupySlot(next);
+      waiter.admitted = true;
+      waiter.condition.signal();
+    }
+  }
+
+  private Duration retryAfter() {
+    return maxWait.compareTo(Duration.ofSeconds(1)) < 0 ? Duration.ofSeconds(1) : maxWait;
+  }
+
+  /** The queue and execution state of the searches of a single priority. */
+  private static class PriorityClass {
+
+    private final int weight;
+    private final int maxRunning;
+    private final Deque<Waiter> waiters;
+    private int running;
+    private int credit;
+
+    private PriorityClass(SearchPriority priority, int maxRunning) {
+      weight = priority.getWeight();
+      this.maxRunning = maxRunning;
+      waiters = new ArrayDeque<>();
+      running = 0;
+      credit = 0;
+    }
+  }
+
+  /** A search waiting for its execution. */
+  private static class Waiter {
+
+    private final Condition condition;
+    private boolean admitted;
+
+    private Waiter(Condition condition) {
+      this.condition = condition;
+      admitted = false;
+    }
+  }
+}
@@ -0,0 +1,47 @@
+package de.fullben.hermes.search;
+
+import static de.fullben.hermes.util.Preconditions.notBlank;
+import static de.fullben.hermes.util.Preconditions.notNull;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * The result pages of a single search, as loaded from the {@link PageArchive}.
+ *
+ * @author Benedikt Full
+ */
+public class ArchivedSearch {
+
+  private final String query;
+  private final Instant fetchedAt;
+  private final List<SearchPage> pages;
+
+  public ArchivedSearch(String query, Instant fetchedAt, List<SearchPage> pages) {
+    this.query = notBlank(query);
+    this.fetchedAt = notNull(fetchedAt);
+    this.pages = List.copyOf(notNull(pages));
+  }
+
+  /**
+   * The canonical query of the search.
+   *
+   * @return the query
+   */
+  public String getQuery() {
+    return query;
+  }
+
+  /**
+   * The point in time at which the pages were fetched from the web search provider.
+   *
+   * @return the fetch time
+   */
+  public Instant getFetchedAt() {
+    return fetchedAt;
+  }
+
+  public List<SearchPage> getPages() {
+    return pages;
+  }
+}
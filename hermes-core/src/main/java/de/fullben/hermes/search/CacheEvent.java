@@ -0,0 +1,34 @@
+package de.fullben.hermes.search;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for the outcome of a result cache lookup, or the removal of results from
+ * the cache.
+ *
+ * @author Benedikt Full
+ */
+@Name("de.fullben.hermes.Cache")
+@Label("Result Cache")
+@Category({"Hermes", "Search"})
+@Description("Lookup in or removal from the result cache of a web search provider")
+final class CacheEvent extends jdk.jfr.Event {
+
+  @Label("Provider")
+  String provider;
+
+  @Label("Query")
+  @Description("Hash of the canonical query, the query itself is not recorded")
+  String query;
+
+  @Label("Outcome")
+  @Description("HIT, MISS, COALESCED, LOCAL, or EVICTED")
+  String outcome;
+
+  @Label("Removal Cause")
+  @Description("Why the results were removed from the cache, only set for evictions")
+  String cause;
+}
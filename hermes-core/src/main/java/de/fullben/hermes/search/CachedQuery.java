@@ -0,0 +1,66 @@
+package de.fullben.hermes.search;
+
+import static de.fullben.hermes.util.Preconditions.notBlank;
+import static de.fullben.hermes.util.Preconditions.notNull;
+
+import de.fullben.hermes.representation.SearchResultField;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Describes the cached results of a query.
+ *
+ * @author Benedikt Full
+ */
+public class CachedQuery {
+
+  private final String query;
+  private final int resultCount;
+  private final Set<SearchResultField> fields;
+  private final Duration expireAfter;
+  private final Duration expiresIn;
+
+  public CachedQuery(
+      String query,
+      int resultCount,
+      Set<SearchResultField> fields,
+      Duration expireAfter,
+      Duration expiresIn) {
+    this.query = notBlank(query);
+    this.resultCount = resultCount;
+    this.fields = Set.copyOf(notNull(fields));
+    this.expireAfter = notNull(expireAfter);
+    this.expiresIn = notNull(expiresIn);
+  }
+
+  public String getQuery() {
+    return query;
+  }
+
+  public int getResultCount() {
+    return resultCount;
+  }
+
+  public Set<SearchResultField> getFields() {
+    return fields;
+  }
+
+  /**
+   * The total amount of time for which the results remain in the cache, as adapted to how much the
+   * results of the query changed between previous searches.
+   *
+   * @return the lifetime of the cached results
+   */
+  public Duration getExpireAfter() {
+    return expireAfter;
+  }
+
+  /**
+   * The remaining amount of time until the results are evicted from the cache.
+   *
+   * @return the remaining lifetime of the cached results
+   */
+  public Duration getExpiresIn() {
+    return expiresIn;
+  }
+}
@@ -0,0 +1,1273 @@
+package de.fullben.hermes.search;
+
+import static de.fullben.hermes.util.Preconditions.greaterThan;
+import static de.fullben.hermes.util.Preconditions.notNull;
+import static org.apache.logging.log4j.util.Unbox.box;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import de.fullben.hermes.representation.SearchResultField;
+import de.fullben.hermes.representation.SearchResultRepresentation;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jsoup.Jsoup;
+
+/**
+ * Base class for simple web search service implementations. Uses a specific web search
+ * implementation which can be utilized to acquire a set of results for a given query term (see
+ * {@link #search(String, int)}. Results are cached in an instance-maintained {@link Caffeine}
+ * cache, for a duration that is adapted to how much the results of each query change between
+ * searches (see {@link AdaptiveExpiry}).
+ *
+ * <p>Queries are converted to their canonical form (see {@link QueryCanonicalizer}) before they are
+ * looked up in the cache or sent to the web search provider. Concurrent cache misses for the same
+ * canonical query are coalesced, so that only one of them contacts the web search provider while
+ * the others wait for its results.
+ *
+ * <p>Searches which have to contact the web search provider are subject to admission control (see
+ * {@link AdmissionControl}), which favors interactive searches over background work, such as
+ * prefetches, according to the {@link SearchContext#getPriority() priority} of each search. If the
+ * provider is overloaded, such searches are rejected, while searches which can be answered from
+ * the cache are not affected.
+ *
+ * <p>If a {@link PageArchive} is provided, the result pages of every successful search are
+ * archived, so that cached results can later be rebuilt from the archived pages (see {@link
+ * #reparseArchive(boolean)}).
+ *
+ * <p>Cached results are also held by a {@link ResultIndex}, which allows answering searches
+ * locally, either on request (see {@link #searchLocal(String, int, int, Set, SearchContext)}) or,
+ * if enabled, as a fallback whenever the provider cannot be contacted.
+ *
+ * @author Benedikt Full
+ */
+public abstract class CachingWebSearch {
+
+  private static final Logger LOG = LogManager.getLogger(CachingWebSearch.class);
+  private static final int MAX_HOT_QUERIES = 100;
+  private final WebSearchClient webSearchClient;
+  private final SearchResultParser webSearchResultParser;
+  private final QueryCanonicalizer queryCanonicalizer;
+  private final PageArchive pageArchive;
+  private volatile ProviderSettings settings;
+  private volatile AdaptiveExpiry adaptiveExpiry;
+  private final Cache<String, CachedResults> resultCache;
+  private final Cache<String, CachedResults> expiredResults;
+  private final ConcurrentMap<String, PendingSearch> pendingSearches;
+  private final QueryFrequencySketch querySketch;
+  private final SuggestionIndex suggestionIndex;
+  private final ResultIndex resultIndex;
+  private final AdmissionControl admissionControl;
+  private final ProviderHealth providerHealth;
+  private final Executor prefetchExecutor;
+  private final boolean localFallback;
+  private final Duration defaultTimeout;
+  private final Duration maxTimeout;
+  private volatile int maxTries;
+  private final int resultCountPadding;
+
+  public CachingWebSearch(
+      WebSearchClient webSearchClient,
+      SearchResultParser webSearchResultParser,
+      ProviderSettings settings) {
+    this(webSearchClient, webSearchResultParser, new QueryCanonicalizer(), settings);
+  }
+
+  public CachingWebSearch(
+      WebSearchClient webSearchClient,
+      SearchResultParser webSearchResultParser,
+      QueryCanonicalizer queryCanonicalizer,
+      ProviderSettings settings) {
+    this(
+        webSearchClient,
+        webSearchResultParser,
+        queryCanonicalizer,
+        settings,
+        PageArchive.disabled());
+  }
+
+  public CachingWebSearch(
+      WebSearchClient webSearchClient,
+      SearchResultParser webSearchResultParser,
+      QueryCanonicalizer queryCanonicalizer,
+      ProviderSettings settings,
+      PageArchive pageArchive) {
+    this(webSearchClient, webSearchResultParser, queryCanonicalizer, settings, pageArchive, null);
+  }
+
+  /**
+   * Creates a new instance.
+   *
+   * @param webSearchClient the client used for requesting result pages from the provider
+   * @param webSearchResultParser the parser used for extracting results from result pages
+   * @param queryCanonicalizer the canonicalizer applied to all queries
+   * @param settings the settings of the provider
+   * @param pageArchive the archive in which result pages are stored
+   * @param prefetchExecutor the executor on which results are prefetched, may be {@code null}, in
+   *     which case results are never prefetched
+   */
+  public CachingWebSearch(
+      WebSearchClient webSearchClient,
+      SearchResultParser webSearchResultParser,
+      QueryCanonicalizer queryCanonicalizer,
+      ProviderSettings settings,
+      PageArchive pageArchive,
+      Executor prefetchExecutor) {
+    notNull(settings);
+    this.webSearchClient = notNull(webSearchClient);
+    this.webSearchResultParser = notNull(webSearchResultParser);
+    this.queryCanonicalizer = notNull(queryCanonicalizer);
+    this.pageArchive = notNull(pageArchive);
+    this.settings = settings;
+    adaptiveExpiry = adaptiveExpiry(settings);
+    resultCache =
+        Caffeine.newBuilder()
+            .expireAfter(new CachedResultsExpiry())
+            .maximumSize(settings.getCacheMaxSize())
+            .removalListener(this::onRemoval)
+            .build();
+    // Results evicted from the cache are kept for comparison with the results of the next search
+    expiredResults =
+        Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofMinutes(settings.getCacheMaxExpireAfterMins()))
+            .maximumSize(settings.getCacheMaxSize())
+            .build();
+    pendingSearches = new ConcurrentHashMap<>();
+    querySketch = new QueryFrequencySketch(4 * settings.getCacheMaxSize(), MAX_HOT_QUERIES);
+    suggestionIndex = new SuggestionIndex();
+    resultIndex = new ResultIndex();
+    admissionControl =
+        new AdmissionControl(
+            settings.getMaxConcurrentSearches(),
+            settings.getMaxQueuedSearches(),
+            settings.getMaxQueueWait());
+    providerHealth = new ProviderHealth(settings.getLayoutFailureCooldown());
+    this.prefetchExecutor = settings.isPrefetch() ? prefetchExecutor : null;
+    localFallback = settings.isLocalFallback();
+    defaultTimeout = settings.getDefaultTimeout();
+    maxTimeout = settings.getMaxTimeout();
+    maxTries = settings.getMaxTries();
+    resultCountPadding = 2;
+  }
+
+  /**
+   * Returns the web search provider used by this instance.
+   *
+   * @return the provider
+   */
+  public abstract SearchProvider getProvider();
+
+  /**
+   * Runs the web search for the provided query term and returns a list of the found results.
+   * Usually, these results are limited to the easily parsable results. In order to be <i>easily
+   * parsable</i>, results must be in the default result formatting of the web search provider
+   * employed by this instance. Web search providers will often present some of the first results in
+   * a different layout than subsequent results. These results may not be returned by this method.
+   *
+   * <p>Note that this service employs caching. While the first call to this method with some
+   * specific query (e.g., <i>apple</i>) will result in a request to the web search, subsequent
+   * calls with an equivalent query (e.g., <i>apple</i>, <i>Apple</i>, or <i>&nbsp;apple </i>, as
+   * web search queries are case-insensitive and ignore surrounding whitespace) will return a
+   * cached result for a certain amount of time.
+   *
+   * @param query the search term, case-insensitive
+   * @param resultCount the number of search results to be returned
+   * @return a list of search results, containing the number of items specified via {@code
+   *     resultCount}
+   * @throws SearchException if an error is encountered while trying to run the web search or
+   *     parsing the resulting website
+   * @throws IllegalArgumentException if the given query is {@code null} or blank, or the result
+   *     count is smaller than 1
+   */
+  public List<SearchResultRepresentation> search(String query, int resultCount)
+      throws SearchException {
+    return search(query, 0, resultCount, SearchResultField.all(), SearchContext.create());
+  }
+
+  /**
+   * Runs the web search for the provided query term and returns a list of the found results, just
+   * like {@link #search(String, int)}, but limited to the given fields. Fields that are not
+   * requested are {@code null} in the returned results and, if the results are not cached yet, are
+   * not even extracted from the result pages. Cached results can only be used if they contain all
+   * requested fields. Additionally, the time spent in the individual phases of the search is
+   * recorded in the given context.
+   *
+   * @param query the search term, case-insensitive
+   * @param resultCount the number of search results to be returned
+   * @param fields the fields to be returned for each result, not empty
+   * @param context the context of the search request, not {@code null}
+   * @return a list of search results, containing the number of items specified via {@code
+   *     resultCount}
+   * @throws SearchException if an error is encountered while trying to run the web search or
+   *     parsing the resulting website
+   * @throws IllegalArgumentException if the given query is {@code null} or blank, the result count
+   *     is smaller than 1, the fields are {@code null} or empty, or the context is {@code null}
+   */
+  public List<SearchResultRepresentation> search(
+      String query, int resultCount, Set<SearchResultField> fields, SearchContext context)
+      throws SearchException {
+    return search(query, 0, resultCount, fields, context);
+  }
+
+  /**
+   * Runs the web search for the provided query term and returns the found results starting at the
+   * given offset, just like {@link #search(String, int, Set, SearchContext)}. Thus, clients can
+   * page through the results of a query, e.g., by requesting the results 40 to 49 via an offset of
+   * 40 and a result count of 10.
+   *
+   * <p>Requests for any but the first results of a query indicate that a client is paging through
+   * the results. For such requests, the results of the next page are requested from the web search
+   * provider in the background, unless they are cached already. This only happens if the provider
+   * has spare capacity, i.e., if no other search is waiting for admission.
+   *
+   * <p>If the provider cannot be contacted (e.g., because it is overloaded or its pages cannot be
+   * processed) and the local fallback is enabled, the search is answered from the local index of
+   * cached results instead, just like {@link #searchLocal(String, int, int, Set, SearchContext)}.
+   * Such answers are flagged via the {@link SearchContext.CacheOutcome#LOCAL LOCAL} outcome in the
+   * given context. The fallback does not apply to searches rejected due to the quota of the
+   * client, or if the local index has no matching results.
+   *
+   * <p>Searches are bounded by the {@link SearchContext#getTimeout() timeout} of the given context,
+   * which defaults to the default timeout of the provider and is capped at its maximum timeout. If
+   * the deadline passes before enough results are found, the results found so far are returned
+   * rather than failing the search, and the context is flagged as {@link SearchContext#isPartial()
+   * partial}. Searches joining an equivalent search that is already in progress are bound by the
+   * deadline of that search as well. A search only joins a search of lower priority once that has
+   * been admitted, and searches on its own if the joined search is rejected before contacting the
+   * provider. Partial results are never cached.
+   *
+   * @param query the search term, case-insensitive
+   * @param offset the number of results to be skipped, zero for the first results
+   * @param resultCount the number of search results to be returned
+   * @param fields the fields to be returned for each result, not empty
+   * @param context the context of the search request, not {@code null}
+   * @return a list of search results, containing the number of items specified via {@code
+   *     resultCount}
+   * @throws SearchException if an error is encountered while trying to run the web search or
+   *     parsing the resulting website
+   * @throws IllegalArgumentException if the given query is {@code null} or blank, the offset is
+   *     negative, the result count is smaller than 1, the fields are {@code null} or empty, or the
+   *     context is {@code null}
+   */
+  public List<SearchResultRepresentation> search(
+      String query,
+      int offset,
+      int resultCount,
+      Set<SearchResultField> fields,
+      SearchContext context)
+      throws SearchException {
+    greaterThan(-1, offset);
+    greaterThan(0, resultCount);
+    greaterThan(0, notNull(fields).size());
+    notNull(context);
+    query = queryCanonicalizer.canonicalize(query);
+    context.setQuery(query);
+    if (context.getTimeout() == null) {
+      context.setTimeout(defaultTimeout);
+    } else if (context.getTimeout().compareTo(maxTimeout) > 0) {
+      context.setTimeout(maxTimeout);
+    }
+    try {
+      return searchProvider(query, offset, resultCount, fields, context);
+    } catch (SearchException e) {
+      if (!localFallback
+          || e instanceof QuotaExceededException
+          || e instanceof InsufficientResultsException) {
+        throw e;
+      }
+      List<SearchResultRepresentation> results =
+          searchIndex(query, offset, resultCount, fields, context);
+      if (results.isEmpty()) {
+        throw e;
+      }
+      LOG.debug("Answered query '{}' locally, as {} is unavailable", query, getProvider(), e);
+      return results;
+    }
+  }
+
+  /**
+   * Answers the given query from the local index of cached results (see {@link ResultIndex}),
+   * without contacting the web search provider. Unlike the results returned by {@link
+   * #search(String, int, int, Set, SearchContext)}, the returned results are not the results of
+   * the query itself, but those cached results of other queries that best match the query. Thus,
+   * fewer results than requested may be returned, and fields that were not extracted for a result
+   * are {@code null}.
+   *
+   * @param query the search term, case-insensitive
+   * @param offset the number of results to be skipped, zero for the first results
+   * @param resultCount the maximum number of search results to be returned
+   * @param fields the fields to be returned for each result, not empty
+   * @param context the context of the search request, not {@code null}
+   * @return the best matching cached results, ordered by decreasing relevance, may be empty
+   * @throws QuotaExceededException if the quota of the client is exhausted
+   * @throws IllegalArgumentException if the given query is {@code null} or blank, the offset is
+   *     negative, the result count is smaller than 1, the fields are {@code null} or empty, or the
+   *     context is {@code null}
+   */
+  public List<SearchResultRepresentation> searchLocal(
+      String query,
+      int offset,
+      int resultCount,
+      Set<SearchResultField> fields,
+      SearchContext context)
+      throws QuotaExceededException {
+    greaterThan(-1, offset);
+    greaterThan(0, resultCount);
+    greaterThan(0, notNull(fields).size());
+    notNull(context);
+    query = queryCanonicalizer.canonicalize(query);
+    context.setQuery(query);
+    charge(context, SearchContext.CacheOutcome.LOCAL);
+    return searchIndex(query, offset, resultCount, fields, context);
+  }
+
+  private List<SearchResultRepresentation> searchProvider(
+      String query,
+      int offset,
+      int resultCount,
+      Set<SearchResultField> fields,
+      SearchContext context)
+      throws SearchException {
+    // All results up to the requested ones have to be acquired, as providers cannot skip results
+    int requiredCount = offset + resultCount;
+
+    // If cached search results exist, return a copy of the cached values
+    long cacheStart = System.nanoTime();
+    CachedResults cachedResults = resultCache.getIfPresent(query);
+    context.addTime(SearchContext.Phase.CACHE, System.nanoTime() - cacheStart);
+    if (cachedResults != null && cachedResults.covers(requiredCount, fields)) {
+      recordOutcome(query, SearchContext.CacheOutcome.HIT, context);
+      charge(context, SearchContext.CacheOutcome.HIT);
+      querySketch.record(query, false);
+      prefetchIfPaging(query, offset, resultCount, cachedResults.fields);
+      return copyOf(cachedResults.results, offset, resultCount, fields);
+    }
+
+    // Join an equivalent search that is already in progress, if it will yield enough results
+    // Also extract the fields of already cached results, so that the cache entry covers both
+    Set<SearchResultField> parsedFields = EnumSet.copyOf(fields);
+    if (cachedResults != null) {
+      parsedFields.addAll(cachedResults.fields);
+    }
+    SearchPriority priority = context.getPriority();
+    PendingSearch search = new PendingSearch(requiredCount, parsedFields, priority);
+    PendingSearch pendingSearch = pendingSearches.get(query);
+    if (pendingSearch == null || !pendingSearch.canJoin(requiredCount, fields, priority)) {
+      providerHealth.checkAvailable();
+      pendingSearch = pendingSearches.putIfAbsent(query, search);
+    }
+    if (pendingSearch != null && pendingSearch.canJoin(requiredCount, fields, priority)) {
+      charge(context, SearchContext.CacheOutcome.COALESCED);
+      recordOutcome(query, SearchContext.CacheOutcome.COALESCED, context);
+      querySketch.record(query, false);
+      List<SearchResultRepresentation> results = pendingSearch.await(query, context);
+      if (results == null) {
+        // The search was abandoned before contacting the provider, thus search on our own
+        return searchProvider(query, offset, resultCount, fields, context);
+      }
+      return limit(results, offset, resultCount, fields, context);
+    }
+
+    // Only charge the quota once the search is known to contact the provider. A search rejected
+    // due to the quota of one client is abandoned, so that the searches of other clients that
+    // joined it in the meantime search on their own rather than failing
+    try {
+      charge(context, SearchContext.CacheOutcome.MISS);
+    } catch (QuotaExceededException e) {
+      pendingSearches.remove(query, search);
+      search.abandon();
+      throw e;
+    }
+    recordOutcome(query, SearchContext.CacheOutcome.MISS, context);
+    querySketch.record(query, true);
+    try {
+      // Only searches that contact the provider are subject to admission control, so that cache
+      // hits are still answered right away when the provider is overloaded
+      context.addTime(
+          SearchContext.Phase.QUEUE,
+          admissionControl.admit(context.getPriority(), context.getRemainingNanos()));
+    } catch (SearchException | RuntimeException e) {
+      // Searches that joined this one have deadlines of their own, thus they must not inherit the
+      // rejection, but search on their own instead
+      pendingSearches.remove(query, search);
+      search.abandon();
+      if (e instanceof SearchRejectedException && context.isExpired()) {
+        // The deadline passed while waiting for admission, thus there are no results yet
+        context.setPartial(true);
+        return new ArrayList<>();
+      }
+      throw e;
+    }
+    search.admitted = true;
+    List<SearchResultRepresentation> results;
+    try {
+      results = execute(query, requiredCount, parsedFields, search, context);
+    } finally {
+      admissionControl.release(context.getPriority());
+    }
+    prefetchIfPaging(query, offset, resultCount, parsedFields);
+    // Results may contain more items than requested, thus limit
+    return limit(results, offset, resultCount, fields, context);
+  }
+
+  /**
+   * Suggests queries for the given prefix, e.g., for completing a query while it is being typed.
+   * Suggestions are drawn from the queries with cached results and the queries searched for most
+   * frequently. Queries with cached results are suggested first, as searching for them is
+   * answered right away, followed by the other queries. Within each group, queries are ordered by
+   * their estimated frequency.
+   *
+   * <p>Suggestions never contact the web search provider and are thus answered within well under
+   * a millisecond.
+   *
+   * @param prefix the beginning of a query, case-insensitive
+   * @param limit the maximum number of suggestions to be returned
+   * @return the suggested queries, in canonical form
+   * @throws IllegalArgumentException if the given prefix is {@code null} or blank, or the limit is
+   *     smaller than 1
+   */
+  public List<QuerySuggestion> suggest(String prefix, int limit) {
+    greaterThan(0, limit);
+    String canonicalPrefix = queryCanonicalizer.canonicalize(prefix);
+    if (Character.isWhitespace(prefix.charAt(prefix.length() - 1))) {
+      // The user has completed a term, thus only suggest queries that continue with another term
+      canonicalPrefix += " ";
+    }
+    Map<String, QuerySuggestion> suggestions = new HashMap<>();
+    // Cached queries are suggested first, thus only the most frequent ones are ever returned
+    for (String query :
+        suggestionIndex.mostFrequentWithPrefix(
+            canonicalPrefix, limit, cached -> querySketch.estimate(cached).getSearches())) {
+      suggestions.put(
+          query, new QuerySuggestion(query, querySketch.estimate(query).getSearches(), true));
+    }
+    for (QueryFrequency frequency : querySketch.getHeavyHitters(MAX_HOT_QUERIES)) {
+      if (frequency.getQuery().startsWith(canonicalPrefix)) {
+        suggestions.putIfAbsent(
+            frequency.getQuery(),
+            new QuerySuggestion(frequency.getQuery(), frequency.getSearches(), false));
+      }
+    }
+    return suggestions.values().stream()
+        .sorted(
+            Comparator.comparing(QuerySuggestion::isCached)
+                .thenComparingLong(QuerySuggestion::getSearches)
+                .reversed()
+                .thenComparing(QuerySuggestion::getQuery))
+        .limit(limit)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Returns the canonical form of the given query, under which its results are cached.
+   *
+   * @param query a query, case-insensitive
+   * @return the canonical form of the query
+   * @throws IllegalArgumentException if the given query is {@code null} or blank
+   */
+  public String canonicalize(String query) {
+    return queryCanonicalizer.canonicalize(query);
+  }
+
+  /**
+   * Returns whether the pages of the provider can currently be processed.
+   *
+   * @return the health of the provider
+   */
+  public ProviderHealth getHealth() {
+    return providerHealth;
+  }
+
+  /**
+   * Probes whether the pages of the provider can still be processed by searching for the given
+   * canary query, i.e., a query whose result pages are known to contain plenty of results. The
+   * result pages are always requested from the provider, in a single attempt, and the found
+   * results are neither cached nor archived.
+   *
+   * <p>The outcome feeds the {@link #getHealth() health} of the provider: if the pages cannot be
+   * processed due to their structure, the provider is considered broken right away, sparing
+   * clients the failing searches. Probes are executed even while the provider is broken, and a
+   * successful probe lets the provider recover right away. Pages yielding fewer results than
+   * expected, as well as errors not related to the structure of the pages (e.g., network errors),
+   * do not affect the health, but are reported via the outcome of the probe.
+   *
+   * <p>Probes are only executed if the provider has capacity to spare (see {@link
+   * AdmissionControl#tryAdmit()}), so that they never delay searches.
+   *
+   * @param query the canary query, case-insensitive
+   * @param resultCount the number of results expected on the result pages of the query
+   * @return the outcome of the probe, empty if the provider had no capacity to spare
+   * @throws IllegalArgumentException if the given query is {@code null} or blank, or the result
+   *     count is smaller than 1
+   */
+  public Optional<CanaryResult> probe(String query, int resultCount) {
+    greaterThan(0, resultCount);
+    String canonicalQuery = queryCanonicalizer.canonicalize(query);
+    if (!admissionControl.tryAdmit()) {
+      return Optional.empty();
+    }
+    SearchContext context = SearchContext.create();
+    context.setPriority(SearchPriority.BACKGROUND);
+    context.setTimeout(defaultTimeout);
+    Instant probedAt = Instant.now();
+    long startTime = System.nanoTime();
+    CanaryResult result;
+    try {
+      List<SearchPage> pages = webSearchClient.search(canonicalQuery, resultCount, context);
+      List<SearchResultRepresentation> results = parse(pages, SearchResultField.all(), context);
+      int dropped = pages.stream().mapToInt(page -> page.getTrace().getDroppedCount()).sum();
+      result =
+          new CanaryResult(
+              canonicalQuery,
+              probedAt,
+              Duration.ofNanos(System.nanoTime() - startTime),
+              resultCount,
+              results.size(),
+              dropped,
+              null,
+              null);
+      if (!results.isEmpty() && providerHealth.recordSuccess()) {
+        LOG.info("Canary probe found pages of provider {} can be processed again", getProvider());
+      }
+    } catch (DocumentStructureException e) {
+      if (providerHealth.recordFailure(e)) {
+        LOG.warn(
+            "Canary probe found pages of provider {} cannot be processed ({}), rejecting searches"
+                + " for now",
+            getProvider(),
+            e.getFailure(),
+            e);
+      }
+      result = failedProbe(canonicalQuery, probedAt, startTime, resultCount, e.getFailure(), e);
+    } catch (SearchException e) {
+      result = failedProbe(canonicalQuery, probedAt, startTime, resultCount, null, e);
+    } finally {
+      admissionControl.release(SearchPriority.BACKGROUND);
+    }
+    providerHealth.recordCanary(result);
+    return Optional.of(result);
+  }
+
+  private static CanaryResult failedProbe(
+      String query,
+      Instant probedAt,
+      long startTime,
+      int resultCount,
+      PageFailure failure,
+      SearchException e) {
+    Duration latency = Duration.ofNanos(System.nanoTime() - startTime);
+    String error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+    return new CanaryResult(query, probedAt, latency, resultCount, 0, 0, failure, error);
+  }
+
+  /**
+   * Returns the queries searched for most frequently, along with their estimated number of
+   * searches and cache misses (see {@link QueryFrequencySketch}).
+   *
+   * @param limit the maximum number of queries to be returned
+   * @return the most frequent canonical queries, ordered by their frequency
+   */
+  public List<QueryFrequency> getHotQueries(int limit) {
+    return querySketch.getHeavyHitters(limit);
+  }
+
+  /**
+   * Returns a description of the cached results of the given query.
+   *
+   * @param query the search term, case-insensitive
+   * @return the cached results, empty if there are no cached results for the query
+   */
+  public Optional<CachedQuery> getCachedQuery(String query) {
+    String canonicalQuery = queryCanonicalizer.canonicalize(query);
+    return Optional.ofNullable(resultCache.getIfPresent(canonicalQuery))
+        .map(results -> describe(canonicalQuery, results));
+  }
+
+  /**
+   * Returns a description of the cached results which are the least likely to be evicted from the
+   * cache, i.e., the results accessed most frequently.
+   *
+   * @param limit the maximum number of cached results to be returned
+   * @return the cached results, ordered from the most to the least frequently accessed
+   */
+  public List<CachedQuery> getCachedQueries(int limit) {
+    greaterThan(0, limit);
+    Map<String, CachedResults> hottest =
+        resultCache.policy().eviction().map(eviction -> eviction.hottest(limit)).orElseThrow();
+    List<CachedQuery> cachedQueries = new ArrayList<>(hottest.size());
+    hottest.forEach((query, results) -> cachedQueries.add(describe(query, results)));
+    return cachedQueries;
+  }
+
+  /**
+   * Returns the approximate number of queries for which results are cached.
+   *
+   * @return the estimated cache size
+   */
+  public long getCacheSize() {
+    return resultCache.estimatedSize();
+  }
+
+  /**
+   * Returns the maximum number of queries for which results may be cached.
+   *
+   * @return the cache capacity
+   */
+  public long getCacheMaxSize() {
+    return resultCache.policy().eviction().orElseThrow().getMaximum();
+  }
+
+  /**
+   * Returns the settings currently applied by this instance, including the changes made via {@link
+   * #updateSettings(UnaryOperator)}.
+   *
+   * @return the current settings
+   */
+  public ProviderSettings getSettings() {
+    return settings;
+  }
+
+  /**
+   * Changes the cache settings (i.e., the cache size and expiry times) and the maximum number of
+   * tries at runtime, without discarding the cached results. The given update is applied to a
+   * builder initialized with the current settings. As concurrent updates are applied one after
+   * another, no update is lost. Changes of all other settings only take effect when an instance is
+   * created and are thus ignored.
+   *
+   * <p>If the cache size is reduced, results are evicted until the cache fits. Changed expiry
+   * bounds apply to the cached results right away, e.g., results cached for longer than the new
+   * maximum expiry time expire once they have reached it.
+   *
+   * @param update changes the settings of the given builder and returns it
+   * @return the settings before and after the update
+   * @throws IllegalArgumentException if the update is {@code null} or results in invalid settings,
+   *     in which case the settings remain unchanged
+   */
+  public synchronized SettingsUpdate updateSettings(
+      UnaryOperator<ProviderSettings.Builder> update) {
+    ProviderSettings previous = this.settings;
+    ProviderSettings settings = notNull(update).apply(previous.toBuilder()).build();
+    resultCache
+        .policy()
+        .eviction()
+        .ifPresent(eviction -> eviction.setMaximum(settings.getCacheMaxSize()));
+    expiredResults
+        .policy()
+        .eviction()
+        .ifPresent(eviction -> eviction.setMaximum(settings.getCacheMaxSize()));
+    expiredResults
+        .policy()
+        .expireAfterWrite()
+        .ifPresent(
+            expiration ->
+                expiration.setExpiresAfter(
+                    Duration.ofMinutes(settings.getCacheMaxExpireAfterMins())));
+    AdaptiveExpiry expiry = adaptiveExpiry(settings);
+    adaptiveExpiry = expiry;
+    resultCache
+        .policy()
+        .expireVariably()
+        .ifPresent(expiration -> clampLifetimes(expiration, expiry));
+    maxTries = settings.getMaxTries();
+    this.settings =
+        previous.toBuilder()
+            .cacheExpireAfterMins(settings.getCacheExpireAfterMins())
+            .cacheMinExpireAfterMins(settings.getCacheMinExpireAfterMins())
+            .cacheMaxExpireAfterMins(settings.getCacheMaxExpireAfterMins())
+            .cacheMaxSize(settings.getCacheMaxSize())
+            .maxTries(settings.getMaxTries())
+            .build();
+    return new SettingsUpdate(previous, this.settings);
+  }
+
+  /**
+   * Discards the cached results of the given query, so that the next search for the query
+   * contacts the web search provider.
+   *
+   * @param query the search term, case-insensitive
+   * @return {@code true} if there were cached results for the query
+   */
+  public boolean invalidate(String query) {
+    return resultCache.asMap().remove(queryCanonicalizer.canonicalize(query)) != null;
+  }
+
+  /**
+   * Loads and initializes the classes needed for executing searches, without contacting the web
+   * search provider. Calling this method is optional, it merely shifts the cost of initialization
+   * from the first search to the caller (e.g., a background thread during startup).
+   */
+  public void warmUp() {
+    queryCanonicalizer.canonicalize("Warm-up");
+    webSearchClient.warmUp();
+    try {
+      webSearchResultParser.parse(
+          Jsoup.parse("<html><body></body></html>"), SearchResultField.all(), new PageTrace());
+    } catch (SearchException e) {
+      // Expected, as the document does not contain any results
+    }
+  }
+
+  /**
+   * Rebuilds the cached results of all queries whose result pages are held by the page archive. The
+   * results are extracted from the archived pages, rather than requesting the pages from the web
+   * search provider again. Thus, this method can be used for applying changes of the result parser
+   * to previously fetched results. Has no effect if the page archive is disabled.
+   *
+   * <p>Rebuilt results are only cached for the remainder of their initial cache expiry time, as
+   * measured from the point in time at which their pages were fetched. Thus, queries whose pages
+   * were fetched longer ago than the initial cache expiry time are skipped, unless a backfill is
+   * requested, in which case their results are cached as if their pages had just been fetched.
+   * Queries whose archived pages cannot be processed are skipped as well.
+   *
+   * @param backfill whether the results of queries whose pages were fetched longer ago than the
+   *     initial cache expiry time are rebuilt as well
+   * @return the number of queries for which cached results were rebuilt
+   * @throws SearchException if the page archive cannot be read
+   */
+  public int reparseArchive(boolean backfill) throws SearchException {
+    List<String> queries;
+    try {
+      queries = pageArchive.queries(getProvider());
+    } catch (IOException e) {
+      throw new SearchException("Failed to read the page archive of " + getProvider(), e);
+    }
+    int rebuilt = 0;
+    for (String query : queries) {
+      try {
+        if (reparseArchived(query, backfill)) {
+          rebuilt++;
+        }
+      } catch (SearchException e) {
+        LOG.warn("Failed to rebuild the results of archived query '{}'", query, e);
+      }
+    }
+    LOG.info(
+        "Rebuilt cached results of {} out of {} archived {} queries",
+        box(rebuilt),
+        box(queries.size()),
+        getProvider());
+    return rebuilt;
+  }
+
+  /**
+   * Rebuilds the cached results of the given query from its archived result pages, just like
+   * {@link #reparseArchive(boolean)}.
+   *
+   * @param query the search term, case-insensitive
+   * @param backfill whether the results are rebuilt even if the pages were fetched longer ago than
+   *     the initial cache expiry time
+   * @return {@code true} if the cached results were rebuilt, {@code false} if there are no archived
+   *     pages for the query or they are older than the initial cache expiry time and no backfill
+   *     is requested
+   * @throws SearchException if the archived pages cannot be read or processed
+   * @throws IllegalArgumentException if the given query is {@code null} or blank
+   */
+  public boolean reparseArchived(String query, boolean backfill) throws SearchException {
+    query = queryCanonicalizer.canonicalize(query);
+    Optional<ArchivedSearch> archived;
+    try {
+      archived = pageArchive.load(getProvider(), query);
+    } catch (IOException e) {
+      throw new SearchException("Failed to load the archived pages of query '" + query + "'", e);
+    }
+    if (archived.isEmpty()) {
+      return false;
+    }
+    Duration initial = adaptiveExpiry.initial();
+    Duration expiresIn =
+        initial.minus(Duration.between(archived.get().getFetchedAt(), Instant.now()));
+    if (expiresIn.isNegative() || expiresIn.isZero()) {
+      if (!backfill) {
+        return false;
+      }
+      expiresIn = initial;
+    }
+    Set<SearchResultField> fields = SearchResultField.all();
+    List<SearchResultRepresentation> results =
+        parse(archived.get().getPages(), fields, SearchContext.create());
+    cache(query, results, fields);
+    // The results are only as fresh as their pages, not as the time of caching suggests
+    String canonicalQuery = query;
+    Duration remaining = expiresIn;
+    resultCache
+        .policy()
+        .expireVariably()
+        .ifPresent(expiration -> expiration.setExpiresAfter(canonicalQuery, remaining));
+    return true;
+  }
+
+  private List<SearchResultRepresentation> searchIndex(
+      String query,
+      int offset,
+      int resultCount,
+      Set<SearchResultField> fields,
+      SearchContext context) {
+    long cacheStart = System.nanoTime();
+    List<SearchResultRepresentation> results = resultIndex.search(query, offset + resultCount);
+    context.addTime(SearchContext.Phase.CACHE, System.nanoTime() - cacheStart);
+    recordOutcome(query, SearchContext.CacheOutcome.LOCAL, context);
+    return copyOf(results, offset, resultCount, fields);
+  }
+
+  private void cache(
+      String query, List<SearchResultRepresentation> results, Set<SearchResultField> fields) {
+    resultCache.put(query, new CachedResults(results, fields, expireAfter(query, results)));
+    suggestionIndex.add(query);
+    resultIndex.add(query, results);
+  }
+
+  private Duration expireAfter(String query, List<SearchResultRepresentation> results) {
+    // Results replaced while still cached (e.g., extended by further pages) keep their lifetime
+    CachedResults cached = resultCache.getIfPresent(query);
+    if (cached != null) {
+      return cached.expireAfter;
+    }
+    CachedResults previous = expiredResults.getIfPresent(query);
+    if (previous == null) {
+      return adaptiveExpiry.initial();
+    }
+    expiredResults.invalidate(query);
+    Duration expireAfter = adaptiveExpiry.next(previous.expireAfter, previous.results, results);
+    LOG.debug(
+        "Caching results of query '{}' for {} (previously {})",
+        query,
+        expireAfter,
+        previous.expireAfter);
+    return expireAfter;
+  }
+
+  private void onRemoval(String query, CachedResults results, RemovalCause cause) {
+    // Listeners are notified asynchronously, thus the query may have been cached again meanwhile
+    if (cause != RemovalCause.REPLACED && !resultCache.asMap().containsKey(query)) {
+      suggestionIndex.remove(query);
+      resultIndex.remove(query);
+    }
+    if (cause.wasEvicted()) {
+      expiredResults.put(query, results);
+    }
+    CacheEvent event = new CacheEvent();
+    if (event.shouldCommit()) {
+      event.provider = getProvider().name();
+      event.query = QueryDigest.of(query);
+      event.outcome = "EVICTED";
+      event.cause = cause.name();
+      event.commit();
+    }
+  }
+
+  private void recordOutcome(
+      String query, SearchContext.CacheOutcome outcome, SearchContext context) {
+    context.setCacheOutcome(outcome);
+    // Only populate the event if it is actually recorded, keeping disabled events nearly free
+    CacheEvent event = new CacheEvent();
+    if (event.shouldCommit()) {
+      event.provider = getProvider().name();
+      event.query = QueryDigest.of(query);
+      event.outcome = outcome.name();
+      event.commit();
+    }
+  }
+
+  private void clampLifetimes(
+      Policy.VarExpiration<String, CachedResults> expiration, AdaptiveExpiry expiry) {
+    for (Map.Entry<String, CachedResults> entry : resultCache.asMap().entrySet()) {
+      CachedResults results = entry.getValue();
+      Duration expireAfter = expiry.clamp(results.expireAfter);
+      if (expireAfter.equals(results.expireAfter)) {
+        continue;
+      }
+      results.expireAfter = expireAfter;
+      long ageNanos = expiration.ageOf(entry.getKey(), TimeUnit.NANOSECONDS).orElse(0);
+      Duration remaining = expireAfter.minusNanos(ageNanos);
+      expiration.setExpiresAfter(
+          entry.getKey(), remaining.isNegative() ? Duration.ZERO : remaining);
+    }
+  }
+
+  private static AdaptiveExpiry adaptiveExpiry(ProviderSettings settings) {
+    return new AdaptiveExpiry(
+        Duration.ofMinutes(settings.getCacheExpireAfterMins()),
+        Duration.ofMinutes(settings.getCacheMinExpireAfterMins()),
+        Duration.ofMinutes(settings.getCacheMaxExpireAfterMins()));
+  }
+
+  private CachedQuery describe(String query, CachedResults results) {
+    Duration expiresIn =
+        resultCache
+            .policy()
+            .expireVariably()
+            .flatMap(expiration -> expiration.getExpiresAfter(query))
+            .orElse(Duration.ZERO);
+    return new CachedQuery(
+        query,
+        results.results.size(),
+        results.fields,
+        results.expireAfter,
+        expiresIn.isNegative() ? Duration.ZERO : expiresIn);
+  }
+
+  private List<SearchResultRepresentation> execute(
+      String query,
+      int resultCount,
+      Set<SearchResultField> fields,
+      PendingSearch search,
+      SearchContext context)
+      throws SearchException {
+    try {
+      // Actually execute the web search, parse, cache, and return the result
+      // Note: results will contain at least resultCount items, unless the deadline has passed
+      List<SearchResultRepresentation> results =
+          findResults(query, resultCount, fields, maxTries, context);
+      if (!results.isEmpty() && providerHealth.recordSuccess()) {
+        LOG.info("Pages of provider {} can be processed again", getProvider());
+      }
+      // Fewer results than requested are only found if the deadline of the search has passed
+      if (results.size() >= resultCount) {
+        cache(query, results, fields);
+      }
+      search.results.complete(results);
+      return results;
+    } catch (DocumentStructureException e) {
+      // Every further search would fail the same way, thus stop contacting the provider for now
+      if (providerHealth.recordFailure(e)) {
+        LOG.warn(
+            "Pages of provider {} cannot be processed ({}), rejecting searches for now",
+            getProvider(),
+            e.getFailure(),
+            e);
+      }
+      search.fail(e);
+      throw e;
+    } catch (SearchException | RuntimeException e) {
+      search.fail(e);
+      throw e;
+    } finally {
+      pendingSearches.remove(query, search);
+    }
+  }
+
+  private void prefetchIfPaging(
+      String query, int offset, int resultCount, Set<SearchResultField> fields) {
+    if (prefetchExecutor == null || offset == 0 || !providerHealth.isAvailable()) {
+      return;
+    }
+    int prefetchCount = offset + 2 * resultCount;
+    CachedResults cachedResults = resultCache.getIfPresent(query);
+    if (cachedResults != null && cachedResults.covers(prefetchCount, fields)) {
+      return;
+    }
+    // Prefetching is optional, thus only done if the provider has capacity to spare
+    if (pendingSearches.containsKey(query) || !admissionControl.tryAdmit()) {
+      return;
+    }
+    PendingSearch search = new PendingSearch(prefetchCount, fields, SearchPriority.BACKGROUND);
+    search.admitted = true;
+    if (pendingSearches.putIfAbsent(query, search) != null) {
+      admissionControl.release(SearchPriority.BACKGROUND);
+      return;
+    }
+    try {
+      prefetchExecutor.execute(
+          () -> {
+            try {
+              // Searches coalescing onto the prefetch must not wait for it indefinitely
+              SearchContext context = SearchContext.create();
+              context.setPriority(SearchPriority.BACKGROUND);
+              context.setTimeout(defaultTimeout);
+              execute(query, prefetchCount, fields, search, context);
+              LOG.debug("Prefetched {} results for query '{}'", box(prefetchCount), query);
+            } catch (SearchException | RuntimeException e) {
+              LOG.debug("Failed to prefetch results for query '{}'", query, e);
+            } finally {
+              admissionControl.release(SearchPriority.BACKGROUND);
+            }
+          });
+    } catch (RejectedExecutionException e) {
+      pendingSearches.remove(query, search);
+      search.abandon();
+      admissionControl.release(SearchPriority.BACKGROUND);
+    }
+  }
+
+  private static void charge(SearchContext context, SearchContext.CacheOutcome outcome)
+      throws QuotaExceededException {
+    SearchQuota quota = context.getQuota();
+    if (quota != null) {
+      quota.charge(outcome);
+    }
+  }
+
+  private static List<SearchResultRepresentation> limit(
+      List<SearchResultRepresentation> results,
+      int offset,
+      int resultCount,
+      Set<SearchResultField> fields,
+      SearchContext context) {
+    if (results.size() < offset + resultCount) {
+      context.setPartial(true);
+    }
+    return copyOf(results, offset, resultCount, fields);
+  }
+
+  private static List<SearchResultRepresentation> copyOf(
+      List<SearchResultRepresentation> results,
+      int offset,
+      int resultCount,
+      Set<SearchResultField> fields) {
+    return results.stream()
+        .skip(offset)
+        .limit(resultCount)
+        .map(result -> copyOf(result, fields))
+        .collect(Collectors.toList());
+  }
+
+  private static SearchResultRepresentation copyOf(
+      SearchResultRepresentation result, Set<SearchResultField> fields) {
+    if (fields.size() == SearchResultField.all().size()) {
+      return new SearchResultRepresentation(result);
+    }
+    SearchResultRepresentation copy = new SearchResultRepresentation();
+    fields.forEach(field -> field.copy(result, copy));
+    return copy;
+  }
+
+  private List<SearchResultRepresentation> findResults(
+      String query,
+      int resultCount,
+      Set<SearchResultField> fields,
+      int maxTries,
+      SearchContext context)
+      throws SearchException {
+    // Use count+n as initial value, not count, because usually, a page with n results will not
+    // contain n parsable results
+    int minResults = resultCount + resultCountPadding;
+    while ((maxTries -= 1) >= 0) {
+      List<SearchPage> pages = webSearchClient.search(query, minResults, context);
+      List<SearchResultRepresentation> results = parse(pages, fields, context);
+      LOG.debug("Requested {} results, found {}", box(minResults), box(results.size()));
+      if (results.size() >= resultCount) {
+        // Archive the pages only now, as pages that yield too few results are of no use later on
+        pageArchive.store(getProvider(), query, pages);
+        // If we have at least the requested amount of results, return ALL
+        return results;
+      }
+      if (context.isExpired()) {
+        // Better to return the results found so far than none at all
+        LOG.debug(
+            "Deadline passed with {} out of {} results for query '{}'",
+            box(results.size()),
+            box(resultCount),
+            query);
+        return results;
+      }
+      LOG.debug(
+          "Insufficient results ({}) for query '{}' with min result {}, retrying",
+          box(results.size()),
+          query,
+          box(minResults));
+      minResults += resultCountPadding;
+    }
+    throw new InsufficientResultsException(
+        "Failed to find " + resultCount + " results for query '" + query + "'");
+  }
+
+  private List<SearchResultRepresentation> parse(
+      List<SearchPage> pages, Set<SearchResultField> fields, SearchContext context)
+      throws SearchException {
+    List<SearchResultRepresentation> parsedResults = new ArrayList<>();
+    for (SearchPage page : pages) {
+      PageTrace trace = page.getTrace();
+      ExtractEvent event = new ExtractEvent();
+      event.begin();
+      long extractStart = System.nanoTime();
+      try {
+        parsedResults.addAll(webSearchResultParser.parse(page.getDocument(), fields, trace));
+      } catch (DocumentStructureException e) {
+        throw ChallengePages.classify(page.getDocument(), e);
+      } finally {
+        trace.setExtractNanos(System.nanoTime() - extractStart);
+        context.addTime(SearchContext.Phase.EXTRACT, trace.getExtractNanos());
+        context.addPage(trace);
+        event.end();
+        if (event.shouldCommit()) {
+          event.provider = getProvider().name();
+          event.page = trace.getPageNumber();
+          event.results = trace.getParsedCount();
+          event.dropped = trace.getDroppedCount();
+          event.commit();
+        }
+      }
+    }
+    return parsedResults;
+  }
+
+  /** The cached results of a query, along with the fields that were extracted for them. */
+  private static class CachedResults {
+
+    private final List<SearchResultRepresentation> results;
+    private final Set<SearchResultField> fields;
+    // Only changed if the expiry times of the cache are changed
+    private volatile Duration expireAfter;
+
+    private CachedResults(
+        List<SearchResultRepresentation> results,
+        Set<SearchResultField> fields,
+        Duration expireAfter) {
+      this.results = results;
+      this.fields = fields;
+      this.expireAfter = expireAfter;
+    }
+
+    private boolean covers(int resultCount, Set<SearchResultField> requestedFields) {
+      return results.size() >= resultCount && fields.containsAll(requestedFields);
+    }
+  }
+
+  /**
+   * Expires cached results after the lifetime determined when they were first cached. Results
+   * replacing cached results that have not expired yet only live for the remaining lifetime.
+   */
+  private static class CachedResultsExpiry implements Expiry<String, CachedResults> {
+
+    @Override
+    public long expireAfterCreate(String query, CachedResults results, long currentTime) {
+      return results.expireAfter.toNanos();
+    }
+
+    @Override
+    public long expireAfterUpdate(
+        String query, CachedResults results, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
+
+    @Override
+    public long expireAfterRead(
+        String query, CachedResults results, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
+  }
+
+  /** A search for a specific query which is currently being executed by some thread. */
+  private static class PendingSearch {
+
+    private final int resultCount;
+    private final Set<SearchResultField> fields;
+    private final SearchPriority priority;
+    private final CompletableFuture<List<SearchResultRepresentation>> results;
+    private volatile boolean admitted;
+
+    private PendingSearch(int resultCount, Set<SearchResultField> fields, SearchPriority priority) {
+      this.resultCount = resultCount;
+      this.fields = fields;
+      this.priority = priority;
+      results = new CompletableFuture<>();
+      admitted = false;
+    }
+
+    private boolean canJoin(
+        int requestedCount,
+        Set<SearchResultField> requestedFields,
+        SearchPriority requestedPriority) {
+      // Searches must not wait behind a search of lower priority that has not been admitted yet
+      return resultCount >= requestedCount
+          && fields.containsAll(requestedFields)
+          && (admitted || requestedPriority.compareTo(priority) >= 0);
+    }
+
+    /**
+     * Lets the searches waiting for this search execute on their own, as this search is given up
+     * before contacting the provider.
+     */
+    private void abandon() {
+      results.complete(null);
+    }
+
+    private void fail(Exception e) {
+      results.completeExceptionally(e);
+    }
+
+    /**
+     * Waits for the results of this search, at most until the deadline of the given context.
+     *
+     * @return the results, empty if the deadline passed, {@code null} if the search was abandoned
+     */
+    private List<SearchResultRepresentation> await(String query, SearchContext context)
+        throws SearchException {
+      try {
+        if (context.getTimeout() == null) {
+          return results.get();
+        }
+        return results.get(context.getRemainingNanos(), TimeUnit.NANOSECONDS);
+      } catch (TimeoutException e) {
+        // The deadline passed before the search completed, thus there are no results yet
+        return new ArrayList<>();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new SearchException(
+            "Interrupted while waiting for a pending search for query '" + query + "'", e);
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof SearchException) {
+          // Waiting requests fail just like the request that executed the search, so that they are
+          // answered and fall back to the local index the same way
+          throw copyOf((SearchException) e.getCause());
+        }
+        throw new SearchException(
+            "The pending search for query '" + query + "' has failed", e.getCause());
+      }
+    }
+
+    /**
+     * Creates an exception of the same type as the given one, caused by it, so that every waiting
+     * request throws an exception of its own.
+     */
+    private static SearchException copyOf(SearchException e) {
+      SearchException copy;
+      if (e instanceof QuotaExceededException) {
+        copy =
+            new QuotaExceededException(
+                e.getMessage(), ((QuotaExceededException) e).getRetryAfter());
+      } else if (e instanceof ProviderUnavailableException) {
+        copy =
+            new ProviderUnavailableException(
+                e.getMessage(), ((ProviderUnavailableException) e).getRetryAfter());
+      } else if (e instanceof SearchRejectedException) {
+        copy =
+            new SearchRejectedException(
+                e.getMessage(), ((SearchRejectedException) e).getRetryAfter());
+      } else if (e instanceof DocumentStructureException) {
+        copy =
+            new DocumentStructureException(
+                e.getMessage(), ((DocumentStructureException) e).getFailure());
+      } else if (e instanceof InsufficientResultsException) {
+        copy = new InsufficientResultsException(e.getMessage());
+      } else {
+        copy = new SearchException(e.getMessage());
+      }
+      copy.initCause(e);
+      return copy;
+    }
+  }
+}
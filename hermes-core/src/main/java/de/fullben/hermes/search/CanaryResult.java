@@ -0,0 +1,123 @@
+package de.fullben.hermes.search;
+
+import static de.fullben.hermes.util.Preconditions.notBlank;
+import static de.fullben.hermes.util.Preconditions.notNull;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * The outcome of a canary probe, i.e., of a search for a known query that is executed in the
+ * background to check whether the provider still returns pages that can be processed (see {@link
+ * CachingWebSearch#probe(String, int)}).
+ *
+ * @author Benedikt Full
+ */
+public class CanaryResult {
+
+  private final String query;
+  private final Instant probedAt;
+  private final Duration latency;
+  private final int expectedCount;
+  private final int parsedCount;
+  private final int droppedCount;
+  private final PageFailure failure;
+  private final String error;
+
+  public CanaryResult(
+      String query,
+      Instant probedAt,
+      Duration latency,
+      int expectedCount,
+      int parsedCount,
+      int droppedCount,
+      PageFailure failure,
+      String error) {
+    this.query = notBlank(query);
+    this.probedAt = notNull(probedAt);
+    this.latency = notNull(latency);
+    this.expectedCount = expectedCount;
+    this.parsedCount = parsedCount;
+    this.droppedCount = droppedCount;
+    this.failure = failure;
+    this.error = error;
+  }
+
+  public String getQuery() {
+    return query;
+  }
+
+  public Instant getProbedAt() {
+    return probedAt;
+  }
+
+  /**
+   * The time it took to fetch and process the result pages of the query.
+   *
+   * @return the latency of the probe
+   */
+  public Duration getLatency() {
+    return latency;
+  }
+
+  /**
+   * The number of results the probe requested, i.e., the number of results the result pages of
+   * the query are expected to contain.
+   *
+   * @return the expected number of results
+   */
+  public int getExpectedCount() {
+    return expectedCount;
+  }
+
+  public int getParsedCount() {
+    return parsedCount;
+  }
+
+  /**
+   * The number of results found on the result pages which could not be processed, e.g., because
+   * they are presented in an unknown layout.
+   *
+   * @return the number of dropped results
+   */
+  public int getDroppedCount() {
+    return droppedCount;
+  }
+
+  /**
+   * The share of the expected results that could be processed. Declines when the provider changes
+   * the layout of some of its results, even before the pages fail to parse altogether.
+   *
+   * @return the yield, between zero and one
+   */
+  public double getYield() {
+    return expectedCount > 0 ? Math.min(1.0, (double) parsedCount / expectedCount) : 0;
+  }
+
+  /**
+   * The reason why the result pages of the probe could not be processed.
+   *
+   * @return the failure, {@code null} if the pages could be processed or could not be fetched
+   */
+  public PageFailure getFailure() {
+    return failure;
+  }
+
+  /**
+   * The message of the error that caused the probe to fail.
+   *
+   * @return the error message, {@code null} if the probe succeeded
+   */
+  public String getError() {
+    return error;
+  }
+
+  /**
+   * Whether the probe succeeded, i.e., whether all expected results could be processed.
+   *
+   * @return {@code true} if the probe succeeded
+   */
+  public boolean isSuccessful() {
+    return error == null && parsedCount >= expectedCount;
+  }
+}
@@ -0,0 +1,55 @@
+package de.fullben.hermes.search;
+
+import java.util.List;
+import java.util.Locale;
+import org.jsoup.nodes.Document;
+
+/**
+ * Recognizes pages by which web search providers challenge a client instead of returning results,
+ * such as CAPTCHA and consent pages. Recognition is based on markers common to such pages and
+ * therefore heuristic.
+ *
+ * @author Benedikt Full
+ */
+final class ChallengePages {
+
+  private static final List<String> CAPTCHA_LOCATIONS = List.of("/sorry/", "captcha");
+  private static final String CAPTCHA_SELECTOR =
+      "#captcha-form, #recaptcha, .g-recaptcha, .h-captcha, iframe[src*=recaptcha],"
+          + " iframe[src*=hcaptcha], [id*=captcha]";
+  private static final List<String> CONSENT_LOCATIONS = List.of("://consent.", "/consent");
+  private static final String CONSENT_SELECTOR =
+      "form[action*=consent], #consent-bump, [id*=cookie-consent]";
+
+  private ChallengePages() {
+    throw new AssertionError();
+  }
+
+  /**
+   * Determines whether the given document, which did not match the layout expected by the parser,
+   * is a challenge page. Only intended for documents that failed to parse, as the check is
+   * comparatively expensive.
+   *
+   * @param doc the document that failed to parse
+   * @param e the exception thrown by the parser
+   * @return an exception whose failure reflects the kind of challenge, or the given exception if
+   *     the document is not a challenge page
+   */
+  static DocumentStructureException classify(Document doc, DocumentStructureException e) {
+    if (e.getFailure() != PageFailure.LAYOUT_CHANGED) {
+      return e;
+    }
+    String location = doc.location().toLowerCase(Locale.ROOT);
+    if (CAPTCHA_LOCATIONS.stream().anyMatch(location::contains)
+        || !doc.select(CAPTCHA_SELECTOR).isEmpty()) {
+      return new DocumentStructureException(
+          "Provider returned a CAPTCHA page (" + doc.location() + ")", PageFailure.CAPTCHA);
+    }
+    if (CONSENT_LOCATIONS.stream().anyMatch(location::contains)
+        || !doc.select(CONSENT_SELECTOR).isEmpty()) {
+      return new DocumentStructureException(
+          "Provider returned a consent page (" + doc.location() + ")", PageFailure.CONSENT);
+    }
+    return e;
+  }
+}
@@ -0,0 +1,33 @@
+package de.fullben.hermes.search;
+
+import static de.fullben.hermes.util.Preconditions.notNull;
+
+/**
+ * Thrown whenever a component associated with web search document processing encounters an
+ * unexpected document structure or is missing required elements.
+ *
+ * <p>Unlike most other errors, such failures are not transient: every further page of the same
+ * provider is likely to fail the same way. The {@link #getFailure() failure} states whether the
+ * page layout has changed or the provider returned a challenge (e.g., a CAPTCHA) instead of
+ * results.
+ *
+ * @author Benedikt Full
+ */
+public class DocumentStructureException extends SearchException {
+
+  private static final long serialVersionUID = 5510098817523056567L;
+  private final PageFailure failure;
+
+  public DocumentStructureException(String msg) {
+    this(msg, PageFailure.LAYOUT_CHANGED);
+  }
+
+  public DocumentStructureException(String msg, PageFailure failure) {
+    super(msg);
+    this.failure = notNull(failure);
+  }
+
+  public PageFailure getFailure() {
+    return failure;
+  }
+}
@@ -0,0 +1,33 @@
+package de.fullben.hermes.search;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for extracting the search results from the document model of a result
+ * page via a {@link SearchResultParser}.
+ *
+ * @author Benedikt Full
+ */
+@Name("de.fullben.hermes.Extract")
+@Label("Result Extraction")
+@Category({"Hermes", "Search"})
+@Description("Extraction of the search results from a result page")
+final class ExtractEvent extends jdk.jfr.Event {
+
+  @Label("Provider")
+  String provider;
+
+  @Label("Page")
+  int page;
+
+  @Label("Results")
+  @Description("Number of results extracted from the page")
+  int results;
+
+  @Label("Dropped")
+  @Description("Number of result items of the page that could not be extracted")
+  int dropped;
+}
@@ -0,0 +1,67 @@
+package de.fullben.hermes.search;
+
+import static de.fullben.hermes.util.Preconditions.greaterThan;
+import static de.fullben.hermes.util.Preconditions.notNull;
+import static org.apache.logging.log4j.util.Unbox.box;
+
+import de.fullben.hermes.representation.SearchResultField;
+import de.fullben.hermes.representation.SearchResultRepresentation;
+import java.util.List;
+import java.util.Set;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jsoup.nodes.Document;
+
+/**
+ * Parser which tries an ordered chain of parsers, each implementing a different strategy for
+ * extracting results, until one of them recognizes the structure of the document.
+ *
+ * <p>Usually, the first parser is precise but depends on details of the provider's markup (e.g.,
+ * class names), whereas subsequent parsers rely on more stable but less specific features of the
+ * page and extract fewer fields. Parsers are always tried in order, so that the first parser is
+ * used again as soon as the provider's markup matches it again.
+ *
+ * @author Benedikt Full
+ */
+public class FallbackSearchResultParser implements SearchResultParser {
+
+  private static final Logger LOG = LogManager.getLogger(FallbackSearchResultParser.class);
+  private final List<SearchResultParser> parsers;
+  private volatile int lastUsed;
+
+  public FallbackSearchResultParser(List<SearchResultParser> parsers) {
+    greaterThan(0, notNull(parsers).size());
+    this.parsers = List.copyOf(parsers);
+    lastUsed = 0;
+  }
+
+  /**
+   * Parses the document with the first parser that recognizes its structure.
+   *
+   * @throws DocumentStructureException the exception thrown by the first parser, if none of the
+   *     parsers recognize the structure of the document
+   */
+  @Override
+  public List<SearchResultRepresentation> parse(
+      Document doc, Set<SearchResultField> fields, PageTrace trace) throws SearchException {
+    DocumentStructureException failure = null;
+    for (int i = 0; i < parsers.size(); i++) {
+      try {
+        List<SearchResultRepresentation> results = parsers.get(i).parse(doc, fields, trace);
+        if (lastUsed != i) {
+          lastUsed = i;
+          LOG.warn(
+              "Extracting results via strategy {} ({}) from now on",
+              box(i + 1),
+              parsers.get(i).getClass().getSimpleName());
+        }
+        return results;
+      } catch (DocumentStructureException e) {
+        if (failure == null) {
+          failure = e;
+        }
+      }
+    }
+    throw failure;
+  }
+}
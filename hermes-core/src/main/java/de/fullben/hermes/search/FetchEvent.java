@@ -0,0 +1,35 @@
+package de.fullben.hermes.search;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for the request of a single result page from a web search provider. The
+ * duration of the event covers sending the request and receiving the response body.
+ *
+ * @author Benedikt Full
+ */
+@Name("de.fullben.hermes.Fetch")
+@Label("Page Fetch")
+@Category({"Hermes", "Search"})
+@Description("Request of a result page from a web search provider")
+final class FetchEvent extends jdk.jfr.Event {
+
+  @Label("Provider")
+  @Description("Name of the web search provider")
+  String provider;
+
+  @Label("Page")
+  int page;
+
+  @Label("Status Code")
+  @Description("HTTP status of the response, zero if no response was received")
+  int statusCode;
+
+  @Label("Bytes")
+  @DataAmount
+  long bytes;
+}
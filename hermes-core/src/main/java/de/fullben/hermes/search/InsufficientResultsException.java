@@ -0,0 +1,16 @@
+package de.fullben.hermes.search;
+
+/**
+ * Thrown whenever a web search provider returned pages in the expected layout, but these did not
+ * contain the requested number of results, even after several attempts.
+ *
+ * @author Benedikt Full
+ */
+public class InsufficientResultsException extends SearchException {
+
+  private static final long serialVersionUID = -7421946216316845210L;
+
+  public InsufficientResultsException(String msg) {
+    super(msg);
+  }
+}
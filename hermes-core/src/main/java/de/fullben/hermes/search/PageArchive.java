@@ -0,0 +1,481 @@
+package de.fullben.hermes.search;
+
+import static de.fullben.hermes.util.Preconditions.notBlank;
+import static de.fullben.hermes.util.Preconditions.notNull;
+import static org.apache.logging.log4j.util.Unbox.box;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+/**
+ * Archive of the raw result pages returned by the web search providers, stored gzip-compressed on
+ * the local disk. Archived pages allow for rebuilding search results with an updated {@link
+ * SearchResultParser} (e.g., after a provider changed its markup, or for extracting additional
+ * fields) without requesting the pages from the provider again.
+ *
+ * <p>The pages of a search are stored in a directory of their own, located at {@code
+ * <directory>/<provider>/<query hash>/<version>}, which contains one gzip file per page and a
+ * properties file describing the search. Archiving a search replaces any previously archived pages
+ * of the same query: the pages are written to a new version, which is moved into place atomically
+ * once complete, and only then are the previous versions deleted. Thus the pages of a query remain
+ * available while they are replaced, and a failure while replacing them loses at most the new
+ * pages. Pages are written on a background thread, so that archiving does not delay the response
+ * to a search. If the archive cannot keep up with the searches, pages are not archived.
+ *
+ * <p>Archived searches are deleted once they are older than the configured maximum age, which is
+ * checked when the archive is created and once per minute thereafter. If the archive exceeds its
+ * maximum size, the oldest searches are deleted first.
+ *
+ * @author Benedikt Full
+ */
+public class PageArchive {
+
+  private static final Logger LOG = LogManager.getLogger(PageArchive.class);
+  private static final PageArchive DISABLED = new PageArchive();
+  private static final String DESCRIPTOR_FILE = "search.properties";
+  private static final String PAGE_FILE_SUFFIX = ".html.gz";
+  private static final String PARTIAL_SUFFIX = ".partial";
+  private static final Pattern VERSION = Pattern.compile("\\d{1,18}");
+  private static final long PRUNE_INTERVAL_SECS = 60;
+  private static final int MAX_PENDING_WRITES = 64;
+  private final Path directory;
+  private final Duration maxAge;
+  private final long maxBytes;
+  private final ScheduledExecutorService writer;
+  private final AtomicInteger pendingWrites;
+  // Only accessed by the writer thread
+  private long archivedBytes;
+
+  private PageArchive() {
+    directory = null;
+    maxAge = Duration.ZERO;
+    maxBytes = 0;
+    writer = null;
+    pendingWrites = null;
+  }
+
+  /**
+   * Creates an archive which stores pages in the given directory.
+   *
+   * @param directory the directory in which pages are stored, created if necessary
+   * @param maxAge the maximum age of archived searches, positive
+   * @param maxBytes the maximum total size of the archived files in bytes, positive
+   */
+  public PageArchive(Path directory, Duration maxAge, long maxBytes) {
+    this.directory = notNull(directory);
+    if (notNull(maxAge).isNegative() || maxAge.isZero() || maxBytes <= 0) {
+      throw new IllegalArgumentException("Maximum age and size of the archive must be positive");
+    }
+    this.maxAge = maxAge;
+    this.maxBytes = maxBytes;
+    // Pages are written and pruned by the same thread, thus pruning never races with a write
+    writer =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "page-archive");
+              thread.setDaemon(true);
+              return thread;
+            });
+    pendingWrites = new AtomicInteger();
+    archivedBytes = 0;
+    writer.execute(this::prune);
+    writer.scheduleWithFixedDelay(
+        this::prune, PRUNE_INTERVAL_SECS, PRUNE_INTERVAL_SECS, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Returns an archive which neither stores nor holds any pages.
+   *
+   * @return the disabled archive
+   */
+  public static PageArchive disabled() {
+    return DISABLED;
+  }
+
+  public boolean isEnabled() {
+    return writer != null;
+  }
+
+  /**
+   * Archives the given pages as the result pages of the given query, replacing any previously
+   * archived pages of the query. The pages are written asynchronously, thus this method returns
+   * immediately. Has no effect if this archive is disabled.
+   *
+   * @param provider the web search provider that returned the pages
+   * @param query the canonical query
+   * @param pages the pages returned for the query
+   */
+  public void store(SearchProvider provider, String query, List<SearchPage> pages) {
+    if (!isEnabled()) {
+      return;
+    }
+    notNull(provider);
+    notBlank(query);
+    List<SearchPage> archivedPages = List.copyOf(notNull(pages));
+    Instant fetchedAt = Instant.now();
+    if (pendingWrites.incrementAndGet() > MAX_PENDING_WRITES) {
+      pendingWrites.decrementAndGet();
+      LOG.warn("Page archive is busy, result pages are not archived");
+      return;
+    }
+    try {
+      writer.execute(
+          () -> {
+            try {
+              write(provider, query, fetchedAt, archivedPages);
+            } finally {
+              pendingWrites.decrementAndGet();
+            }
+          });
+    } catch (RejectedExecutionException e) {
+      pendingWrites.decrementAndGet();
+      LOG.warn("Page archive is closed, result pages are not archived");
+    }
+  }
+
+  /**
+   * Loads the archived pages of the given query and builds their document model.
+   *
+   * @param provider the web search provider that returned the pages
+   * @param query the canonical query
+   * @return the archived search, empty if there are no archived pages for the query
+   * @throws IOException if the archived pages cannot be read
+   */
+  public Optional<ArchivedSearch> load(SearchProvider provider, String query) throws IOException {
+    if (!isEnabled()) {
+      return Optional.empty();
+    }
+    Path searchDirectory = searchDirectory(notNull(provider), notBlank(query));
+    ArchivedSearch search;
+    try {
+      search = readLatestVersion(searchDirectory);
+    } catch (NoSuchFileException e) {
+      // The version was replaced by a newer one while being read
+      search = readLatestVersion(searchDirectory);
+    }
+    // Guards against the (unlikely) event of a hash collision
+    return search != null && search.getQuery().equals(query)
+        ? Optional.of(search)
+        : Optional.empty();
+  }
+
+  /**
+   * Returns the queries for which pages of the given provider are archived.
+   *
+   * @param provider a web search provider
+   * @return the canonical queries, empty if this archive is disabled
+   * @throws IOException if the archive cannot be read
+   */
+  public List<String> queries(SearchProvider provider) throws IOException {
+    if (!isEnabled()) {
+      return List.of();
+    }
+    List<String> queries = new ArrayList<>();
+    for (Path searchDirectory : searchDirectories(providerDirectory(notNull(provider)))) {
+      Path version = latestVersion(searchDirectory);
+      if (version != null) {
+        queries.add(property(readDescriptor(version), "query", version));
+      }
+    }
+    return queries;
+  }
+
+  /**
+   * Stops archiving pages. Pages which are still waiting to be written are given a few seconds to
+   * be completed.
+   */
+  public void close() {
+    if (!isEnabled()) {
+      return;
+    }
+    writer.shutdown();
+    try {
+      if (!writer.awaitTermination(5, TimeUnit.SECONDS)) {
+        writer.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      writer.shutdownNow();
+    }
+  }
+
+  private void write(
+      SearchProvider provider, String query, Instant fetchedAt, List<SearchPage> pages) {
+    Path searchDirectory = searchDirectory(provider, query);
+    Path partial = null;
+    try {
+      Path previous = latestVersion(searchDirectory);
+      long version = previous == null ? 1 : Long.parseLong(previous.getFileName().toString()) + 1;
+      Path target = searchDirectory.resolve(String.valueOf(version));
+      partial = searchDirectory.resolve(version + PARTIAL_SUFFIX);
+      deleteRecursively(partial);
+      Files.createDirectories(partial);
+      Properties descriptor = new Properties();
+      descriptor.setProperty("query", query);
+      descriptor.setProperty("fetched-at", fetchedAt.toString());
+      descriptor.setProperty("pages", String.valueOf(pages.size()));
+      for (int i = 0; i < pages.size(); i++) {
+        SearchPage page = pages.get(i);
+        String key = "page." + i;
+        descriptor.setProperty(key + ".number", String.valueOf(page.getTrace().getPageNumber()));
+        descriptor.setProperty(key + ".url", String.valueOf(page.getTrace().getUrl()));
+        descriptor.setProperty(key + ".charset", page.getDocument().charset().name());
+        try (OutputStream out =
+            new GZIPOutputStream(Files.newOutputStream(partial.resolve(i + PAGE_FILE_SUFFIX)))) {
+          out.write(page.getBody());
+        }
+      }
+      // The descriptor is written last, a search directory without it is incomplete
+      try (Writer out =
+          Files.newBufferedWriter(partial.resolve(DESCRIPTOR_FILE), StandardCharsets.UTF_8)) {
+        descriptor.store(out, null);
+      }
+      Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE);
+      archivedBytes += sizeOf(target);
+      // Only once the new version is in place, previous versions and leftovers are deleted
+      try (Stream<Path> paths = Files.list(searchDirectory)) {
+        for (Path path : paths.collect(Collectors.toList())) {
+          if (!path.equals(target)) {
+            archivedBytes -= sizeOf(path);
+            deleteRecursively(path);
+          }
+        }
+      }
+      LOG.debug("Archived {} pages of query '{}'", box(pages.size()), query);
+    } catch (IOException | UncheckedIOException e) {
+      LOG.warn("Failed to archive the result pages of query '{}'", query, e);
+      try {
+        if (partial != null) {
+          deleteRecursively(partial);
+        }
+      } catch (IOException | UncheckedIOException suppressed) {
+        e.addSuppressed(suppressed);
+      }
+    }
+    if (archivedBytes > maxBytes) {
+      prune();
+    }
+  }
+
+  private void prune() {
+    List<StoredSearch> searches = new ArrayList<>();
+    try {
+      for (SearchProvider provider : SearchProvider.values()) {
+        for (Path searchDirectory : searchDirectories(providerDirectory(provider))) {
+          searches.add(StoredSearch.of(searchDirectory));
+        }
+      }
+    } catch (IOException | UncheckedIOException e) {
+      LOG.warn("Failed to determine the contents of the page archive", e);
+      return;
+    }
+
+    // Delete expired searches first, then the oldest ones until the archive is small enough
+    searches.sort(Comparator.comparing(search -> search.modified));
+    FileTime expiry = FileTime.from(Instant.now().minus(maxAge));
+    long totalBytes = searches.stream().mapToLong(search -> search.bytes).sum();
+    int deleted = 0;
+    for (StoredSearch search : searches) {
+      if (search.modified.compareTo(expiry) >= 0 && totalBytes <= maxBytes) {
+        break;
+      }
+      try {
+        deleteRecursively(search.path);
+        totalBytes -= search.bytes;
+        deleted++;
+      } catch (IOException | UncheckedIOException e) {
+        LOG.warn("Failed to delete archived search {}", search.path, e);
+      }
+    }
+    archivedBytes = totalBytes;
+    if (deleted > 0) {
+      LOG.info(
+          "Deleted {} archived searches, {} bytes remaining in the page archive",
+          box(deleted),
+          box(totalBytes));
+    }
+  }
+
+  private static ArchivedSearch readLatestVersion(Path searchDirectory) throws IOException {
+    Path version = latestVersion(searchDirectory);
+    return version == null ? null : read(version);
+  }
+
+  private static ArchivedSearch read(Path searchDirectory) throws IOException {
+    Properties descriptor = readDescriptor(searchDirectory);
+    try {
+      int pageCount = Integer.parseInt(property(descriptor, "pages", searchDirectory));
+      List<SearchPage> pages = new ArrayList<>(pageCount);
+      for (int i = 0; i < pageCount; i++) {
+        String key = "page." + i;
+        byte[] body;
+        Path file = searchDirectory.resolve(i + PAGE_FILE_SUFFIX);
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+          body = in.readAllBytes();
+        }
+        String url = property(descriptor, key + ".url", searchDirectory);
+        PageTrace trace =
+            new PageTrace(Integer.parseInt(property(descriptor, key + ".number", searchDirectory)));
+        trace.setUrl(url);
+        trace.setBytes(body.length);
+        long parseStart = System.nanoTime();
+        Document document =
+            Jsoup.parse(
+                new ByteArrayInputStream(body),
+                property(descriptor, key + ".charset", searchDirectory),
+                url);
+        trace.setParseNanos(System.nanoTime() - parseStart);
+        pages.add(new SearchPage(document, trace, body));
+      }
+      return new ArchivedSearch(
+          property(descriptor, "query", searchDirectory),
+          Instant.parse(property(descriptor, "fetched-at", searchDirectory)),
+          pages);
+    } catch (NumberFormatException | DateTimeParseException e) {
+      throw new IOException("Malformed archived search " + searchDirectory, e);
+    }
+  }
+
+  private static Properties readDescriptor(Path searchDirectory) throws IOException {
+    Properties descriptor = new Properties();
+    try (Reader in =
+        Files.newBufferedReader(searchDirectory.resolve(DESCRIPTOR_FILE), StandardCharsets.UTF_8)) {
+      descriptor.load(in);
+    }
+    return descriptor;
+  }
+
+  private static String property(Properties descriptor, String key, Path searchDirectory)
+      throws IOException {
+    String value = descriptor.getProperty(key);
+    if (value == null) {
+      throw new IOException("Archived search " + searchDirectory + " lacks property " + key);
+    }
+    return value;
+  }
+
+  private Path providerDirectory(SearchProvider provider) {
+    return directory.resolve(provider.name().toLowerCase(Locale.ROOT));
+  }
+
+  private Path searchDirectory(SearchProvider provider, String query) {
+    return providerDirectory(provider).resolve(sha256Hex(query));
+  }
+
+  private static List<Path> searchDirectories(Path providerDirectory) throws IOException {
+    if (!Files.isDirectory(providerDirectory)) {
+      return List.of();
+    }
+    try (Stream<Path> paths = Files.list(providerDirectory)) {
+      return paths.filter(Files::isDirectory).collect(Collectors.toList());
+    }
+  }
+
+  // The most recent version of a search that is complete, i.e., not partial and with descriptor
+  private static Path latestVersion(Path searchDirectory) throws IOException {
+    if (!Files.isDirectory(searchDirectory)) {
+      return null;
+    }
+    try (Stream<Path> paths = Files.list(searchDirectory)) {
+      return paths
+          .filter(path -> VERSION.matcher(path.getFileName().toString()).matches())
+          .filter(path -> Files.isRegularFile(path.resolve(DESCRIPTOR_FILE)))
+          .max(Comparator.comparingLong(path -> Long.parseLong(path.getFileName().toString())))
+          .orElse(null);
+    }
+  }
+
+  private static long sizeOf(Path path) throws IOException {
+    if (!Files.exists(path)) {
+      return 0;
+    }
+    try (Stream<Path> paths = Files.walk(path)) {
+      long bytes = 0;
+      for (Path file : paths.filter(Files::isRegularFile).collect(Collectors.toList())) {
+        bytes += Files.size(file);
+      }
+      return bytes;
+    }
+  }
+
+  private static void deleteRecursively(Path path) throws IOException {
+    if (!Files.exists(path)) {
+      return;
+    }
+    try (Stream<Path> paths = Files.walk(path)) {
+      for (Path file : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+        Files.deleteIfExists(file);
+      }
+    }
+  }
+
+  private static String sha256Hex(String s) {
+    try {
+      byte[] hash =
+          MessageDigest.getInstance("SHA-256").digest(s.getBytes(StandardCharsets.UTF_8));
+      StringBuilder hex = new StringBuilder(hash.length * 2);
+      for (byte b : hash) {
+        hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform is required to support SHA-256
+      throw new AssertionError(e);
+    }
+  }
+
+  /** The location, age, and size of an archived search. */
+  private static class StoredSearch {
+
+    private final Path path;
+    private final FileTime modified;
+    private final long bytes;
+
+    private StoredSearch(Path path, FileTime modified, long bytes) {
+      this.path = path;
+      this.modified = modified;
+      this.bytes = bytes;
+    }
+
+    private static StoredSearch of(Path searchDirectory) throws IOException {
+      return new StoredSearch(
+          searchDirectory, Files.getLastModifiedTime(searchDirectory), sizeOf(searchDirectory));
+    }
+  }
+}
@@ -0,0 +1,16 @@
+package de.fullben.hermes.search;
+
+/**
+ * Describes why a page returned by a web search provider could not be processed, although it was
+ * fetched successfully.
+ *
+ * @author Benedikt Full
+ */
+public enum PageFailure {
+  /** The page does not match the layout expected by the parser, e.g., after a markup change. */
+  LAYOUT_CHANGED,
+  /** The provider asks to solve a CAPTCHA instead of returning results. */
+  CAPTCHA,
+  /** The provider asks to consent to its terms or cookie usage instead of returning results. */
+  CONSENT;
+}
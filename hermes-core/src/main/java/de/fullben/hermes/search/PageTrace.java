@@ -0,0 +1,109 @@
+package de.fullben.hermes.search;
+
+/**
+ * Diagnostic data on a single result page requested from a web search provider, covering both
+ * the upstream request and the processing of the returned document.
+ *
+ * @author Benedikt Full
+ */
+public class PageTrace {
+
+  private int pageNumber;
+  private String url;
+  private int statusCode;
+  private long bytes;
+  private long fetchNanos;
+  private long parseNanos;
+  private long extractNanos;
+  private int parsedCount;
+  private int droppedCount;
+
+  public PageTrace() {
+    pageNumber = 0;
+    url = null;
+    statusCode = 0;
+    bytes = 0;
+    fetchNanos = 0;
+    parseNanos = 0;
+    extractNanos = 0;
+    parsedCount = 0;
+    droppedCount = 0;
+  }
+
+  public PageTrace(int pageNumber) {
+    this();
+    this.pageNumber = pageNumber;
+  }
+
+  public int getPageNumber() {
+    return pageNumber;
+  }
+
+  public void setPageNumber(int pageNumber) {
+    this.pageNumber = pageNumber;
+  }
+
+  public String getUrl() {
+    return url;
+  }
+
+  public void setUrl(String url) {
+    this.url = url;
+  }
+
+  public int getStatusCode() {
+    return statusCode;
+  }
+
+  public void setStatusCode(int statusCode) {
+    this.statusCode = statusCode;
+  }
+
+  public long getBytes() {
+    return bytes;
+  }
+
+  public void setBytes(long bytes) {
+    this.bytes = bytes;
+  }
+
+  public long getFetchNanos() {
+    return fetchNanos;
+  }
+
+  public void setFetchNanos(long fetchNanos) {
+    this.fetchNanos = fetchNanos;
+  }
+
+  public long getParseNanos() {
+    return parseNanos;
+  }
+
+  public void setParseNanos(long parseNanos) {
+    this.parseNanos = parseNanos;
+  }
+
+  public long getExtractNanos() {
+    return extractNanos;
+  }
+
+  public void setExtractNanos(long extractNanos) {
+    this.extractNanos = extractNanos;
+  }
+
+  public int getParsedCount() {
+    return parsedCount;
+  }
+
+  public void setParsedCount(int parsedCount) {
+    this.parsedCount = parsedCount;
+  }
+
+  public int getDroppedCount() {
+    return droppedCount;
+  }
+
+  public void setDroppedCount(int droppedCount) {
+    this.droppedCount = droppedCount;
+  }
+}
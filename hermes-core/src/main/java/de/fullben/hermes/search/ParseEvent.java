@@ -0,0 +1,30 @@
+package de.fullben.hermes.search;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for building the document model of a fetched result page.
+ *
+ * @author Benedikt Full
+ */
+@Name("de.fullben.hermes.Parse")
+@Label("Page Parse")
+@Category({"Hermes", "Search"})
+@Description("Building the document model of a result page")
+final class ParseEvent extends jdk.jfr.Event {
+
+  @Label("Provider")
+  @Description("Name of the web search provider")
+  String provider;
+
+  @Label("Page")
+  int page;
+
+  @Label("Bytes")
+  @DataAmount
+  long bytes;
+}
@@ -0,0 +1,171 @@
+package de.fullben.hermes.search;
+
+import static de.fullben.hermes.util.Preconditions.notNull;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps track of whether the pages returned by a web search provider can currently be processed.
+ *
+ * <p>Once a page fails to parse due to its structure (see {@link DocumentStructureException}), the
+ * provider is considered broken, as every further page is likely to fail the same way. While
+ * broken, searches that would have to contact the provider are rejected right away rather than
+ * each wasting a request. After a cooldown, a single search is let through to probe whether the
+ * provider has recovered: if it succeeds, the provider is considered healthy again, otherwise the
+ * cooldown starts over. If the probe does not complete at all, the next one is let through after
+ * another cooldown.
+ *
+ * <p>Besides searches, the health is fed by canary probes (see {@link
+ * CachingWebSearch#probe(String, int)}). Probes notice a broken provider before it fails the
+ * searches of clients and let the provider recover without waiting for a search to be let through.
+ *
+ * @author Benedikt Full
+ */
+public class ProviderHealth {
+
+  private final long cooldownNanos;
+  private final AtomicLong nextProbe;
+  private volatile Outage outage;
+  private volatile CanaryResult lastCanary;
+
+  public ProviderHealth(Duration cooldown) {
+    cooldownNanos = notNull(cooldown).toNanos();
+    nextProbe = new AtomicLong();
+    outage = null;
+    lastCanary = null;
+  }
+
+  /**
+   * Checks whether a search may contact the provider.
+   *
+   * @throws ProviderUnavailableException if the provider is broken and the search is not let
+   *     through as a probe
+   */
+  public void checkAvailable() throws ProviderUnavailableException {
+    Outage current = outage;
+    if (current == null) {
+      return;
+    }
+    long now = System.nanoTime();
+    long probe = nextProbe.get();
+    if (now - probe >= 0 && nextProbe.compareAndSet(probe, now + cooldownNanos)) {
+      return;
+    }
+    throw new ProviderUnavailableException(
+        "Provider is unavailable due to "
+            + current.getFailure()
+            + " since "
+            + current.getSince()
+            + ": "
+            + current.getMessage(),
+        Duration.ofNanos(Math.max(nextProbe.get() - now, 0)));
+  }
+
+  /**
+   * Returns whether the provider is currently considered healthy. Unlike {@link
+   * #checkAvailable()}, this never lets a probe through.
+   *
+   * @return {@code true} if the provider is healthy
+   */
+  public boolean isAvailable() {
+    return outage == null;
+  }
+
+  /**
+   * Returns the current outage of the provider.
+   *
+   * @return the outage, empty if the provider is healthy
+   */
+  public Optional<Outage> getOutage() {
+    return Optional.ofNullable(outage);
+  }
+
+  /**
+   * Returns the outcome of the most recent canary probe of the provider.
+   *
+   * @return the outcome, empty if the provider has not been probed yet
+   */
+  public Optional<CanaryResult> getLastCanary() {
+    return Optional.ofNullable(lastCanary);
+  }
+
+  /**
+   * Records the outcome of a canary probe. Only the outcome itself is kept, the health of the
+   * provider has to be updated via {@link #recordSuccess()} or {@link
+   * #recordFailure(DocumentStructureException)}, just like for a search.
+   *
+   * @param result the outcome of the probe
+   */
+  public void recordCanary(CanaryResult result) {
+    lastCanary = notNull(result);
+  }
+
+  /**
+   * Records that a page of the provider was processed successfully.
+   *
+   * @return {@code true} if the provider was broken until now
+   */
+  public boolean recordSuccess() {
+    if (outage == null) {
+      return false;
+    }
+    outage = null;
+    return true;
+  }
+
+  /**
+   * Records that a page of the provider could not be processed due to its structure.
+   *
+   * @param e the exception thrown while processing the page
+   * @return {@code true} if the provider was healthy until now
+   */
+  public boolean recordFailure(DocumentStructureException e) {
+    Outage previous = outage;
+    nextProbe.set(System.nanoTime() + cooldownNanos);
+    outage =
+        new Outage(
+            e.getFailure(),
+            e.getMessage(),
+            previous == null ? Instant.now() : previous.getSince());
+    return previous == null;
+  }
+
+  /** A period during which the pages of the provider could not be processed. */
+  public static class Outage {
+
+    private final PageFailure failure;
+    private final String message;
+    private final Instant since;
+
+    private Outage(PageFailure failure, String message, Instant since) {
+      this.failure = failure;
+      this.message = message;
+      this.since = since;
+    }
+
+    /**
+     * The reason of the most recent failure.
+     *
+     * @return the failure
+     */
+    public PageFailure getFailure() {
+      return failure;
+    }
+
+    public String getMessage() {
+      return message;
+    }
+
+    /**
+     * The point in time at which the first failure of the outage occurred.
+     *
+     * @return the start of the outage
+     */
+    public Instant getSince() {
+      return since;
+    }
+  }
+}
@@ -0,0 +1,436 @@
+package de.fullben.hermes.search;
+
+import static de.fullben.hermes.util.Preconditions.greaterThan;
+import static de.fullben.hermes.util.Preconditions.notNull;
+
+import java.time.Duration;
+
+/**
+ * The settings of a single web search provider, controlling the caching of its results as well as
+ * the load the application may put on it.
+ *
+ * @author Benedikt Full
+ */
+public class ProviderSettings {
+
+  private final int cacheExpireAfterMins;
+  private final int cacheMinExpireAfterMins;
+  private final int cacheMaxExpireAfterMins;
+  private final int cacheMaxSize;
+  private final int maxTries;
+  private final int maxConcurrentRequests;
+  private final Duration maxRequestWait;
+  private final int fetchRetries;
+  private final Duration fetchRetryBackoff;
+  private final int maxConcurrentSearches;
+  private final int maxQueuedSearches;
+  private final Duration maxQueueWait;
+  private final boolean prefetch;
+  private final Duration layoutFailureCooldown;
+  private final boolean fallbackExtraction;
+  private final boolean localFallback;
+  private final Duration defaultTimeout;
+  private final Duration maxTimeout;
+
+  private ProviderSettings(Builder builder) {
+    cacheExpireAfterMins = builder.cacheExpireAfterMins;
+    cacheMinExpireAfterMins = builder.cacheMinExpireAfterMins;
+    cacheMaxExpireAfterMins = builder.cacheMaxExpireAfterMins;
+    cacheMaxSize = builder.cacheMaxSize;
+    maxTries = builder.maxTries;
+    maxConcurrentRequests = builder.maxConcurrentRequests;
+    maxRequestWait = builder.maxRequestWait;
+    fetchRetries = builder.fetchRetries;
+    fetchRetryBackoff = builder.fetchRetryBackoff;
+    maxConcurrentSearches = builder.maxConcurrentSearches;
+    maxQueuedSearches = builder.maxQueuedSearches;
+    maxQueueWait = builder.maxQueueWait;
+    prefetch = builder.prefetch;
+    layoutFailureCooldown = builder.layoutFailureCooldown;
+    fallbackExtraction = builder.fallbackExtraction;
+    localFallback = builder.localFallback;
+    defaultTimeout = builder.defaultTimeout;
+    maxTimeout = builder.maxTimeout;
+  }
+
+  /**
+   * Creates and returns a builder for provider settings. Unless configured otherwise, the builder
+   * uses the same defaults as the application's configuration.
+   *
+   * @return a new builder instance
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Creates and returns a builder initialized with these settings, e.g., for deriving settings
+   * which only differ in a few values.
+   *
+   * @return a new builder instance
+   */
+  public Builder toBuilder() {
+    return new Builder(this);
+  }
+
+  /**
+   * The number of minutes for which the results of a query remain in the cache when they are
+   * cached for the first time. Afterwards, the duration is adapted to how much the results of the
+   * query change between searches, within the bounds given by {@link #getCacheMinExpireAfterMins()}
+   * and {@link #getCacheMaxExpireAfterMins()}.
+   *
+   * @return a value greater than zero
+   */
+  public int getCacheExpireAfterMins() {
+    return cacheExpireAfterMins;
+  }
+
+  /**
+   * The minimum number of minutes for which the results of a query remain in the cache, applying
+   * to queries whose results change with every search.
+   *
+   * @return a value greater than zero
+   */
+  public int getCacheMinExpireAfterMins() {
+    return cacheMinExpireAfterMins;
+  }
+
+  /**
+   * The maximum number of minutes for which the results of a query remain in the cache, applying
+   * to queries whose results hardly ever change.
+   *
+   * @return a value equal to or greater than {@link #getCacheMinExpireAfterMins()}
+   */
+  public int getCacheMaxExpireAfterMins() {
+    return cacheMaxExpireAfterMins;
+  }
+
+  /**
+   * The maximum number of queries for which results are cached.
+   *
+   * @return a value greater than zero
+   */
+  public int getCacheMaxSize() {
+    return cacheMaxSize;
+  }
+
+  /**
+   * The maximum number of times the provider is searched in an attempt to acquire the requested
+   * number of results for a query. Only searches whose pages yielded too few results are tried
+   * again, failed requests are only repeated as given by {@link #getFetchRetries()}.
+   *
+   * @return a value greater than zero
+   */
+  public int getMaxTries() {
+    return maxTries;
+  }
+
+  /**
+   * The maximum number of requests that may be in flight against the provider at the same time.
+   *
+   * @return a value greater than zero
+   */
+  public int getMaxConcurrentRequests() {
+    return maxConcurrentRequests;
+  }
+
+  /**
+   * The maximum amount of time a request waits for one of the {@link #getMaxConcurrentRequests()
+   * concurrent request} slots before it is rejected.
+   *
+   * @return a non-negative duration
+   */
+  public Duration getMaxRequestWait() {
+    return maxRequestWait;
+  }
+
+  /**
+   * The number of times a request for a result page is repeated if it fails due to a transient
+   * error (e.g., a timeout or a server error response). Requests throttled by the provider (HTTP
+   * status 429) are never repeated.
+   *
+   * @return a value equal to or greater than zero
+   */
+  public int getFetchRetries() {
+    return fetchRetries;
+  }
+
+  /**
+   * The amount of time to wait before the first repetition of a failed request. The wait time
+   * doubles with every further repetition.
+   *
+   * @return a non-negative duration
+   */
+  public Duration getFetchRetryBackoff() {
+    return fetchRetryBackoff;
+  }
+
+  /**
+   * The maximum number of searches that may contact the provider at the same time, i.e., searches
+   * whose results could not be taken from the cache.
+   *
+   * @return a value greater than zero
+   */
+  public int getMaxConcurrentSearches() {
+    return maxConcurrentSearches;
+  }
+
+  /**
+   * The maximum number of searches that may wait for one of the {@link
+   * #getMaxConcurrentSearches() concurrent search} slots. Further searches are rejected right away.
+   *
+   * @return a value equal to or greater than zero
+   */
+  public int getMaxQueuedSearches() {
+    return maxQueuedSearches;
+  }
+
+  /**
+   * The maximum amount of time a search waits for one of the {@link #getMaxConcurrentSearches()
+   * concurrent search} slots before it is rejected.
+   *
+   * @return a non-negative duration
+   */
+  public Duration getMaxQueueWait() {
+    return maxQueueWait;
+  }
+
+  /**
+   * Whether the results of the next page are requested in the background while a client is paging
+   * through the results of a query.
+   *
+   * @return {@code true} if prefetching is enabled
+   */
+  public boolean isPrefetch() {
+    return prefetch;
+  }
+
+  /**
+   * The amount of time for which searches that would have to contact the provider are rejected
+   * after the provider returned a page whose layout is not understood, e.g., a CAPTCHA page or a
+   * page whose markup has changed. Once it has passed, a single search is let through to probe
+   * whether the provider has recovered.
+   *
+   * @return a positive duration
+   */
+  public Duration getLayoutFailureCooldown() {
+    return layoutFailureCooldown;
+  }
+
+  /**
+   * Whether alternative, less precise extraction strategies are tried if the regular strategy
+   * does not find any results on a page.
+   *
+   * @return {@code true} if fallback extraction is enabled
+   */
+  public boolean isFallbackExtraction() {
+    return fallbackExtraction;
+  }
+
+  /**
+   * Whether searches are answered from the local index of cached results if the provider cannot
+   * be contacted.
+   *
+   * @return {@code true} if the local fallback is enabled
+   */
+  public boolean isLocalFallback() {
+    return localFallback;
+  }
+
+  /**
+   * The maximum duration of searches whose clients do not specify a timeout. Once it has passed,
+   * the results found so far are returned.
+   *
+   * @return a positive duration
+   */
+  public Duration getDefaultTimeout() {
+    return defaultTimeout;
+  }
+
+  /**
+   * The maximum duration of searches, regardless of the timeout specified by their clients.
+   *
+   * @return a positive duration
+   */
+  public Duration getMaxTimeout() {
+    return maxTimeout;
+  }
+
+  /**
+   * Builder for {@link ProviderSettings}.
+   *
+   * @author Benedikt Full
+   */
+  public static class Builder {
+
+    private int cacheExpireAfterMins = 15;
+    private int cacheMinExpireAfterMins = 5;
+    private int cacheMaxExpireAfterMins = 1440;
+    private int cacheMaxSize = 1000;
+    private int maxTries = 6;
+    private int maxConcurrentRequests = 32;
+    private Duration maxRequestWait = Duration.ofSeconds(5);
+    private int fetchRetries = 1;
+    private Duration fetchRetryBackoff = Duration.ofMillis(200);
+    private int maxConcurrentSearches = 16;
+    private int maxQueuedSearches = 64;
+    private Duration maxQueueWait = Duration.ofSeconds(2);
+    private boolean prefetch = true;
+    private Duration layoutFailureCooldown = Duration.ofMinutes(5);
+    private boolean fallbackExtraction = true;
+    private boolean localFallback = true;
+    private Duration defaultTimeout = Duration.ofSeconds(10);
+    private Duration maxTimeout = Duration.ofSeconds(30);
+
+    private Builder() {}
+
+    private Builder(ProviderSettings settings) {
+      cacheExpireAfterMins = settings.cacheExpireAfterMins;
+      cacheMinExpireAfterMins = settings.cacheMinExpireAfterMins;
+      cacheMaxExpireAfterMins = settings.cacheMaxExpireAfterMins;
+      cacheMaxSize = settings.cacheMaxSize;
+      maxTries = settings.maxTries;
+      maxConcurrentRequests = settings.maxConcurrentRequests;
+      maxRequestWait = settings.maxRequestWait;
+      fetchRetries = settings.fetchRetries;
+      fetchRetryBackoff = settings.fetchRetryBackoff;
+      maxConcurrentSearches = settings.maxConcurrentSearches;
+      maxQueuedSearches = settings.maxQueuedSearches;
+      maxQueueWait = settings.maxQueueWait;
+      prefetch = settings.prefetch;
+      layoutFailureCooldown = settings.layoutFailureCooldown;
+      fallbackExtraction = settings.fallbackExtraction;
+      localFallback = settings.localFallback;
+      defaultTimeout = settings.defaultTimeout;
+      maxTimeout = settings.maxTimeout;
+    }
+
+    public Builder cacheExpireAfterMins(int cacheExpireAfterMins) {
+      this.cacheExpireAfterMins = greaterThan(0, cacheExpireAfterMins);
+      return this;
+    }
+
+    public Builder cacheMinExpireAfterMins(int cacheMinExpireAfterMins) {
+      this.cacheMinExpireAfterMins = greaterThan(0, cacheMinExpireAfterMins);
+      return this;
+    }
+
+    public Builder cacheMaxExpireAfterMins(int cacheMaxExpireAfterMins) {
+      this.cacheMaxExpireAfterMins = greaterThan(0, cacheMaxExpireAfterMins);
+      return this;
+    }
+
+    public Builder cacheMaxSize(int cacheMaxSize) {
+      this.cacheMaxSize = greaterThan(0, cacheMaxSize);
+      return this;
+    }
+
+    public Builder maxTries(int maxTries) {
+      this.maxTries = greaterThan(0, maxTries);
+      return this;
+    }
+
+    public Builder maxConcurrentRequests(int maxConcurrentRequests) {
+      this.maxConcurrentRequests = greaterThan(0, maxConcurrentRequests);
+      return this;
+    }
+
+    public Builder maxRequestWait(Duration maxRequestWait) {
+      this.maxRequestWait = nonNegative(maxRequestWait);
+      return this;
+    }
+
+    public Builder fetchRetries(int fetchRetries) {
+      this.fetchRetries = greaterThan(-1, fetchRetries);
+      return this;
+    }
+
+    public Builder fetchRetryBackoff(Duration fetchRetryBackoff) {
+      this.fetchRetryBackoff = nonNegative(fetchRetryBackoff);
+      return this;
+    }
+
+    public Builder maxConcurrentSearches(int maxConcurrentSearches) {
+      this.maxConcurrentSearches = greaterThan(0, maxConcurrentSearches);
+      return this;
+    }
+
+    public Builder maxQueuedSearches(int maxQueuedSearches) {
+      this.maxQueuedSearches = greaterThan(-1, maxQueuedSearches);
+      return this;
+    }
+
+    public Builder maxQueueWait(Duration maxQueueWait) {
+      this.maxQueueWait = nonNegative(maxQueueWait);
+      return this;
+    }
+
+    public Builder prefetch(boolean prefetch) {
+      this.prefetch = prefetch;
+      return this;
+    }
+
+    public Builder layoutFailureCooldown(Duration layoutFailureCooldown) {
+      this.layoutFailureCooldown = positive(layoutFailureCooldown);
+      return this;
+    }
+
+    public Builder fallbackExtraction(boolean fallbackExtraction) {
+      this.fallbackExtraction = fallbackExtraction;
+      return this;
+    }
+
+    public Builder localFallback(boolean localFallback) {
+      this.localFallback = localFallback;
+      return this;
+    }
+
+    public Builder defaultTimeout(Duration defaultTimeout) {
+      this.defaultTimeout = positive(defaultTimeout);
+      return this;
+    }
+
+    public Builder maxTimeout(Duration maxTimeout) {
+      this.maxTimeout = positive(maxTimeout);
+      return this;
+    }
+
+    /**
+     * Creates the settings.
+     *
+     * @return the settings
+     * @throws IllegalArgumentException if the minimum cache expiry time exceeds the maximum, the
+     *     initial cache expiry time lies outside of these bounds, or the default timeout exceeds
+     *     the maximum timeout
+     */
+    public ProviderSettings build() {
+      if (cacheMinExpireAfterMins > cacheMaxExpireAfterMins) {
+        throw new IllegalArgumentException(
+            "Minimum cache expiry time must not exceed the maximum cache expiry time");
+      }
+      if (cacheExpireAfterMins < cacheMinExpireAfterMins
+          || cacheExpireAfterMins > cacheMaxExpireAfterMins) {
+        throw new IllegalArgumentException(
+            "Cache expiry time must lie between the minimum and the maximum cache expiry time");
+      }
+      if (defaultTimeout.compareTo(maxTimeout) > 0) {
+        throw new IllegalArgumentException("Default timeout must not exceed the maximum timeout");
+      }
+      return new ProviderSettings(this);
+    }
+
+    private static Duration positive(Duration duration) {
+      if (nonNegative(duration).isZero()) {
+        throw new IllegalArgumentException("Duration must be positive");
+      }
+      return duration;
+    }
+
+    private static Duration nonNegative(Duration duration) {
+      if (notNull(duration).isNegative()) {
+        throw new IllegalArgumentException("Duration must not be negative");
+      }
+      return duration;
+    }
+  }
+}
@@ -0,0 +1,18 @@
+package de.fullben.hermes.search;
+
+import java.time.Duration;
+
+/**
+ * Thrown whenever a search is rejected without contacting the web search provider, because the
+ * provider recently returned pages that could not be processed (see {@link ProviderHealth}).
+ *
+ * @author Benedikt Full
+ */
+public class ProviderUnavailableException extends SearchRejectedException {
+
+  private static final long serialVersionUID = 2962133702532532497L;
+
+  public ProviderUnavailableException(String msg, Duration retryAfter) {
+    super(msg, retryAfter);
+  }
+}
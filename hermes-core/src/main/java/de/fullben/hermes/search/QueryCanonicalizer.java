@@ -0,0 +1,76 @@
+package de.fullben.hermes.search;
+
+import static de.fullben.hermes.util.Preconditions.notBlank;
+import static de.fullben.hermes.util.Preconditions.notNull;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.regex.Pattern;
+
+/**
+ * Converts query strings into a canonical form, so that queries which a web search provider treats
+ * as equivalent are also treated as equivalent by the application (e.g., when looking up cached
+ * results).
+ *
+ * <p>Canonicalization consists of the following steps:
+ *
+ * <ol>
+ *   <li>Unicode NFKC normalization, which maps compatibility characters (e.g., full-width letters
+ *       or ligatures) to their canonical counterparts
+ *   <li>Removal of invisible formatting characters (e.g., zero-width spaces)
+ *   <li>Trimming and collapsing of whitespace into single spaces
+ *   <li>Conversion to lower case, except for the operator keywords of the web search provider
+ * </ol>
+ *
+ * Operator keywords (e.g., {@code OR} for Google) are only recognized by some providers if they
+ * are written in upper case. Lower casing them would change the meaning of the query, which is why
+ * such keywords can be configured to be preserved.
+ *
+ * @author Benedikt Full
+ */
+public class QueryCanonicalizer {
+
+  private static final Pattern FORMAT_CHARACTERS = Pattern.compile("\\p{Cf}");
+  private static final Pattern WHITESPACE =
+      Pattern.compile("\\s+", Pattern.UNICODE_CHARACTER_CLASS);
+  private final Set<String> operators;
+
+  public QueryCanonicalizer() {
+    this(Set.of());
+  }
+
+  public QueryCanonicalizer(Set<String> operators) {
+    this.operators = Set.copyOf(notNull(operators));
+  }
+
+  /**
+   * Creates a canonicalizer which preserves the given operator keywords.
+   *
+   * @param operators the case-sensitive operator keywords of a web search provider, e.g., {@code
+   *     OR}
+   * @return a new canonicalizer
+   */
+  public static QueryCanonicalizer preservingOperators(String... operators) {
+    return new QueryCanonicalizer(Set.of(operators));
+  }
+
+  /**
+   * Returns the canonical form of the given query.
+   *
+   * @param query a query string
+   * @return the canonical form of the query, never blank
+   * @throws IllegalArgumentException if the given query is {@code null}, blank, or consists only
+   *     of invisible characters
+   */
+  public String canonicalize(String query) {
+    String normalized = Normalizer.normalize(notBlank(query), Normalizer.Form.NFKC);
+    normalized = FORMAT_CHARACTERS.matcher(normalized).replaceAll("").strip();
+    StringJoiner canonical = new StringJoiner(" ");
+    for (String term : WHITESPACE.split(notBlank(normalized))) {
+      canonical.add(operators.contains(term) ? term : term.toLowerCase(Locale.ROOT));
+    }
+    return canonical.toString();
+  }
+}
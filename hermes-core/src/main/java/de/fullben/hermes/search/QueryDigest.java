@@ -0,0 +1,64 @@
+package de.fullben.hermes.search;
+
+import static de.fullben.hermes.util.Preconditions.notNull;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Computes the digests by which queries are referred to in logs and profiling events, so that
+ * these never contain the queries themselves.
+ *
+ * <p>Digests are keyed hashes (HMAC-SHA256 with a random key, truncated to 64 bits), thus queries
+ * cannot be recovered by hashing a dictionary of common queries. As the key is chosen anew
+ * whenever the application starts, digests are only comparable within a single run of the
+ * application, e.g., for correlating the access record of a search with its profiling events.
+ *
+ * @author Benedikt Full
+ */
+public final class QueryDigest {
+
+  private static final String HMAC_ALGORITHM = "HmacSHA256";
+  private static final int DIGEST_BYTES = 8;
+  private static final SecretKeySpec KEY = randomKey();
+  // Mac instances are not thread-safe, thus every thread recording searches uses its own
+  private static final ThreadLocal<Mac> MACS = ThreadLocal.withInitial(QueryDigest::newMac);
+
+  private QueryDigest() {}
+
+  /**
+   * Returns the digest of the given query.
+   *
+   * @param canonicalQuery the canonical form of a query (see {@link QueryCanonicalizer})
+   * @return the digest as hexadecimal string
+   * @throws IllegalArgumentException if the given query is {@code null}
+   */
+  public static String of(String canonicalQuery) {
+    byte[] digest = MACS.get().doFinal(notNull(canonicalQuery).getBytes(StandardCharsets.UTF_8));
+    StringBuilder hex = new StringBuilder(2 * DIGEST_BYTES);
+    for (int i = 0; i < DIGEST_BYTES; i++) {
+      hex.append(Character.forDigit((digest[i] >> 4) & 0xF, 16));
+      hex.append(Character.forDigit(digest[i] & 0xF, 16));
+    }
+    return hex.toString();
+  }
+
+  private static SecretKeySpec randomKey() {
+    byte[] keyBytes = new byte[32];
+    new SecureRandom().nextBytes(keyBytes);
+    return new SecretKeySpec(keyBytes, HMAC_ALGORITHM);
+  }
+
+  private static Mac newMac() {
+    try {
+      Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+      mac.init(KEY);
+      return mac;
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Failed to initialize " + HMAC_ALGORITHM, e);
+    }
+  }
+}
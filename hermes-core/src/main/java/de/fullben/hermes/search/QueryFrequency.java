@@ -0,0 +1,44 @@
+package de.fullben.hermes.search;
+
+import static de.fullben.hermes.util.Preconditions.notBlank;
+
+/**
+ * The estimated number of searches for a query, as recorded by a {@link QueryFrequencySketch}.
+ *
+ * @author Benedikt Full
+ */
+public class QueryFrequency {
+
+  private final String query;
+  private final long searches;
+  private final long misses;
+
+  public QueryFrequency(String query, long searches, long misses) {
+    this.query = notBlank(query);
+    this.searches = searches;
+    this.misses = misses;
+  }
+
+  public String getQuery() {
+    return query;
+  }
+
+  /**
+   * The estimated number of searches for the query.
+   *
+   * @return the number of searches
+   */
+  public long getSearches() {
+    return searches;
+  }
+
+  /**
+   * The estimated number of searches for the query which required the web search provider to be
+   * contacted.
+   *
+   * @return the number of cache misses
+   */
+  public long getMisses() {
+    return misses;
+  }
+}
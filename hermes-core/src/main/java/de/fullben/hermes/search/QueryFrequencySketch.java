@@ -0,0 +1,199 @@
+package de.fullben.hermes.search;
+
+import static de.fullben.hermes.util.Preconditions.greaterThan;
+import static de.fullben.hermes.util.Preconditions.notNull;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Collectors;
+
+/**
+ * Estimates how often queries are searched for and keeps track of the most frequent ones (the
+ * <i>heavy hitters</i>), using memory that is independent of the number of distinct queries.
+ *
+ * <p>Frequencies are estimated by means of two count-min sketches, one counting all searches and
+ * one counting the searches that required the web search provider to be contacted (cache misses).
+ * Estimates may exceed the actual frequency of a query, but never fall below it. The queries with
+ * the highest estimates are tracked in a small map. To let the statistics follow changes in
+ * traffic, all counts are halved whenever a certain number of searches has been recorded.
+ *
+ * <p>All operations are lock-free, thus recording a search never blocks the calling thread. To
+ * keep the cost of recording a search low and independent of the size of the sketch, the
+ * maintenance work is spread over many searches: the map of heavy hitters may grow to twice the
+ * configured size before the least frequent queries are evicted all at once, and halving the
+ * counts is done in small steps by the searches recorded after the halving became due. Until the
+ * halving is complete, estimates for some queries may be halved while others are not.
+ *
+ * @author Benedikt Full
+ */
+public class QueryFrequencySketch {
+
+  private static final long[] SEEDS = {
+    0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+  };
+  private static final int AGING_STEP = 256;
+  private final int widthMask;
+  private final AtomicLongArray searchCounts;
+  private final AtomicLongArray missCounts;
+  private final int maxHeavyHitters;
+  private final Map<String, AtomicLong> heavyHitters;
+  private final AtomicLong recorded;
+  private final AtomicBoolean evicting;
+  private final long agingInterval;
+  private final AtomicInteger agingPosition;
+  private volatile long minHeavyHitterCount;
+
+  /**
+   * Creates a new sketch.
+   *
+   * @param width the number of counters per row of the sketch, rounded up to the next power of
+   *     two. The more distinct queries are expected, the wider the sketch should be
+   * @param maxHeavyHitters the number of most frequent queries to be tracked
+   */
+  public QueryFrequencySketch(int width, int maxHeavyHitters) {
+    int tableWidth = Integer.highestOneBit(greaterThan(0, width) - 1) << 1;
+    tableWidth = Math.max(tableWidth, 16);
+    widthMask = tableWidth - 1;
+    searchCounts = new AtomicLongArray(SEEDS.length * tableWidth);
+    missCounts = new AtomicLongArray(SEEDS.length * tableWidth);
+    this.maxHeavyHitters = greaterThan(0, maxHeavyHitters);
+    heavyHitters = new ConcurrentHashMap<>();
+    recorded = new AtomicLong();
+    evicting = new AtomicBoolean();
+    agingInterval = 10L * tableWidth;
+    agingPosition = new AtomicInteger(searchCounts.length());
+    minHeavyHitterCount = 0;
+  }
+
+  /**
+   * Records a search for the given query.
+   *
+   * @param query the canonical query
+   * @param miss whether the search required the web search provider to be contacted
+   */
+  public void record(String query, boolean miss) {
+    int hash = notNull(query).hashCode();
+    long estimate = Long.MAX_VALUE;
+    for (int row = 0; row < SEEDS.length; row++) {
+      int index = indexOf(hash, row);
+      estimate = Math.min(estimate, searchCounts.incrementAndGet(index));
+      if (miss) {
+        missCounts.incrementAndGet(index);
+      }
+    }
+    updateHeavyHitters(query, estimate);
+    if (recorded.incrementAndGet() % agingInterval == 0) {
+      startAging();
+    }
+    ageStep();
+  }
+
+  /**
+   * Returns the most frequent queries, ordered by their estimated frequency.
+   *
+   * @param limit the maximum number of queries to be returned
+   * @return the most frequent queries along with their estimated frequencies
+   */
+  public List<QueryFrequency> getHeavyHitters(int limit) {
+    int maxSize = Math.min(greaterThan(0, limit), maxHeavyHitters);
+    List<QueryFrequency> frequencies = new ArrayList<>(heavyHitters.size());
+    for (String query : heavyHitters.keySet()) {
+      int hash = query.hashCode();
+      frequencies.add(
+          new QueryFrequency(query, estimate(searchCounts, hash), estimate(missCounts, hash)));
+    }
+    return frequencies.stream()
+        .sorted(Comparator.comparingLong(QueryFrequency::getSearches).reversed())
+        .limit(maxSize)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Returns the estimated frequency of the given query.
+   *
+   * @param query the canonical query
+   * @return the estimated frequency
+   */
+  public QueryFrequency estimate(String query) {
+    int hash = notNull(query).hashCode();
+    return new QueryFrequency(query, estimate(searchCounts, hash), estimate(missCounts, hash));
+  }
+
+  private void updateHeavyHitters(String query, long estimate) {
+    AtomicLong count = heavyHitters.get(query);
+    if (count != null) {
+      count.set(estimate);
+      return;
+    }
+    if (estimate <= minHeavyHitterCount && heavyHitters.size() >= maxHeavyHitters) {
+      return;
+    }
+    heavyHitters.putIfAbsent(query, new AtomicLong(estimate));
+    if (heavyHitters.size() > 2 * maxHeavyHitters && evicting.compareAndSet(false, true)) {
+      try {
+        evictLeastFrequent();
+      } finally {
+        evicting.set(false);
+      }
+    }
+  }
+
+  private void evictLeastFrequent() {
+    // Counts are copied first, as concurrent updates must not change the order while sorting
+    List<Map.Entry<String, Long>> counts = new ArrayList<>(heavyHitters.size());
+    heavyHitters.forEach((query, count) -> counts.add(Map.entry(query, count.get())));
+    counts.sort(Map.Entry.comparingByValue());
+    int evictions = counts.size() - maxHeavyHitters;
+    if (evictions <= 0) {
+      return;
+    }
+    for (int i = 0; i < evictions; i++) {
+      heavyHitters.remove(counts.get(i).getKey());
+    }
+    minHeavyHitterCount = counts.get(evictions).getValue();
+  }
+
+  private void startAging() {
+    heavyHitters.values().forEach(count -> count.getAndUpdate(value -> value >>> 1));
+    minHeavyHitterCount >>>= 1;
+    agingPosition.set(0);
+  }
+
+  private void ageStep() {
+    int length = searchCounts.length();
+    int start;
+    int end;
+    do {
+      start = agingPosition.get();
+      if (start >= length) {
+        return;
+      }
+      end = Math.min(start + AGING_STEP, length);
+    } while (!agingPosition.compareAndSet(start, end));
+    for (int i = start; i < end; i++) {
+      searchCounts.getAndUpdate(i, count -> count >>> 1);
+      missCounts.getAndUpdate(i, count -> count >>> 1);
+    }
+  }
+
+  private long estimate(AtomicLongArray counts, int hash) {
+    long estimate = Long.MAX_VALUE;
+    for (int row = 0; row < SEEDS.length; row++) {
+      estimate = Math.min(estimate, counts.get(indexOf(hash, row)));
+    }
+    return estimate;
+  }
+
+  private int indexOf(int hash, int row) {
+    long h = (hash + SEEDS[row]) * SEEDS[row];
+    h += h >>> 32;
+    return row * (widthMask + 1) + ((int) h & widthMask);
+  }
+}
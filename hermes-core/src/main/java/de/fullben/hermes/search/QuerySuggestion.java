@@ -0,0 +1,50 @@
+package de.fullben.hermes.search;
+
+import static de.fullben.hermes.util.Preconditions.notBlank;
+
+/**
+ * A query suggested for a prefix typed by a user, see {@link CachingWebSearch#suggest(String,
+ * int)}.
+ *
+ * @author Benedikt Full
+ */
+public class QuerySuggestion {
+
+  private final String query;
+  private final long searches;
+  private final boolean cached;
+
+  public QuerySuggestion(String query, long searches, boolean cached) {
+    this.query = notBlank(query);
+    this.searches = searches;
+    this.cached = cached;
+  }
+
+  /**
+   * The suggested query, in its canonical form.
+   *
+   * @return the query
+   */
+  public String getQuery() {
+    return query;
+  }
+
+  /**
+   * The estimated number of recent searches for the query.
+   *
+   * @return the number of searches
+   */
+  public long getSearches() {
+    return searches;
+  }
+
+  /**
+   * Whether results for the query are cached, i.e., whether searching for it is answered right
+   * away.
+   *
+   * @return {@code true} if results are cached
+   */
+  public boolean isCached() {
+    return cached;
+  }
+}
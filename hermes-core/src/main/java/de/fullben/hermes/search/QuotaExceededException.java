@@ -0,0 +1,18 @@
+package de.fullben.hermes.search;
+
+import java.time.Duration;
+
+/**
+ * Thrown whenever a search is rejected because the client requesting it has exhausted its {@link
+ * SearchQuota}.
+ *
+ * @author Benedikt Full
+ */
+public class QuotaExceededException extends SearchRejectedException {
+
+  private static final long serialVersionUID = 6022541879160390482L;
+
+  public QuotaExceededException(String msg, Duration retryAfter) {
+    super(msg, retryAfter);
+  }
+}
@@ -0,0 +1,259 @@
+package de.fullben.hermes.search;
+
+import static de.fullben.hermes.util.Preconditions.greaterThan;
+import static de.fullben.hermes.util.Preconditions.notNull;
+
+import de.fullben.hermes.representation.SearchResultRepresentation;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Inverted index over the titles and snippets of cached search results, which allows answering
+ * queries locally, without contacting the web search provider.
+ *
+ * <p>Results are identified by their URL, so that a result cached for several queries is only
+ * indexed once. Whenever it is cached again with a different title or snippet, it is indexed anew.
+ * It is removed from the index once none of these queries is cached anymore.
+ * Results without a URL, title, or snippet are not indexed. Lookups rank results via <a
+ * href="https://en.wikipedia.org/wiki/Okapi_BM25">BM25</a>, which favors results containing rare
+ * query terms, while limiting the influence of frequently repeated terms and long texts.
+ *
+ * <p>All methods are thread-safe. Lookups may run concurrently, whereas adding and removing
+ * results requires exclusive access to the index. Results are tokenized before exclusive access is
+ * acquired, thus lookups are only blocked while the index itself is updated.
+ *
+ * @author Benedikt Full
+ */
+public class ResultIndex {
+
+  private static final Pattern TERM_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+  private static final double K1 = 1.2;
+  private static final double B = 0.75;
+  private final ReadWriteLock lock;
+  private final Map<String, IndexedResult> resultsByUrl;
+  private final Map<String, List<IndexedResult>> resultsByQuery;
+  private final Map<String, Map<IndexedResult, Integer>> postings;
+  private long totalLength;
+
+  public ResultIndex() {
+    lock = new ReentrantReadWriteLock();
+    resultsByUrl = new HashMap<>();
+    resultsByQuery = new HashMap<>();
+    postings = new HashMap<>();
+    totalLength = 0;
+  }
+
+  /**
+   * Indexes the results of the given query, replacing any results previously indexed for it.
+   *
+   * @param query the canonical query whose results are indexed
+   * @param results the results of the query
+   */
+  public void add(String query, List<SearchResultRepresentation> results) {
+    notNull(query);
+    List<IndexedResult> candidates = new ArrayList<>(notNull(results).size());
+    Set<String> urls = new HashSet<>();
+    for (SearchResultRepresentation result : results) {
+      if (result.getUrl() != null && urls.add(result.getUrl())) {
+        IndexedResult candidate = prepare(result);
+        if (candidate != null) {
+          candidates.add(candidate);
+        }
+      }
+    }
+    lock.writeLock().lock();
+    try {
+      removeQuery(query);
+      List<IndexedResult> indexedResults = new ArrayList<>(candidates.size());
+      for (IndexedResult candidate : candidates) {
+        IndexedResult indexedResult = resultsByUrl.get(candidate.result.getUrl());
+        if (indexedResult == null) {
+          indexedResult = candidate;
+          index(indexedResult);
+        } else if (!indexedResult.hasSameText(candidate)) {
+          unindex(indexedResult);
+          indexedResult.replaceWith(candidate);
+          index(indexedResult);
+        }
+        indexedResult.references++;
+        indexedResults.add(indexedResult);
+      }
+      resultsByQuery.put(query, indexedResults);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Removes the results of the given query from the index, unless they are also results of
+   * another indexed query.
+   *
+   * @param query the canonical query whose results are removed
+   */
+  public void remove(String query) {
+    notNull(query);
+    lock.writeLock().lock();
+    try {
+      removeQuery(query);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the number of distinct results in the index.
+   *
+   * @return the number of results
+   */
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return resultsByUrl.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Finds the indexed results that best match the given query. Results match if their title or
+   * snippet contains at least one of the terms of the query.
+   *
+   * @param query the query, usually in canonical form
+   * @param limit the maximum number of results to be returned
+   * @return copies of the best matching results, ordered by decreasing relevance
+   */
+  public List<SearchResultRepresentation> search(String query, int limit) {
+    greaterThan(0, limit);
+    Set<String> terms = new LinkedHashSet<>(tokenize(notNull(query)));
+    lock.readLock().lock();
+    try {
+      if (resultsByUrl.isEmpty()) {
+        return new ArrayList<>();
+      }
+      double resultCount = resultsByUrl.size();
+      double averageLength = totalLength / resultCount;
+      Map<IndexedResult, Double> scores = new HashMap<>();
+      for (String term : terms) {
+        Map<IndexedResult, Integer> matches = postings.get(term);
+        if (matches == null) {
+          continue;
+        }
+        double idf = Math.log(1 + (resultCount - matches.size() + 0.5) / (matches.size() + 0.5));
+        matches.forEach(
+            (result, frequency) -> {
+              double norm = K1 * (1 - B + B * result.length / averageLength);
+              double score = idf * frequency * (K1 + 1) / (frequency + norm);
+              scores.merge(result, score, Double::sum);
+            });
+      }
+      return scores.entrySet().stream()
+          .sorted(Map.Entry.<IndexedResult, Double>comparingByValue(Comparator.reverseOrder()))
+          .limit(limit)
+          .map(entry -> new SearchResultRepresentation(entry.getKey().result))
+          .collect(Collectors.toList());
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private static IndexedResult prepare(SearchResultRepresentation result) {
+    List<String> terms = new ArrayList<>();
+    if (result.getTitle() != null) {
+      terms.addAll(tokenize(result.getTitle()));
+    }
+    if (result.getSnippet() != null) {
+      terms.addAll(tokenize(result.getSnippet()));
+    }
+    if (terms.isEmpty()) {
+      return null;
+    }
+    IndexedResult indexedResult =
+        new IndexedResult(new SearchResultRepresentation(result), terms.size());
+    for (String term : terms) {
+      indexedResult.frequencies.merge(term, 1, Integer::sum);
+    }
+    return indexedResult;
+  }
+
+  private void index(IndexedResult indexedResult) {
+    indexedResult.frequencies.forEach(
+        (term, frequency) ->
+            postings.computeIfAbsent(term, t -> new HashMap<>()).put(indexedResult, frequency));
+    resultsByUrl.put(indexedResult.result.getUrl(), indexedResult);
+    totalLength += indexedResult.length;
+  }
+
+  private void unindex(IndexedResult indexedResult) {
+    resultsByUrl.remove(indexedResult.result.getUrl());
+    totalLength -= indexedResult.length;
+    for (String term : indexedResult.frequencies.keySet()) {
+      Map<IndexedResult, Integer> matches = postings.get(term);
+      matches.remove(indexedResult);
+      if (matches.isEmpty()) {
+        postings.remove(term);
+      }
+    }
+  }
+
+  private void removeQuery(String query) {
+    List<IndexedResult> indexedResults = resultsByQuery.remove(query);
+    if (indexedResults == null) {
+      return;
+    }
+    for (IndexedResult indexedResult : indexedResults) {
+      if (--indexedResult.references == 0) {
+        unindex(indexedResult);
+      }
+    }
+  }
+
+  private static List<String> tokenize(String text) {
+    List<String> terms = new ArrayList<>();
+    for (String term : TERM_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+      if (!term.isEmpty()) {
+        terms.add(term);
+      }
+    }
+    return terms;
+  }
+
+  /** A result in the index, along with the frequencies of its terms. */
+  private static class IndexedResult {
+
+    private SearchResultRepresentation result;
+    private int length;
+    private Map<String, Integer> frequencies;
+    private int references;
+
+    private IndexedResult(SearchResultRepresentation result, int length) {
+      this.result = result;
+      this.length = length;
+      frequencies = new HashMap<>();
+      references = 0;
+    }
+
+    private boolean hasSameText(IndexedResult other) {
+      return Objects.equals(result.getTitle(), other.result.getTitle())
+          && Objects.equals(result.getSnippet(), other.result.getSnippet());
+    }
+
+    /** Takes over the text of the given result, keeping the queries referencing this one. */
+    private void replaceWith(IndexedResult other) {
+      result = other.result;
+      length = other.length;
+      frequencies = other.frequencies;
+    }
+  }
+}
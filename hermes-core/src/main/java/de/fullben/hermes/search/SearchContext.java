@@ -0,0 +1,254 @@
+package de.fullben.hermes.search;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Collects timing and diagnostic data for a single search request while it passes through the
+ * cache, the {@link WebSearchClient}, and the {@link SearchResultParser}.
+ *
+ * <p>Phase durations are always recorded, as they are cheap to maintain. Detailed per-page traces
+ * are only retained by instances created via {@link #tracing()}. Instances may be shared by all
+ * threads working on the same request.
+ *
+ * <p>The context also carries the deadline of the search, which is derived from its {@link
+ * #setTimeout(Duration) timeout} and the time at which the context was created. Once the deadline
+ * has passed, no further result pages are fetched and the results found so far are returned,
+ * flagged as {@link #isPartial() partial}.
+ *
+ * @author Benedikt Full
+ */
+public class SearchContext {
+
+  private final boolean tracing;
+  private final long createdNanos;
+  private final AtomicLongArray phaseNanos;
+  private final Queue<PageTrace> pages;
+  private final AtomicInteger pageCount;
+  private volatile String query;
+  private volatile CacheOutcome cacheOutcome;
+  private volatile SearchQuota quota;
+  private volatile Duration timeout;
+  private volatile boolean partial;
+  private volatile SearchPriority priority;
+
+  private SearchContext(boolean tracing) {
+    this.tracing = tracing;
+    createdNanos = System.nanoTime();
+    phaseNanos = new AtomicLongArray(Phase.values().length);
+    pages = new ConcurrentLinkedQueue<>();
+    pageCount = new AtomicInteger();
+    query = null;
+    cacheOutcome = null;
+    quota = null;
+    timeout = null;
+    partial = false;
+    priority = SearchPriority.INTERACTIVE;
+  }
+
+  /**
+   * Creates a context which records phase durations only.
+   *
+   * @return a new context
+   */
+  public static SearchContext create() {
+    return new SearchContext(false);
+  }
+
+  /**
+   * Creates a context which records phase durations as well as a trace of every fetched page.
+   *
+   * @return a new context
+   */
+  public static SearchContext tracing() {
+    return new SearchContext(true);
+  }
+
+  public boolean isTracing() {
+    return tracing;
+  }
+
+  /**
+   * Adds the given duration to the total time spent in the given phase.
+   *
+   * @param phase the phase
+   * @param nanos the duration in nanoseconds
+   */
+  public void addTime(Phase phase, long nanos) {
+    phaseNanos.addAndGet(phase.ordinal(), nanos);
+  }
+
+  /**
+   * Returns the total time spent in the given phase.
+   *
+   * @param phase the phase
+   * @return the duration in nanoseconds, zero if the phase was never entered
+   */
+  public long getTime(Phase phase) {
+    return phaseNanos.get(phase.ordinal());
+  }
+
+  /**
+   * Returns the canonical form of the query, as used for looking up cached results and for
+   * contacting the web search provider.
+   *
+   * @return the canonical query, {@code null} if the search has not started yet
+   */
+  public String getQuery() {
+    return query;
+  }
+
+  public void setQuery(String query) {
+    this.query = query;
+  }
+
+  public CacheOutcome getCacheOutcome() {
+    return cacheOutcome;
+  }
+
+  public void setCacheOutcome(CacheOutcome cacheOutcome) {
+    this.cacheOutcome = cacheOutcome;
+  }
+
+  /**
+   * Returns the quota of the client that requested the search.
+   *
+   * @return the quota, {@code null} if the search is not subject to a quota
+   */
+  public SearchQuota getQuota() {
+    return quota;
+  }
+
+  public void setQuota(SearchQuota quota) {
+    this.quota = quota;
+  }
+
+  /**
+   * Returns the maximum duration of the search, measured from the creation of this context.
+   *
+   * @return the timeout, {@code null} if the search has no deadline
+   */
+  public Duration getTimeout() {
+    return timeout;
+  }
+
+  public void setTimeout(Duration timeout) {
+    this.timeout = timeout;
+  }
+
+  /**
+   * Returns the time left until the deadline of the search.
+   *
+   * @return the remaining time in nanoseconds, zero if the deadline has passed, or {@link
+   *     Long#MAX_VALUE} if the search has no deadline
+   */
+  public long getRemainingNanos() {
+    Duration timeout = this.timeout;
+    if (timeout == null) {
+      return Long.MAX_VALUE;
+    }
+    return Math.max(0, timeout.toNanos() - (System.nanoTime() - createdNanos));
+  }
+
+  /**
+   * Returns whether the deadline of the search has passed.
+   *
+   * @return {@code true} if the search has a deadline and it has passed
+   */
+  public boolean isExpired() {
+    return getRemainingNanos() == 0;
+  }
+
+  /**
+   * Returns whether the search returned fewer results than requested, as its deadline passed
+   * before enough results were found.
+   *
+   * @return {@code true} if the results are partial
+   */
+  public boolean isPartial() {
+    return partial;
+  }
+
+  public void setPartial(boolean partial) {
+    this.partial = partial;
+  }
+
+  /**
+   * Returns the priority with which the search competes for the capacity of the web search
+   * provider (see {@link AdmissionControl}).
+   *
+   * @return the priority, {@link SearchPriority#INTERACTIVE} unless set otherwise
+   */
+  public SearchPriority getPriority() {
+    return priority;
+  }
+
+  public void setPriority(SearchPriority priority) {
+    this.priority = priority;
+  }
+
+  /**
+   * Records the trace of a fetched page. Only the number of pages is recorded if this context is
+   * not {@link #isTracing() tracing}.
+   *
+   * @param trace the page trace
+   */
+  public void addPage(PageTrace trace) {
+    pageCount.incrementAndGet();
+    if (tracing) {
+      pages.add(trace);
+    }
+  }
+
+  /**
+   * Returns the traces of all pages recorded so far, in the order in which they were recorded.
+   *
+   * @return a snapshot of the page traces, empty if this context is not tracing
+   */
+  public List<PageTrace> getPages() {
+    return new ArrayList<>(pages);
+  }
+
+  /**
+   * Returns the number of pages recorded so far, regardless of whether this context is tracing.
+   *
+   * @return the number of fetched pages
+   */
+  public int getPageCount() {
+    return pageCount.get();
+  }
+
+  /** The phases of a search request for which durations are recorded. */
+  public enum Phase {
+    /** Looking up results in the result cache. */
+    CACHE,
+    /** Waiting for the admission of a search which has to contact the web search provider. */
+    QUEUE,
+    /** Requesting result pages from the web search provider. */
+    FETCH,
+    /** Building the document model of fetched pages. */
+    PARSE,
+    /** Extracting search results from the document model. */
+    EXTRACT;
+  }
+
+  /** Describes how a search request was answered with regard to the result cache. */
+  public enum CacheOutcome {
+    /** The request was answered from the cache. */
+    HIT,
+    /** The request was answered with the results of an equivalent, concurrent request. */
+    COALESCED,
+    /** The request required the web search provider to be contacted. */
+    MISS,
+    /**
+     * The request was answered from the local index of cached results (see {@link ResultIndex}),
+     * rather than by the web search provider.
+     */
+    LOCAL;
+  }
+}
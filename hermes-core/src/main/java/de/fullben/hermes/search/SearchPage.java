@@ -0,0 +1,41 @@
+package de.fullben.hermes.search;
+
+import static de.fullben.hermes.util.Preconditions.notNull;
+
+import org.jsoup.nodes.Document;
+
+/**
+ * A single result page returned by a web search provider, along with the trace of its retrieval.
+ *
+ * @author Benedikt Full
+ */
+public class SearchPage {
+
+  private final Document document;
+  private final PageTrace trace;
+  private final byte[] body;
+
+  public SearchPage(Document document, PageTrace trace, byte[] body) {
+    this.document = notNull(document);
+    this.trace = notNull(trace);
+    this.body = notNull(body);
+  }
+
+  public Document getDocument() {
+    return document;
+  }
+
+  public PageTrace getTrace() {
+    return trace;
+  }
+
+  /**
+   * The raw body of the page, exactly as returned by the web search provider. The charset of the
+   * body is the charset of the {@link #getDocument() document}.
+   *
+   * @return the body, not copied and thus not to be modified
+   */
+  public byte[] getBody() {
+    return body;
+  }
+}
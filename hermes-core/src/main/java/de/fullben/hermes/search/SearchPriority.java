@@ -0,0 +1,34 @@
+package de.fullben.hermes.search;
+
+/**
+ * The priority classes of searches which have to contact a web search provider. When searches of
+ * several classes wait for their execution, execution slots are handed out in proportion to the
+ * weights of the classes (see {@link AdmissionControl}).
+ *
+ * @author Benedikt Full
+ */
+public enum SearchPriority {
+  /** Searches whose results a client is waiting for, e.g., requests of the search endpoint. */
+  INTERACTIVE(8),
+  /**
+   * Searches whose results are not awaited right away, e.g., prefetches and batch searches. Such
+   * searches use the capacity left over by interactive searches, but are never starved entirely.
+   */
+  BACKGROUND(1);
+
+  private final int weight;
+
+  SearchPriority(int weight) {
+    this.weight = weight;
+  }
+
+  /**
+   * Returns the share of the execution slots this class receives while searches of several
+   * classes are waiting, relative to the weights of the other classes.
+   *
+   * @return a value greater than zero
+   */
+  public int getWeight() {
+    return weight;
+  }
+}
@@ -0,0 +1,20 @@
+package de.fullben.hermes.search;
+
+/**
+ * Limits the searches of a single client. A quota is attached to the {@link SearchContext} of a
+ * search request and charged by {@link CachingWebSearch} as soon as it is known whether the search
+ * can be answered from the cache or requires the web search provider to be contacted, so that
+ * different limits may apply to either.
+ *
+ * @author Benedikt Full
+ */
+public interface SearchQuota {
+
+  /**
+   * Charges a search with the given outcome against this quota.
+   *
+   * @param outcome how the search is answered
+   * @throws QuotaExceededException if this quota does not permit the search
+   */
+  void charge(SearchContext.CacheOutcome outcome) throws QuotaExceededException;
+}
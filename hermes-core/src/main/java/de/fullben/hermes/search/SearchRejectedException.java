@@ -0,0 +1,32 @@
+package de.fullben.hermes.search;
+
+import static de.fullben.hermes.util.Preconditions.notNull;
+
+import java.time.Duration;
+
+/**
+ * Thrown whenever a search is rejected without being executed, because the application currently
+ * lacks the capacity to execute it. Searches rejected this way may succeed if they are retried
+ * later.
+ *
+ * @author Benedikt Full
+ */
+public class SearchRejectedException extends SearchException {
+
+  private static final long serialVersionUID = -3196554010838432735L;
+  private final Duration retryAfter;
+
+  public SearchRejectedException(String msg, Duration retryAfter) {
+    super(msg);
+    this.retryAfter = notNull(retryAfter);
+  }
+
+  /**
+   * The amount of time after which the search should be retried.
+   *
+   * @return the suggested wait time
+   */
+  public Duration getRetryAfter() {
+    return retryAfter;
+  }
+}
@@ -0,0 +1,43 @@
+package de.fullben.hermes.search;
+
+import de.fullben.hermes.representation.SearchResultField;
+import de.fullben.hermes.representation.SearchResultRepresentation;
+import java.util.List;
+import java.util.Set;
+import org.jsoup.nodes.Document;
+
+/**
+ * Implementations of this interface can process the result page of a specific web search
+ * implementation (e.g., Google search).
+ *
+ * @author Benedikt Full
+ */
+public interface SearchResultParser {
+
+  /**
+   * Attempts to parse search results from the given document.
+   *
+   * @param doc a search result page
+   * @return a list containing all parsable results found in the given document, may be empty
+   * @throws SearchException if an error occurs during parsing
+   */
+  default List<SearchResultRepresentation> parse(Document doc) throws SearchException {
+    return parse(doc, SearchResultField.all(), new PageTrace());
+  }
+
+  /**
+   * Attempts to parse search results from the given document, limited to the given fields. Fields
+   * that are not requested are not extracted from the document and remain {@code null} in the
+   * returned results. The number of parsed and dropped result items is recorded in the given
+   * trace. Dropped items are result candidates that were found in the document but did not match
+   * the format expected by the parser.
+   *
+   * @param doc a search result page
+   * @param fields the fields to be extracted for each result, not {@code null}
+   * @param trace the trace of the page, not {@code null}
+   * @return a list containing all parsable results found in the given document, may be empty
+   * @throws SearchException if an error occurs during parsing
+   */
+  List<SearchResultRepresentation> parse(
+      Document doc, Set<SearchResultField> fields, PageTrace trace) throws SearchException;
+}
@@ -0,0 +1,38 @@
+package de.fullben.hermes.search;
+
+import static de.fullben.hermes.util.Preconditions.notNull;
+
+/**
+ * The outcome of changing the settings of a provider at runtime (see {@link
+ * CachingWebSearch#updateSettings(java.util.function.UnaryOperator)}).
+ *
+ * @author Benedikt Full
+ */
+public class SettingsUpdate {
+
+  private final ProviderSettings previous;
+  private final ProviderSettings current;
+
+  public SettingsUpdate(ProviderSettings previous, ProviderSettings current) {
+    this.previous = notNull(previous);
+    this.current = notNull(current);
+  }
+
+  /**
+   * The settings which applied right before the update.
+   *
+   * @return the previous settings
+   */
+  public ProviderSettings getPrevious() {
+    return previous;
+  }
+
+  /**
+   * The settings which apply as a result of the update.
+   *
+   * @return the current settings
+   */
+  public ProviderSettings getCurrent() {
+    return current;
+  }
+}
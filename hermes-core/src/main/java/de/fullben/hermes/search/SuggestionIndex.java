@@ -0,0 +1,113 @@
+package de.fullben.hermes.search;
+
+import static de.fullben.hermes.util.Preconditions.greaterThan;
+import static de.fullben.hermes.util.Preconditions.notNull;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.ToLongFunction;
+
+/**
+ * Sorted index of canonical queries, which supports finding all queries that start with a given
+ * prefix in logarithmic time.
+ *
+ * <p>Queries can be added and removed concurrently with lookups, so that the index can be kept in
+ * sync with a cache as entries are added and evicted.
+ *
+ * @author Benedikt Full
+ */
+public class SuggestionIndex {
+
+  private final NavigableSet<String> queries;
+
+  public SuggestionIndex() {
+    queries = new ConcurrentSkipListSet<>();
+  }
+
+  public void add(String query) {
+    queries.add(notNull(query));
+  }
+
+  public void remove(String query) {
+    queries.remove(notNull(query));
+  }
+
+  public int size() {
+    return queries.size();
+  }
+
+  /**
+   * Returns the queries starting with the given prefix, in lexicographic order.
+   *
+   * @param prefix the prefix, in canonical form
+   * @param limit the maximum number of queries to be returned
+   * @return the matching queries
+   */
+  public List<String> withPrefix(String prefix, int limit) {
+    notNull(prefix);
+    greaterThan(0, limit);
+    List<String> matches = new ArrayList<>(Math.min(limit, 16));
+    for (String query : queries.tailSet(prefix, true)) {
+      if (!query.startsWith(prefix) || matches.size() == limit) {
+        break;
+      }
+      matches.add(query);
+    }
+    return matches;
+  }
+
+  /**
+   * Returns the queries starting with the given prefix which are ranked highest by the given
+   * frequency, in descending order of frequency, and in lexicographic order among queries of the
+   * same frequency. All matching queries are ranked, thus the lookup takes time linear in their
+   * number, but only the highest ranked ones are retained.
+   *
+   * @param prefix the prefix, in canonical form
+   * @param limit the maximum number of queries to be returned
+   * @param frequency determines the frequency of a query
+   * @return the most frequent matching queries
+   */
+  public List<String> mostFrequentWithPrefix(
+      String prefix, int limit, ToLongFunction<String> frequency) {
+    notNull(prefix);
+    greaterThan(0, limit);
+    notNull(frequency);
+    Comparator<RankedQuery> ranking =
+        Comparator.comparingLong((RankedQuery ranked) -> ranked.frequency)
+            .reversed()
+            .thenComparing(ranked -> ranked.query);
+    // Heap of the highest ranked queries found so far, with the lowest ranked one on top
+    PriorityQueue<RankedQuery> highest = new PriorityQueue<>(ranking.reversed());
+    for (String query : queries.tailSet(prefix, true)) {
+      if (!query.startsWith(prefix)) {
+        break;
+      }
+      highest.add(new RankedQuery(query, frequency.applyAsLong(query)));
+      if (highest.size() > limit) {
+        highest.poll();
+      }
+    }
+    List<RankedQuery> ranked = new ArrayList<>(highest);
+    ranked.sort(ranking);
+    List<String> matches = new ArrayList<>(ranked.size());
+    for (RankedQuery query : ranked) {
+      matches.add(query.query);
+    }
+    return matches;
+  }
+
+  private static class RankedQuery {
+
+    private final String query;
+    private final long frequency;
+
+    private RankedQuery(String query, long frequency) {
+      this.query = query;
+      this.frequency = frequency;
+    }
+  }
+}
@@ -0,0 +1,713 @@
+package de.fullben.hermes.search;
+
+import static de.fullben.hermes.util.Preconditions.greaterThan;
+import static de.fullben.hermes.util.Preconditions.notBlank;
+import static de.fullben.hermes.util.Preconditions.notNull;
+import static org.apache.logging.log4j.util.Unbox.box;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jsoup.Connection;
+import org.jsoup.HttpStatusException;
+import org.jsoup.Jsoup;
+import org.jsoup.UnsupportedMimeTypeException;
+import org.jsoup.nodes.Document;
+
+/**
+ * Client for executing web search requests against the web UI of specific web search providers,
+ * such as Google.
+ *
+ * @author Benedikt Full
+ */
+public class WebSearchClient {
+
+  private static final Logger LOG = LogManager.getLogger(WebSearchClient.class);
+  private final String searchUrl;
+  private final String providerName;
+  private final String queryParam;
+  private final String resultsPerPageParam;
+  private final int maxResultsPerPage;
+  private final String pageStartParam;
+  private final int pageStartBase;
+  private final Connection session;
+  private final ExecutorService executor;
+  private final Semaphore requestPermits;
+  private final Duration maxRequestWait;
+  private final int fetchRetries;
+  private final Duration fetchRetryBackoff;
+
+  private WebSearchClient(Builder builder) {
+    searchUrl = notBlank(builder.searchUrl);
+    providerName =
+        builder.provider != null ? builder.provider.name() : URI.create(searchUrl).getHost();
+    queryParam = notBlank(builder.queryParam);
+    resultsPerPageParam = notBlank(builder.resultsPerPageParam);
+    maxResultsPerPage = greaterThan(0, builder.maxResultsPerPage);
+    pageStartParam = notBlank(builder.pageStartParam);
+    pageStartBase = greaterThan(-1, builder.pageStartBase);
+    // Sessions may be shared across threads, as long as each request is created via newRequest()
+    session = Jsoup.newSession().userAgent(notBlank(builder.userAgent));
+    executor = builder.executor;
+    requestPermits = new Semaphore(greaterThan(0, builder.maxConcurrentRequests));
+    maxRequestWait = notNull(builder.maxRequestWait);
+    fetchRetries = greaterThan(-1, builder.fetchRetries);
+    fetchRetryBackoff = notNull(builder.fetchRetryBackoff);
+  }
+
+  /**
+   * Creates and returns a step builder for convenient creation of web search clients.
+   *
+   * @return a new builder instance
+   */
+  public static FirstStep builder() {
+    return new Builder();
+  }
+
+  /**
+   * Uses the web search configured for this client to return a list of pages containing the result
+   * data for the provided query. Note that in total, the returned pages will contain at least the
+   * number of (parsable) results as defined with the {@code minResults} parameter.
+   *
+   * <p>The time spent on requesting and parsing the pages is recorded in the given context. Pages
+   * that could not be fetched are added to the context's page traces, as they are not returned.
+   *
+   * <p>If the deadline of the given context passes, the requests still in progress are abandoned
+   * and only the pages fetched so far are returned. Thus, fewer pages than necessary for acquiring
+   * {@code minResults} results may be returned, possibly none at all.
+   *
+   * @param query the search term, usually case-insensitive
+   * @param minResults the minimum number of results to be acquired by the search
+   * @param context the context of the search request
+   * @return the web search result pages, each carrying the trace of its retrieval, in the order of
+   *     the pages
+   * @throws SearchException if an error occurs while executing the search, other than the deadline
+   *     of the context passing
+   */
+  public List<SearchPage> search(String query, int minResults, SearchContext context)
+      throws SearchException {
+    long startTime = System.currentTimeMillis();
+    notBlank(query);
+    greaterThan(0, minResults);
+    notNull(context);
+    List<SearchPage> results;
+
+    if (minResults >= (maxResultsPerPage - 4)) {
+      // Perform search with pagination
+      int pageCount = (int) Math.ceil((double) minResults / maxResultsPerPage);
+      results =
+          executor == null
+              ? fetchPagesSequentially(query, pageCount, context)
+              : fetchPagesConcurrently(query, pageCount, context);
+      LOG.debug(
+          "Web search for query '{}' (pages: {}) took {} ms",
+          query,
+          box(pageCount),
+          box(System.currentTimeMillis() - startTime));
+    } else {
+      // Perform single-page search
+      results = new ArrayList<>(1);
+      try {
+        results.add(fetch(connectionWithBasicQueryData(query, minResults), 1, context));
+        LOG.debug(
+            "Web search for query '{}' (min results: {}) took {} ms",
+            query,
+            box(minResults),
+            box(System.currentTimeMillis() - startTime));
+      } catch (IOException e) {
+        if (!context.isExpired()) {
+          throw new SearchException(
+              "An error occurred while trying to execute a web search for query string '"
+                  + query
+                  + "'",
+              e);
+        }
+        LOG.debug("Deadline of the web search for query '{}' has passed", query);
+      }
+    }
+
+    return results;
+  }
+
+  /**
+   * Loads and initializes the classes needed for executing requests, without actually executing
+   * one.
+   */
+  public void warmUp() {
+    connectionWithBasicQueryData("warm-up", maxResultsPerPage)
+        .data(pageStartParam, String.valueOf(pageStartBase));
+  }
+
+  private List<SearchPage> fetchPagesSequentially(
+      String query, int pageCount, SearchContext context) throws SearchException {
+    List<SearchPage> results = new ArrayList<>(pageCount);
+    for (int i = 0; i < pageCount; i++) {
+      try {
+        results.add(fetchPage(query, i, pageCount, context));
+      } catch (SearchException e) {
+        if (!context.isExpired()) {
+          throw e;
+        }
+        LOG.debug("Deadline of the web search for query '{}' has passed", query);
+        break;
+      }
+    }
+    return results;
+  }
+
+  private List<SearchPage> fetchPagesConcurrently(
+      String query, int pageCount, SearchContext context) throws SearchException {
+    List<Future<SearchPage>> pages = new ArrayList<>(pageCount);
+    for (int i = 0; i < pageCount; i++) {
+      int pageIndex = i;
+      pages.add(executor.submit(() -> fetchPage(query, pageIndex, pageCount, context)));
+    }
+
+    List<SearchPage> results = new ArrayList<>(pageCount);
+    try {
+      for (Future<SearchPage> page : pages) {
+        results.add(await(page, context));
+      }
+    } catch (TimeoutException e) {
+      // Only the pages fetched in order up to the deadline are of use, abandon the others
+      pages.forEach(page -> page.cancel(true));
+      LOG.debug("Deadline of the web search for query '{}' has passed", query);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      pages.forEach(page -> page.cancel(true));
+      throw new SearchException(
+          "Interrupted while waiting for the result pages of query '" + query + "'", e);
+    } catch (ExecutionException e) {
+      // No point in waiting for the remaining pages, the search has failed anyway
+      pages.forEach(page -> page.cancel(true));
+      if (context.isExpired()) {
+        LOG.debug("Deadline of the web search for query '{}' has passed", query);
+        return results;
+      }
+      if (e.getCause() instanceof SearchException) {
+        throw (SearchException) e.getCause();
+      }
+      throw new SearchException(e.getCause());
+    }
+    return results;
+  }
+
+  private static SearchPage await(Future<SearchPage> page, SearchContext context)
+      throws InterruptedException, ExecutionException, TimeoutException {
+    if (context.getTimeout() == null) {
+      return page.get();
+    }
+    return page.get(context.getRemainingNanos(), TimeUnit.NANOSECONDS);
+  }
+
+  private SearchPage fetchPage(String query, int pageIndex, int pageCount, SearchContext context)
+      throws SearchException {
+    // Page start index determines which "page" of the entire result list is fetched
+    int pageStart = pageStartBase + pageIndex * maxResultsPerPage;
+    try {
+      SearchPage page =
+          fetch(
+              connectionWithBasicQueryData(query, maxResultsPerPage)
+                  .data(pageStartParam, String.valueOf(pageStart)),
+              pageIndex + 1,
+              context);
+      LOG.debug(
+          "Web search for query '{}' (page {}/{}) took {} ms",
+          query,
+          box(pageIndex + 1),
+          box(pageCount),
+          box(TimeUnit.NANOSECONDS.toMillis(page.getTrace().getFetchNanos())));
+      return page;
+    } catch (IOException e) {
+      throw new SearchException(
+          "An error occurred while trying to execute a web search for query string '"
+              + query
+              + "' (page "
+              + (pageIndex + 1)
+              + "/"
+              + pageCount
+              + ")",
+          e);
+    }
+  }
+
+  private SearchPage fetch(Connection connection, int pageNumber, SearchContext context)
+      throws IOException, SearchException {
+    acquireRequestPermit(context);
+    try {
+      for (int retry = 0; ; retry++) {
+        try {
+          return fetchOnce(connection, pageNumber, context);
+        } catch (IOException e) {
+          Duration backoff = fetchRetryBackoff.multipliedBy(1L << retry);
+          if (retry >= fetchRetries
+              || !isTransient(e)
+              || backoff.toNanos() >= context.getRemainingNanos()) {
+            throw e;
+          }
+          LOG.debug(
+              "Request for page {} of {} failed ({}), retrying in {} ms",
+              box(pageNumber),
+              searchUrl,
+              e.toString(),
+              box(backoff.toMillis()));
+          sleep(backoff);
+        }
+      }
+    } finally {
+      requestPermits.release();
+    }
+  }
+
+  private SearchPage fetchOnce(Connection connection, int pageNumber, SearchContext context)
+      throws IOException {
+    long remainingNanos = context.getRemainingNanos();
+    if (remainingNanos == 0) {
+      throw new SocketTimeoutException("The deadline of the search has passed");
+    }
+    // Round up, so that the deadline has passed for sure once the request times out
+    long remainingMillis = TimeUnit.NANOSECONDS.toMillis(remainingNanos) + 1;
+    if (remainingMillis < connection.request().timeout()) {
+      // Bound the request by the deadline, so that it is abandoned once the deadline passes
+      connection.timeout((int) remainingMillis);
+    }
+    PageTrace trace = new PageTrace(pageNumber);
+    FetchEvent fetchEvent = new FetchEvent();
+    fetchEvent.begin();
+    long fetchStart = System.nanoTime();
+    Connection.Response response;
+    byte[] body;
+    try {
+      response = connection.execute();
+      body = response.bodyAsBytes();
+      trace.setUrl(response.url().toExternalForm());
+      trace.setStatusCode(response.statusCode());
+      trace.setBytes(body.length);
+    } catch (HttpStatusException e) {
+      trace.setUrl(e.getUrl());
+      trace.setStatusCode(e.getStatusCode());
+      context.addPage(trace);
+      throw e;
+    } catch (IOException e) {
+      context.addPage(trace);
+      throw e;
+    } finally {
+      trace.setFetchNanos(System.nanoTime() - fetchStart);
+      context.addTime(SearchContext.Phase.FETCH, trace.getFetchNanos());
+      commit(fetchEvent, trace);
+    }
+
+    ParseEvent parseEvent = new ParseEvent();
+    parseEvent.begin();
+    long parseStart = System.nanoTime();
+    Document document = response.parse();
+    trace.setParseNanos(System.nanoTime() - parseStart);
+    context.addTime(SearchContext.Phase.PARSE, trace.getParseNanos());
+    commit(parseEvent, trace);
+    return new SearchPage(document, trace, body);
+  }
+
+  private void commit(FetchEvent event, PageTrace trace) {
+    event.end();
+    // Only populate the event if it is actually recorded, keeping disabled events nearly free
+    if (event.shouldCommit()) {
+      event.provider = providerName;
+      event.page = trace.getPageNumber();
+      event.statusCode = trace.getStatusCode();
+      event.bytes = trace.getBytes();
+      event.commit();
+    }
+  }
+
+  private void commit(ParseEvent event, PageTrace trace) {
+    event.end();
+    if (event.shouldCommit()) {
+      event.provider = providerName;
+      event.page = trace.getPageNumber();
+      event.bytes = trace.getBytes();
+      event.commit();
+    }
+  }
+
+  private void acquireRequestPermit(SearchContext context)
+      throws SocketTimeoutException, SearchException {
+    long remainingNanos = context.getRemainingNanos();
+    try {
+      if (remainingNanos < maxRequestWait.toNanos()) {
+        if (!requestPermits.tryAcquire(remainingNanos, TimeUnit.NANOSECONDS)) {
+          throw new SocketTimeoutException(
+              "The deadline of the search passed while waiting for a request slot");
+        }
+      } else if (!requestPermits.tryAcquire(maxRequestWait.toNanos(), TimeUnit.NANOSECONDS)) {
+        // Rejecting rather than waiting any longer keeps a slow provider from tying up the
+        // request threads needed for serving other providers
+        throw new SearchRejectedException(
+            "All " + searchUrl + " request slots are in use", retryAfter(maxRequestWait));
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SearchException("Interrupted while waiting for a request slot of " + searchUrl, e);
+    }
+  }
+
+  private static Duration retryAfter(Duration wait) {
+    return wait.compareTo(Duration.ofSeconds(1)) < 0 ? Duration.ofSeconds(1) : wait;
+  }
+
+  private static boolean isTransient(IOException e) {
+    if (e instanceof HttpStatusException) {
+      // Not 429, as repeating a request right away only prolongs the throttling by the provider
+      return ((HttpStatusException) e).getStatusCode() >= 500;
+    }
+    // Content type issues will not resolve themselves, while timeouts or resets usually do
+    return !(e instanceof UnsupportedMimeTypeException);
+  }
+
+  private static void sleep(Duration duration) throws InterruptedIOException {
+    try {
+      Thread.sleep(duration.toMillis());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting to retry a request");
+    }
+  }
+
+  private Connection connectionWithBasicQueryData(String query, int resultCount) {
+    return session
+        .newRequest()
+        .url(searchUrl)
+        .data(queryParam, URLEncoder.encode(query, StandardCharsets.UTF_8))
+        .data(resultsPerPageParam, String.valueOf(resultCount));
+  }
+
+  /**
+   * The {@link WebSearchClient} step builder implementation.
+   *
+   * @author Benedikt Full
+   */
+  public static class Builder
+      implements FirstStep,
+          QueryStep,
+          PageStep,
+          PageSizeStep,
+          PaginationStep,
+          PaginationBaseStep,
+          UserAgentStep,
+          FinalStep {
+
+    private String searchUrl;
+    private String queryParam;
+    private String resultsPerPageParam;
+    private int maxResultsPerPage;
+    private String pageStartParam;
+    private int pageStartBase;
+    private String userAgent;
+    private SearchProvider provider;
+    private ExecutorService executor;
+    private int maxConcurrentRequests = Integer.MAX_VALUE;
+    private Duration maxRequestWait = Duration.ofNanos(Long.MAX_VALUE);
+    private int fetchRetries = 0;
+    private Duration fetchRetryBackoff = Duration.ZERO;
+
+    @Override
+    public QueryStep searchUrl(String searchUrl) {
+      this.searchUrl = notBlank(searchUrl);
+      return this;
+    }
+
+    @Override
+    public PageStep queryParam(String queryParam) {
+      this.queryParam = notBlank(queryParam);
+      return this;
+    }
+
+    @Override
+    public PageSizeStep resultsPerPageParam(String resultsPerPageParam) {
+      this.resultsPerPageParam = notBlank(resultsPerPageParam);
+      return this;
+    }
+
+    @Override
+    public PaginationStep maxResultsPerPage(int maxResultsPerPage) {
+      this.maxResultsPerPage = greaterThan(0, maxResultsPerPage);
+      return this;
+    }
+
+    @Override
+    public PaginationBaseStep pageStartParam(String pageStartParam) {
+      this.pageStartParam = notBlank(pageStartParam);
+      return this;
+    }
+
+    @Override
+    public UserAgentStep pageStartBase(int base) {
+      this.pageStartBase = greaterThan(-1, base);
+      return this;
+    }
+
+    @Override
+    public UserAgentStep zeroBasedPageStart() {
+      return pageStartBase(0);
+    }
+
+    @Override
+    public UserAgentStep oneBasedPageStart() {
+      return pageStartBase(1);
+    }
+
+    @Override
+    public FinalStep userAgent(String userAgent) {
+      this.userAgent = notBlank(userAgent);
+      return this;
+    }
+
+    @Override
+    public FinalStep defaultUserAgent() {
+      return userAgent("ExampleBot 2.0 (+http://example.com/bot)");
+    }
+
+    @Override
+    public FinalStep firefoxOnWindowsUserAgent() {
+      return userAgent(
+          "Mozilla/5.0 (Windows NT 10.0; Win64; x64; rv:99.0) Gecko/20100101 Firefox/99.0");
+    }
+
+    @Override
+    public FinalStep provider(SearchProvider provider) {
+      this.provider = notNull(provider);
+      return this;
+    }
+
+    @Override
+    public FinalStep executor(ExecutorService executor) {
+      this.executor = notNull(executor);
+      return this;
+    }
+
+    @Override
+    public FinalStep maxConcurrentRequests(int maxConcurrentRequests) {
+      this.maxConcurrentRequests = greaterThan(0, maxConcurrentRequests);
+      return this;
+    }
+
+    @Override
+    public FinalStep maxRequestWait(Duration maxRequestWait) {
+      this.maxRequestWait = notNull(maxRequestWait);
+      return this;
+    }
+
+    @Override
+    public FinalStep fetchRetries(int retries, Duration backoff) {
+      this.fetchRetries = greaterThan(-1, retries);
+      this.fetchRetryBackoff = notNull(backoff);
+      return this;
+    }
+
+    @Override
+    public WebSearchClient build() {
+      return new WebSearchClient(this);
+    }
+  }
+
+  public interface FirstStep {
+
+    /**
+     * The address of the web search to be used by the client (e.g., {@code
+     * http://www.google.com/search} for the Google web search).
+     *
+     * @param url the web address of a web search
+     * @return this builder instance
+     */
+    QueryStep searchUrl(String url);
+  }
+
+  public interface QueryStep {
+
+    /**
+     * The name of the URL parameter used by the web search provider to set the query term.
+     *
+     * @param queryParam the name of the query URL parameter
+     * @return this builder instance
+     */
+    PageStep queryParam(String queryParam);
+  }
+
+  public interface PageStep {
+
+    /**
+     * The name of the URL parameter use by the web search provider to indicate the number of search
+     * results per page.
+     *
+     * @param resultsPerPageParam the name of the URL parameter indicating the search result count
+     * @return this builder instance
+     */
+    PageSizeStep resultsPerPageParam(String resultsPerPageParam);
+  }
+
+  public interface PageSizeStep {
+
+    /**
+     * The maximum number of results per page supported by the web search to the given value.
+     *
+     * @param maxResults the maximum number of results per page, a value greater than zero
+     * @return this builder instance
+     */
+    PaginationStep maxResultsPerPage(int maxResults);
+  }
+
+  public interface PaginationStep {
+
+    /**
+     * The name of the URL parameter used by the web search provider to indicate which item out of
+     * the entire result list found for a given query should be the first on some page.
+     *
+     * <p>While in other use cases, pagination is commonly handled by employing the page index and
+     * the page size, many web search providers seem to rely on a different approach. They usually
+     * use page size and index of the first item to be displayed on the page.
+     *
+     * @param pageStartParam the name of the URL parameter indicating the first item index
+     * @return this builder instance
+     */
+    PaginationBaseStep pageStartParam(String pageStartParam);
+  }
+
+  public interface PaginationBaseStep {
+
+    /**
+     * The base (first value) of the indexing system used by the search provider to uniquely
+     * identify each search result item.
+     *
+     * @param base the base value, usually zero or one
+     * @return this builder instance
+     */
+    UserAgentStep pageStartBase(int base);
+
+    /**
+     * The base (first value) of the indexing system used by the search provider as zero.
+     *
+     * @return this builder instance
+     * @see #pageStartBase(int)
+     */
+    UserAgentStep zeroBasedPageStart();
+
+    /**
+     * The base (first value) of the indexing system used by the search provider as one.
+     *
+     * @return this builder instance
+     * @see #pageStartBase(int)
+     */
+    UserAgentStep oneBasedPageStart();
+  }
+
+  public interface UserAgentStep {
+
+    /**
+     * The user agent executing the web search requests.
+     *
+     * @param userAgent the user agent
+     * @return this builder instance
+     */
+    FinalStep userAgent(String userAgent);
+
+    /**
+     * Uses some arbitrary and meaningless value for the user agent executing the web search
+     * requests.
+     *
+     * @return this builder instance
+     * @see #userAgent(String)
+     */
+    FinalStep defaultUserAgent();
+
+    /**
+     * Sets the user agent to a recent (04/2022) version of Mozilla Firefox running on a Windows 10
+     * machine.
+     *
+     * @return this builder instance
+     * @see #userAgent(String)
+     */
+    FinalStep firefoxOnWindowsUserAgent();
+  }
+
+  public interface FinalStep {
+
+    /**
+     * The web search provider whose web search is used by the client. The provider's name labels
+     * the profiling events recorded by the client, like those recorded by {@link
+     * CachingWebSearch}. By default, events are labeled with the host of the search URL.
+     *
+     * @param provider the web search provider
+     * @return this builder instance
+     */
+    FinalStep provider(SearchProvider provider);
+
+    /**
+     * The executor used for fetching the result pages of a search concurrently, if a search spans
+     * more than one page. If no executor is set, pages are fetched sequentially on the calling
+     * thread.
+     *
+     * @param executor the executor, e.g., one that starts a virtual thread per task
+     * @return this builder instance
+     */
+    FinalStep executor(ExecutorService executor);
+
+    /**
+     * The maximum number of requests the client may have in flight against the web search provider
+     * at any given time. Additional requests wait until a running request has completed. By
+     * default, the number of concurrent requests is not limited.
+     *
+     * @param maxConcurrentRequests the maximum number of concurrent requests, a value greater than
+     *     zero
+     * @return this builder instance
+     */
+    FinalStep maxConcurrentRequests(int maxConcurrentRequests);
+
+    /**
+     * The maximum amount of time a request waits for one of the {@link
+     * #maxConcurrentRequests(int) concurrent request} slots. If no slot becomes available in time,
+     * the search fails with a {@link SearchRejectedException}. By default, requests wait
+     * indefinitely.
+     *
+     * @param maxRequestWait the maximum wait time
+     * @return this builder instance
+     */
+    FinalStep maxRequestWait(Duration maxRequestWait);
+
+    /**
+     * The number of times a request for a result page is repeated if it fails due to a transient
+     * error, such as a timeout or a server error response. Requests throttled by the provider
+     * (HTTP status 429) are never repeated. The wait time between repetitions starts with the
+     * given backoff and doubles with each repetition. By default, failed requests are not
+     * repeated.
+     *
+     * <p>A request that still fails after its repetitions fails the search. Thus, the repetitions
+     * do not combine with the tries of {@link CachingWebSearch}, which only search again if the
+     * pages were fetched successfully but yielded too few results.
+     *
+     * @param retries the number of repetitions, a value equal to or greater than zero
+     * @param backoff the wait time before the first repetition
+     * @return this builder instance
+     */
+    FinalStep fetchRetries(int retries, Duration backoff);
+
+    /**
+     * Creates a {@code WebSearchClient} instance based on the state of this builder.
+     *
+     * @return a new {@code WebSearchClient} instance
+     */
+    WebSearchClient build();
+  }
+}
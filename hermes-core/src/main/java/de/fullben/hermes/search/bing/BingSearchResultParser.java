@@ -2,11 +2,14 @@ package de.fullben.hermes.search.bing;
 
 import static de.fullben.hermes.util.Preconditions.notNull;
 
+import de.fullben.hermes.representation.SearchResultField;
 import de.fullben.hermes.representation.SearchResultRepresentation;
 import de.fullben.hermes.search.DocumentStructureException;
+import de.fullben.hermes.search.PageTrace;
 import de.fullben.hermes.search.SearchException;
 import de.fullben.hermes.search.SearchResultParser;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
@@ -27,23 +30,33 @@ public class BingSearchResultParser implements SearchResultParser {
 
   /**
    * Finds and returns all Bing web search results found in the result list element located in the
-   * given search result page.
+   * given search result page. Elements of the result list which are not regular web search results
+   * (e.g., ads or news carousels) are reported as dropped.
    *
    * @param doc a document, not {@code null}
+   * @param fields the fields to be extracted for each result, not {@code null}
+   * @param trace the trace of the page, not {@code null}
    * @return a list of all parsable results found
    * @throws SearchException if an error occurs while trying to parse the document
    * @throws DocumentStructureException if the given document does not contain a Bing search result
    *     list element
    */
   @Override
-  public List<SearchResultRepresentation> parse(Document doc) throws SearchException {
+  public List<SearchResultRepresentation> parse(
+      Document doc, Set<SearchResultField> fields, PageTrace trace) throws SearchException {
     notNull(doc);
+    notNull(fields);
+    notNull(trace);
     Elements resultElements = findResultElements(doc);
     try {
-      return resultElements.stream()
-          .filter(this::isParsableResult)
-          .map(this::parseResult)
-          .collect(Collectors.toList());
+      List<SearchResultRepresentation> results =
+          resultElements.stream()
+              .filter(this::isParsableResult)
+              .map(result -> parseResult(result, fields))
+              .collect(Collectors.toList());
+      trace.setParsedCount(results.size());
+      trace.setDroppedCount(resultElements.size() - results.size());
+      return results;
     } catch (Exception e) {
       // Gotta catch 'em all: not really best practice, but it's very likely that this will fail
       // eventually (e.g., due to Bing changing its site layout), therefore we wrap any error in an
@@ -67,18 +80,27 @@ public class BingSearchResultParser implements SearchResultParser {
     return result.className().equals(DIV_CLASS_RESULT_ITEM);
   }
 
-  private SearchResultRepresentation parseResult(Element result) {
+  private SearchResultRepresentation parseResult(Element result, Set<SearchResultField> fields) {
+    // Each field requires a separate selector evaluation, thus only evaluate the requested ones
     SearchResultRepresentation res = new SearchResultRepresentation();
-    res.setTitle(parseResultTitle(result));
-    res.setSnippet(parseResultSnippet(result));
-    res.setUrl(parseResultUrl(result));
-    // Set this to null explicitly, because Bing does not provide page hierarchy information
-    res.setPageHierarchy(null);
+    if (fields.contains(SearchResultField.TITLE) || fields.contains(SearchResultField.URL)) {
+      // Title and URL are both taken from the same element
+      Element title = findTitle(result);
+      if (fields.contains(SearchResultField.TITLE)) {
+        res.setTitle(parseResultTitle(title));
+      }
+      if (fields.contains(SearchResultField.URL)) {
+        res.setUrl(parseResultUrl(title));
+      }
+    }
+    if (fields.contains(SearchResultField.SNIPPET)) {
+      res.setSnippet(parseResultSnippet(result));
+    }
+    // Page hierarchy remains null, because Bing does not provide page hierarchy information
     return res;
   }
 
-  private String parseResultTitle(Element result) {
-    Element title = findTitle(result);
+  private String parseResultTitle(Element title) {
     if (title == null) {
       return null;
     }
@@ -86,8 +108,7 @@ public class BingSearchResultParser implements SearchResultParser {
     return title.text();
   }
 
-  private String parseResultUrl(Element result) {
-    Element title = findTitle(result);
+  private String parseResultUrl(Element title) {
     if (title == null) {
       return null;
     }
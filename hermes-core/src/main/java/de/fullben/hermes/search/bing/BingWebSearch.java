@@ -0,0 +1,92 @@
+package de.fullben.hermes.search.bing;
+
+import de.fullben.hermes.search.CachingWebSearch;
+import de.fullben.hermes.search.PageArchive;
+import de.fullben.hermes.search.ProviderSettings;
+import de.fullben.hermes.search.QueryCanonicalizer;
+import de.fullben.hermes.search.SearchProvider;
+import de.fullben.hermes.search.WebSearchClient;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Web search implementation for Bing's web search. Does not depend on any framework, thus it can
+ * be embedded directly into other applications.
+ *
+ * @author Benedikt Full
+ */
+public class BingWebSearch extends CachingWebSearch {
+
+  /**
+   * Creates a new instance which fetches result pages on the calling thread and neither prefetches
+   * nor archives results.
+   *
+   * @param settings the settings of the provider
+   */
+  public BingWebSearch(ProviderSettings settings) {
+    this(settings, null, PageArchive.disabled());
+  }
+
+  /**
+   * Creates a new instance which fetches result pages and prefetches results on the given
+   * executor.
+   *
+   * @param settings the settings of the provider
+   * @param executor the executor on which result pages are fetched concurrently and results are
+   *     prefetched, may be {@code null}, in which case pages are fetched on the calling thread and
+   *     results are never prefetched
+   * @param pageArchive the archive in which result pages are stored
+   */
+  public BingWebSearch(
+      ProviderSettings settings, ExecutorService executor, PageArchive pageArchive) {
+    this(settings, executor, executor, pageArchive);
+  }
+
+  /**
+   * Creates a new instance.
+   *
+   * @param settings the settings of the provider
+   * @param fetchExecutor the executor on which the result pages of a search are fetched
+   *     concurrently, may be {@code null}, in which case pages are fetched on the calling thread
+   * @param prefetchExecutor the executor on which results are prefetched, may be {@code null}, in
+   *     which case results are never prefetched
+   * @param pageArchive the archive in which result pages are stored
+   */
+  public BingWebSearch(
+      ProviderSettings settings,
+      ExecutorService fetchExecutor,
+      ExecutorService prefetchExecutor,
+      PageArchive pageArchive) {
+    super(
+        client(settings, fetchExecutor),
+        new BingSearchResultParser(),
+        QueryCanonicalizer.preservingOperators("OR", "AND", "NOT"),
+        settings,
+        pageArchive,
+        prefetchExecutor);
+  }
+
+  private static WebSearchClient client(ProviderSettings settings, ExecutorService executor) {
+    WebSearchClient.FinalStep builder =
+        WebSearchClient.builder()
+            .searchUrl("http://www.bing.com/search")
+            .queryParam("q")
+            .resultsPerPageParam("count")
+            .maxResultsPerPage(50)
+            .pageStartParam("first")
+            .oneBasedPageStart()
+            .firefoxOnWindowsUserAgent()
+            .provider(SearchProvider.BING)
+            .maxConcurrentRequests(settings.getMaxConcurrentRequests())
+            .maxRequestWait(settings.getMaxRequestWait())
+            .fetchRetries(settings.getFetchRetries(), settings.getFetchRetryBackoff());
+    if (executor != null) {
+      builder.executor(executor);
+    }
+    return builder.build();
+  }
+
+  @Override
+  public SearchProvider getProvider() {
+    return SearchProvider.BING;
+  }
+}
@@ -0,0 +1,72 @@
+package de.fullben.hermes.search.google;
+
+import static de.fullben.hermes.util.Preconditions.notNull;
+
+import de.fullben.hermes.representation.SearchResultField;
+import de.fullben.hermes.representation.SearchResultRepresentation;
+import de.fullben.hermes.search.DocumentStructureException;
+import de.fullben.hermes.search.PageTrace;
+import de.fullben.hermes.search.SearchException;
+import de.fullben.hermes.search.SearchResultParser;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+
+/**
+ * Fallback parser for Google web search result pages, which does not depend on the obfuscated
+ * class names used by {@link GoogleSearchResultParser}. Instead, results are identified by their
+ * links, which point to Google's redirect endpoint and contain a heading.
+ *
+ * <p>As snippets and page hierarchies cannot be identified reliably without the class names, only
+ * the title and URL of each result are extracted.
+ *
+ * @author Benedikt Full
+ */
+public class GoogleLinkResultParser implements SearchResultParser {
+
+  private static final String SELECTOR_RESULT_LINK = "a[href^=/url?q=]:has(h3)";
+
+  public GoogleLinkResultParser() {}
+
+  /**
+   * Finds and returns all Google web search results found in the given document, identified by
+   * their links.
+   *
+   * @throws DocumentStructureException if the given document does not contain any result links
+   */
+  @Override
+  public List<SearchResultRepresentation> parse(
+      Document doc, Set<SearchResultField> fields, PageTrace trace) throws SearchException {
+    notNull(doc);
+    notNull(fields);
+    notNull(trace);
+    List<SearchResultRepresentation> results = new ArrayList<>();
+    int dropped = 0;
+    for (Element link : doc.select(SELECTOR_RESULT_LINK)) {
+      String href = link.attr("href");
+      if (!href.contains("&sa=")) {
+        dropped++;
+        continue;
+      }
+      SearchResultRepresentation result = new SearchResultRepresentation();
+      if (fields.contains(SearchResultField.TITLE)) {
+        result.setTitle(link.select("h3").first().text());
+      }
+      if (fields.contains(SearchResultField.URL)) {
+        result.setUrl(GoogleSearchResultParser.actualUrl(href));
+      }
+      results.add(result);
+    }
+    if (results.isEmpty()) {
+      throw new DocumentStructureException(
+          "Document does not contain any Google search result links identified by '"
+              + SELECTOR_RESULT_LINK
+              + "'");
+    }
+    trace.setParsedCount(results.size());
+    trace.setDroppedCount(dropped);
+    return results;
+  }
+}
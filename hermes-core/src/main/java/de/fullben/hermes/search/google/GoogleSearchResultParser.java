@@ -2,11 +2,14 @@ package de.fullben.hermes.search.google;
 
 import static de.fullben.hermes.util.Preconditions.notNull;
 
+import de.fullben.hermes.representation.SearchResultField;
 import de.fullben.hermes.representation.SearchResultRepresentation;
 import de.fullben.hermes.search.DocumentStructureException;
+import de.fullben.hermes.search.PageTrace;
 import de.fullben.hermes.search.SearchException;
 import de.fullben.hermes.search.SearchResultParser;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
@@ -24,6 +27,10 @@ public class GoogleSearchResultParser implements SearchResultParser {
   private static final String DIV_CLASSES_PAGE_HIERARCHY = "BNeawe UPmit AP7Wnd";
   private static final String DIV_CLASSES_TITLE = "BNeawe vvjwJb AP7Wnd";
   private static final String DIV_CLASSES_SNIPPET = "BNeawe s3v9rd AP7Wnd";
+  private static final String SELECTOR_RESULT_ITEM = divClasses(DIV_CLASSES_RESULT_ITEM);
+  private static final String SELECTOR_PAGE_HIERARCHY = divClasses(DIV_CLASSES_PAGE_HIERARCHY);
+  private static final String SELECTOR_TITLE = divClasses(DIV_CLASSES_TITLE);
+  private static final String SELECTOR_SNIPPET = divClasses(DIV_CLASSES_SNIPPET);
 
   public GoogleSearchResultParser() {}
 
@@ -32,17 +39,27 @@ public class GoogleSearchResultParser implements SearchResultParser {
    * formatting (based on {@code div} classes) expected by the parser.
    *
    * @param doc a document, not {@code null}
+   * @param fields the fields to be extracted for each result, not {@code null}
+   * @param trace the trace of the page, not {@code null}
    * @return a list of all parsable results found
    * @throws SearchException if an error occurs while trying to parse the document
    * @throws DocumentStructureException if the given document does not contain any Google search
    *     result items
    */
   @Override
-  public List<SearchResultRepresentation> parse(Document doc) throws SearchException {
+  public List<SearchResultRepresentation> parse(
+      Document doc, Set<SearchResultField> fields, PageTrace trace) throws SearchException {
     notNull(doc);
+    notNull(fields);
+    notNull(trace);
     Elements resultElements = findResultElements(doc);
     try {
-      return resultElements.stream().map(this::parseResult).collect(Collectors.toList());
+      List<SearchResultRepresentation> results =
+          resultElements.stream()
+              .map(result -> parseResult(result, fields))
+              .collect(Collectors.toList());
+      trace.setParsedCount(results.size());
+      return results;
     } catch (Exception e) {
       // Gotta catch 'em all: not really best practice, but it's very likely that this will fail
       // eventually (e.g., due to Google changing its site layout, or simply making a new
@@ -54,28 +71,36 @@ public class GoogleSearchResultParser implements SearchResultParser {
   }
 
   private Elements findResultElements(Document doc) throws DocumentStructureException {
-    String resultItemDivClasses = divClasses(DIV_CLASSES_RESULT_ITEM);
-    Elements resultsContainer = doc.select(resultItemDivClasses);
+    Elements resultsContainer = doc.select(SELECTOR_RESULT_ITEM);
     if (resultsContainer.isEmpty()) {
       throw new DocumentStructureException(
           "Document does not contain any Google search results identified by div classes '"
-              + resultItemDivClasses
+              + SELECTOR_RESULT_ITEM
               + "'");
     }
     return resultsContainer;
   }
 
-  private SearchResultRepresentation parseResult(Element result) {
+  private SearchResultRepresentation parseResult(Element result, Set<SearchResultField> fields) {
+    // Each field requires a separate selector evaluation, thus only evaluate the requested ones
     SearchResultRepresentation res = new SearchResultRepresentation();
-    res.setTitle(parseResultTitle(result));
-    res.setSnippet(parseResultSnippet(result));
-    res.setUrl(parseResultUrl(result));
-    res.setPageHierarchy(parseResultPageHierarchy(result));
+    if (fields.contains(SearchResultField.TITLE)) {
+      res.setTitle(parseResultTitle(result));
+    }
+    if (fields.contains(SearchResultField.SNIPPET)) {
+      res.setSnippet(parseResultSnippet(result));
+    }
+    if (fields.contains(SearchResultField.URL)) {
+      res.setUrl(parseResultUrl(result));
+    }
+    if (fields.contains(SearchResultField.PAGE_HIERARCHY)) {
+      res.setPageHierarchy(parseResultPageHierarchy(result));
+    }
     return res;
   }
 
   private String parseResultTitle(Element result) {
-    return firstElementChildText(result, divClasses(DIV_CLASSES_TITLE));
+    return firstElementChildText(result, SELECTOR_TITLE);
   }
 
   private String parseResultUrl(Element result) {
@@ -92,7 +117,7 @@ public class GoogleSearchResultParser implements SearchResultParser {
     return actualUrl(url);
   }
 
-  private String actualUrl(String enrichedUrl) {
+  static String actualUrl(String enrichedUrl) {
     String urlPrefix = "/url?q=";
     String urlPostfixStart = "&sa=";
     String url = enrichedUrl.substring(enrichedUrl.indexOf(urlPrefix) + urlPrefix.length());
@@ -101,11 +126,11 @@ public class GoogleSearchResultParser implements SearchResultParser {
   }
 
   private String parseResultPageHierarchy(Element result) {
-    return firstElementChildText(result, divClasses(DIV_CLASSES_PAGE_HIERARCHY));
+    return firstElementChildText(result, SELECTOR_PAGE_HIERARCHY);
   }
 
   private String parseResultSnippet(Element result) {
-    return firstElementChildText(result, divClasses(DIV_CLASSES_SNIPPET));
+    return firstElementChildText(result, SELECTOR_SNIPPET);
   }
 
   private String firstElementChildText(Element element, String selector) {
@@ -113,7 +138,7 @@ public class GoogleSearchResultParser implements SearchResultParser {
     return match == null ? null : match.text();
   }
 
-  private String divClasses(String classAttribute) {
+  private static String divClasses(String classAttribute) {
     // Spaces in class names are considered separate class names
     return "div." + classAttribute.replaceAll(" ", ".");
   }
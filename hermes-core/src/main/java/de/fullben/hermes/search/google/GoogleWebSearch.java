@@ -0,0 +1,103 @@
+package de.fullben.hermes.search.google;
+
+import de.fullben.hermes.search.CachingWebSearch;
+import de.fullben.hermes.search.FallbackSearchResultParser;
+import de.fullben.hermes.search.PageArchive;
+import de.fullben.hermes.search.ProviderSettings;
+import de.fullben.hermes.search.QueryCanonicalizer;
+import de.fullben.hermes.search.SearchProvider;
+import de.fullben.hermes.search.SearchResultParser;
+import de.fullben.hermes.search.WebSearchClient;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Web search implementation for Google's web search. Does not depend on any framework, thus it
+ * can be embedded directly into other applications.
+ *
+ * @author Benedikt Full
+ */
+public class GoogleWebSearch extends CachingWebSearch {
+
+  /**
+   * Creates a new instance which fetches result pages on the calling thread and neither prefetches
+   * nor archives results.
+   *
+   * @param settings the settings of the provider
+   */
+  public GoogleWebSearch(ProviderSettings settings) {
+    this(settings, null, PageArchive.disabled());
+  }
+
+  /**
+   * Creates a new instance which fetches result pages and prefetches results on the given
+   * executor.
+   *
+   * @param settings the settings of the provider
+   * @param executor the executor on which result pages are fetched concurrently and results are
+   *     prefetched, may be {@code null}, in which case pages are fetched on the calling thread and
+   *     results are never prefetched
+   * @param pageArchive the archive in which result pages are stored
+   */
+  public GoogleWebSearch(
+      ProviderSettings settings, ExecutorService executor, PageArchive pageArchive) {
+    this(settings, executor, executor, pageArchive);
+  }
+
+  /**
+   * Creates a new instance.
+   *
+   * @param settings the settings of the provider
+   * @param fetchExecutor the executor on which the result pages of a search are fetched
+   *     concurrently, may be {@code null}, in which case pages are fetched on the calling thread
+   * @param prefetchExecutor the executor on which results are prefetched, may be {@code null}, in
+   *     which case results are never prefetched
+   * @param pageArchive the archive in which result pages are stored
+   */
+  public GoogleWebSearch(
+      ProviderSettings settings,
+      ExecutorService fetchExecutor,
+      ExecutorService prefetchExecutor,
+      PageArchive pageArchive) {
+    super(
+        client(settings, fetchExecutor),
+        parser(settings),
+        QueryCanonicalizer.preservingOperators("OR", "AND"),
+        settings,
+        pageArchive,
+        prefetchExecutor);
+  }
+
+  private static WebSearchClient client(ProviderSettings settings, ExecutorService executor) {
+    WebSearchClient.FinalStep builder =
+        WebSearchClient.builder()
+            .searchUrl("http://www.google.com/search")
+            .queryParam("q")
+            .resultsPerPageParam("num")
+            .maxResultsPerPage(100)
+            .pageStartParam("start")
+            .zeroBasedPageStart()
+            .defaultUserAgent()
+            .provider(SearchProvider.GOOGLE)
+            .maxConcurrentRequests(settings.getMaxConcurrentRequests())
+            .maxRequestWait(settings.getMaxRequestWait())
+            .fetchRetries(settings.getFetchRetries(), settings.getFetchRetryBackoff());
+    if (executor != null) {
+      builder.executor(executor);
+    }
+    return builder.build();
+  }
+
+  private static SearchResultParser parser(ProviderSettings settings) {
+    if (!settings.isFallbackExtraction()) {
+      return new GoogleSearchResultParser();
+    }
+    return new FallbackSearchResultParser(
+        List.of(new GoogleSearchResultParser(), new GoogleLinkResultParser()));
+  }
+
+  @Override
+  public SearchProvider getProvider() {
+    return SearchProvider.GOOGLE;
+  }
+}
@@ -0,0 +1,53 @@
+package de.fullben.hermes.util;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Utility class providing access to virtual threads.
+ *
+ * <p>The application is compiled for Java 11, where virtual threads are not available. Therefore,
+ * the virtual thread API is accessed reflectively and only if the application is running on a Java
+ * runtime which supports it (Java 21 or newer).
+ *
+ * @author Benedikt Full
+ */
+public final class VirtualThreads {
+
+  private static final int MIN_FEATURE_VERSION = 21;
+
+  private VirtualThreads() {
+    throw new AssertionError();
+  }
+
+  /**
+   * Returns whether the current Java runtime supports virtual threads.
+   *
+   * @return {@code true} if virtual threads are available, {@code false} otherwise
+   */
+  public static boolean isSupported() {
+    return Runtime.version().feature() >= MIN_FEATURE_VERSION;
+  }
+
+  /**
+   * Creates an executor that starts a new virtual thread for each submitted task.
+   *
+   * @return a new executor service
+   * @throws IllegalStateException if the current Java runtime does not support virtual threads
+   */
+  public static ExecutorService newThreadPerTaskExecutor() {
+    if (!isSupported()) {
+      throw new IllegalStateException(
+          "Virtual threads require a Java "
+              + MIN_FEATURE_VERSION
+              + " runtime or newer, found: "
+              + Runtime.version());
+    }
+    try {
+      return (ExecutorService)
+          Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("Failed to create virtual thread executor", e);
+    }
+  }
+}
@@ -0,0 +1,67 @@
+package de.fullben.hermes.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import de.fullben.hermes.representation.SearchResultRepresentation;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the adaptation of cache expiry times by the {@link AdaptiveExpiry} class.
+ *
+ * @author Benedikt Full
+ */
+public class AdaptiveExpiryTests {
+
+  private static final Duration MIN = Duration.ofMinutes(5);
+  private static final Duration MAX = Duration.ofMinutes(60);
+
+  @Test
+  public void stableResultsAreCachedLongerUpToTheMaximum() {
+    AdaptiveExpiry expiry = new AdaptiveExpiry(Duration.ofMinutes(15), MIN, MAX);
+    List<SearchResultRepresentation> previous = results("a", "b", "c", "d", "e");
+    List<SearchResultRepresentation> reordered = results("b", "a", "c", "e", "d");
+
+    assertEquals(Duration.ofMinutes(15), expiry.initial());
+    assertEquals(Duration.ofMinutes(30), expiry.next(expiry.initial(), previous, reordered));
+    assertEquals(MAX, expiry.next(Duration.ofMinutes(40), previous, reordered));
+  }
+
+  @Test
+  public void volatileResultsAreCachedShorterDownToTheMinimum() {
+    AdaptiveExpiry expiry = new AdaptiveExpiry(Duration.ofMinutes(15), MIN, MAX);
+    List<SearchResultRepresentation> previous = results("a", "b", "c", "d", "e");
+    List<SearchResultRepresentation> changed = results("a", "f", "g", "h", "i");
+    List<SearchResultRepresentation> partlyChanged = results("a", "b", "c", "h", "i");
+
+    assertEquals(
+        Duration.ofMinutes(7).plusSeconds(30), expiry.next(expiry.initial(), previous, changed));
+    assertEquals(MIN, expiry.next(Duration.ofMinutes(6), previous, changed));
+    assertEquals(expiry.initial(), expiry.next(expiry.initial(), previous, partlyChanged));
+  }
+
+  @Test
+  public void resultsWithoutUrlsOrTitlesKeepTheirExpiry() {
+    AdaptiveExpiry expiry = new AdaptiveExpiry(Duration.ofMinutes(90), MIN, MAX);
+    List<SearchResultRepresentation> anonymous = List.of(new SearchResultRepresentation());
+
+    assertEquals(MAX, expiry.initial());
+    assertEquals(MAX, expiry.next(MAX, anonymous, anonymous));
+    assertThrows(IllegalArgumentException.class, () -> new AdaptiveExpiry(MIN, MAX, MIN));
+  }
+
+  private static List<SearchResultRepresentation> results(String... urls) {
+    return Stream.of(urls)
+        .map(
+            url -> {
+              SearchResultRepresentation result = new SearchResultRepresentation();
+              result.setUrl("https://" + url + ".org");
+              return result;
+            })
+        .collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,117 @@
+package de.fullben.hermes.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the limits enforced by the {@link AdmissionControl} class.
+ *
+ * @author Benedikt Full
+ */
+public class AdmissionControlTests {
+
+  @Test
+  public void admitRejectsRightAwayIfQueueIsFull() throws SearchException {
+    AdmissionControl admissionControl = new AdmissionControl(1, 0, Duration.ofMinutes(1));
+    admissionControl.admit();
+
+    long start = System.nanoTime();
+    SearchRejectedException e =
+        assertThrows(SearchRejectedException.class, admissionControl::admit);
+    assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10));
+    assertEquals(Duration.ofMinutes(1), e.getRetryAfter());
+    assertEquals(0, admissionControl.getQueued());
+  }
+
+  @Test
+  public void admitRejectsIfMaxWaitIsExceeded() throws SearchException {
+    AdmissionControl admissionControl = new AdmissionControl(1, 1, Duration.ofMillis(10));
+    admissionControl.admit();
+
+    SearchRejectedException e =
+        assertThrows(SearchRejectedException.class, admissionControl::admit);
+    assertEquals(Duration.ofSeconds(1), e.getRetryAfter());
+    assertEquals(0, admissionControl.getQueued());
+  }
+
+  @Test
+  public void admitWaitsNoLongerThanGivenMaxWait() throws SearchException {
+    AdmissionControl admissionControl = new AdmissionControl(1, 1, Duration.ofMinutes(1));
+    admissionControl.admit();
+
+    long start = System.nanoTime();
+    assertThrows(
+        SearchRejectedException.class,
+        () ->
+            admissionControl.admit(
+                SearchPriority.INTERACTIVE, TimeUnit.MILLISECONDS.toNanos(10)));
+    assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10));
+    assertEquals(0, admissionControl.getQueued());
+  }
+
+  @Test
+  public void admitWaitsForReleasedSlot() throws Exception {
+    AdmissionControl admissionControl = new AdmissionControl(1, 1, Duration.ofMinutes(1));
+    admissionControl.admit();
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      CountDownLatch started = new CountDownLatch(1);
+      Future<Long> waited =
+          executor.submit(
+              () -> {
+                started.countDown();
+                return admissionControl.admit();
+              });
+      started.await();
+      while (admissionControl.getQueued() == 0 && !waited.isDone()) {
+        Thread.onSpinWait();
+      }
+      admissionControl.release();
+      assertTrue(waited.get(1, TimeUnit.MINUTES) >= 0);
+      assertEquals(0, admissionControl.getQueued());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void releaseHandsSlotToInteractiveSearchesFirst() throws Exception {
+    AdmissionControl admissionControl = new AdmissionControl(1, 1, Duration.ofMinutes(1));
+    admissionControl.admit();
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<Long> background =
+          executor.submit(
+              () -> admissionControl.admit(SearchPriority.BACKGROUND, Long.MAX_VALUE));
+      while (admissionControl.getQueued(SearchPriority.BACKGROUND) == 0) {
+        Thread.onSpinWait();
+      }
+      Future<Long> interactive = executor.submit(() -> admissionControl.admit());
+      while (admissionControl.getQueued(SearchPriority.INTERACTIVE) == 0) {
+        Thread.onSpinWait();
+      }
+
+      admissionControl.release();
+      assertTrue(interactive.get(1, TimeUnit.MINUTES) >= 0);
+      assertFalse(background.isDone());
+
+      admissionControl.release();
+      assertTrue(background.get(1, TimeUnit.MINUTES) >= 0);
+      assertEquals(0, admissionControl.getQueued());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,360 @@
+package de.fullben.hermes.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sun.net.httpserver.HttpServer;
+import de.fullben.hermes.representation.SearchResultField;
+import de.fullben.hermes.representation.SearchResultRepresentation;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.jsoup.nodes.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link CachingWebSearch} class, searching a local server whose result pages
+ * are processed by a fake parser.
+ *
+ * @author Benedikt Full
+ */
+public class CachingWebSearchTests {
+
+  private static final byte[] PAGE =
+      "<html><head><title>Results</title></head><body></body></html>"
+          .getBytes(StandardCharsets.UTF_8);
+
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+  private HttpServer server;
+  private FakeResultParser parser;
+
+  @BeforeEach
+  public void startServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext(
+        "/search",
+        exchange -> {
+          exchange.getResponseHeaders().set("Content-Type", "text/html; charset=UTF-8");
+          exchange.sendResponseHeaders(200, PAGE.length);
+          try (OutputStream out = exchange.getResponseBody()) {
+            out.write(PAGE);
+          }
+        });
+    server.start();
+    parser = new FakeResultParser();
+  }
+
+  @AfterEach
+  public void stopServer() {
+    parser.release.countDown();
+    executor.shutdownNow();
+    server.stop(0);
+  }
+
+  @Test
+  public void updateSettingsShrinksCache() throws SearchException {
+    CachingWebSearch webSearch = webSearch(ProviderSettings.builder().build());
+    for (String query : List.of("news", "weather", "maps")) {
+      webSearch.search(query, 5);
+    }
+    assertEquals(3, webSearch.getCacheSize());
+
+    SettingsUpdate update = webSearch.updateSettings(builder -> builder.cacheMaxSize(1));
+
+    assertEquals(1000, update.getPrevious().getCacheMaxSize());
+    assertEquals(1, update.getCurrent().getCacheMaxSize());
+    assertSame(update.getCurrent(), webSearch.getSettings());
+    assertEquals(1, webSearch.getCacheMaxSize());
+    assertEquals(1, webSearch.getCacheSize());
+  }
+
+  @Test
+  public void updateSettingsClampsLifetimesOfCachedResults() throws SearchException {
+    CachingWebSearch webSearch = webSearch(ProviderSettings.builder().build());
+    webSearch.search("weather", 5);
+    assertEquals(
+        Duration.ofMinutes(15), webSearch.getCachedQuery("weather").orElseThrow().getExpireAfter());
+
+    webSearch.updateSettings(
+        builder ->
+            builder
+                .cacheMinExpireAfterMins(1)
+                .cacheExpireAfterMins(5)
+                .cacheMaxExpireAfterMins(10));
+
+    CachedQuery cached = webSearch.getCachedQuery("weather").orElseThrow();
+    assertEquals(Duration.ofMinutes(10), cached.getExpireAfter());
+    assertTrue(cached.getExpiresIn().compareTo(Duration.ofMinutes(10)) <= 0);
+  }
+
+  @Test
+  public void replacedResultsKeepTheirRemainingLifetime() throws Exception {
+    CachingWebSearch webSearch = webSearch(ProviderSettings.builder().build());
+    webSearch.search("weather", 5, Set.of(SearchResultField.TITLE), SearchContext.create());
+    Thread.sleep(1100);
+
+    // Requesting further fields replaces the cached results
+    webSearch.search("weather", 5, SearchResultField.all(), SearchContext.create());
+
+    CachedQuery cached = webSearch.getCachedQuery("weather").orElseThrow();
+    assertEquals(SearchResultField.all(), cached.getFields());
+    assertEquals(Duration.ofMinutes(15), cached.getExpireAfter());
+    assertTrue(cached.getExpiresIn().compareTo(Duration.ofMinutes(15).minusSeconds(1)) <= 0);
+  }
+
+  @Test
+  public void invalidSettingsUpdateLeavesSettingsUnchanged() throws SearchException {
+    CachingWebSearch webSearch = webSearch(ProviderSettings.builder().build());
+    webSearch.search("weather", 5);
+    ProviderSettings settings = webSearch.getSettings();
+
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            webSearch.updateSettings(
+                builder ->
+                    builder
+                        .cacheMaxSize(1)
+                        .cacheMinExpireAfterMins(20)
+                        .cacheMaxExpireAfterMins(10)));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> webSearch.updateSettings(builder -> builder.cacheExpireAfterMins(5000)));
+    assertThrows(IllegalArgumentException.class, () -> webSearch.updateSettings(null));
+
+    assertSame(settings, webSearch.getSettings());
+    assertEquals(1000, webSearch.getCacheMaxSize());
+    assertEquals(
+        Duration.ofMinutes(15), webSearch.getCachedQuery("weather").orElseThrow().getExpireAfter());
+  }
+
+  @Test
+  public void probesUpdateHealthOfProvider() {
+    CachingWebSearch webSearch = webSearch(ProviderSettings.builder().build());
+
+    CanaryResult healthy = webSearch.probe("Weather", 10).orElseThrow();
+    assertTrue(healthy.isSuccessful());
+    assertEquals("weather", healthy.getQuery());
+    assertEquals(10, healthy.getParsedCount());
+    assertTrue(webSearch.getHealth().isAvailable());
+
+    parser.broken = true;
+    CanaryResult broken = webSearch.probe("weather", 10).orElseThrow();
+    assertFalse(broken.isSuccessful());
+    assertEquals(PageFailure.LAYOUT_CHANGED, broken.getFailure());
+    assertFalse(webSearch.getHealth().isAvailable());
+    assertEquals(
+        PageFailure.LAYOUT_CHANGED, webSearch.getHealth().getOutage().orElseThrow().getFailure());
+    assertSame(broken, webSearch.getHealth().getLastCanary().orElseThrow());
+
+    // A successful probe lets the provider recover without waiting for the cooldown
+    parser.broken = false;
+    assertTrue(webSearch.probe("weather", 10).orElseThrow().isSuccessful());
+    assertTrue(webSearch.getHealth().isAvailable());
+    assertTrue(webSearch.getHealth().getOutage().isEmpty());
+  }
+
+  @Test
+  public void probeDoesNotAffectHealthIfFewerResultsAreFound() {
+    CachingWebSearch webSearch = webSearch(ProviderSettings.builder().build());
+
+    CanaryResult result = webSearch.probe("weather", 20).orElseThrow();
+
+    assertFalse(result.isSuccessful());
+    assertEquals(0.5, result.getYield());
+    assertTrue(webSearch.getHealth().isAvailable());
+  }
+
+  @Test
+  public void probeIsSkippedIfProviderHasNoCapacityToSpare() throws Exception {
+    CachingWebSearch webSearch =
+        webSearch(ProviderSettings.builder().maxConcurrentSearches(1).build());
+    parser.blocking = true;
+    CompletableFuture<Optional<CanaryResult>> running =
+        CompletableFuture.supplyAsync(() -> webSearch.probe("weather", 10), executor);
+    assertTrue(parser.blocked.await(5, TimeUnit.SECONDS));
+
+    assertTrue(webSearch.probe("news", 10).isEmpty());
+    assertTrue(webSearch.getHealth().getLastCanary().isEmpty());
+
+    parser.release.countDown();
+    assertTrue(running.get(5, TimeUnit.SECONDS).isPresent());
+    // The slot of the first probe has been released
+    assertTrue(webSearch.probe("news", 10).isPresent());
+  }
+
+  @Test
+  public void searchJoiningRejectedSearchSearchesOnItsOwn() throws Exception {
+    CachingWebSearch webSearch =
+        webSearch(ProviderSettings.builder().maxConcurrentSearches(1).build());
+    parser.blocking = true;
+    CompletableFuture<List<SearchResultRepresentation>> blocking =
+        searchAsync(webSearch, "news", SearchContext.create());
+    assertTrue(parser.blocked.await(5, TimeUnit.SECONDS));
+
+    // Gives up waiting for admission while the other search is joining it
+    SearchContext rejectedContext = SearchContext.create();
+    rejectedContext.setTimeout(Duration.ofMillis(300));
+    CompletableFuture<List<SearchResultRepresentation>> rejected =
+        searchAsync(webSearch, "weather", rejectedContext);
+    Thread.sleep(100);
+    SearchContext joiningContext = SearchContext.create();
+    CompletableFuture<List<SearchResultRepresentation>> joining =
+        searchAsync(webSearch, "weather", joiningContext);
+    assertTrue(rejected.get(5, TimeUnit.SECONDS).isEmpty());
+    assertTrue(rejectedContext.isPartial());
+
+    parser.release.countDown();
+    assertEquals(5, blocking.get(5, TimeUnit.SECONDS).size());
+    assertEquals(5, joining.get(5, TimeUnit.SECONDS).size());
+    assertFalse(joiningContext.isPartial());
+  }
+
+  @Test
+  public void searchesJoiningFailedSearchFailWithExceptionsOfTheirOwn() throws Exception {
+    CachingWebSearch webSearch = webSearch(ProviderSettings.builder().build());
+    parser.broken = true;
+    parser.blocking = true;
+    CompletableFuture<List<SearchResultRepresentation>> executing =
+        searchAsync(webSearch, "weather", SearchContext.create());
+    assertTrue(parser.blocked.await(5, TimeUnit.SECONDS));
+    CompletableFuture<List<SearchResultRepresentation>> joining =
+        searchAsync(webSearch, "weather", SearchContext.create());
+    Thread.sleep(100);
+
+    parser.release.countDown();
+    Throwable executingFailure = failureOf(executing);
+    Throwable joiningFailure = failureOf(joining);
+
+    assertTrue(executingFailure instanceof DocumentStructureException);
+    assertTrue(joiningFailure instanceof DocumentStructureException);
+    assertNotSame(executingFailure, joiningFailure);
+    assertSame(executingFailure, joiningFailure.getCause());
+    assertEquals(
+        PageFailure.LAYOUT_CHANGED, ((DocumentStructureException) joiningFailure).getFailure());
+  }
+
+  @Test
+  public void searchesJoiningPendingSearchAreChargedAsCoalesced() throws Exception {
+    CachingWebSearch webSearch = webSearch(ProviderSettings.builder().build());
+    List<SearchContext.CacheOutcome> charges = new CopyOnWriteArrayList<>();
+    parser.blocking = true;
+    SearchContext executingContext = SearchContext.create();
+    executingContext.setQuota(charges::add);
+    CompletableFuture<List<SearchResultRepresentation>> executing =
+        searchAsync(webSearch, "weather", executingContext);
+    assertTrue(parser.blocked.await(5, TimeUnit.SECONDS));
+    SearchContext joiningContext = SearchContext.create();
+    joiningContext.setQuota(charges::add);
+    CompletableFuture<List<SearchResultRepresentation>> joining =
+        searchAsync(webSearch, "weather", joiningContext);
+    Thread.sleep(100);
+
+    parser.release.countDown();
+    assertEquals(5, executing.get(5, TimeUnit.SECONDS).size());
+    assertEquals(5, joining.get(5, TimeUnit.SECONDS).size());
+
+    assertEquals(
+        List.of(SearchContext.CacheOutcome.MISS, SearchContext.CacheOutcome.COALESCED), charges);
+    assertEquals(SearchContext.CacheOutcome.COALESCED, joiningContext.getCacheOutcome());
+  }
+
+  private static Throwable failureOf(CompletableFuture<?> search) throws Exception {
+    ExecutionException e =
+        assertThrows(ExecutionException.class, () -> search.get(5, TimeUnit.SECONDS));
+    return e.getCause();
+  }
+
+  private CompletableFuture<List<SearchResultRepresentation>> searchAsync(
+      CachingWebSearch webSearch, String query, SearchContext context) {
+    return CompletableFuture.supplyAsync(
+        () -> {
+          try {
+            return webSearch.search(query, 5, SearchResultField.all(), context);
+          } catch (SearchException e) {
+            throw new CompletionException(e);
+          }
+        },
+        executor);
+  }
+
+  private CachingWebSearch webSearch(ProviderSettings settings) {
+    WebSearchClient client =
+        WebSearchClient.builder()
+            .searchUrl("http://localhost:" + server.getAddress().getPort() + "/search")
+            .queryParam("q")
+            .resultsPerPageParam("count")
+            .maxResultsPerPage(50)
+            .pageStartParam("first")
+            .oneBasedPageStart()
+            .defaultUserAgent()
+            .provider(SearchProvider.BING)
+            .build();
+    return new CachingWebSearch(client, parser, settings) {
+      @Override
+      public SearchProvider getProvider() {
+        return SearchProvider.BING;
+      }
+    };
+  }
+
+  /**
+   * Finds ten results on every page, unless it is broken, in which case the pages cannot be
+   * processed. If blocking, the first page is only processed once released.
+   */
+  private static class FakeResultParser implements SearchResultParser {
+
+    private final CountDownLatch blocked = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private volatile boolean broken;
+    private volatile boolean blocking;
+
+    @Override
+    public List<SearchResultRepresentation> parse(
+        Document doc, Set<SearchResultField> fields, PageTrace trace) throws SearchException {
+      if (blocking) {
+        blocking = false;
+        blocked.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new SearchException("Interrupted while blocking");
+        }
+      }
+      if (broken) {
+        throw new DocumentStructureException("Unknown layout");
+      }
+      List<SearchResultRepresentation> results = new ArrayList<>();
+      for (int i = 0; i < 10; i++) {
+        SearchResultRepresentation result = new SearchResultRepresentation();
+        result.setTitle("Result " + i);
+        result.setUrl("https://example.com/" + i);
+        results.add(result);
+      }
+      trace.setParsedCount(results.size());
+      return results;
+    }
+  }
+}
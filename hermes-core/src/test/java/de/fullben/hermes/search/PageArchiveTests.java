@@ -0,0 +1,180 @@
+package de.fullben.hermes.search;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.jsoup.Jsoup;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for the storage, replacement and pruning of archived result pages by the {@link
+ * PageArchive} class.
+ *
+ * @author Benedikt Full
+ */
+public class PageArchiveTests {
+
+  private static final long MAX_BYTES = 1024 * 1024;
+
+  @TempDir Path directory;
+
+  @Test
+  public void storedPagesCanBeLoaded() throws IOException {
+    PageArchive archive = new PageArchive(directory, Duration.ofDays(1), MAX_BYTES);
+    Instant before = Instant.now();
+    archive.store(SearchProvider.GOOGLE, "weather", List.of(page(1, "sunny"), page(2, "rainy")));
+    archive.close();
+
+    ArchivedSearch search = archive.load(SearchProvider.GOOGLE, "weather").orElseThrow();
+    assertEquals("weather", search.getQuery());
+    assertFalse(search.getFetchedAt().isBefore(before));
+    assertEquals(2, search.getPages().size());
+    SearchPage page = search.getPages().get(1);
+    assertEquals(2, page.getTrace().getPageNumber());
+    assertEquals("https://example.com/search?q=weather&page=2", page.getTrace().getUrl());
+    assertArrayEquals(html("rainy"), page.getBody());
+    assertEquals("rainy", page.getDocument().title());
+    assertEquals(List.of("weather"), archive.queries(SearchProvider.GOOGLE));
+    assertTrue(archive.load(SearchProvider.BING, "weather").isEmpty());
+  }
+
+  @Test
+  public void storingPagesReplacesPreviouslyArchivedPages() throws IOException {
+    PageArchive archive = new PageArchive(directory, Duration.ofDays(1), MAX_BYTES);
+    archive.store(SearchProvider.GOOGLE, "weather", List.of(page(1, "sunny"), page(2, "rainy")));
+    archive.store(SearchProvider.GOOGLE, "weather", List.of(page(1, "cloudy")));
+    archive.close();
+
+    ArchivedSearch search = archive.load(SearchProvider.GOOGLE, "weather").orElseThrow();
+    assertEquals(1, search.getPages().size());
+    assertEquals("cloudy", search.getPages().get(0).getDocument().title());
+    List<Path> searchDirectories = searchDirectories(SearchProvider.GOOGLE);
+    assertEquals(1, searchDirectories.size());
+    List<Path> versions = list(searchDirectories.get(0));
+    assertEquals(1, versions.size());
+    assertEquals("2", versions.get(0).getFileName().toString());
+    assertEquals(2, list(versions.get(0)).size());
+  }
+
+  @Test
+  public void incompleteVersionsDoNotReplaceArchivedPages() throws IOException {
+    PageArchive archive = new PageArchive(directory, Duration.ofDays(1), MAX_BYTES);
+    archive.store(SearchProvider.GOOGLE, "weather", List.of(page(1, "sunny")));
+    archive.close();
+    // Versions left behind by a write that did not complete, e.g., due to a crash
+    Path searchDirectory = searchDirectories(SearchProvider.GOOGLE).get(0);
+    Files.createDirectories(searchDirectory.resolve("2.partial"));
+    Files.createDirectories(searchDirectory.resolve("3"));
+
+    ArchivedSearch search = archive.load(SearchProvider.GOOGLE, "weather").orElseThrow();
+    assertEquals("sunny", search.getPages().get(0).getDocument().title());
+
+    archive = new PageArchive(directory, Duration.ofDays(1), MAX_BYTES);
+    archive.store(SearchProvider.GOOGLE, "weather", List.of(page(1, "rainy")));
+    archive.close();
+
+    search = archive.load(SearchProvider.GOOGLE, "weather").orElseThrow();
+    assertEquals("rainy", search.getPages().get(0).getDocument().title());
+    assertEquals(1, list(searchDirectory).size());
+  }
+
+  @Test
+  public void newArchivePrunesExpiredSearches() throws IOException {
+    PageArchive archive = new PageArchive(directory, Duration.ofDays(1), MAX_BYTES);
+    archive.store(SearchProvider.GOOGLE, "weather", List.of(page(1, "sunny")));
+    archive.close();
+    for (Path searchDirectory : searchDirectories(SearchProvider.GOOGLE)) {
+      Files.setLastModifiedTime(
+          searchDirectory, FileTime.from(Instant.now().minus(Duration.ofDays(2))));
+    }
+
+    // Pruning does not wait for the first pages to be written
+    archive = new PageArchive(directory, Duration.ofDays(1), MAX_BYTES);
+    archive.close();
+
+    assertTrue(archive.load(SearchProvider.GOOGLE, "weather").isEmpty());
+  }
+
+  @Test
+  public void storingPagesPrunesExpiredSearches() throws IOException {
+    PageArchive archive = new PageArchive(directory, Duration.ofDays(1), MAX_BYTES);
+    archive.store(SearchProvider.GOOGLE, "weather", List.of(page(1, "sunny")));
+    archive.close();
+    for (Path searchDirectory : searchDirectories(SearchProvider.GOOGLE)) {
+      Files.setLastModifiedTime(
+          searchDirectory, FileTime.from(Instant.now().minus(Duration.ofDays(2))));
+    }
+
+    archive = new PageArchive(directory, Duration.ofDays(1), MAX_BYTES);
+    archive.store(SearchProvider.BING, "news", List.of(page(1, "headlines")));
+    archive.close();
+
+    assertTrue(archive.load(SearchProvider.GOOGLE, "weather").isEmpty());
+    assertTrue(archive.load(SearchProvider.BING, "news").isPresent());
+  }
+
+  @Test
+  public void storingPagesPrunesOldestSearchesIfArchiveIsTooLarge() throws IOException {
+    PageArchive archive = new PageArchive(directory, Duration.ofDays(1), MAX_BYTES);
+    archive.store(SearchProvider.GOOGLE, "weather", List.of(page(1, "sunny")));
+    archive.close();
+    Path searchDirectory = searchDirectories(SearchProvider.GOOGLE).get(0);
+    Files.setLastModifiedTime(
+        searchDirectory, FileTime.from(Instant.now().minus(Duration.ofMinutes(1))));
+    long searchBytes = byteCount(searchDirectory);
+
+    // Room for one search of about the same size, but not for two
+    archive = new PageArchive(directory, Duration.ofDays(1), searchBytes * 3 / 2);
+    archive.store(SearchProvider.GOOGLE, "news", List.of(page(1, "rainy")));
+    archive.close();
+
+    assertTrue(archive.load(SearchProvider.GOOGLE, "weather").isEmpty());
+    assertTrue(archive.load(SearchProvider.GOOGLE, "news").isPresent());
+  }
+
+  private List<Path> searchDirectories(SearchProvider provider) throws IOException {
+    return list(directory.resolve(provider.name().toLowerCase(Locale.ROOT)));
+  }
+
+  private static List<Path> list(Path directory) throws IOException {
+    try (Stream<Path> paths = Files.list(directory)) {
+      return paths.collect(Collectors.toList());
+    }
+  }
+
+  private static long byteCount(Path searchDirectory) throws IOException {
+    try (Stream<Path> files = Files.walk(searchDirectory)) {
+      long bytes = 0;
+      for (Path file : files.filter(Files::isRegularFile).collect(Collectors.toList())) {
+        bytes += Files.size(file);
+      }
+      return bytes;
+    }
+  }
+
+  private static SearchPage page(int pageNumber, String title) {
+    PageTrace trace = new PageTrace(pageNumber);
+    trace.setUrl("https://example.com/search?q=weather&page=" + pageNumber);
+    byte[] body = html(title);
+    return new SearchPage(Jsoup.parse(new String(body, StandardCharsets.UTF_8)), trace, body);
+  }
+
+  private static byte[] html(String title) {
+    return ("<html><head><title>" + title + "</title></head><body></body></html>")
+        .getBytes(StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,60 @@
+package de.fullben.hermes.search;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the state kept by the {@link ProviderHealth} class.
+ *
+ * @author Benedikt Full
+ */
+public class ProviderHealthTests {
+
+  @Test
+  public void failureRejectsSearchesUntilCooldownHasPassed() {
+    ProviderHealth health = new ProviderHealth(Duration.ofMinutes(1));
+    assertDoesNotThrow(health::checkAvailable);
+
+    assertTrue(
+        health.recordFailure(new DocumentStructureException("Captcha", PageFailure.CAPTCHA)));
+    assertFalse(health.isAvailable());
+    assertEquals(PageFailure.CAPTCHA, health.getOutage().orElseThrow().getFailure());
+    ProviderUnavailableException e =
+        assertThrows(ProviderUnavailableException.class, health::checkAvailable);
+    assertTrue(e.getRetryAfter().compareTo(Duration.ofMinutes(1)) <= 0);
+  }
+
+  @Test
+  public void singleProbeIsLetThroughAfterCooldown() throws InterruptedException {
+    ProviderHealth health = new ProviderHealth(Duration.ofMillis(10));
+    health.recordFailure(new DocumentStructureException("Layout changed"));
+    Thread.sleep(50);
+
+    assertDoesNotThrow(health::checkAvailable);
+    assertThrows(ProviderUnavailableException.class, health::checkAvailable);
+    assertTrue(health.recordSuccess());
+    assertTrue(health.isAvailable());
+    assertDoesNotThrow(health::checkAvailable);
+  }
+
+  @Test
+  public void canaryOutcomeIsKeptWithoutAffectingAvailability() {
+    ProviderHealth health = new ProviderHealth(Duration.ofMinutes(1));
+    assertTrue(health.getLastCanary().isEmpty());
+
+    CanaryResult result =
+        new CanaryResult("weather", Instant.now(), Duration.ofMillis(300), 10, 6, 4, null, null);
+    health.recordCanary(result);
+    assertTrue(health.isAvailable());
+    assertEquals(result, health.getLastCanary().orElseThrow());
+    assertFalse(result.isSuccessful());
+    assertEquals(0.6, result.getYield(), 1e-9);
+  }
+}
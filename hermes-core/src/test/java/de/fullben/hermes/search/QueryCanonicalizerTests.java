@@ -0,0 +1,63 @@
+package de.fullben.hermes.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * Unit tests for the query normalization implemented by the {@link QueryCanonicalizer} class.
+ *
+ * @author Benedikt Full
+ */
+public class QueryCanonicalizerTests {
+
+  @ParameterizedTest
+  @MethodSource("newYorkVariants")
+  public void canonicalizeMapsEquivalentQueriesToSameValue(String query) {
+    assertEquals("new york", new QueryCanonicalizer().canonicalize(query));
+  }
+
+  @Test
+  public void canonicalizePreservesConfiguredOperators() {
+    QueryCanonicalizer canonicalizer = QueryCanonicalizer.preservingOperators("OR");
+    assertEquals("cats OR dogs", canonicalizer.canonicalize("Cats  OR Dogs"));
+    assertEquals("cats or dogs", canonicalizer.canonicalize("Cats or Dogs"));
+  }
+
+  @Test
+  public void canonicalizeLowersOperatorsIfNotConfigured() {
+    assertEquals("cats or dogs", new QueryCanonicalizer().canonicalize("Cats OR Dogs"));
+  }
+
+  @ParameterizedTest
+  @MethodSource("blankQueries")
+  public void canonicalizeThrowsIllegalArgumentExceptionIfQueryIsBlank(String query) {
+    assertThrows(
+        IllegalArgumentException.class, () -> new QueryCanonicalizer().canonicalize(query));
+  }
+
+  protected static Stream<String> newYorkVariants() {
+    return Stream.of(
+        "new york",
+        "New  York",
+        " new york",
+        "new york\t",
+        "NEW\nYORK",
+        // No-break space
+        "new\u00a0york",
+        // Ideographic space
+        "new\u3000york",
+        // Full-width letters
+        "\uff4e\uff45\uff57 \uff59\uff4f\uff52\uff4b",
+        // Zero-width space
+        "new \u200byork");
+  }
+
+  protected static Stream<String> blankQueries() {
+    return Stream.of("", " ", "\t\n", "\u200b", null);
+  }
+}
@@ -0,0 +1,29 @@
+package de.fullben.hermes.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the digests of queries computed by the {@link QueryDigest} class.
+ *
+ * @author Benedikt Full
+ */
+public class QueryDigestTests {
+
+  @Test
+  public void equalQueriesHaveEqualDigests() {
+    assertEquals(QueryDigest.of("weather"), QueryDigest.of("weather"));
+    assertNotEquals(QueryDigest.of("weather"), QueryDigest.of("news"));
+  }
+
+  @Test
+  public void digestsAreHexadecimalStringsOf64Bits() {
+    String digest = QueryDigest.of("weather");
+
+    assertEquals(16, digest.length());
+    assertTrue(digest.matches("[0-9a-f]+"));
+  }
+}
@@ -0,0 +1,64 @@
+package de.fullben.hermes.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the frequency estimates of the {@link QueryFrequencySketch} class.
+ *
+ * @author Benedikt Full
+ */
+public class QueryFrequencySketchTests {
+
+  @Test
+  public void heavyHittersAreOrderedByFrequency() {
+    QueryFrequencySketch sketch = new QueryFrequencySketch(1024, 3);
+    record(sketch, "hermes", 50, 5);
+    record(sketch, "zeus", 30, 0);
+    record(sketch, "apollo", 20, 20);
+    for (int i = 0; i < 200; i++) {
+      record(sketch, "query " + i, 1, 1);
+    }
+
+    List<QueryFrequency> heavyHitters = sketch.getHeavyHitters(10);
+    assertEquals(3, heavyHitters.size());
+    assertEquals("hermes", heavyHitters.get(0).getQuery());
+    assertEquals("zeus", heavyHitters.get(1).getQuery());
+    assertEquals("apollo", heavyHitters.get(2).getQuery());
+    assertEquals(1, sketch.getHeavyHitters(1).size());
+  }
+
+  @Test
+  public void estimatesNeverFallBelowActualFrequency() {
+    // Narrow enough for collisions, wide enough for no aging to happen
+    QueryFrequencySketch sketch = new QueryFrequencySketch(64, 10);
+    for (int i = 0; i < 100; i++) {
+      record(sketch, "query " + i, i % 7 + 1, (i % 7 + 1) / 2);
+    }
+
+    for (int i = 0; i < 100; i++) {
+      QueryFrequency frequency = sketch.estimate("query " + i);
+      assertTrue(frequency.getSearches() >= i % 7 + 1);
+      assertTrue(frequency.getMisses() >= (i % 7 + 1) / 2);
+    }
+  }
+
+  @Test
+  public void countsAreHalvedPeriodically() {
+    QueryFrequencySketch sketch = new QueryFrequencySketch(16, 10);
+    record(sketch, "hermes", 100, 0);
+    record(sketch, "zeus", 60, 0);
+
+    assertEquals(50, sketch.estimate("hermes").getSearches());
+    assertEquals(50, sketch.getHeavyHitters(1).get(0).getSearches());
+  }
+
+  private static void record(QueryFrequencySketch sketch, String query, int searches, int misses) {
+    for (int i = 0; i < searches; i++) {
+      sketch.record(query, i < misses);
+    }
+  }
+}
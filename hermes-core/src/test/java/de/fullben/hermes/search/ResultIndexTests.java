@@ -0,0 +1,85 @@
+package de.fullben.hermes.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.fullben.hermes.representation.SearchResultRepresentation;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the ranking and maintenance of the {@link ResultIndex} class.
+ *
+ * @author Benedikt Full
+ */
+public class ResultIndexTests {
+
+  @Test
+  public void searchRanksResultsContainingRareTermsFirst() {
+    ResultIndex index = new ResultIndex();
+    index.add(
+        "planets",
+        List.of(
+            result("https://a.org", "Planets of the solar system", "Mercury, Venus, Earth"),
+            result("https://b.org", "Neptune", "Neptune is the eighth planet of the solar system"),
+            result("https://c.org", "Solar energy", "Energy from the sun")));
+
+    assertEquals(
+        List.of("https://b.org", "https://a.org", "https://c.org"),
+        urls(index.search("neptune solar system", 10)));
+    assertEquals(List.of("https://b.org"), urls(index.search("NEPTUNE", 1)));
+    assertTrue(index.search("jupiter", 10).isEmpty());
+  }
+
+  @Test
+  public void resultsSharedByQueriesAreRemovedWithTheLastQuery() {
+    ResultIndex index = new ResultIndex();
+    index.add("neptune", List.of(result("https://b.org", "Neptune", "The eighth planet")));
+    index.add(
+        "eighth planet",
+        List.of(
+            result("https://b.org", "Neptune", "The eighth planet"),
+            result("https://d.org", "Planet Nine", "A hypothetical ninth planet")));
+    assertEquals(2, index.size());
+
+    index.remove("neptune");
+    assertEquals(List.of("https://b.org"), urls(index.search("neptune", 10)));
+
+    index.remove("eighth planet");
+    assertEquals(0, index.size());
+    assertTrue(index.search("planet", 10).isEmpty());
+  }
+
+  @Test
+  public void resultsCachedAgainWithDifferentTextAreIndexedAnew() {
+    ResultIndex index = new ResultIndex();
+    index.add("neptune", List.of(result("https://b.org", "Neptune", "The eighth planet")));
+    index.add(
+        "outer planets",
+        List.of(result("https://b.org", "Neptune", "The outermost planet of the solar system")));
+
+    assertEquals(1, index.size());
+    assertTrue(index.search("eighth", 10).isEmpty());
+    assertEquals(List.of("https://b.org"), urls(index.search("outermost", 10)));
+    assertEquals(
+        "The outermost planet of the solar system", index.search("neptune", 1).get(0).getSnippet());
+
+    index.remove("outer planets");
+    assertEquals(List.of("https://b.org"), urls(index.search("outermost", 10)));
+    index.remove("neptune");
+    assertEquals(0, index.size());
+  }
+
+  private static SearchResultRepresentation result(String url, String title, String snippet) {
+    SearchResultRepresentation result = new SearchResultRepresentation();
+    result.setUrl(url);
+    result.setTitle(title);
+    result.setSnippet(snippet);
+    return result;
+  }
+
+  private static List<String> urls(List<SearchResultRepresentation> results) {
+    return results.stream().map(SearchResultRepresentation::getUrl).collect(Collectors.toList());
+  }
+}
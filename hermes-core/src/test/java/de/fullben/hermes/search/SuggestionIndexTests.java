@@ -0,0 +1,63 @@
+package de.fullben.hermes.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the prefix lookups of the {@link SuggestionIndex} class.
+ *
+ * @author Benedikt Full
+ */
+public class SuggestionIndexTests {
+
+  @Test
+  public void withPrefixReturnsMatchingQueriesInOrder() {
+    SuggestionIndex index = new SuggestionIndex();
+    index.add("new york");
+    index.add("neptune");
+    index.add("new york times");
+    index.add("newton");
+    index.add("nevada");
+    index.add("ne");
+
+    assertEquals(List.of("new york", "new york times", "newton"), index.withPrefix("new", 10));
+    assertEquals(List.of("new york times"), index.withPrefix("new york ", 10));
+    assertEquals(List.of("ne", "neptune"), index.withPrefix("ne", 2));
+    assertEquals(List.of(), index.withPrefix("zeus", 10));
+  }
+
+  @Test
+  public void mostFrequentWithPrefixRanksAllMatchingQueries() {
+    SuggestionIndex index = new SuggestionIndex();
+    Map<String, Long> frequencies =
+        Map.of(
+            "nautilus", 1L,
+            "neptune", 2L,
+            "nevada", 2L,
+            "new york", 3L,
+            "newton", 9L,
+            "zeus", 10L);
+    frequencies.keySet().forEach(index::add);
+
+    // The most frequent queries are not the first ones in lexicographic order
+    assertEquals(
+        List.of("newton", "new york", "neptune"),
+        index.mostFrequentWithPrefix("ne", 3, frequencies::get));
+    assertEquals(List.of("newton"), index.mostFrequentWithPrefix("n", 1, frequencies::get));
+    assertEquals(List.of(), index.mostFrequentWithPrefix("hermes", 3, frequencies::get));
+  }
+
+  @Test
+  public void removedQueriesAreNotReturned() {
+    SuggestionIndex index = new SuggestionIndex();
+    index.add("hermes");
+    index.add("hermes trismegistus");
+    index.remove("hermes");
+
+    assertEquals(List.of("hermes trismegistus"), index.withPrefix("her", 10));
+    assertEquals(1, index.size());
+  }
+}
@@ -0,0 +1,37 @@
+#!/usr/bin/env bash
+# Creates a class data sharing (CDS) archive of the classes loaded during startup, which saves the
+# JVM from loading, parsing and verifying these classes on every start.
+#
+# Usage: scripts/cds-archive.sh [JAR]
+#
+# Without a jar, the boot jar in build/libs is used. CDS requires classes to be loaded from plain
+# jar files, which is why the boot jar is unpacked into build/cds first. A training run records the
+# classes loaded until the application is ready, from which the archive is created. The resulting
+# JVM arguments are written to build/cds/jvm.args, thus the application can be launched via
+# java @build/cds/jvm.args, e.g., scripts/startup-benchmark.sh 5 -- java @build/cds/jvm.args
+#
+# The archive is only valid for the JVM that created it and must be recreated whenever the
+# application or the JVM changes.
+set -euo pipefail
+
+JAR=$(realpath "${1:-$(ls build/libs/hermes-*.jar | grep -v -- "-plain.jar" | head -n 1)}")
+OUT=$(realpath -m build/cds)
+rm -rf "$OUT"
+mkdir -p "$OUT/app"
+(cd "$OUT/app" && jar -xf "$JAR")
+# CDS does not support directories on the class path
+jar -cf "$OUT/hermes-classes.jar" -C "$OUT/app/BOOT-INF/classes" .
+CLASS_PATH="$OUT/hermes-classes.jar:$(ls "$OUT"/app/BOOT-INF/lib/*.jar | sort | paste -sd : -)"
+MAIN_CLASS=de.fullben.hermes.HermesApplication
+
+echo "Recording the classes loaded during startup"
+java -XX:DumpLoadedClassList="$OUT/classes.lst" -cp "$CLASS_PATH" "$MAIN_CLASS" \
+  --server.port=0 --hermes.startup.exit-on-ready=true >"$OUT/training.log" 2>&1
+
+echo "Creating the archive"
+java -Xshare:dump -XX:SharedClassListFile="$OUT/classes.lst" \
+  -XX:SharedArchiveFile="$OUT/hermes.jsa" -cp "$CLASS_PATH" >"$OUT/dump.log" 2>&1
+
+printf '%s\n' "-XX:SharedArchiveFile=$OUT/hermes.jsa" "-cp" "$CLASS_PATH" "$MAIN_CLASS" \
+  >"$OUT/jvm.args"
+echo "Done, launch the application via: java @$OUT/jvm.args"
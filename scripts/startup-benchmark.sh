@@ -0,0 +1,50 @@
+#!/usr/bin/env bash
+# Measures the time from launching the application until it has answered its first request.
+#
+# Usage: scripts/startup-benchmark.sh [RUNS] [-- COMMAND...]
+#
+# Without a command, the boot jar in build/libs is launched. The application is launched RUNS times
+# (default: 5), the time of each run as well as the median are printed in milliseconds. The first
+# request is an unauthenticated search request, which is answered once Tomcat, the dispatcher
+# servlet and the security filter chain are up. Profiles can be selected via SPRING_PROFILES_ACTIVE,
+# e.g., SPRING_PROFILES_ACTIVE=fast-startup scripts/startup-benchmark.sh
+set -euo pipefail
+
+RUNS=${1:-5}
+shift || true
+if [ "${1:-}" = "--" ]; then
+  shift
+fi
+if [ $# -eq 0 ]; then
+  JAR=$(ls build/libs/hermes-*.jar | grep -v -- "-plain.jar" | head -n 1)
+  set -- java ${JAVA_OPTS:-} -jar "$JAR"
+fi
+PORT=${PORT:-8080}
+PROBE_URL=${PROBE_URL:-http://localhost:$PORT/api/search?q=startup}
+LOG_FILE=$(mktemp)
+trap 'rm -f "$LOG_FILE"' EXIT
+
+times=()
+for run in $(seq "$RUNS"); do
+  start=$(date +%s%N)
+  "$@" --server.port="$PORT" >"$LOG_FILE" 2>&1 &
+  pid=$!
+  # curl fails as long as the port is closed, any HTTP response counts as answered
+  until curl -s -o /dev/null "$PROBE_URL"; do
+    if ! kill -0 "$pid" 2>/dev/null; then
+      echo "Application exited before answering a request, see its output:" >&2
+      cat "$LOG_FILE" >&2
+      exit 1
+    fi
+    sleep 0.01
+  done
+  end=$(date +%s%N)
+  kill "$pid"
+  wait "$pid" || true
+  millis=$(((end - start) / 1000000))
+  times+=("$millis")
+  echo "Run $run: $millis ms"
+done
+
+sorted=($(printf '%s\n' "${times[@]}" | sort -n))
+echo "Median: ${sorted[$((RUNS / 2))]} ms"
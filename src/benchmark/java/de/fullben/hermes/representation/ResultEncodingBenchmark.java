@@ -0,0 +1,68 @@
+package de.fullben.hermes.representation;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the time spent encoding and decoding a typical list of search results with JSON and
+ * the binary encodings offered for search results. Run via the {@code benchmark} task.
+ *
+ * @author Benedikt Full
+ */
+public class ResultEncodingBenchmark {
+
+  private static final TypeReference<List<SearchResultRepresentation>> RESULT_LIST =
+      new TypeReference<>() {};
+  private static final int ITERATIONS = 2_000;
+
+  public static void main(String[] args) throws IOException {
+    List<SearchResultRepresentation> results = results(100);
+    benchmark("JSON", new ObjectMapper(), results);
+    benchmark("CBOR", new CBORMapper(), results);
+    benchmark("Smile", new SmileMapper(), results);
+  }
+
+  private static void benchmark(
+      String name, ObjectMapper mapper, List<SearchResultRepresentation> results)
+      throws IOException {
+    byte[] encoded = mapper.writeValueAsBytes(results);
+    // Warm up first, so that the measured times are not dominated by class loading and JIT
+    for (int i = 0; i < ITERATIONS; i++) {
+      mapper.readValue(mapper.writeValueAsBytes(results), RESULT_LIST);
+    }
+    long encodeStart = System.nanoTime();
+    for (int i = 0; i < ITERATIONS; i++) {
+      mapper.writeValueAsBytes(results);
+    }
+    long encodeNanos = (System.nanoTime() - encodeStart) / ITERATIONS;
+    long decodeStart = System.nanoTime();
+    for (int i = 0; i < ITERATIONS; i++) {
+      mapper.readValue(encoded, RESULT_LIST);
+    }
+    long decodeNanos = (System.nanoTime() - decodeStart) / ITERATIONS;
+    System.out.printf(
+        "%-5s %7d bytes, encode %6d us, decode %6d us%n",
+        name, encoded.length, encodeNanos / 1_000, decodeNanos / 1_000);
+  }
+
+  private static List<SearchResultRepresentation> results(int count) {
+    List<SearchResultRepresentation> results = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      SearchResultRepresentation result = new SearchResultRepresentation();
+      result.setTitle("Hermes - Wikipedia, result " + i);
+      result.setSnippet(
+          "Hermes is an Olympian deity in ancient Greek religion and mythology. Hermes is "
+              + "considered the herald of the gods. He is also considered the protector of human "
+              + "heralds, travellers, thieves, merchants, and orators.");
+      result.setUrl("https://en.wikipedia.org/wiki/Hermes?result=" + i);
+      result.setPageHierarchy("en.wikipedia.org > wiki > Hermes");
+      results.add(result);
+    }
+    return results;
+  }
+}
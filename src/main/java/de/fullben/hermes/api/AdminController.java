@@ -0,0 +1,490 @@
+package de.fullben.hermes.api;
+
+import de.fullben.hermes.quota.UserQuota;
+import de.fullben.hermes.quota.UserQuotas;
+import de.fullben.hermes.representation.ArchiveReparseRepresentation;
+import de.fullben.hermes.representation.ArchiveReparseStatusRepresentation;
+import de.fullben.hermes.representation.CacheEntryRepresentation;
+import de.fullben.hermes.representation.CacheReportRepresentation;
+import de.fullben.hermes.representation.CanaryRepresentation;
+import de.fullben.hermes.representation.ErrorRepresentation;
+import de.fullben.hermes.representation.HotQueryRepresentation;
+import de.fullben.hermes.representation.ProviderHealthRepresentation;
+import de.fullben.hermes.representation.ProviderSettingsRepresentation;
+import de.fullben.hermes.representation.QuotaUsageRepresentation;
+import de.fullben.hermes.representation.SearchResultField;
+import de.fullben.hermes.search.ArchiveReparse;
+import de.fullben.hermes.search.ArchiveReparseService;
+import de.fullben.hermes.search.CachedQuery;
+import de.fullben.hermes.search.CachingWebSearch;
+import de.fullben.hermes.search.CanaryResult;
+import de.fullben.hermes.search.ProviderHealth;
+import de.fullben.hermes.search.ProviderSettings;
+import de.fullben.hermes.search.QueryFrequency;
+import de.fullben.hermes.search.SearchProvider;
+import de.fullben.hermes.search.SearchProviderRegistry;
+import de.fullben.hermes.search.SettingsUpdate;
+import de.fullben.hermes.search.WebSearchService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import java.net.URI;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import javax.servlet.http.HttpServletRequest;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.StringMapMessage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Controller for administrative endpoints, accessible to admin users only.
+ *
+ * @author Benedikt Full
+ */
+@RestController
+@RequestMapping("/api/admin")
+@Validated
+public class AdminController {
+
+  /** The name of the logger to which changes of the provider settings are written. */
+  public static final String AUDIT_LOGGER = "de.fullben.hermes.audit";
+
+  private static final Logger AUDIT_LOG = LogManager.getLogger(AUDIT_LOGGER);
+  private final WebSearchService webSearchService;
+  private final SearchProviderRegistry searchProviderRegistry;
+  private final UserQuotas userQuotas;
+  private final ArchiveReparseService archiveReparseService;
+
+  @Autowired
+  public AdminController(
+      WebSearchService webSearchService,
+      SearchProviderRegistry searchProviderRegistry,
+      UserQuotas userQuotas,
+      ArchiveReparseService archiveReparseService) {
+    this.webSearchService = webSearchService;
+    this.searchProviderRegistry = searchProviderRegistry;
+    this.userQuotas = userQuotas;
+    this.archiveReparseService = archiveReparseService;
+  }
+
+  @Operation(
+      summary = "Rebuilds cached results from archived result pages",
+      description =
+          "Starts extracting the results of archived queries from their archived result pages in the background, rather than requesting the pages from the web search provider again, and replaces their cached results. Rebuilt results are only cached for the remainder of the cache expiry time, measured from the time their pages were fetched, thus queries whose pages are older than the cache expiry time are skipped, unless a backfill is requested. Only one rebuild runs at a time, its progress can be requested via the Location header of the response.",
+      parameters = {
+        @Parameter(
+            name = "p",
+            description =
+                "The web search provider whose cached results are to be rebuilt, all providers by default"),
+        @Parameter(
+            name = "q",
+            description =
+                "The query whose cached results are to be rebuilt, all queries by default"),
+        @Parameter(
+            name = "backfill",
+            description =
+                "Whether queries whose pages are older than the cache expiry time are rebuilt as well, in which case their results are cached as if they had just been fetched")
+      },
+      responses = {
+        @ApiResponse(
+            responseCode = "202",
+            description =
+                "If the rebuild was started. The Location header of the response refers to its progress"),
+        @ApiResponse(
+            responseCode = "400",
+            description = "If the given provider is invalid",
+            content = {@Content(schema = @Schema(implementation = ErrorRepresentation.class))}),
+        @ApiResponse(
+            responseCode = "409",
+            description = "If another rebuild is still running",
+            content = {@Content(schema = @Schema(implementation = ErrorRepresentation.class))})
+      })
+  @PostMapping(value = "/archive/reparse", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> reparseArchive(
+      @RequestParam(value = "p", required = false) SearchProvider provider,
+      @RequestParam(value = "q", required = false) String query,
+      @RequestParam(value = "backfill", required = false, defaultValue = "false") boolean backfill,
+      HttpServletRequest request) {
+    Optional<ArchiveReparse> reparse = archiveReparseService.start(provider, query, backfill);
+    if (reparse.isEmpty()) {
+      return ResponseEntity.status(HttpStatus.CONFLICT)
+          .body(
+              new ErrorRepresentation(
+                  HttpStatus.CONFLICT, "Another rebuild of cached results is still running"));
+    }
+    return ResponseEntity.accepted()
+        .location(URI.create(request.getRequestURI()))
+        .body(reparseRepresentation(reparse.get()));
+  }
+
+  @Operation(
+      summary = "Returns the progress of the latest rebuild of cached results",
+      description =
+          "Describes the most recently started rebuild of cached results from archived result pages, i.e., its status and the number of rebuilt queries per provider processed so far.",
+      responses = {
+        @ApiResponse(responseCode = "200", description = "If the rebuild was described"),
+        @ApiResponse(responseCode = "404", description = "If no rebuild has been started yet")
+      })
+  @GetMapping(value = "/archive/reparse", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<ArchiveReparseStatusRepresentation> getArchiveReparse() {
+    return archiveReparseService
+        .getLatest()
+        .map(reparse -> ResponseEntity.ok(reparseRepresentation(reparse)))
+        .orElseGet(() -> ResponseEntity.notFound().build());
+  }
+
+  @Operation(
+      summary = "Returns the contents of a result cache and the most frequent queries",
+      description =
+          "Lists the queries searched for most frequently along with their estimated number of searches, cache hits and misses, as well as the cached results accessed most frequently. Can be used for sizing the cache and deciding which queries to warm up.",
+      parameters = {
+        @Parameter(
+            name = "p",
+            description = "The web search provider whose cache is to be described"),
+        @Parameter(
+            name = "limit",
+            description = "The maximum number of queries and cached results to be listed")
+      },
+      responses = {
+        @ApiResponse(responseCode = "200", description = "If the cache was described"),
+        @ApiResponse(
+            responseCode = "400",
+            description = "If the given provider is invalid or the limit is out of range",
+            content = {@Content(schema = @Schema(implementation = ErrorRepresentation.class))})
+      })
+  @GetMapping(value = "/cache", produces = MediaType.APPLICATION_JSON_VALUE)
+  public CacheReportRepresentation getCache(
+      @RequestParam(value = "p", required = false, defaultValue = "GOOGLE") SearchProvider provider,
+      @RequestParam(value = "limit", required = false, defaultValue = "20") @Min(1) @Max(1000)
+          int limit) {
+    CachingWebSearch search = searchProviderRegistry.get(provider);
+    CacheReportRepresentation report = new CacheReportRepresentation();
+    report.setProvider(provider.name());
+    report.setSize(search.getCacheSize());
+    report.setMaxSize(search.getCacheMaxSize());
+    List<HotQueryRepresentation> hotQueries = new ArrayList<>();
+    for (QueryFrequency frequency : search.getHotQueries(limit)) {
+      HotQueryRepresentation hotQuery = new HotQueryRepresentation();
+      hotQuery.setQuery(frequency.getQuery());
+      hotQuery.setSearches(frequency.getSearches());
+      hotQuery.setHits(frequency.getSearches() - frequency.getMisses());
+      hotQuery.setMisses(frequency.getMisses());
+      search
+          .getCachedQuery(frequency.getQuery())
+          .ifPresent(cachedQuery -> hotQuery.setCached(cacheEntryRepresentation(cachedQuery)));
+      hotQueries.add(hotQuery);
+    }
+    report.setHotQueries(hotQueries);
+    report.setEntries(
+        search.getCachedQueries(limit).stream()
+            .map(AdminController::cacheEntryRepresentation)
+            .collect(Collectors.toList()));
+    return report;
+  }
+
+  @Operation(
+      summary = "Discards the cached results of a query",
+      description =
+          "Discards the cached results of the given query, so that the next search for the query contacts the web search provider.",
+      parameters = {
+        @Parameter(
+            name = "p",
+            description = "The web search provider whose cached results are to be discarded"),
+        @Parameter(
+            name = "q",
+            description = "The query whose cached results are to be discarded, case-insensitive",
+            required = true)
+      },
+      responses = {
+        @ApiResponse(responseCode = "204", description = "If the cached results were discarded"),
+        @ApiResponse(
+            responseCode = "400",
+            description = "If the given query is blank or the given provider is invalid",
+            content = {@Content(schema = @Schema(implementation = ErrorRepresentation.class))}),
+        @ApiResponse(
+            responseCode = "404",
+            description = "If there are no cached results for the given query")
+      })
+  @DeleteMapping(value = "/cache")
+  public ResponseEntity<Void> invalidateCache(
+      @RequestParam(value = "p", required = false, defaultValue = "GOOGLE") SearchProvider provider,
+      @RequestParam("q") @NotBlank String query) {
+    if (searchProviderRegistry.get(provider).invalidate(query)) {
+      return ResponseEntity.noContent().build();
+    }
+    return ResponseEntity.notFound().build();
+  }
+
+  @Operation(
+      summary = "Returns the quota usage of all users",
+      description =
+          "Lists the number of searches each user has issued in the current minute, separately for searches answered from the cache and searches that contacted a web search provider, along with the number of concurrent and rejected searches and the limits of the user's quota.",
+      responses = {@ApiResponse(responseCode = "200", description = "If the usage was listed")})
+  @GetMapping(value = "/quotas", produces = MediaType.APPLICATION_JSON_VALUE)
+  public List<QuotaUsageRepresentation> getQuotas() {
+    return userQuotas.getQuotas().stream()
+        .map(AdminController::quotaUsageRepresentation)
+        .collect(Collectors.toList());
+  }
+
+  @Operation(
+      summary = "Returns the health of all web search providers",
+      description =
+          "Lists whether the pages of each provider can currently be processed, along with the reason and start of an ongoing outage and the outcome of the most recent canary probe of the provider, i.e., its latency, the number of parsed and dropped results, and their share of the expected results. For information only, the readiness of this instance is reported by the /api/ready endpoint.",
+      responses = {@ApiResponse(responseCode = "200", description = "If the health was listed")})
+  @GetMapping(value = "/health", produces = MediaType.APPLICATION_JSON_VALUE)
+  public List<ProviderHealthRepresentation> getHealth() {
+    List<ProviderHealthRepresentation> health = new ArrayList<>();
+    for (SearchProvider provider : webSearchService.getProviders()) {
+      health.add(healthRepresentation(provider, searchProviderRegistry.get(provider).getHealth()));
+    }
+    return health;
+  }
+
+  @Operation(
+      summary = "Returns the runtime-tunable settings of a web search provider",
+      description =
+          "Describes the cache size, cache expiry times and maximum number of tries currently applied to the given provider, including changes made at runtime.",
+      parameters = {
+        @Parameter(name = "p", description = "The web search provider whose settings are returned")
+      },
+      responses = {
+        @ApiResponse(responseCode = "200", description = "If the settings were described"),
+        @ApiResponse(
+            responseCode = "400",
+            description = "If the given provider is invalid",
+            content = {@Content(schema = @Schema(implementation = ErrorRepresentation.class))})
+      })
+  @GetMapping(value = "/settings", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ProviderSettingsRepresentation getSettings(
+      @RequestParam(value = "p", required = false, defaultValue = "GOOGLE")
+          SearchProvider provider) {
+    return settingsRepresentation(provider, webSearchService.getSettings(provider));
+  }
+
+  @Operation(
+      summary = "Changes the runtime-tunable settings of a web search provider",
+      description =
+          "Applies the given cache size, cache expiry times and maximum number of tries to the given provider without restarting the application and without discarding its cached results. Settings which are not given remain unchanged. Changes are not persisted, i.e., the configured settings apply again after a restart. Each changed setting is recorded in the audit log.",
+      parameters = {
+        @Parameter(name = "p", description = "The web search provider whose settings are changed"),
+        @Parameter(name = "cacheMaxSize", description = "The maximum number of cached queries"),
+        @Parameter(
+            name = "cacheExpireAfterMins",
+            description = "The time in minutes for which newly cached results are kept"),
+        @Parameter(
+            name = "cacheMinExpireAfterMins",
+            description = "The minimum time in minutes for which cached results are kept"),
+        @Parameter(
+            name = "cacheMaxExpireAfterMins",
+            description = "The maximum time in minutes for which cached results are kept"),
+        @Parameter(
+            name = "maxTries",
+            description = "The maximum number of tries for fetching a result page")
+      },
+      responses = {
+        @ApiResponse(responseCode = "200", description = "If the settings were changed"),
+        @ApiResponse(
+            responseCode = "400",
+            description =
+                "If the given provider is invalid, a value is smaller than one, the minimum cache expiry time would exceed the maximum, or the cache expiry time would lie outside of these bounds",
+            content = {@Content(schema = @Schema(implementation = ErrorRepresentation.class))})
+      })
+  @PatchMapping(value = "/settings", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> updateSettings(
+      @RequestParam(value = "p", required = false, defaultValue = "GOOGLE") SearchProvider provider,
+      @RequestParam(value = "cacheMaxSize", required = false) @Min(1) Integer cacheMaxSize,
+      @RequestParam(value = "cacheExpireAfterMins", required = false) @Min(1)
+          Integer cacheExpireAfterMins,
+      @RequestParam(value = "cacheMinExpireAfterMins", required = false) @Min(1)
+          Integer cacheMinExpireAfterMins,
+      @RequestParam(value = "cacheMaxExpireAfterMins", required = false) @Min(1)
+          Integer cacheMaxExpireAfterMins,
+      @RequestParam(value = "maxTries", required = false) @Min(1) Integer maxTries,
+      Principal principal) {
+    SettingsUpdate update;
+    try {
+      update =
+          webSearchService.updateSettings(
+              provider,
+              builder -> {
+                if (cacheMaxSize != null) {
+                  builder.cacheMaxSize(cacheMaxSize);
+                }
+                if (cacheExpireAfterMins != null) {
+                  builder.cacheExpireAfterMins(cacheExpireAfterMins);
+                }
+                if (cacheMinExpireAfterMins != null) {
+                  builder.cacheMinExpireAfterMins(cacheMinExpireAfterMins);
+                }
+                if (cacheMaxExpireAfterMins != null) {
+                  builder.cacheMaxExpireAfterMins(cacheMaxExpireAfterMins);
+                }
+                if (maxTries != null) {
+                  builder.maxTries(maxTries);
+                }
+                return builder;
+              });
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest()
+          .body(new ErrorRepresentation(HttpStatus.BAD_REQUEST, e.getMessage()));
+    }
+    ProviderSettings previous = update.getPrevious();
+    ProviderSettings current = update.getCurrent();
+    String user = principal.getName();
+    audit(user, provider, "cache-max-size", previous.getCacheMaxSize(), current.getCacheMaxSize());
+    audit(
+        user,
+        provider,
+        "cache-expire-after-mins",
+        previous.getCacheExpireAfterMins(),
+        current.getCacheExpireAfterMins());
+    audit(
+        user,
+        provider,
+        "cache-min-expire-after-mins",
+        previous.getCacheMinExpireAfterMins(),
+        current.getCacheMinExpireAfterMins());
+    audit(
+        user,
+        provider,
+        "cache-max-expire-after-mins",
+        previous.getCacheMaxExpireAfterMins(),
+        current.getCacheMaxExpireAfterMins());
+    audit(user, provider, "max-tries", previous.getMaxTries(), current.getMaxTries());
+    return ResponseEntity.ok(settingsRepresentation(provider, current));
+  }
+
+  private static void audit(
+      String user, SearchProvider provider, String setting, Object oldValue, Object newValue) {
+    if (Objects.equals(oldValue, newValue)) {
+      return;
+    }
+    StringMapMessage record = new StringMapMessage(5);
+    record.with("user", user);
+    record.with("provider", provider.name());
+    record.with("setting", setting);
+    record.with("old", String.valueOf(oldValue));
+    record.with("new", String.valueOf(newValue));
+    AUDIT_LOG.info(record);
+  }
+
+  private static ProviderHealthRepresentation healthRepresentation(
+      SearchProvider provider, ProviderHealth health) {
+    ProviderHealthRepresentation representation = new ProviderHealthRepresentation();
+    representation.setProvider(provider.name());
+    representation.setAvailable(health.isAvailable());
+    health
+        .getOutage()
+        .ifPresent(
+            outage -> {
+              representation.setFailure(outage.getFailure().name());
+              representation.setMessage(outage.getMessage());
+              representation.setUnavailableSince(outage.getSince().toString());
+            });
+    health
+        .getLastCanary()
+        .ifPresent(result -> representation.setCanary(canaryRepresentation(result)));
+    return representation;
+  }
+
+  private static CanaryRepresentation canaryRepresentation(CanaryResult result) {
+    CanaryRepresentation canary = new CanaryRepresentation();
+    canary.setQuery(result.getQuery());
+    canary.setProbedAt(result.getProbedAt().toString());
+    canary.setLatencyMs(result.getLatency().toMillis());
+    canary.setExpected(result.getExpectedCount());
+    canary.setParsed(result.getParsedCount());
+    canary.setDropped(result.getDroppedCount());
+    canary.setYield(result.getYield());
+    canary.setSuccessful(result.isSuccessful());
+    if (result.getFailure() != null) {
+      canary.setFailure(result.getFailure().name());
+    }
+    canary.setError(result.getError());
+    return canary;
+  }
+
+  private static ProviderSettingsRepresentation settingsRepresentation(
+      SearchProvider provider, ProviderSettings settings) {
+    ProviderSettingsRepresentation representation = new ProviderSettingsRepresentation();
+    representation.setProvider(provider.name());
+    representation.setCacheMaxSize(settings.getCacheMaxSize());
+    representation.setCacheExpireAfterMins(settings.getCacheExpireAfterMins());
+    representation.setCacheMinExpireAfterMins(settings.getCacheMinExpireAfterMins());
+    representation.setCacheMaxExpireAfterMins(settings.getCacheMaxExpireAfterMins());
+    representation.setMaxTries(settings.getMaxTries());
+    return representation;
+  }
+
+  private static ArchiveReparseStatusRepresentation reparseRepresentation(
+      ArchiveReparse reparse) {
+    ArchiveReparseStatusRepresentation representation = new ArchiveReparseStatusRepresentation();
+    representation.setStatus(reparse.getStatus().name());
+    representation.setQuery(reparse.getQuery());
+    representation.setBackfill(reparse.isBackfill());
+    representation.setProviders(
+        new TreeMap<>(reparse.getRebuilt())
+            .entrySet().stream()
+                .map(
+                    entry ->
+                        new ArchiveReparseRepresentation(entry.getKey().name(), entry.getValue()))
+                .collect(Collectors.toList()));
+    representation.setStartedAt(reparse.getStartedAt().toString());
+    if (reparse.getFinishedAt() != null) {
+      representation.setFinishedAt(reparse.getFinishedAt().toString());
+    }
+    representation.setError(reparse.getError());
+    return representation;
+  }
+
+  private static QuotaUsageRepresentation quotaUsageRepresentation(UserQuota quota) {
+    QuotaUsageRepresentation usage = new QuotaUsageRepresentation();
+    usage.setUser(quota.getUsername());
+    usage.setEnforced(quota.isEnforced());
+    usage.setCachedSearches(quota.getCachedSearches());
+    usage.setCachedSearchesPerMinute(quota.getLimits().getCachedSearchesPerMinute());
+    usage.setUpstreamSearches(quota.getUpstreamSearches());
+    usage.setUpstreamSearchesPerMinute(quota.getLimits().getUpstreamSearchesPerMinute());
+    usage.setConcurrentSearches(quota.getConcurrentSearches());
+    usage.setMaxConcurrentSearches(quota.getLimits().getMaxConcurrentSearches());
+    usage.setRejectedSearches(quota.getRejectedSearches());
+    return usage;
+  }
+
+  private static CacheEntryRepresentation cacheEntryRepresentation(CachedQuery cachedQuery) {
+    CacheEntryRepresentation entry = new CacheEntryRepresentation();
+    entry.setQuery(cachedQuery.getQuery());
+    entry.setResults(cachedQuery.getResultCount());
+    entry.setFields(
+        cachedQuery.getFields().stream()
+            .sorted()
+            .map(SearchResultField::getPropertyName)
+            .collect(Collectors.toList()));
+    entry.setExpireAfterSecs(cachedQuery.getExpireAfter().toSeconds());
+    entry.setExpiresInSecs(cachedQuery.getExpiresIn().toSeconds());
+    return entry;
+  }
+}
@@ -2,6 +2,7 @@ package de.fullben.hermes.api;
 
 import de.fullben.hermes.representation.ErrorRepresentation;
 import de.fullben.hermes.search.SearchException;
+import de.fullben.hermes.search.SearchRejectedException;
 import javax.validation.ConstraintViolationException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -33,11 +34,23 @@ public class ApiExceptionHandler extends ResponseEntityExceptionHandler {
 
   @ExceptionHandler(value = {SearchException.class})
   protected ResponseEntity<Object> handleConflict(SearchException ex, WebRequest request) {
-    HttpStatus status = HttpStatus.INTERNAL_SERVER_ERROR;
-    String msg = "Something went wrong while trying to execute your search";
-    logVerbose(ex, status, msg);
-    return handleExceptionInternal(
-        ex, new ErrorRepresentation(status, msg), new HttpHeaders(), status, request);
+    ErrorRepresentation error = ErrorRepresentation.of(ex);
+    HttpStatus status = HttpStatus.valueOf(error.getCode());
+    HttpHeaders headers = new HttpHeaders();
+    if (ex instanceof SearchRejectedException) {
+      LOG.debug(
+          "{}: {} (Responding with: {})", ex.getClass().getSimpleName(), ex.getMessage(), status);
+      headers.set(
+          HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds((SearchRejectedException) ex)));
+    } else {
+      logVerbose(ex, status, error.getMessage());
+    }
+    return handleExceptionInternal(ex, error, headers, status, request);
+  }
+
+  private static long retryAfterSeconds(SearchRejectedException e) {
+    long seconds = e.getRetryAfter().getSeconds();
+    return e.getRetryAfter().getNano() > 0 ? seconds + 1 : Math.max(1, seconds);
   }
 
   private void logVerbose(Exception e, HttpStatus status, String message) {
@@ -0,0 +1,232 @@
+package de.fullben.hermes.api;
+
+import de.fullben.hermes.jobs.SearchJob;
+import de.fullben.hermes.jobs.SearchJobService;
+import de.fullben.hermes.representation.ErrorRepresentation;
+import de.fullben.hermes.representation.SearchJobRepresentation;
+import de.fullben.hermes.representation.SearchResultField;
+import de.fullben.hermes.search.QuotaExceededException;
+import de.fullben.hermes.search.SearchProvider;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.Principal;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.servlet.http.HttpServletRequest;
+import javax.validation.constraints.Min;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Controller for all endpoints related to bulk search jobs. Users can only access the jobs they
+ * submitted themselves.
+ *
+ * @author Benedikt Full
+ */
+@RestController
+@RequestMapping("/api/jobs")
+@Validated
+public class JobController {
+
+  /** The media type of newline-delimited JSON, i.e., one JSON document per line. */
+  public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+  private final SearchJobService searchJobService;
+
+  @Autowired
+  public JobController(SearchJobService searchJobService) {
+    this.searchJobService = searchJobService;
+  }
+
+  @Operation(
+      summary = "Submits a bulk search job",
+      description =
+          "Can be used to acquire search results for a large number of queries, which are searched for in the background, one after another. The queries are given in the request body, one query per line. Queries which require the search provider to be contacted are executed with background priority and at a limited rate, and all searches are charged to the user's quota, thus jobs may take a long time to complete. Jobs take turns, so that a long job does not block the jobs of other users. The outcome of each query is written to the job's result file as soon as it is available. Jobs interrupted by a restart of the application are resumed where they stopped.",
+      parameters = {
+        @Parameter(name = "n", description = "The number of results to be returned per query"),
+        @Parameter(
+            name = "p",
+            description =
+                "The web search provider to be used for the searches, supported are Google and Bing"),
+        @Parameter(
+            name = "fields",
+            description =
+                "Comma-separated list of the result fields to be returned (title, snippet, url, pageHierarchy), all fields by default")
+      },
+      responses = {
+        @ApiResponse(
+            responseCode = "202",
+            description =
+                "If the job was created. The Location header of the response refers to the job"),
+        @ApiResponse(
+            responseCode = "400",
+            description =
+                "If no or more than the maximum number of queries are given, the result count is smaller than one, or the given provider or fields are invalid",
+            content = {@Content(schema = @Schema(implementation = ErrorRepresentation.class))}),
+        @ApiResponse(
+            responseCode = "429",
+            description = "If the user already has the maximum number of queued or running jobs",
+            content = {@Content(schema = @Schema(implementation = ErrorRepresentation.class))})
+      })
+  @PostMapping(consumes = MediaType.TEXT_PLAIN_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> submitJob(
+      @RequestParam(value = "n", required = false, defaultValue = "10") @Min(1) int resultCount,
+      @RequestParam(value = "p", required = false, defaultValue = "GOOGLE") SearchProvider provider,
+      @RequestParam(value = "fields", required = false) Set<SearchResultField> fields,
+      HttpServletRequest request,
+      Principal principal)
+      throws IOException, QuotaExceededException {
+    Set<SearchResultField> requestedFields =
+        fields != null && !fields.isEmpty() ? fields : SearchResultField.all();
+    SearchJob job;
+    try {
+      job =
+          searchJobService.submit(
+              principal.getName(), provider, resultCount, requestedFields, request.getReader());
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest()
+          .body(new ErrorRepresentation(HttpStatus.BAD_REQUEST, e.getMessage()));
+    }
+    return ResponseEntity.accepted()
+        .location(URI.create(request.getRequestURI() + "/" + job.getId()))
+        .body(jobRepresentation(job));
+  }
+
+  @Operation(
+      summary = "Returns the bulk search jobs of the user",
+      description = "Lists the jobs submitted by the user along with their progress.",
+      responses = {@ApiResponse(responseCode = "200", description = "If the jobs were listed")})
+  @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+  public List<SearchJobRepresentation> getJobs(Principal principal) {
+    return searchJobService.getJobs(principal.getName()).stream()
+        .map(JobController::jobRepresentation)
+        .collect(Collectors.toList());
+  }
+
+  @Operation(
+      summary = "Returns a bulk search job",
+      description =
+          "Describes the given job along with its progress, i.e., the number of processed and failed queries, and its current throughput.",
+      responses = {
+        @ApiResponse(responseCode = "200", description = "If the job was described"),
+        @ApiResponse(
+            responseCode = "404",
+            description = "If there is no job with the given id submitted by the user")
+      })
+  @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<SearchJobRepresentation> getJob(
+      @PathVariable("id") String id, Principal principal) {
+    return findJob(id, principal)
+        .map(job -> ResponseEntity.ok(jobRepresentation(job)))
+        .orElseGet(() -> ResponseEntity.notFound().build());
+  }
+
+  @Operation(
+      summary = "Returns the results of a bulk search job",
+      description =
+          "Streams the outcomes of the queries processed so far as newline-delimited JSON, one outcome per line, in the order of the queries. Each outcome contains either the results of the query or the error that occurred while searching for it. Can be requested while the job is still running.",
+      responses = {
+        @ApiResponse(responseCode = "200", description = "If the job exists"),
+        @ApiResponse(
+            responseCode = "404",
+            description = "If there is no job with the given id submitted by the user")
+      })
+  @GetMapping(value = "/{id}/results", produces = APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> getJobResults(
+      @PathVariable("id") String id, Principal principal) {
+    Optional<SearchJob> job = findJob(id, principal);
+    if (job.isEmpty()) {
+      return ResponseEntity.notFound().build();
+    }
+    // Only the complete outcomes are returned, not the one currently being written
+    long length = job.get().getResultBytes();
+    Path resultFile = searchJobService.getResultFile(job.get());
+    return ResponseEntity.ok()
+        .contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))
+        .contentLength(length)
+        .body(
+            out -> {
+              if (length == 0) {
+                return;
+              }
+              try (InputStream in = Files.newInputStream(resultFile)) {
+                byte[] buffer = new byte[8192];
+                long remaining = length;
+                while (remaining > 0) {
+                  int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                  if (read < 0) {
+                    break;
+                  }
+                  out.write(buffer, 0, read);
+                  remaining -= read;
+                }
+              }
+            });
+  }
+
+  @Operation(
+      summary = "Deletes a bulk search job",
+      description =
+          "Deletes the given job along with its results. If the job is running, it is stopped after the current query.",
+      responses = {
+        @ApiResponse(responseCode = "204", description = "If the job was deleted"),
+        @ApiResponse(
+            responseCode = "404",
+            description = "If there is no job with the given id submitted by the user")
+      })
+  @DeleteMapping(value = "/{id}")
+  public ResponseEntity<Void> deleteJob(@PathVariable("id") String id, Principal principal) {
+    if (findJob(id, principal).isPresent() && searchJobService.delete(id)) {
+      return ResponseEntity.noContent().build();
+    }
+    return ResponseEntity.notFound().build();
+  }
+
+  private Optional<SearchJob> findJob(String id, Principal principal) {
+    return searchJobService.getJob(id).filter(job -> job.getOwner().equals(principal.getName()));
+  }
+
+  private static SearchJobRepresentation jobRepresentation(SearchJob job) {
+    SearchJobRepresentation representation = new SearchJobRepresentation();
+    representation.setId(job.getId());
+    representation.setStatus(job.getStatus().name());
+    representation.setProvider(job.getProvider().name());
+    representation.setResultCount(job.getResultCount());
+    representation.setFields(
+        job.getFields().stream()
+            .sorted()
+            .map(SearchResultField::getPropertyName)
+            .collect(Collectors.toList()));
+    representation.setQueries(job.getQueryCount());
+    representation.setProcessed(job.getProcessed());
+    representation.setFailed(job.getFailed());
+    // Rounded, as the throughput is only meant to give an impression of the job's speed
+    representation.setQueriesPerMinute(Math.round(job.getQueriesPerMinute() * 10) / 10.0);
+    representation.setCreatedAt(job.getCreatedAt().toString());
+    if (job.getFinishedAt() != null) {
+      representation.setFinishedAt(job.getFinishedAt().toString());
+    }
+    return representation;
+  }
+}
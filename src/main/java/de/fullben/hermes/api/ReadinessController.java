@@ -0,0 +1,45 @@
+package de.fullben.hermes.api;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Controller for the readiness check of this instance. Unlike all other endpoints, it can be
+ * accessed without credentials, so that load balancers and orchestrators can use it.
+ *
+ * @author Benedikt Full
+ */
+@RestController
+@RequestMapping("/api/ready")
+public class ReadinessController {
+
+  private final ApplicationAvailability applicationAvailability;
+
+  @Autowired
+  public ReadinessController(ApplicationAvailability applicationAvailability) {
+    this.applicationAvailability = applicationAvailability;
+  }
+
+  @Operation(
+      summary = "Returns whether this instance is ready to serve requests",
+      description =
+          "Indicates whether this instance has started and is not shutting down. Does not depend on the health of the web search providers, as a broken provider affects all instances alike, and searches answered from the cache are still served. The health of the providers can be inspected via the admin endpoints.",
+      responses = {
+        @ApiResponse(responseCode = "200", description = "If the instance accepts requests"),
+        @ApiResponse(responseCode = "503", description = "If the instance refuses requests")
+      })
+  @GetMapping
+  public ResponseEntity<Void> getReadiness() {
+    boolean ready =
+        applicationAvailability.getReadinessState() == ReadinessState.ACCEPTING_TRAFFIC;
+    return ResponseEntity.status(ready ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE).build();
+  }
+}
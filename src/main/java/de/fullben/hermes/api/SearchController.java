@@ -1,8 +1,20 @@
 package de.fullben.hermes.api;
 
+import de.fullben.hermes.logging.AccessLogFilter;
+import de.fullben.hermes.quota.UserQuota;
+import de.fullben.hermes.quota.UserQuotas;
+import de.fullben.hermes.representation.BatchSearchResultRepresentation;
 import de.fullben.hermes.representation.ErrorRepresentation;
+import de.fullben.hermes.representation.PageTraceRepresentation;
+import de.fullben.hermes.representation.SearchResultField;
 import de.fullben.hermes.representation.SearchResultRepresentation;
+import de.fullben.hermes.representation.SearchTraceRepresentation;
+import de.fullben.hermes.representation.SuggestionRepresentation;
+import de.fullben.hermes.search.PageTrace;
+import de.fullben.hermes.search.QuotaExceededException;
+import de.fullben.hermes.search.SearchContext;
 import de.fullben.hermes.search.SearchException;
+import de.fullben.hermes.search.SearchPriority;
 import de.fullben.hermes.search.SearchProvider;
 import de.fullben.hermes.search.WebSearchService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -10,14 +22,29 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import java.security.Principal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.stream.Collectors;
+import javax.servlet.http.HttpServletRequest;
+import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -32,11 +59,20 @@ import org.springframework.web.bind.annotation.RestController;
 @Validated
 public class SearchController {
 
+  /** The media type of the Smile encoding, a binary counterpart to JSON. */
+  public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+  private static final String SERVER_TIMING_HEADER = "Server-Timing";
+  private static final String RESULT_SOURCE_HEADER = "Result-Source";
+  private static final String PARTIAL_RESULTS_HEADER = "Partial-Results";
+  private static final int MAX_BATCH_SIZE = 50;
   private final WebSearchService webSearchService;
+  private final UserQuotas userQuotas;
 
   @Autowired
-  public SearchController(WebSearchService webSearchService) {
+  public SearchController(WebSearchService webSearchService, UserQuotas userQuotas) {
     this.webSearchService = webSearchService;
+    this.userQuotas = userQuotas;
   }
 
   @Operation(
@@ -46,33 +82,326 @@ public class SearchController {
       parameters = {
         @Parameter(name = "q", description = "The query string, case-insensitive", required = true),
         @Parameter(name = "n", description = "The number of results to be returned"),
+        @Parameter(
+            name = "start",
+            description =
+                "The number of results to be skipped, e.g., 40 for returning the results starting with the 41st result"),
         @Parameter(
             name = "p",
             description =
-                "The web search provider to be used for the search, supported are Google and Bing")
+                "The web search provider to be used for the search, supported are Google and Bing"),
+        @Parameter(
+            name = "fields",
+            description =
+                "Comma-separated list of the result fields to be returned (title, snippet, url, pageHierarchy), all fields by default"),
+        @Parameter(
+            name = "debug",
+            description =
+                "Whether to return a detailed trace of the search (timings, fetched pages, parsed and dropped result counts) along with the results"),
+        @Parameter(
+            name = "local",
+            description =
+                "Whether to answer the query from the locally cached results of previous searches only, without contacting the search provider. Fewer results than requested may be returned"),
+        @Parameter(
+            name = "timeoutMs",
+            description =
+                "The maximum number of milliseconds the search may take, capped by the server. If exceeded, the results found so far are returned. Defaults to a server-side timeout")
       },
       responses = {
         @ApiResponse(
             responseCode = "200",
             description =
-                "If the application was able to successfully use the provided query for executing a web search"),
+                "If the application was able to successfully use the provided query for executing a web search. The results are encoded as JSON, unless CBOR (application/cbor) or Smile (application/x-jackson-smile) are requested via the Accept header. The Server-Timing header of the response lists the time spent in each phase of the search. If the results were taken from the locally cached results of previous searches, either on request or because the search provider is unavailable, the Result-Source header of the response is set to local. If the timeout passed before all requested results were found, the results found so far are returned and the Partial-Results header of the response is set to true"),
         @ApiResponse(
             responseCode = "400",
             description =
-                "If the given query string is null or blank, the result count is smaller than one, or the given provider is invalid",
+                "If the given query string is null or blank, the result count is smaller than one, the start offset is negative, or the given provider or fields are invalid",
+            content = {@Content(schema = @Schema(implementation = ErrorRepresentation.class))}),
+        @ApiResponse(
+            responseCode = "429",
+            description =
+                "If the user has exceeded their search quota. The Retry-After header of the response states the number of seconds after which the search may be retried",
             content = {@Content(schema = @Schema(implementation = ErrorRepresentation.class))}),
         @ApiResponse(
             responseCode = "500",
             description =
                 "If an error arises while executing the web search or processing its results",
+            content = {@Content(schema = @Schema(implementation = ErrorRepresentation.class))}),
+        @ApiResponse(
+            responseCode = "502",
+            description =
+                "If the search provider returned result pages which could not be processed, e.g., because their layout changed",
+            content = {@Content(schema = @Schema(implementation = ErrorRepresentation.class))}),
+        @ApiResponse(
+            responseCode = "503",
+            description =
+                "If the search provider is currently handling too many requests. The Retry-After header of the response states the number of seconds after which the search may be retried",
             content = {@Content(schema = @Schema(implementation = ErrorRepresentation.class))})
       })
-  @GetMapping(value = "/search", produces = MediaType.APPLICATION_JSON_VALUE)
-  public ResponseEntity<List<SearchResultRepresentation>> search(
+  @GetMapping(
+      value = "/search",
+      produces = {
+        MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE,
+        APPLICATION_SMILE_VALUE
+      })
+  public ResponseEntity<?> search(
       @RequestParam("q") @NotBlank String query,
       @RequestParam(value = "n", required = false, defaultValue = "10") @Min(1) int resultCount,
-      @RequestParam(value = "p", required = false, defaultValue = "GOOGLE") SearchProvider provider)
+      @RequestParam(value = "start", required = false, defaultValue = "0") @Min(0) int offset,
+      @RequestParam(value = "p", required = false, defaultValue = "GOOGLE") SearchProvider provider,
+      @RequestParam(value = "fields", required = false) Set<SearchResultField> fields,
+      @RequestParam(value = "debug", required = false, defaultValue = "false") boolean debug,
+      @RequestParam(value = "local", required = false, defaultValue = "false") boolean local,
+      @RequestParam(value = "timeoutMs", required = false) @Min(1) Long timeoutMillis,
+      HttpServletRequest request,
+      Principal principal)
       throws SearchException {
-    return ResponseEntity.ok(webSearchService.search(query, resultCount, provider));
+    long startTime = System.nanoTime();
+    boolean projected = fields != null && !fields.isEmpty();
+    SearchContext context = debug ? SearchContext.tracing() : SearchContext.create();
+    request.setAttribute(AccessLogFilter.SEARCH_CONTEXT_ATTRIBUTE, context);
+    if (timeoutMillis != null) {
+      context.setTimeout(Duration.ofMillis(timeoutMillis));
+    }
+    UserQuota quota = userQuotas.forUser(principal.getName());
+    quota.enter();
+    List<SearchResultRepresentation> results;
+    try {
+      context.setQuota(quota);
+      Set<SearchResultField> searchedFields = projected ? fields : SearchResultField.all();
+      results =
+          local
+              ? webSearchService.searchLocal(
+                  query, offset, resultCount, searchedFields, provider, context)
+              : webSearchService.search(
+                  query, offset, resultCount, searchedFields, provider, context);
+    } finally {
+      quota.exit();
+    }
+    long totalNanos = System.nanoTime() - startTime;
+
+    ResponseEntity.BodyBuilder response =
+        ResponseEntity.ok().header(SERVER_TIMING_HEADER, serverTiming(context, totalNanos));
+    if (context.getCacheOutcome() == SearchContext.CacheOutcome.LOCAL) {
+      response.header(RESULT_SOURCE_HEADER, "local");
+    }
+    if (context.isPartial()) {
+      response.header(PARTIAL_RESULTS_HEADER, "true");
+    }
+    List<?> body = projected ? SearchResultField.project(results, fields) : results;
+    if (debug) {
+      return response.body(traceRepresentation(context, totalNanos, body));
+    }
+    return response.body(body);
+  }
+
+  @Operation(
+      summary = "Returns web search results for several queries",
+      description =
+          "Can be used to acquire search results for up to 50 queries with a single request. The queries are searched for one after another, a failed search does not affect the searches for the other queries. All searches of the batch share a single deadline, queries left when it has passed are answered with the results found so far, possibly none. Queries which require the search provider to be contacted are executed with background priority, i.e., only with the capacity left over by regular searches.",
+      parameters = {
+        @Parameter(name = "n", description = "The number of results to be returned per query"),
+        @Parameter(
+            name = "p",
+            description =
+                "The web search provider to be used for the searches, supported are Google and Bing"),
+        @Parameter(
+            name = "fields",
+            description =
+                "Comma-separated list of the result fields to be returned (title, snippet, url, pageHierarchy), all fields by default"),
+        @Parameter(
+            name = "timeoutMs",
+            description =
+                "The maximum number of milliseconds the whole batch may take, capped by the server. Defaults to the server-side maximum timeout of a search")
+      },
+      responses = {
+        @ApiResponse(
+            responseCode = "200",
+            description =
+                "If the queries were processed. The outcomes are returned in the order of the queries, each containing either the results or the error that occurred while searching for the query. Like the request body, the outcomes are encoded as JSON, CBOR, or Smile"),
+        @ApiResponse(
+            responseCode = "400",
+            description =
+                "If no or more than 50 queries are given, any of the queries is blank, the result count is smaller than one, or the given provider or fields are invalid",
+            content = {@Content(schema = @Schema(implementation = ErrorRepresentation.class))}),
+        @ApiResponse(
+            responseCode = "429",
+            description =
+                "If the user already has the maximum number of concurrent searches in progress. Searches exceeding the per-minute limits of the user's quota are reported per query",
+            content = {@Content(schema = @Schema(implementation = ErrorRepresentation.class))})
+      })
+  @PostMapping(
+      value = "/search/batch",
+      consumes = {
+        MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE,
+        APPLICATION_SMILE_VALUE
+      },
+      produces = {
+        MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE,
+        APPLICATION_SMILE_VALUE
+      })
+  public List<BatchSearchResultRepresentation> searchBatch(
+      @RequestBody @NotEmpty @Size(max = MAX_BATCH_SIZE) List<@NotBlank String> queries,
+      @RequestParam(value = "n", required = false, defaultValue = "10") @Min(1) int resultCount,
+      @RequestParam(value = "p", required = false, defaultValue = "GOOGLE") SearchProvider provider,
+      @RequestParam(value = "fields", required = false) Set<SearchResultField> fields,
+      @RequestParam(value = "timeoutMs", required = false) @Min(1) Long timeoutMillis,
+      Principal principal)
+      throws QuotaExceededException {
+    Set<SearchResultField> requestedFields =
+        fields != null && !fields.isEmpty() ? fields : SearchResultField.all();
+    Duration timeout = webSearchService.getSettings(provider).getMaxTimeout();
+    if (timeoutMillis != null && timeoutMillis < timeout.toMillis()) {
+      timeout = Duration.ofMillis(timeoutMillis);
+    }
+    long deadline = System.nanoTime() + timeout.toNanos();
+    UserQuota quota = userQuotas.forUser(principal.getName());
+    quota.enter();
+    try {
+      return searchBatch(queries, resultCount, provider, requestedFields, quota, deadline);
+    } finally {
+      quota.exit();
+    }
+  }
+
+  private List<BatchSearchResultRepresentation> searchBatch(
+      List<String> queries,
+      int resultCount,
+      SearchProvider provider,
+      Set<SearchResultField> fields,
+      UserQuota quota,
+      long deadline) {
+    List<BatchSearchResultRepresentation> outcomes = new ArrayList<>(queries.size());
+    for (String query : queries) {
+      BatchSearchResultRepresentation outcome = new BatchSearchResultRepresentation();
+      outcome.setQuery(query);
+      outcomes.add(outcome);
+      // The queries share the deadline of the batch, so that it cannot hold on to its thread and
+      // quota for the timeout of every single query
+      long remainingNanos = deadline - System.nanoTime();
+      if (remainingNanos <= 0) {
+        outcome.setResults(List.of());
+        outcome.setPartial(true);
+        continue;
+      }
+      SearchContext context = SearchContext.create();
+      context.setTimeout(Duration.ofNanos(remainingNanos));
+      context.setQuota(quota);
+      // Batches are bulk work, which must not delay the searches of interactive clients
+      context.setPriority(SearchPriority.BACKGROUND);
+      try {
+        List<SearchResultRepresentation> results =
+            webSearchService.search(query, resultCount, fields, provider, context);
+        outcome.setResults(SearchResultField.project(results, fields));
+        outcome.setLocal(context.getCacheOutcome() == SearchContext.CacheOutcome.LOCAL);
+        outcome.setPartial(context.isPartial());
+      } catch (SearchException e) {
+        outcome.setError(ErrorRepresentation.of(e));
+      }
+    }
+    return outcomes;
+  }
+
+  @Operation(
+      summary = "Suggests queries for a partially typed query",
+      description =
+          "Can be used for completing a query while it is being typed. Suggestions are drawn from the queries searched for recently and never require the web search provider to be contacted. Queries for which results are cached are suggested first, as a search for them is answered right away.",
+      parameters = {
+        @Parameter(
+            name = "q",
+            description = "The beginning of a query, case-insensitive",
+            required = true),
+        @Parameter(name = "n", description = "The maximum number of suggestions to be returned"),
+        @Parameter(
+            name = "p",
+            description =
+                "The web search provider whose queries are suggested, supported are Google and Bing")
+      },
+      responses = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "The suggested queries, possibly none, ordered by their relevance"),
+        @ApiResponse(
+            responseCode = "400",
+            description =
+                "If the given query string is null or blank, the suggestion count is not between 1 and 50, or the given provider is invalid",
+            content = {@Content(schema = @Schema(implementation = ErrorRepresentation.class))})
+      })
+  @GetMapping(
+      value = "/suggest",
+      produces = {
+        MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE,
+        APPLICATION_SMILE_VALUE
+      })
+  public List<SuggestionRepresentation> suggest(
+      @RequestParam("q") @NotBlank String prefix,
+      @RequestParam(value = "n", required = false, defaultValue = "10") @Min(1) @Max(50)
+          int suggestionCount,
+      @RequestParam(value = "p", required = false, defaultValue = "GOOGLE")
+          SearchProvider provider) {
+    return webSearchService.suggest(prefix, suggestionCount, provider).stream()
+        .map(
+            suggestion ->
+                new SuggestionRepresentation(suggestion.getQuery(), suggestion.isCached()))
+        .collect(Collectors.toList());
+  }
+
+  private static String serverTiming(SearchContext context, long totalNanos) {
+    StringJoiner header = new StringJoiner(", ");
+    for (SearchContext.Phase phase : SearchContext.Phase.values()) {
+      String metric =
+          phase.name().toLowerCase(Locale.ROOT) + ";dur=" + millis(context.getTime(phase));
+      if (phase == SearchContext.Phase.CACHE && context.getCacheOutcome() != null) {
+        metric += ";desc=\"" + context.getCacheOutcome().name().toLowerCase(Locale.ROOT) + "\"";
+      }
+      header.add(metric);
+    }
+    header.add("total;dur=" + millis(totalNanos));
+    return header.toString();
+  }
+
+  private static SearchTraceRepresentation traceRepresentation(
+      SearchContext context, long totalNanos, List<?> results) {
+    SearchTraceRepresentation trace = new SearchTraceRepresentation();
+    trace.setQuery(context.getQuery());
+    if (context.getCacheOutcome() != null) {
+      trace.setCacheOutcome(context.getCacheOutcome().name());
+    }
+    trace.setPartial(context.isPartial());
+    Map<String, Double> timings = new LinkedHashMap<>();
+    for (SearchContext.Phase phase : SearchContext.Phase.values()) {
+      timings.put(phase.name().toLowerCase(Locale.ROOT), millis(context.getTime(phase)));
+    }
+    timings.put("total", millis(totalNanos));
+    trace.setTimings(timings);
+    trace.setPages(
+        context.getPages().stream()
+            .map(SearchController::pageTraceRepresentation)
+            .collect(Collectors.toList()));
+    trace.setResults(results);
+    return trace;
+  }
+
+  private static PageTraceRepresentation pageTraceRepresentation(PageTrace trace) {
+    PageTraceRepresentation page = new PageTraceRepresentation();
+    page.setPage(trace.getPageNumber());
+    page.setUrl(trace.getUrl());
+    page.setStatus(trace.getStatusCode());
+    page.setBytes(trace.getBytes());
+    page.setFetchMillis(millis(trace.getFetchNanos()));
+    page.setParseMillis(millis(trace.getParseNanos()));
+    page.setExtractMillis(millis(trace.getExtractNanos()));
+    page.setParsed(trace.getParsedCount());
+    page.setDropped(trace.getDroppedCount());
+    return page;
+  }
+
+  private static double millis(long nanos) {
+    // Microsecond precision is plenty for diagnostic purposes
+    return Math.round(nanos / 1_000.0) / 1_000.0;
   }
 }
@@ -0,0 +1,23 @@
+package de.fullben.hermes.api;
+
+import de.fullben.hermes.representation.SearchResultField;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+
+/**
+ * Converts request parameter values to {@link SearchResultField}s based on the name of the
+ * corresponding JSON property (e.g., {@code pageHierarchy}), rather than the name of the enum
+ * constant.
+ *
+ * @author Benedikt Full
+ */
+@Component
+public class SearchResultFieldConverter implements Converter<String, SearchResultField> {
+
+  public SearchResultFieldConverter() {}
+
+  @Override
+  public SearchResultField convert(String source) {
+    return SearchResultField.fromPropertyName(source);
+  }
+}
@@ -0,0 +1,36 @@
+package de.fullben.hermes.auth;
+
+import javax.validation.constraints.Min;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Configuration for the authentication of users.
+ *
+ * @author Benedikt Full
+ */
+@ConfigurationProperties(prefix = "hermes.auth")
+@ConstructorBinding
+@Validated
+public class AuthProperties {
+
+  @Min(0)
+  private final int credentialCacheExpireAfterSecs;
+
+  @Min(1)
+  private final int credentialCacheMaxSize;
+
+  public AuthProperties(int credentialCacheExpireAfterSecs, int credentialCacheMaxSize) {
+    this.credentialCacheExpireAfterSecs = credentialCacheExpireAfterSecs;
+    this.credentialCacheMaxSize = credentialCacheMaxSize;
+  }
+
+  public int getCredentialCacheExpireAfterSecs() {
+    return credentialCacheExpireAfterSecs;
+  }
+
+  public int getCredentialCacheMaxSize() {
+    return credentialCacheMaxSize;
+  }
+}
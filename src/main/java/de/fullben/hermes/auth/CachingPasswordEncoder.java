@@ -0,0 +1,92 @@
+package de.fullben.hermes.auth;
+
+import static de.fullben.hermes.util.Preconditions.greaterThan;
+import static de.fullben.hermes.util.Preconditions.notNull;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Password encoder which remembers successfully verified credentials for a short amount of time.
+ *
+ * <p>Slow password hashing algorithms such as BCrypt are slow by design, which makes verifying the
+ * credentials sent with every basic auth request a significant part of the cost of serving a
+ * request. This encoder delegates to such an algorithm, but after a successful verification, it
+ * stores a keyed hash (HMAC-SHA256 with a random, instance-specific key) of the raw password for
+ * the encoded password it was verified against. Until the entry expires, subsequent verifications
+ * of the same credentials only compute this hash and compare it in constant time.
+ *
+ * <p>Failed verifications are never cached, so guessing passwords still costs a full verification
+ * by the delegate. Raw passwords are never stored.
+ *
+ * @author Benedikt Full
+ */
+public class CachingPasswordEncoder implements PasswordEncoder {
+
+  private static final String HMAC_ALGORITHM = "HmacSHA256";
+  private final PasswordEncoder delegate;
+  private final Cache<String, byte[]> verifiedCredentials;
+  private final SecretKeySpec key;
+
+  public CachingPasswordEncoder(PasswordEncoder delegate, Duration expireAfter, int maxSize) {
+    this.delegate = notNull(delegate);
+    verifiedCredentials =
+        Caffeine.newBuilder()
+            .expireAfterWrite(notNull(expireAfter))
+            .maximumSize(greaterThan(0, maxSize))
+            .build();
+    byte[] keyBytes = new byte[32];
+    new SecureRandom().nextBytes(keyBytes);
+    key = new SecretKeySpec(keyBytes, HMAC_ALGORITHM);
+  }
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    return delegate.encode(rawPassword);
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    if (rawPassword == null || encodedPassword == null) {
+      return delegate.matches(rawPassword, encodedPassword);
+    }
+
+    byte[] digest = digest(rawPassword);
+    byte[] verifiedDigest = verifiedCredentials.getIfPresent(encodedPassword);
+    if (verifiedDigest != null && MessageDigest.isEqual(verifiedDigest, digest)) {
+      return true;
+    }
+
+    boolean matches = delegate.matches(rawPassword, encodedPassword);
+    if (matches) {
+      verifiedCredentials.put(encodedPassword, digest);
+    }
+    return matches;
+  }
+
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    return delegate.upgradeEncoding(encodedPassword);
+  }
+
+  private byte[] digest(CharSequence rawPassword) {
+    try {
+      // Mac instances are not thread-safe, but cheap to create compared to a BCrypt verification
+      Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+      mac.init(key);
+      mac.update(StandardCharsets.UTF_8.encode(CharBuffer.wrap(rawPassword)));
+      return mac.doFinal();
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Failed to compute " + HMAC_ALGORITHM + " digest", e);
+    }
+  }
+}
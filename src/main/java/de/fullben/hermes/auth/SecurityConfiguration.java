@@ -1,5 +1,8 @@
 package de.fullben.hermes.auth;
 
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.access.hierarchicalroles.RoleHierarchy;
@@ -15,13 +18,23 @@ import org.springframework.security.crypto.password.PasswordEncoder;
  * accessible to authenticated users based on their roles. The application uses basic auth for
  * authenticating users.
  *
+ * <p>As basic auth requires the credentials to be verified on every request, successfully verified
+ * credentials are cached for a short time (see {@link CachingPasswordEncoder}), unless the cache is
+ * disabled by setting {@code hermes.auth.credential-cache-expire-after-secs} to zero.
+ *
  * @author Benedikt Full
  */
 @Configuration
 @EnableWebSecurity
+@EnableConfigurationProperties(AuthProperties.class)
 public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
 
-  public SecurityConfiguration() {}
+  private final AuthProperties authProperties;
+
+  @Autowired
+  public SecurityConfiguration(AuthProperties authProperties) {
+    this.authProperties = authProperties;
+  }
 
   @Override
   protected void configure(HttpSecurity security) throws Exception {
@@ -29,6 +42,14 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
         .csrf()
         .disable()
         .authorizeRequests()
+        .antMatchers("/api/ready")
+        .permitAll()
+        .and()
+        .authorizeRequests()
+        .antMatchers("/api/admin/**")
+        .hasRole(Roles.ADMIN)
+        .and()
+        .authorizeRequests()
         .antMatchers("/api/**")
         .hasRole(Roles.USER)
         .and()
@@ -47,7 +68,14 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
 
   @Bean
   public PasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder();
+    PasswordEncoder encoder = new BCryptPasswordEncoder();
+    if (authProperties.getCredentialCacheExpireAfterSecs() == 0) {
+      return encoder;
+    }
+    return new CachingPasswordEncoder(
+        encoder,
+        Duration.ofSeconds(authProperties.getCredentialCacheExpireAfterSecs()),
+        authProperties.getCredentialCacheMaxSize());
   }
 
   @Bean
@@ -0,0 +1,58 @@
+package de.fullben.hermes.jobs;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Configuration for bulk search jobs (see {@link SearchJobService}).
+ *
+ * @author Benedikt Full
+ */
+@ConfigurationProperties(prefix = "hermes.jobs")
+@ConstructorBinding
+@Validated
+public class JobProperties {
+
+  @NotBlank private final String directory;
+
+  @Min(1)
+  private final int upstreamSearchesPerMinute;
+
+  @Min(1)
+  private final int maxQueries;
+
+  @Min(1)
+  private final int maxPendingPerUser;
+
+  public JobProperties(
+      String directory, int upstreamSearchesPerMinute, int maxQueries, int maxPendingPerUser) {
+    this.directory = directory;
+    this.upstreamSearchesPerMinute = upstreamSearchesPerMinute;
+    this.maxQueries = maxQueries;
+    this.maxPendingPerUser = maxPendingPerUser;
+  }
+
+  public String getDirectory() {
+    return directory;
+  }
+
+  public int getUpstreamSearchesPerMinute() {
+    return upstreamSearchesPerMinute;
+  }
+
+  public int getMaxQueries() {
+    return maxQueries;
+  }
+
+  /**
+   * The maximum number of jobs a single user may have queued or running at the same time.
+   *
+   * @return a value greater than zero
+   */
+  public int getMaxPendingPerUser() {
+    return maxPendingPerUser;
+  }
+}
@@ -0,0 +1,231 @@
+package de.fullben.hermes.jobs;
+
+import static de.fullben.hermes.util.Preconditions.notBlank;
+import static de.fullben.hermes.util.Preconditions.notNull;
+
+import de.fullben.hermes.representation.SearchResultField;
+import de.fullben.hermes.search.SearchProvider;
+import java.time.Instant;
+import java.util.Set;
+
+/**
+ * A bulk search job, i.e., a list of queries which are searched for in the background, with their
+ * outcomes written to a result file (see {@link SearchJobService}).
+ *
+ * <p>The progress of a job is only updated by the thread executing it, but may be read by any
+ * thread.
+ *
+ * @author Benedikt Full
+ */
+public class SearchJob {
+
+  private final String id;
+  private final String owner;
+  private final SearchProvider provider;
+  private final int resultCount;
+  private final Set<SearchResultField> fields;
+  private final int queryCount;
+  private final Instant createdAt;
+  private volatile Status status;
+  private volatile int processed;
+  private volatile int failed;
+  private volatile long resultBytes;
+  private volatile Instant finishedAt;
+  private volatile long runStartNanos;
+  private volatile int runStartProcessed;
+  private volatile boolean cancelled;
+
+  public SearchJob(
+      String id,
+      String owner,
+      SearchProvider provider,
+      int resultCount,
+      Set<SearchResultField> fields,
+      int queryCount,
+      Instant createdAt) {
+    this.id = notBlank(id);
+    this.owner = notBlank(owner);
+    this.provider = notNull(provider);
+    this.resultCount = resultCount;
+    this.fields = Set.copyOf(notNull(fields));
+    this.queryCount = queryCount;
+    this.createdAt = notNull(createdAt);
+    status = Status.QUEUED;
+    processed = 0;
+    failed = 0;
+    resultBytes = 0;
+    finishedAt = null;
+    runStartNanos = 0;
+    runStartProcessed = 0;
+    cancelled = false;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  /**
+   * The name of the user who submitted the job.
+   *
+   * @return the username
+   */
+  public String getOwner() {
+    return owner;
+  }
+
+  public SearchProvider getProvider() {
+    return provider;
+  }
+
+  /**
+   * The number of results requested per query.
+   *
+   * @return a value greater than zero
+   */
+  public int getResultCount() {
+    return resultCount;
+  }
+
+  public Set<SearchResultField> getFields() {
+    return fields;
+  }
+
+  public int getQueryCount() {
+    return queryCount;
+  }
+
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  /**
+   * The number of queries whose outcome has been written to the result file, including failed
+   * queries.
+   *
+   * @return the number of processed queries
+   */
+  public int getProcessed() {
+    return processed;
+  }
+
+  /**
+   * The number of queries whose search failed.
+   *
+   * @return the number of failed queries
+   */
+  public int getFailed() {
+    return failed;
+  }
+
+  /**
+   * The size of the complete outcomes written to the result file so far. The file may be larger
+   * while an outcome is being written.
+   *
+   * @return the number of bytes
+   */
+  public long getResultBytes() {
+    return resultBytes;
+  }
+
+  /**
+   * The point in time at which the job completed or failed.
+   *
+   * @return the finish time, {@code null} if the job has not finished yet
+   */
+  public Instant getFinishedAt() {
+    return finishedAt;
+  }
+
+  /**
+   * The number of queries processed per minute since the job was last started, i.e., since its
+   * execution began or was resumed after a restart of the application. Includes the time the job
+   * spent waiting for its turn in between.
+   *
+   * @return the throughput, zero if the job is not pending or has not been started yet
+   */
+  public double getQueriesPerMinute() {
+    long runStart = runStartNanos;
+    if (!status.isPending() || runStart == 0) {
+      return 0;
+    }
+    double minutes = (System.nanoTime() - runStart) / 60_000_000_000.0;
+    return minutes > 0 ? (processed - runStartProcessed) / minutes : 0;
+  }
+
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+  void cancel() {
+    cancelled = true;
+  }
+
+  void restore(Status status, int processed, int failed, long resultBytes, Instant finishedAt) {
+    this.status = notNull(status);
+    this.processed = processed;
+    this.failed = failed;
+    this.resultBytes = resultBytes;
+    this.finishedAt = finishedAt;
+  }
+
+  /**
+   * Marks the job as running.
+   *
+   * @return {@code true} if the job was started for the first time since the application started,
+   *     {@code false} if it continues after waiting for its turn
+   */
+  boolean start() {
+    status = Status.RUNNING;
+    if (runStartNanos != 0) {
+      return false;
+    }
+    runStartNanos = System.nanoTime();
+    runStartProcessed = processed;
+    return true;
+  }
+
+  void recordOutcome(boolean succeeded, long bytes) {
+    resultBytes += bytes;
+    if (!succeeded) {
+      failed++;
+    }
+    processed++;
+  }
+
+  void suspend() {
+    status = Status.QUEUED;
+  }
+
+  void finish(Status status) {
+    finishedAt = Instant.now();
+    this.status = notNull(status);
+  }
+
+  /** The execution status of a job. */
+  public enum Status {
+    /**
+     * The job waits for its execution, either for the first time, after a restart, or for its next
+     * turn.
+     */
+    QUEUED,
+    /** The queries of the job are being searched for. */
+    RUNNING,
+    /** The outcomes of all queries of the job have been written to its result file. */
+    COMPLETED,
+    /** The job was aborted, as its files could not be read or written. */
+    FAILED;
+
+    /**
+     * Whether jobs with this status still have to be executed.
+     *
+     * @return {@code true} if the job is queued or running
+     */
+    public boolean isPending() {
+      return this == QUEUED || this == RUNNING;
+    }
+  }
+}
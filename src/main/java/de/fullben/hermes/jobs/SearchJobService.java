@@ -0,0 +1,626 @@
+package de.fullben.hermes.jobs;
+
+import static de.fullben.hermes.util.Preconditions.greaterThan;
+import static de.fullben.hermes.util.Preconditions.notBlank;
+import static de.fullben.hermes.util.Preconditions.notNull;
+import static org.apache.logging.log4j.util.Unbox.box;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.fullben.hermes.quota.UserQuotas;
+import de.fullben.hermes.representation.BatchSearchResultRepresentation;
+import de.fullben.hermes.representation.ErrorRepresentation;
+import de.fullben.hermes.representation.SearchResultField;
+import de.fullben.hermes.representation.SearchResultRepresentation;
+import de.fullben.hermes.search.QuotaExceededException;
+import de.fullben.hermes.search.SearchContext;
+import de.fullben.hermes.search.SearchException;
+import de.fullben.hermes.search.SearchPriority;
+import de.fullben.hermes.search.SearchProvider;
+import de.fullben.hermes.search.SearchRejectedException;
+import de.fullben.hermes.search.WebSearchService;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+
+/**
+ * Executes bulk search jobs, i.e., lists of queries which are too long to be searched for within
+ * a single request (see {@link SearchJob}).
+ *
+ * <p>Each job is stored in a directory of its own, located at {@code <directory>/<job id>}, which
+ * contains the queries of the job, a properties file describing the job, and the result file. The
+ * outcome of each query is appended to the result file as soon as it is available, as a single
+ * line of JSON (<a href="https://github.com/ndjson/ndjson-spec">NDJSON</a>), so that the results
+ * can be downloaded while the job is still running. Jobs are executed on a single background
+ * thread, taking turns of limited length, so that a long job cannot delay the jobs submitted after
+ * it for hours. Their searches run with background priority and contact the web search providers
+ * no more often than configured via {@code hermes.jobs.upstream-searches-per-minute}, so that jobs
+ * do not compete with interactive searches. Searches rejected due to overload are repeated once
+ * the provider has capacity again, rather than being recorded as failures.
+ *
+ * <p>Searches of a job are charged to the quota of the user who submitted it. Once the quota is
+ * exhausted, the job waits for the quota to recover while the jobs of other users take their
+ * turns. The number of jobs a user may have pending is limited, too.
+ *
+ * <p>As the result file holds the outcomes of all processed queries, jobs which were interrupted
+ * (e.g., by a restart of the application) are resumed with the first query whose outcome is
+ * missing once the application is ready again.
+ *
+ * @author Benedikt Full
+ */
+@Service
+@EnableConfigurationProperties(JobProperties.class)
+public class SearchJobService
+    implements ApplicationListener<ApplicationReadyEvent>, DisposableBean {
+
+  private static final Logger LOG = LogManager.getLogger(SearchJobService.class);
+  private static final String DESCRIPTOR_FILE = "job.properties";
+  private static final String QUERIES_FILE = "queries.txt";
+  private static final String RESULTS_FILE = "results.ndjson";
+  private static final String PARTIAL_SUFFIX = ".partial";
+  private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+  private static final long TURN_NANOS = TimeUnit.MINUTES.toNanos(1);
+  private static final Duration PENDING_RETRY_AFTER = Duration.ofMinutes(1);
+  private final WebSearchService webSearchService;
+  private final UserQuotas userQuotas;
+  private final ObjectMapper objectMapper;
+  private final Path directory;
+  private final long upstreamIntervalNanos;
+  private final int maxQueries;
+  private final int maxPendingPerUser;
+  private final Map<String, SearchJob> jobs;
+  private final ScheduledExecutorService worker;
+  // Only accessed by the worker thread
+  private long nextSearchNanos;
+
+  @Autowired
+  public SearchJobService(
+      JobProperties jobProperties,
+      WebSearchService webSearchService,
+      UserQuotas userQuotas,
+      ObjectMapper objectMapper) {
+    this.webSearchService = webSearchService;
+    this.userQuotas = userQuotas;
+    this.objectMapper = objectMapper;
+    directory = Path.of(jobProperties.getDirectory()).toAbsolutePath();
+    upstreamIntervalNanos =
+        TimeUnit.MINUTES.toNanos(1) / jobProperties.getUpstreamSearchesPerMinute();
+    maxQueries = jobProperties.getMaxQueries();
+    maxPendingPerUser = jobProperties.getMaxPendingPerUser();
+    jobs = new ConcurrentHashMap<>();
+    worker =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "search-jobs");
+              thread.setDaemon(true);
+              return thread;
+            });
+    nextSearchNanos = System.nanoTime();
+  }
+
+  /**
+   * Resumes the jobs which had not been completed when the application was stopped.
+   *
+   * @param event the event signaling that the application is ready
+   */
+  @Override
+  public void onApplicationEvent(ApplicationReadyEvent event) {
+    List<Path> jobDirectories;
+    try {
+      jobDirectories = jobDirectories();
+    } catch (IOException | UncheckedIOException e) {
+      LOG.error("Failed to read the search jobs in {}", directory, e);
+      return;
+    }
+    int resumed = 0;
+    for (Path jobDirectory : jobDirectories) {
+      try {
+        SearchJob job = load(jobDirectory);
+        jobs.put(job.getId(), job);
+        if (job.getStatus().isPending()) {
+          worker.execute(() -> run(job));
+          resumed++;
+        }
+      } catch (IOException | RuntimeException e) {
+        LOG.warn("Skipping malformed search job {}", jobDirectory, e);
+      }
+    }
+    if (!jobDirectories.isEmpty()) {
+      LOG.info(
+          "Found {} search jobs in {}, resuming {} of them",
+          box(jobDirectories.size()),
+          directory,
+          box(resumed));
+    }
+  }
+
+  /**
+   * Creates a job for the given queries and schedules its execution.
+   *
+   * @param owner the name of the user submitting the job
+   * @param provider the web search provider to be searched
+   * @param resultCount the number of results to be returned per query
+   * @param fields the fields to be returned for each result
+   * @param queries the queries, one per line, blank lines are ignored
+   * @return the created job
+   * @throws IOException if the queries cannot be read or stored
+   * @throws QuotaExceededException if the user already has the maximum number of pending jobs
+   * @throws IllegalArgumentException if there are no queries or more than the configured maximum,
+   *     or any of the other arguments is invalid
+   */
+  public SearchJob submit(
+      String owner,
+      SearchProvider provider,
+      int resultCount,
+      Set<SearchResultField> fields,
+      Reader queries)
+      throws IOException, QuotaExceededException {
+    notBlank(owner);
+    notNull(provider);
+    greaterThan(0, resultCount);
+    notNull(fields);
+    checkPendingJobs(owner);
+    String id = UUID.randomUUID().toString();
+    Path jobDirectory = directory.resolve(id);
+    Files.createDirectories(jobDirectory);
+    SearchJob job;
+    try {
+      int queryCount = storeQueries(new BufferedReader(notNull(queries)), jobDirectory);
+      job = new SearchJob(id, owner, provider, resultCount, fields, queryCount, Instant.now());
+      store(job);
+    } catch (IOException | RuntimeException e) {
+      FileSystemUtils.deleteRecursively(jobDirectory);
+      throw e;
+    }
+    // Checked again, as jobs of the same user may have been submitted in the meantime
+    synchronized (jobs) {
+      try {
+        checkPendingJobs(owner);
+      } catch (QuotaExceededException e) {
+        FileSystemUtils.deleteRecursively(jobDirectory);
+        throw e;
+      }
+      jobs.put(id, job);
+    }
+    worker.execute(() -> run(job));
+    LOG.info(
+        "User {} submitted search job {} with {} queries",
+        owner,
+        id,
+        box(job.getQueryCount()));
+    return job;
+  }
+
+  /**
+   * Returns the job with the given id.
+   *
+   * @param id the id of a job
+   * @return the job, empty if there is no such job
+   */
+  public Optional<SearchJob> getJob(String id) {
+    return Optional.ofNullable(jobs.get(id));
+  }
+
+  /**
+   * Returns the jobs submitted by the given user, oldest first.
+   *
+   * @param owner the name of a user
+   * @return the jobs of the user
+   */
+  public List<SearchJob> getJobs(String owner) {
+    return jobs.values().stream()
+        .filter(job -> job.getOwner().equals(owner))
+        .sorted(Comparator.comparing(SearchJob::getCreatedAt))
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Returns the path of the result file of the given job. Only the first {@link
+   * SearchJob#getResultBytes()} bytes of the file are guaranteed to consist of complete outcomes.
+   *
+   * @param job a job
+   * @return the path of the result file, which may not exist yet
+   */
+  public Path getResultFile(SearchJob job) {
+    return directory.resolve(job.getId()).resolve(RESULTS_FILE);
+  }
+
+  /**
+   * Deletes the given job along with its results. If the job is running, it is stopped after the
+   * current query.
+   *
+   * @param id the id of a job
+   * @return {@code true} if the job was deleted, {@code false} if there is no such job
+   */
+  public boolean delete(String id) {
+    SearchJob job = jobs.remove(id);
+    if (job == null) {
+      return false;
+    }
+    job.cancel();
+    // Running jobs are deleted by the worker thread once they have stopped
+    if (job.getStatus() != SearchJob.Status.RUNNING) {
+      deleteFiles(job);
+    }
+    return true;
+  }
+
+  @Override
+  public void destroy() {
+    // Interrupts the running job, which is resumed on the next start of the application
+    worker.shutdownNow();
+    try {
+      if (!worker.awaitTermination(5, TimeUnit.SECONDS)) {
+        LOG.warn("Search jobs did not stop in time");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void checkPendingJobs(String owner) throws QuotaExceededException {
+    long pending =
+        jobs.values().stream()
+            .filter(job -> job.getOwner().equals(owner) && job.getStatus().isPending())
+            .count();
+    if (pending >= maxPendingPerUser) {
+      throw new QuotaExceededException(
+          "User '"
+              + owner
+              + "' exceeded the limit of "
+              + maxPendingPerUser
+              + " pending search jobs",
+          PENDING_RETRY_AFTER);
+    }
+  }
+
+  private void run(SearchJob job) {
+    if (job.isCancelled()) {
+      // The job was deleted while waiting for its turn
+      deleteFiles(job);
+      return;
+    }
+    if (job.start()) {
+      LOG.info(
+          "Running search job {}, starting with query {} of {}",
+          job.getId(),
+          box(job.getProcessed() + 1),
+          box(job.getQueryCount()));
+    }
+    Path jobDirectory = directory.resolve(job.getId());
+    long turnStartNanos = System.nanoTime();
+    long lastStoreNanos = turnStartNanos;
+    Duration nextTurnDelay = null;
+    boolean interrupted = false;
+    try (BufferedReader queries =
+            Files.newBufferedReader(jobDirectory.resolve(QUERIES_FILE), StandardCharsets.UTF_8);
+        OutputStream results =
+            new BufferedOutputStream(
+                Files.newOutputStream(
+                    getResultFile(job), StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
+      // Skip the queries whose outcomes were written before the job was interrupted
+      for (int i = 0; i < job.getProcessed(); i++) {
+        queries.readLine();
+      }
+      String query;
+      while ((query = queries.readLine()) != null) {
+        if (job.isCancelled()) {
+          return;
+        }
+        if (System.nanoTime() - turnStartNanos >= TURN_NANOS) {
+          // Let the other jobs take their turn, this job continues after them
+          nextTurnDelay = Duration.ZERO;
+          return;
+        }
+        BatchSearchResultRepresentation outcome = search(job, query);
+        byte[] line = objectMapper.writeValueAsBytes(outcome);
+        results.write(line);
+        results.write('\n');
+        results.flush();
+        job.recordOutcome(outcome.getError() == null, line.length + 1);
+        if (System.nanoTime() - lastStoreNanos >= PROGRESS_INTERVAL_NANOS) {
+          store(job);
+          lastStoreNanos = System.nanoTime();
+        }
+      }
+      job.finish(SearchJob.Status.COMPLETED);
+      LOG.info(
+          "Completed search job {}, {} of {} queries failed",
+          job.getId(),
+          box(job.getFailed()),
+          box(job.getQueryCount()));
+    } catch (SearchRejectedException e) {
+      // The quota of the owner is exhausted, or the provider is overloaded or unavailable, let the
+      // other jobs proceed in the meantime
+      LOG.debug(
+          "Search of job {} was rejected, retrying in {}: {}",
+          job.getId(),
+          e.getRetryAfter(),
+          e.getMessage());
+      nextTurnDelay = e.getRetryAfter();
+    } catch (InterruptedException | ClosedByInterruptException e) {
+      // The application is shutting down, the job will be resumed on its next start
+      job.suspend();
+      interrupted = true;
+    } catch (IOException | RuntimeException e) {
+      LOG.error("Search job {} failed", job.getId(), e);
+      job.finish(SearchJob.Status.FAILED);
+    } finally {
+      if (job.isCancelled()) {
+        deleteFiles(job);
+      } else {
+        if (nextTurnDelay != null) {
+          job.suspend();
+        }
+        storeQuietly(job);
+        if (nextTurnDelay != null) {
+          scheduleTurn(job, nextTurnDelay);
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private void scheduleTurn(SearchJob job, Duration delay) {
+    try {
+      worker.schedule(() -> run(job), delay.toNanos(), TimeUnit.NANOSECONDS);
+    } catch (RejectedExecutionException e) {
+      // The application is shutting down, the job will be resumed on its next start
+      LOG.debug("Search job {} is resumed on the next start", job.getId());
+    }
+  }
+
+  private BatchSearchResultRepresentation search(SearchJob job, String query)
+      throws InterruptedException, SearchRejectedException {
+    BatchSearchResultRepresentation outcome = new BatchSearchResultRepresentation();
+    outcome.setQuery(query);
+    long waitNanos = nextSearchNanos - System.nanoTime();
+    if (waitNanos > 0) {
+      TimeUnit.NANOSECONDS.sleep(waitNanos);
+    }
+    SearchContext context = SearchContext.create();
+    context.setQuota(userQuotas.forUser(job.getOwner()));
+    // Jobs are bulk work, which must not delay the searches of interactive clients
+    context.setPriority(SearchPriority.BACKGROUND);
+    try {
+      List<SearchResultRepresentation> results =
+          webSearchService.search(
+              query, job.getResultCount(), job.getFields(), job.getProvider(), context);
+      outcome.setResults(SearchResultField.project(results, job.getFields()));
+      outcome.setLocal(context.getCacheOutcome() == SearchContext.CacheOutcome.LOCAL);
+      outcome.setPartial(context.isPartial());
+      return outcome;
+    } catch (SearchRejectedException e) {
+      // Rather than failing the query, it is repeated in a later turn of the job
+      throw e;
+    } catch (SearchException e) {
+      if (Thread.interrupted()) {
+        // The search failed because the application is shutting down, not due to the query
+        throw new InterruptedException();
+      }
+      outcome.setError(ErrorRepresentation.of(e));
+      return outcome;
+    } finally {
+      if (contactedProvider(context)) {
+        nextSearchNanos = System.nanoTime() + upstreamIntervalNanos;
+      }
+    }
+  }
+
+  private static boolean contactedProvider(SearchContext context) {
+    // Local results are only returned after the provider could not be contacted successfully
+    return context.getCacheOutcome() == SearchContext.CacheOutcome.MISS
+        || context.getCacheOutcome() == SearchContext.CacheOutcome.LOCAL;
+  }
+
+  private int storeQueries(BufferedReader queries, Path jobDirectory) throws IOException {
+    int queryCount = 0;
+    try (Writer out =
+        Files.newBufferedWriter(jobDirectory.resolve(QUERIES_FILE), StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = queries.readLine()) != null) {
+        String query = line.strip();
+        if (query.isEmpty()) {
+          continue;
+        }
+        if (++queryCount > maxQueries) {
+          throw new IllegalArgumentException(
+              "Jobs must not contain more than " + maxQueries + " queries");
+        }
+        out.write(query);
+        out.write('\n');
+      }
+    }
+    if (queryCount == 0) {
+      throw new IllegalArgumentException("Jobs must contain at least one query");
+    }
+    return queryCount;
+  }
+
+  private void store(SearchJob job) throws IOException {
+    Properties descriptor = new Properties();
+    descriptor.setProperty("id", job.getId());
+    descriptor.setProperty("owner", job.getOwner());
+    descriptor.setProperty("provider", job.getProvider().name());
+    descriptor.setProperty("result-count", String.valueOf(job.getResultCount()));
+    descriptor.setProperty(
+        "fields",
+        job.getFields().stream().map(SearchResultField::name).collect(Collectors.joining(",")));
+    descriptor.setProperty("queries", String.valueOf(job.getQueryCount()));
+    descriptor.setProperty("created-at", job.getCreatedAt().toString());
+    descriptor.setProperty("status", job.getStatus().name());
+    descriptor.setProperty("processed", String.valueOf(job.getProcessed()));
+    descriptor.setProperty("failed", String.valueOf(job.getFailed()));
+    if (job.getFinishedAt() != null) {
+      descriptor.setProperty("finished-at", job.getFinishedAt().toString());
+    }
+    Path target = directory.resolve(job.getId()).resolve(DESCRIPTOR_FILE);
+    Path partial = target.resolveSibling(DESCRIPTOR_FILE + PARTIAL_SUFFIX);
+    try (Writer out = Files.newBufferedWriter(partial, StandardCharsets.UTF_8)) {
+      descriptor.store(out, null);
+    }
+    Files.move(
+        partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private void storeQuietly(SearchJob job) {
+    try {
+      store(job);
+    } catch (IOException e) {
+      LOG.warn("Failed to store the progress of search job {}", job.getId(), e);
+    }
+  }
+
+  private SearchJob load(Path jobDirectory) throws IOException {
+    Properties descriptor = new Properties();
+    try (Reader in =
+        Files.newBufferedReader(jobDirectory.resolve(DESCRIPTOR_FILE), StandardCharsets.UTF_8)) {
+      descriptor.load(in);
+    }
+    SearchJob job;
+    SearchJob.Status status;
+    try {
+      Set<SearchResultField> fields = EnumSet.noneOf(SearchResultField.class);
+      for (String field : property(descriptor, "fields", jobDirectory).split(",")) {
+        if (!field.isBlank()) {
+          fields.add(SearchResultField.valueOf(field.strip().toUpperCase(Locale.ROOT)));
+        }
+      }
+      job =
+          new SearchJob(
+              property(descriptor, "id", jobDirectory),
+              property(descriptor, "owner", jobDirectory),
+              SearchProvider.valueOf(property(descriptor, "provider", jobDirectory)),
+              Integer.parseInt(property(descriptor, "result-count", jobDirectory)),
+              fields,
+              Integer.parseInt(property(descriptor, "queries", jobDirectory)),
+              Instant.parse(property(descriptor, "created-at", jobDirectory)));
+      status = SearchJob.Status.valueOf(property(descriptor, "status", jobDirectory));
+      if (!status.isPending()) {
+        String finishedAt = descriptor.getProperty("finished-at");
+        job.restore(
+            status,
+            Integer.parseInt(property(descriptor, "processed", jobDirectory)),
+            Integer.parseInt(property(descriptor, "failed", jobDirectory)),
+            Files.size(getResultFile(job)),
+            finishedAt == null ? null : Instant.parse(finishedAt));
+        return job;
+      }
+    } catch (NumberFormatException | DateTimeParseException e) {
+      throw new IOException("Malformed search job " + jobDirectory, e);
+    }
+    recoverProgress(job);
+    return job;
+  }
+
+  private void recoverProgress(SearchJob job) throws IOException {
+    // The progress stored in the descriptor may be outdated, the result file is authoritative
+    Path resultFile = getResultFile(job);
+    if (!Files.exists(resultFile)) {
+      return;
+    }
+    long completeBytes = completeLinesLength(resultFile);
+    int processed = 0;
+    int failed = 0;
+    try (BufferedReader lines = Files.newBufferedReader(resultFile, StandardCharsets.UTF_8)) {
+      String line;
+      long bytes = 0;
+      while (bytes < completeBytes && (line = lines.readLine()) != null) {
+        bytes += line.getBytes(StandardCharsets.UTF_8).length + 1;
+        processed++;
+        if (objectMapper.readTree(line).hasNonNull("error")) {
+          failed++;
+        }
+      }
+    }
+    job.restore(SearchJob.Status.QUEUED, processed, failed, completeBytes, null);
+  }
+
+  private static long completeLinesLength(Path resultFile) throws IOException {
+    // Discards the outcome that was being written when the job was interrupted, if any
+    try (FileChannel channel =
+        FileChannel.open(resultFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      long length = channel.size();
+      ByteBuffer buffer = ByteBuffer.allocate(1);
+      while (length > 0) {
+        buffer.clear();
+        channel.read(buffer, length - 1);
+        if (buffer.get(0) == '\n') {
+          break;
+        }
+        length--;
+      }
+      channel.truncate(length);
+      return length;
+    }
+  }
+
+  private static String property(Properties descriptor, String key, Path jobDirectory)
+      throws IOException {
+    String value = descriptor.getProperty(key);
+    if (value == null) {
+      throw new IOException("Search job " + jobDirectory + " lacks property " + key);
+    }
+    return value;
+  }
+
+  private List<Path> jobDirectories() throws IOException {
+    if (!Files.isDirectory(directory)) {
+      return List.of();
+    }
+    try (Stream<Path> paths = Files.list(directory)) {
+      return paths
+          .filter(path -> Files.isRegularFile(path.resolve(DESCRIPTOR_FILE)))
+          .collect(Collectors.toList());
+    }
+  }
+
+  private void deleteFiles(SearchJob job) {
+    try {
+      FileSystemUtils.deleteRecursively(directory.resolve(job.getId()));
+    } catch (IOException e) {
+      LOG.warn("Failed to delete the files of search job {}", job.getId(), e);
+    }
+  }
+}
@@ -0,0 +1,31 @@
+package de.fullben.hermes.logging;
+
+import de.fullben.hermes.search.WebSearchService;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configures the access records of search requests. Unless {@code hermes.access-log.enabled} is
+ * set, no records are written.
+ *
+ * @author Benedikt Full
+ */
+@Configuration
+@EnableConfigurationProperties(AccessLogProperties.class)
+public class AccessLogConfiguration {
+
+  public AccessLogConfiguration() {}
+
+  @Bean
+  public FilterRegistrationBean<AccessLogFilter> accessLogFilter(
+      AccessLogProperties properties, WebSearchService webSearchService) {
+    FilterRegistrationBean<AccessLogFilter> registration =
+        new FilterRegistrationBean<>(
+            new AccessLogFilter(properties.getSuccessSampleRate(), webSearchService));
+    registration.addUrlPatterns("/api/search");
+    registration.setEnabled(properties.isEnabled());
+    return registration;
+  }
+}
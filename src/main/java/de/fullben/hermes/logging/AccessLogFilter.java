@@ -0,0 +1,135 @@
+package de.fullben.hermes.logging;
+
+import static de.fullben.hermes.util.Preconditions.notNull;
+
+import de.fullben.hermes.search.QueryDigest;
+import de.fullben.hermes.search.SearchContext;
+import de.fullben.hermes.search.SearchProvider;
+import de.fullben.hermes.search.WebSearchService;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.StringMapMessage;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Writes a structured access record for search requests to the {@value #ACCESS_LOGGER} logger.
+ *
+ * <p>Records of successful requests are sampled, records of failed requests (any status of 400 or
+ * above) and of requests answered with partial results are always written. Each record states the
+ * rate at which it was sampled, so that aggregates can be scaled accordingly. Records of failed
+ * requests are written on level {@code WARN}, so that they are kept even if the ring buffer of the
+ * asynchronous loggers is full. The query itself is not recorded, only the digest of its canonical
+ * form (see {@link QueryDigest}).
+ *
+ * <p>The filter relies on the logger being asynchronous (see {@code log4j2-spring.xml}), thus
+ * writing a record only costs the request thread the construction of the message.
+ *
+ * @author Benedikt Full
+ */
+public class AccessLogFilter extends OncePerRequestFilter {
+
+  /** The name of the logger to which access records are written. */
+  public static final String ACCESS_LOGGER = "de.fullben.hermes.access";
+
+  /**
+   * The name of the request attribute via which the handler of a search request exposes the
+   * {@link SearchContext} of the request to this filter.
+   */
+  public static final String SEARCH_CONTEXT_ATTRIBUTE =
+      AccessLogFilter.class.getName() + ".searchContext";
+
+  private static final Logger ACCESS_LOG = LogManager.getLogger(ACCESS_LOGGER);
+  private final double successSampleRate;
+  private final WebSearchService webSearchService;
+
+  public AccessLogFilter(double successSampleRate, WebSearchService webSearchService) {
+    this.successSampleRate = successSampleRate;
+    this.webSearchService = notNull(webSearchService);
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    long startTime = System.nanoTime();
+    boolean failed = true;
+    try {
+      filterChain.doFilter(request, response);
+      failed = false;
+    } finally {
+      int status = failed ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : response.getStatus();
+      if (status >= 400 || isPartial(request)) {
+        log(request, status, System.nanoTime() - startTime, 1.0);
+      } else if (sampled()) {
+        log(request, status, System.nanoTime() - startTime, successSampleRate);
+      }
+    }
+  }
+
+  private static boolean isPartial(HttpServletRequest request) {
+    SearchContext context = (SearchContext) request.getAttribute(SEARCH_CONTEXT_ATTRIBUTE);
+    return context != null && context.isPartial();
+  }
+
+  private boolean sampled() {
+    return successSampleRate >= 1.0
+        || (successSampleRate > 0.0
+            && ThreadLocalRandom.current().nextDouble() < successSampleRate);
+  }
+
+  private void log(HttpServletRequest request, int status, long totalNanos, double sampleRate) {
+    StringMapMessage record = new StringMapMessage(13);
+    SearchContext context = (SearchContext) request.getAttribute(SEARCH_CONTEXT_ATTRIBUTE);
+    String provider = parameter(request, "p", "GOOGLE").toUpperCase(Locale.ROOT);
+    String query = context != null ? context.getQuery() : null;
+    if (query == null) {
+      // The request failed before the search started
+      query = canonicalize(request.getParameter("q"), provider);
+    }
+    record.with("query", query == null ? "" : QueryDigest.of(query));
+    record.with("provider", provider);
+    record.with("n", parameter(request, "n", "10"));
+    record.with("start", parameter(request, "start", "0"));
+    if (context != null) {
+      SearchContext.CacheOutcome outcome = context.getCacheOutcome();
+      record.with("cache", outcome == null ? "NONE" : outcome.name());
+      record.with("pages", context.getPageCount());
+      record.with("upstreamMs", millis(context.getTime(SearchContext.Phase.FETCH)));
+      record.with("partial", context.isPartial());
+    }
+    record.with("status", status);
+    record.with("totalMs", millis(totalNanos));
+    record.with("sample", sampleRate);
+    ACCESS_LOG.log(status >= 400 ? Level.WARN : Level.INFO, record);
+  }
+
+  private String canonicalize(String query, String provider) {
+    if (query == null || query.isBlank()) {
+      return null;
+    }
+    try {
+      return webSearchService.canonicalize(query, SearchProvider.valueOf(provider));
+    } catch (IllegalArgumentException e) {
+      // Unknown provider, or a query consisting only of invisible characters
+      return null;
+    }
+  }
+
+  private static String parameter(HttpServletRequest request, String name, String defaultValue) {
+    String value = request.getParameter(name);
+    return value == null ? defaultValue : value;
+  }
+
+  private static long millis(long nanos) {
+    return TimeUnit.NANOSECONDS.toMillis(nanos);
+  }
+}
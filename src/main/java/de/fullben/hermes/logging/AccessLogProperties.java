@@ -0,0 +1,43 @@
+package de.fullben.hermes.logging;
+
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Configuration for the access records written for search requests.
+ *
+ * @author Benedikt Full
+ */
+@ConfigurationProperties(prefix = "hermes.access-log")
+@ConstructorBinding
+@Validated
+public class AccessLogProperties {
+
+  private final boolean enabled;
+
+  @DecimalMin("0.0")
+  @DecimalMax("1.0")
+  private final double successSampleRate;
+
+  public AccessLogProperties(boolean enabled, double successSampleRate) {
+    this.enabled = enabled;
+    this.successSampleRate = successSampleRate;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * The fraction of successful search requests for which an access record is written. Records of
+   * failed requests are always written.
+   *
+   * @return the sample rate, between zero and one
+   */
+  public double getSuccessSampleRate() {
+    return successSampleRate;
+  }
+}
@@ -0,0 +1,45 @@
+package de.fullben.hermes.quota;
+
+import static de.fullben.hermes.util.Preconditions.greaterThan;
+
+/**
+ * The limits of the search quota of a single user.
+ *
+ * @author Benedikt Full
+ */
+public class QuotaLimits {
+
+  private final int cachedSearchesPerMinute;
+  private final int upstreamSearchesPerMinute;
+  private final int maxConcurrentSearches;
+
+  public QuotaLimits(
+      int cachedSearchesPerMinute, int upstreamSearchesPerMinute, int maxConcurrentSearches) {
+    this.cachedSearchesPerMinute = greaterThan(-1, cachedSearchesPerMinute);
+    this.upstreamSearchesPerMinute = greaterThan(-1, upstreamSearchesPerMinute);
+    this.maxConcurrentSearches = greaterThan(0, maxConcurrentSearches);
+  }
+
+  /**
+   * The number of searches per minute that may be answered from the cache, including searches
+   * that join an equivalent search in progress.
+   *
+   * @return the limit for cached searches
+   */
+  public int getCachedSearchesPerMinute() {
+    return cachedSearchesPerMinute;
+  }
+
+  /**
+   * The number of searches per minute that may require the web search provider to be contacted.
+   *
+   * @return the limit for upstream searches
+   */
+  public int getUpstreamSearchesPerMinute() {
+    return upstreamSearchesPerMinute;
+  }
+
+  public int getMaxConcurrentSearches() {
+    return maxConcurrentSearches;
+  }
+}
@@ -0,0 +1,135 @@
+package de.fullben.hermes.quota;
+
+import java.util.HashMap;
+import java.util.Map;
+import javax.validation.Valid;
+import javax.validation.constraints.Min;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Configuration for the search quotas of users.
+ *
+ * <p>The top-level limits apply to every user. Each of them can be overridden for a specific user
+ * via {@code hermes.quota.users.<username>.<property>} (e.g., {@code
+ * hermes.quota.users.admin.upstream-searches-per-minute}).
+ *
+ * @author Benedikt Full
+ */
+@ConfigurationProperties(prefix = "hermes.quota")
+@ConstructorBinding
+@Validated
+public class QuotaProperties {
+
+  private final boolean enabled;
+
+  @Min(0)
+  private final int cachedSearchesPerMinute;
+
+  @Min(0)
+  private final int upstreamSearchesPerMinute;
+
+  @Min(1)
+  private final int maxConcurrentSearches;
+
+  @Valid private final Map<String, User> users;
+
+  public QuotaProperties(
+      boolean enabled,
+      int cachedSearchesPerMinute,
+      int upstreamSearchesPerMinute,
+      int maxConcurrentSearches,
+      Map<String, User> users) {
+    this.enabled = enabled;
+    this.cachedSearchesPerMinute = cachedSearchesPerMinute;
+    this.upstreamSearchesPerMinute = upstreamSearchesPerMinute;
+    this.maxConcurrentSearches = maxConcurrentSearches;
+    this.users = users == null ? new HashMap<>() : new HashMap<>(users);
+  }
+
+  /**
+   * Whether searches exceeding a quota are rejected. Usage is tracked either way.
+   *
+   * @return {@code true} if quotas are enforced
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public int getCachedSearchesPerMinute() {
+    return cachedSearchesPerMinute;
+  }
+
+  public int getUpstreamSearchesPerMinute() {
+    return upstreamSearchesPerMinute;
+  }
+
+  public int getMaxConcurrentSearches() {
+    return maxConcurrentSearches;
+  }
+
+  public Map<String, User> getUsers() {
+    return users;
+  }
+
+  /**
+   * Returns the effective limits of the given user, i.e., the top-level limits with any
+   * user-specific overrides applied.
+   *
+   * @param username the name of a user
+   * @return the limits of the user
+   */
+  public QuotaLimits forUser(String username) {
+    User overrides = users.getOrDefault(username, User.NONE);
+    return new QuotaLimits(
+        valueOf(overrides.cachedSearchesPerMinute, cachedSearchesPerMinute),
+        valueOf(overrides.upstreamSearchesPerMinute, upstreamSearchesPerMinute),
+        valueOf(overrides.maxConcurrentSearches, maxConcurrentSearches));
+  }
+
+  private static int valueOf(Integer override, int defaultValue) {
+    return override == null ? defaultValue : override;
+  }
+
+  /**
+   * User-specific overrides of the quota configuration. Properties which are not set fall back to
+   * the corresponding top-level property.
+   *
+   * @author Benedikt Full
+   */
+  public static class User {
+
+    private static final User NONE = new User(null, null, null);
+
+    @Min(0)
+    private final Integer cachedSearchesPerMinute;
+
+    @Min(0)
+    private final Integer upstreamSearchesPerMinute;
+
+    @Min(1)
+    private final Integer maxConcurrentSearches;
+
+    public User(
+        Integer cachedSearchesPerMinute,
+        Integer upstreamSearchesPerMinute,
+        Integer maxConcurrentSearches) {
+      this.cachedSearchesPerMinute = cachedSearchesPerMinute;
+      this.upstreamSearchesPerMinute = upstreamSearchesPerMinute;
+      this.maxConcurrentSearches = maxConcurrentSearches;
+    }
+
+    public Integer getCachedSearchesPerMinute() {
+      return cachedSearchesPerMinute;
+    }
+
+    public Integer getUpstreamSearchesPerMinute() {
+      return upstreamSearchesPerMinute;
+    }
+
+    public Integer getMaxConcurrentSearches() {
+      return maxConcurrentSearches;
+    }
+  }
+}
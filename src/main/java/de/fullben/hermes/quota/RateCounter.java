@@ -0,0 +1,73 @@
+package de.fullben.hermes.quota;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts events within fixed time windows and permits at most a certain number of events per
+ * window.
+ *
+ * <p>Events are counted via a {@link LongAdder}, so that threads counting events concurrently do
+ * not contend on a single memory location. In turn, the limit is only enforced approximately: a
+ * few events counted right at the start of a new window may be lost, and concurrent events may
+ * briefly push the count above the limit before being taken back.
+ *
+ * @author Benedikt Full
+ */
+class RateCounter {
+
+  private final long windowNanos;
+  private final long origin;
+  private final AtomicLong window;
+  private final LongAdder count;
+
+  RateCounter(Duration window) {
+    windowNanos = window.toNanos();
+    origin = System.nanoTime();
+    this.window = new AtomicLong();
+    count = new LongAdder();
+  }
+
+  /**
+   * Counts an event, unless the limit of the current window has been reached already.
+   *
+   * @param limit the maximum number of events per window
+   * @return {@code true} if the event was counted, {@code false} if the limit has been reached
+   */
+  boolean tryAcquire(int limit) {
+    long currentWindow = currentWindow();
+    long previousWindow = window.get();
+    if (previousWindow != currentWindow && window.compareAndSet(previousWindow, currentWindow)) {
+      count.reset();
+    }
+    count.increment();
+    if (count.sum() > limit) {
+      count.decrement();
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Returns the number of events counted in the current window.
+   *
+   * @return the event count
+   */
+  long getCount() {
+    return window.get() == currentWindow() ? count.sum() : 0;
+  }
+
+  /**
+   * Returns the time until the current window ends.
+   *
+   * @return the remaining time of the window
+   */
+  Duration getRemaining() {
+    return Duration.ofNanos(windowNanos - (System.nanoTime() - origin) % windowNanos);
+  }
+
+  private long currentWindow() {
+    return (System.nanoTime() - origin) / windowNanos;
+  }
+}
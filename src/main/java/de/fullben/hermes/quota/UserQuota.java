@@ -0,0 +1,133 @@
+package de.fullben.hermes.quota;
+
+import static de.fullben.hermes.util.Preconditions.notBlank;
+import static de.fullben.hermes.util.Preconditions.notNull;
+
+import de.fullben.hermes.search.QuotaExceededException;
+import de.fullben.hermes.search.SearchContext;
+import de.fullben.hermes.search.SearchQuota;
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The search quota of a single user, limiting the number of searches per minute (separately for
+ * searches answered from the cache and searches contacting the web search provider) as well as
+ * the number of concurrent searches.
+ *
+ * <p>All counters are striped (see {@link LongAdder}), so that checking the quota does not add
+ * contention when a user issues many searches concurrently. Usage is tracked even if the quota is
+ * not enforced.
+ *
+ * @author Benedikt Full
+ */
+public class UserQuota implements SearchQuota {
+
+  private static final Duration WINDOW = Duration.ofMinutes(1);
+  private static final Duration CONCURRENCY_RETRY_AFTER = Duration.ofSeconds(1);
+  private final String username;
+  private final QuotaLimits limits;
+  private final boolean enforced;
+  private final RateCounter cachedSearches;
+  private final RateCounter upstreamSearches;
+  private final LongAdder concurrentSearches;
+  private final LongAdder rejectedSearches;
+
+  public UserQuota(String username, QuotaLimits limits, boolean enforced) {
+    this.username = notBlank(username);
+    this.limits = notNull(limits);
+    this.enforced = enforced;
+    cachedSearches = new RateCounter(WINDOW);
+    upstreamSearches = new RateCounter(WINDOW);
+    concurrentSearches = new LongAdder();
+    rejectedSearches = new LongAdder();
+  }
+
+  /**
+   * Marks the start of a search request of the user. Every successful call has to be followed by
+   * a call to {@link #exit()} once the request has completed.
+   *
+   * @throws QuotaExceededException if the user already has the maximum number of concurrent
+   *     searches in progress
+   */
+  public void enter() throws QuotaExceededException {
+    concurrentSearches.increment();
+    if (enforced && concurrentSearches.sum() > limits.getMaxConcurrentSearches()) {
+      concurrentSearches.decrement();
+      rejectedSearches.increment();
+      throw new QuotaExceededException(
+          "User '"
+              + username
+              + "' exceeded the limit of "
+              + limits.getMaxConcurrentSearches()
+              + " concurrent searches",
+          CONCURRENCY_RETRY_AFTER);
+    }
+  }
+
+  /** Marks the end of a search request of the user. */
+  public void exit() {
+    concurrentSearches.decrement();
+  }
+
+  @Override
+  public void charge(SearchContext.CacheOutcome outcome) throws QuotaExceededException {
+    boolean upstream = notNull(outcome) == SearchContext.CacheOutcome.MISS;
+    RateCounter counter = upstream ? upstreamSearches : cachedSearches;
+    int limit =
+        upstream ? limits.getUpstreamSearchesPerMinute() : limits.getCachedSearchesPerMinute();
+    if (!counter.tryAcquire(enforced ? limit : Integer.MAX_VALUE)) {
+      rejectedSearches.increment();
+      throw new QuotaExceededException(
+          "User '"
+              + username
+              + "' exceeded the limit of "
+              + limit
+              + (upstream ? " upstream" : " cached")
+              + " searches per minute",
+          counter.getRemaining());
+    }
+  }
+
+  public String getUsername() {
+    return username;
+  }
+
+  public QuotaLimits getLimits() {
+    return limits;
+  }
+
+  public boolean isEnforced() {
+    return enforced;
+  }
+
+  /**
+   * Returns the number of searches answered from the cache in the current minute.
+   *
+   * @return the number of cached searches
+   */
+  public long getCachedSearches() {
+    return cachedSearches.getCount();
+  }
+
+  /**
+   * Returns the number of searches that contacted the web search provider in the current minute.
+   *
+   * @return the number of upstream searches
+   */
+  public long getUpstreamSearches() {
+    return upstreamSearches.getCount();
+  }
+
+  public long getConcurrentSearches() {
+    return concurrentSearches.sum();
+  }
+
+  /**
+   * Returns the number of searches rejected due to this quota since the application started.
+   *
+   * @return the number of rejected searches
+   */
+  public long getRejectedSearches() {
+    return rejectedSearches.sum();
+  }
+}
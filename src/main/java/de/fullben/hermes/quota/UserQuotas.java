@@ -0,0 +1,58 @@
+package de.fullben.hermes.quota;
+
+import static de.fullben.hermes.util.Preconditions.notBlank;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Service;
+
+/**
+ * Provides the search quota of each user. Quotas are created on the first search of a user and
+ * kept for the lifetime of the application.
+ *
+ * @author Benedikt Full
+ */
+@Service
+@EnableConfigurationProperties(QuotaProperties.class)
+public class UserQuotas {
+
+  private final QuotaProperties properties;
+  private final Map<String, UserQuota> quotas;
+
+  @Autowired
+  public UserQuotas(QuotaProperties properties) {
+    this.properties = properties;
+    quotas = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Returns the quota of the given user.
+   *
+   * @param username the name of the authenticated user
+   * @return the quota of the user
+   */
+  public UserQuota forUser(String username) {
+    UserQuota quota = quotas.get(notBlank(username));
+    if (quota != null) {
+      return quota;
+    }
+    return quotas.computeIfAbsent(
+        username, name -> new UserQuota(name, properties.forUser(name), properties.isEnabled()));
+  }
+
+  /**
+   * Returns the quotas of all users that have searched since the application started.
+   *
+   * @return the quotas, ordered by username
+   */
+  public List<UserQuota> getQuotas() {
+    return quotas.values().stream()
+        .sorted(Comparator.comparing(UserQuota::getUsername))
+        .collect(Collectors.toList());
+  }
+}
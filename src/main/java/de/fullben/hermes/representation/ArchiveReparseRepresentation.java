@@ -0,0 +1,39 @@
+package de.fullben.hermes.representation;
+
+/**
+ * Represents the outcome of rebuilding the cached results of a web search provider from its
+ * archived result pages.
+ *
+ * @author Benedikt Full
+ */
+public class ArchiveReparseRepresentation {
+
+  private String provider;
+  private int rebuilt;
+
+  public ArchiveReparseRepresentation() {
+    provider = null;
+    rebuilt = 0;
+  }
+
+  public ArchiveReparseRepresentation(String provider, int rebuilt) {
+    this.provider = provider;
+    this.rebuilt = rebuilt;
+  }
+
+  public String getProvider() {
+    return provider;
+  }
+
+  public void setProvider(String provider) {
+    this.provider = provider;
+  }
+
+  public int getRebuilt() {
+    return rebuilt;
+  }
+
+  public void setRebuilt(int rebuilt) {
+    this.rebuilt = rebuilt;
+  }
+}
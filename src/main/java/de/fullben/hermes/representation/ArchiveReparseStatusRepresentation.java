@@ -0,0 +1,103 @@
+package de.fullben.hermes.representation;
+
+import java.util.List;
+
+/**
+ * Represents a rebuild of cached results from the archived result pages of the web search
+ * providers, along with its progress.
+ *
+ * @author Benedikt Full
+ */
+public class ArchiveReparseStatusRepresentation {
+
+  private String status;
+  private String query;
+  private boolean backfill;
+  private List<ArchiveReparseRepresentation> providers;
+  private String startedAt;
+  private String finishedAt;
+  private String error;
+
+  public ArchiveReparseStatusRepresentation() {
+    status = null;
+    query = null;
+    backfill = false;
+    providers = List.of();
+    startedAt = null;
+    finishedAt = null;
+    error = null;
+  }
+
+  /**
+   * The execution status of the rebuild, i.e., {@code RUNNING}, {@code COMPLETED}, or {@code
+   * FAILED}.
+   *
+   * @return the status
+   */
+  public String getStatus() {
+    return status;
+  }
+
+  public void setStatus(String status) {
+    this.status = status;
+  }
+
+  /**
+   * The query whose results are rebuilt.
+   *
+   * @return the query, {@code null} if the results of all archived queries are rebuilt
+   */
+  public String getQuery() {
+    return query;
+  }
+
+  public void setQuery(String query) {
+    this.query = query;
+  }
+
+  public boolean isBackfill() {
+    return backfill;
+  }
+
+  public void setBackfill(boolean backfill) {
+    this.backfill = backfill;
+  }
+
+  /**
+   * The number of rebuilt queries of each provider whose archived pages have been processed so
+   * far.
+   *
+   * @return the outcomes per provider
+   */
+  public List<ArchiveReparseRepresentation> getProviders() {
+    return providers;
+  }
+
+  public void setProviders(List<ArchiveReparseRepresentation> providers) {
+    this.providers = providers;
+  }
+
+  public String getStartedAt() {
+    return startedAt;
+  }
+
+  public void setStartedAt(String startedAt) {
+    this.startedAt = startedAt;
+  }
+
+  public String getFinishedAt() {
+    return finishedAt;
+  }
+
+  public void setFinishedAt(String finishedAt) {
+    this.finishedAt = finishedAt;
+  }
+
+  public String getError() {
+    return error;
+  }
+
+  public void setError(String error) {
+    this.error = error;
+  }
+}
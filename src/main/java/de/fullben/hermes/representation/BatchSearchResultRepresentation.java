@@ -0,0 +1,88 @@
+package de.fullben.hermes.representation;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represents the outcome of a single query of a batch search. Either the results or the error are
+ * set, depending on whether the search for the query succeeded.
+ *
+ * @author Benedikt Full
+ */
+public class BatchSearchResultRepresentation {
+
+  private String query;
+  private List<Map<String, String>> results;
+  private boolean local;
+  private boolean partial;
+  private ErrorRepresentation error;
+
+  public BatchSearchResultRepresentation() {
+    query = null;
+    results = null;
+    local = false;
+    partial = false;
+    error = null;
+  }
+
+  public String getQuery() {
+    return query;
+  }
+
+  public void setQuery(String query) {
+    this.query = query;
+  }
+
+  /**
+   * The results of the query, each containing only the requested fields.
+   *
+   * @return the results, {@code null} if the search failed
+   */
+  public List<Map<String, String>> getResults() {
+    return results;
+  }
+
+  public void setResults(List<Map<String, String>> results) {
+    this.results = results;
+  }
+
+  /**
+   * Whether the results were taken from the locally cached results of previous searches, as the
+   * web search provider was unavailable.
+   *
+   * @return {@code true} if the results are local results
+   */
+  public boolean isLocal() {
+    return local;
+  }
+
+  public void setLocal(boolean local) {
+    this.local = local;
+  }
+
+  /**
+   * Whether fewer results than requested were found, as the deadline of the search passed.
+   *
+   * @return {@code true} if the results are partial
+   */
+  public boolean isPartial() {
+    return partial;
+  }
+
+  public void setPartial(boolean partial) {
+    this.partial = partial;
+  }
+
+  /**
+   * The reason why the search for the query failed.
+   *
+   * @return the error, {@code null} if the search succeeded
+   */
+  public ErrorRepresentation getError() {
+    return error;
+  }
+
+  public void setError(ErrorRepresentation error) {
+    this.error = error;
+  }
+}
@@ -0,0 +1,65 @@
+package de.fullben.hermes.representation;
+
+import java.util.List;
+
+/**
+ * Represents the cached results of a single query.
+ *
+ * @author Benedikt Full
+ */
+public class CacheEntryRepresentation {
+
+  private String query;
+  private int results;
+  private List<String> fields;
+  private long expireAfterSecs;
+  private long expiresInSecs;
+
+  public CacheEntryRepresentation() {
+    query = null;
+    results = 0;
+    fields = List.of();
+    expireAfterSecs = 0;
+    expiresInSecs = 0;
+  }
+
+  public String getQuery() {
+    return query;
+  }
+
+  public void setQuery(String query) {
+    this.query = query;
+  }
+
+  public int getResults() {
+    return results;
+  }
+
+  public void setResults(int results) {
+    this.results = results;
+  }
+
+  public List<String> getFields() {
+    return fields;
+  }
+
+  public void setFields(List<String> fields) {
+    this.fields = fields;
+  }
+
+  public long getExpireAfterSecs() {
+    return expireAfterSecs;
+  }
+
+  public void setExpireAfterSecs(long expireAfterSecs) {
+    this.expireAfterSecs = expireAfterSecs;
+  }
+
+  public long getExpiresInSecs() {
+    return expiresInSecs;
+  }
+
+  public void setExpiresInSecs(long expiresInSecs) {
+    this.expiresInSecs = expiresInSecs;
+  }
+}
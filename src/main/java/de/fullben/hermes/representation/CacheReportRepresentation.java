@@ -0,0 +1,66 @@
+package de.fullben.hermes.representation;
+
+import java.util.List;
+
+/**
+ * Represents the contents of the result cache of a web search provider, along with the queries
+ * searched for most frequently.
+ *
+ * @author Benedikt Full
+ */
+public class CacheReportRepresentation {
+
+  private String provider;
+  private long size;
+  private long maxSize;
+  private List<HotQueryRepresentation> hotQueries;
+  private List<CacheEntryRepresentation> entries;
+
+  public CacheReportRepresentation() {
+    provider = null;
+    size = 0;
+    maxSize = 0;
+    hotQueries = List.of();
+    entries = List.of();
+  }
+
+  public String getProvider() {
+    return provider;
+  }
+
+  public void setProvider(String provider) {
+    this.provider = provider;
+  }
+
+  public long getSize() {
+    return size;
+  }
+
+  public void setSize(long size) {
+    this.size = size;
+  }
+
+  public long getMaxSize() {
+    return maxSize;
+  }
+
+  public void setMaxSize(long maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  public List<HotQueryRepresentation> getHotQueries() {
+    return hotQueries;
+  }
+
+  public void setHotQueries(List<HotQueryRepresentation> hotQueries) {
+    this.hotQueries = hotQueries;
+  }
+
+  public List<CacheEntryRepresentation> getEntries() {
+    return entries;
+  }
+
+  public void setEntries(List<CacheEntryRepresentation> entries) {
+    this.entries = entries;
+  }
+}
@@ -0,0 +1,129 @@
+package de.fullben.hermes.representation;
+
+/**
+ * Represents the outcome of a canary probe, i.e., of a search for a known query that is executed
+ * in the background to check whether a web search provider still works as expected.
+ *
+ * @author Benedikt Full
+ */
+public class CanaryRepresentation {
+
+  private String query;
+  private String probedAt;
+  private long latencyMs;
+  private int expected;
+  private int parsed;
+  private int dropped;
+  private double yield;
+  private boolean successful;
+  private String failure;
+  private String error;
+
+  public CanaryRepresentation() {
+    query = null;
+    probedAt = null;
+    latencyMs = 0;
+    expected = 0;
+    parsed = 0;
+    dropped = 0;
+    yield = 0;
+    successful = false;
+    failure = null;
+    error = null;
+  }
+
+  public String getQuery() {
+    return query;
+  }
+
+  public void setQuery(String query) {
+    this.query = query;
+  }
+
+  public String getProbedAt() {
+    return probedAt;
+  }
+
+  public void setProbedAt(String probedAt) {
+    this.probedAt = probedAt;
+  }
+
+  public long getLatencyMs() {
+    return latencyMs;
+  }
+
+  public void setLatencyMs(long latencyMs) {
+    this.latencyMs = latencyMs;
+  }
+
+  /**
+   * The number of results the result pages of the query are expected to contain.
+   *
+   * @return the expected number of results
+   */
+  public int getExpected() {
+    return expected;
+  }
+
+  public void setExpected(int expected) {
+    this.expected = expected;
+  }
+
+  public int getParsed() {
+    return parsed;
+  }
+
+  public void setParsed(int parsed) {
+    this.parsed = parsed;
+  }
+
+  /**
+   * The number of results found on the result pages which could not be processed.
+   *
+   * @return the number of dropped results
+   */
+  public int getDropped() {
+    return dropped;
+  }
+
+  public void setDropped(int dropped) {
+    this.dropped = dropped;
+  }
+
+  /**
+   * The share of the expected results that could be processed.
+   *
+   * @return the yield, between zero and one
+   */
+  public double getYield() {
+    return yield;
+  }
+
+  public void setYield(double yield) {
+    this.yield = yield;
+  }
+
+  public boolean isSuccessful() {
+    return successful;
+  }
+
+  public void setSuccessful(boolean successful) {
+    this.successful = successful;
+  }
+
+  public String getFailure() {
+    return failure;
+  }
+
+  public void setFailure(String failure) {
+    this.failure = failure;
+  }
+
+  public String getError() {
+    return error;
+  }
+
+  public void setError(String error) {
+    this.error = error;
+  }
+}
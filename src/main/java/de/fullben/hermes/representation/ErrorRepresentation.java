@@ -2,6 +2,12 @@ package de.fullben.hermes.representation;
 
 import static de.fullben.hermes.util.Preconditions.notNull;
 
+import de.fullben.hermes.search.DocumentStructureException;
+import de.fullben.hermes.search.InsufficientResultsException;
+import de.fullben.hermes.search.ProviderUnavailableException;
+import de.fullben.hermes.search.QuotaExceededException;
+import de.fullben.hermes.search.SearchException;
+import de.fullben.hermes.search.SearchRejectedException;
 import org.springframework.http.HttpStatus;
 
 /**
@@ -35,6 +41,46 @@ public class ErrorRepresentation {
     this(status, null);
   }
 
+  /**
+   * Creates the representation of the given search failure, so that a failure is communicated the
+   * same way, regardless of whether it ends a request or is reported as the outcome of a single
+   * query of a batch or job.
+   *
+   * @param e the failure of a search
+   * @return the representation of the failure
+   */
+  public static ErrorRepresentation of(SearchException e) {
+    notNull(e);
+    if (e instanceof QuotaExceededException) {
+      return new ErrorRepresentation(
+          HttpStatus.TOO_MANY_REQUESTS,
+          "You have exceeded your search quota, please try again later");
+    }
+    if (e instanceof ProviderUnavailableException) {
+      return new ErrorRepresentation(
+          HttpStatus.SERVICE_UNAVAILABLE,
+          "The web search provider is currently unavailable, please try again later");
+    }
+    if (e instanceof SearchRejectedException) {
+      return new ErrorRepresentation(
+          HttpStatus.SERVICE_UNAVAILABLE,
+          "The web search provider is currently overloaded, please try again later");
+    }
+    if (e instanceof DocumentStructureException) {
+      return new ErrorRepresentation(
+          HttpStatus.BAD_GATEWAY,
+          "The web search provider returned result pages which could not be processed");
+    }
+    if (e instanceof InsufficientResultsException) {
+      return new ErrorRepresentation(
+          HttpStatus.INTERNAL_SERVER_ERROR,
+          "The web search provider did not return the requested number of results");
+    }
+    return new ErrorRepresentation(
+        HttpStatus.INTERNAL_SERVER_ERROR,
+        "Something went wrong while trying to execute your search");
+  }
+
   public int getCode() {
     return code;
   }
@@ -0,0 +1,64 @@
+package de.fullben.hermes.representation;
+
+/**
+ * Represents a query which is searched for frequently, along with its estimated number of searches
+ * and its cached results.
+ *
+ * @author Benedikt Full
+ */
+public class HotQueryRepresentation {
+
+  private String query;
+  private long searches;
+  private long hits;
+  private long misses;
+  private CacheEntryRepresentation cached;
+
+  public HotQueryRepresentation() {
+    query = null;
+    searches = 0;
+    hits = 0;
+    misses = 0;
+    cached = null;
+  }
+
+  public String getQuery() {
+    return query;
+  }
+
+  public void setQuery(String query) {
+    this.query = query;
+  }
+
+  public long getSearches() {
+    return searches;
+  }
+
+  public void setSearches(long searches) {
+    this.searches = searches;
+  }
+
+  public long getHits() {
+    return hits;
+  }
+
+  public void setHits(long hits) {
+    this.hits = hits;
+  }
+
+  public long getMisses() {
+    return misses;
+  }
+
+  public void setMisses(long misses) {
+    this.misses = misses;
+  }
+
+  public CacheEntryRepresentation getCached() {
+    return cached;
+  }
+
+  public void setCached(CacheEntryRepresentation cached) {
+    this.cached = cached;
+  }
+}
@@ -0,0 +1,104 @@
+package de.fullben.hermes.representation;
+
+/**
+ * Represents the diagnostic data recorded for a single result page fetched from a web search
+ * provider.
+ *
+ * @author Benedikt Full
+ */
+public class PageTraceRepresentation {
+
+  private int page;
+  private String url;
+  private int status;
+  private long bytes;
+  private double fetchMillis;
+  private double parseMillis;
+  private double extractMillis;
+  private int parsed;
+  private int dropped;
+
+  public PageTraceRepresentation() {
+    page = 0;
+    url = null;
+    status = 0;
+    bytes = 0;
+    fetchMillis = 0;
+    parseMillis = 0;
+    extractMillis = 0;
+    parsed = 0;
+    dropped = 0;
+  }
+
+  public int getPage() {
+    return page;
+  }
+
+  public void setPage(int page) {
+    this.page = page;
+  }
+
+  public String getUrl() {
+    return url;
+  }
+
+  public void setUrl(String url) {
+    this.url = url;
+  }
+
+  public int getStatus() {
+    return status;
+  }
+
+  public void setStatus(int status) {
+    this.status = status;
+  }
+
+  public long getBytes() {
+    return bytes;
+  }
+
+  public void setBytes(long bytes) {
+    this.bytes = bytes;
+  }
+
+  public double getFetchMillis() {
+    return fetchMillis;
+  }
+
+  public void setFetchMillis(double fetchMillis) {
+    this.fetchMillis = fetchMillis;
+  }
+
+  public double getParseMillis() {
+    return parseMillis;
+  }
+
+  public void setParseMillis(double parseMillis) {
+    this.parseMillis = parseMillis;
+  }
+
+  public double getExtractMillis() {
+    return extractMillis;
+  }
+
+  public void setExtractMillis(double extractMillis) {
+    this.extractMillis = extractMillis;
+  }
+
+  public int getParsed() {
+    return parsed;
+  }
+
+  public void setParsed(int parsed) {
+    this.parsed = parsed;
+  }
+
+  public int getDropped() {
+    return dropped;
+  }
+
+  public void setDropped(int dropped) {
+    this.dropped = dropped;
+  }
+}
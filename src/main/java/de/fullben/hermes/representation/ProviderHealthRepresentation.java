@@ -0,0 +1,91 @@
+package de.fullben.hermes.representation;
+
+/**
+ * Represents whether the pages of a web search provider can currently be processed, along with the
+ * outcome of the most recent canary probe of the provider.
+ *
+ * @author Benedikt Full
+ */
+public class ProviderHealthRepresentation {
+
+  private String provider;
+  private boolean available;
+  private String failure;
+  private String message;
+  private String unavailableSince;
+  private CanaryRepresentation canary;
+
+  public ProviderHealthRepresentation() {
+    provider = null;
+    available = false;
+    failure = null;
+    message = null;
+    unavailableSince = null;
+    canary = null;
+  }
+
+  public String getProvider() {
+    return provider;
+  }
+
+  public void setProvider(String provider) {
+    this.provider = provider;
+  }
+
+  /**
+   * Whether searches that have to contact the provider are currently executed, rather than
+   * rejected or answered locally.
+   *
+   * @return {@code true} if the provider is healthy
+   */
+  public boolean isAvailable() {
+    return available;
+  }
+
+  public void setAvailable(boolean available) {
+    this.available = available;
+  }
+
+  /**
+   * The reason why the pages of the provider cannot be processed, e.g., {@code LAYOUT_CHANGED} or
+   * {@code CAPTCHA}.
+   *
+   * @return the failure, {@code null} if the provider is available
+   */
+  public String getFailure() {
+    return failure;
+  }
+
+  public void setFailure(String failure) {
+    this.failure = failure;
+  }
+
+  public String getMessage() {
+    return message;
+  }
+
+  public void setMessage(String message) {
+    this.message = message;
+  }
+
+  public String getUnavailableSince() {
+    return unavailableSince;
+  }
+
+  public void setUnavailableSince(String unavailableSince) {
+    this.unavailableSince = unavailableSince;
+  }
+
+  /**
+   * The outcome of the most recent canary probe of the provider.
+   *
+   * @return the outcome, {@code null} if the provider has not been probed yet
+   */
+  public CanaryRepresentation getCanary() {
+    return canary;
+  }
+
+  public void setCanary(CanaryRepresentation canary) {
+    this.canary = canary;
+  }
+}
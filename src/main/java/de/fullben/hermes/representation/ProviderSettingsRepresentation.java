@@ -0,0 +1,79 @@
+package de.fullben.hermes.representation;
+
+/**
+ * Represents the settings of a web search provider which can be changed at runtime.
+ *
+ * @author Benedikt Full
+ */
+public class ProviderSettingsRepresentation {
+
+  private String provider;
+  private int cacheMaxSize;
+  private int cacheExpireAfterMins;
+  private int cacheMinExpireAfterMins;
+  private int cacheMaxExpireAfterMins;
+  private int maxTries;
+
+  public ProviderSettingsRepresentation() {
+    provider = null;
+    cacheMaxSize = 0;
+    cacheExpireAfterMins = 0;
+    cacheMinExpireAfterMins = 0;
+    cacheMaxExpireAfterMins = 0;
+    maxTries = 0;
+  }
+
+  public String getProvider() {
+    return provider;
+  }
+
+  public void setProvider(String provider) {
+    this.provider = provider;
+  }
+
+  public int getCacheMaxSize() {
+    return cacheMaxSize;
+  }
+
+  public void setCacheMaxSize(int cacheMaxSize) {
+    this.cacheMaxSize = cacheMaxSize;
+  }
+
+  /**
+   * The time for which newly cached results are kept, before their lifetime is adapted to the
+   * volatility of their query.
+   *
+   * @return the initial expiry time in minutes
+   */
+  public int getCacheExpireAfterMins() {
+    return cacheExpireAfterMins;
+  }
+
+  public void setCacheExpireAfterMins(int cacheExpireAfterMins) {
+    this.cacheExpireAfterMins = cacheExpireAfterMins;
+  }
+
+  public int getCacheMinExpireAfterMins() {
+    return cacheMinExpireAfterMins;
+  }
+
+  public void setCacheMinExpireAfterMins(int cacheMinExpireAfterMins) {
+    this.cacheMinExpireAfterMins = cacheMinExpireAfterMins;
+  }
+
+  public int getCacheMaxExpireAfterMins() {
+    return cacheMaxExpireAfterMins;
+  }
+
+  public void setCacheMaxExpireAfterMins(int cacheMaxExpireAfterMins) {
+    this.cacheMaxExpireAfterMins = cacheMaxExpireAfterMins;
+  }
+
+  public int getMaxTries() {
+    return maxTries;
+  }
+
+  public void setMaxTries(int maxTries) {
+    this.maxTries = maxTries;
+  }
+}
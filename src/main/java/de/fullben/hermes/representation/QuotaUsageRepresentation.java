@@ -0,0 +1,118 @@
+package de.fullben.hermes.representation;
+
+/**
+ * Represents the current usage of the search quota of a single user.
+ *
+ * @author Benedikt Full
+ */
+public class QuotaUsageRepresentation {
+
+  private String user;
+  private boolean enforced;
+  private long cachedSearches;
+  private int cachedSearchesPerMinute;
+  private long upstreamSearches;
+  private int upstreamSearchesPerMinute;
+  private long concurrentSearches;
+  private int maxConcurrentSearches;
+  private long rejectedSearches;
+
+  public QuotaUsageRepresentation() {
+    user = null;
+    enforced = false;
+    cachedSearches = 0;
+    cachedSearchesPerMinute = 0;
+    upstreamSearches = 0;
+    upstreamSearchesPerMinute = 0;
+    concurrentSearches = 0;
+    maxConcurrentSearches = 0;
+    rejectedSearches = 0;
+  }
+
+  public String getUser() {
+    return user;
+  }
+
+  public void setUser(String user) {
+    this.user = user;
+  }
+
+  public boolean isEnforced() {
+    return enforced;
+  }
+
+  public void setEnforced(boolean enforced) {
+    this.enforced = enforced;
+  }
+
+  /**
+   * The number of searches answered from the cache in the current minute.
+   *
+   * @return the number of cached searches
+   */
+  public long getCachedSearches() {
+    return cachedSearches;
+  }
+
+  public void setCachedSearches(long cachedSearches) {
+    this.cachedSearches = cachedSearches;
+  }
+
+  public int getCachedSearchesPerMinute() {
+    return cachedSearchesPerMinute;
+  }
+
+  public void setCachedSearchesPerMinute(int cachedSearchesPerMinute) {
+    this.cachedSearchesPerMinute = cachedSearchesPerMinute;
+  }
+
+  /**
+   * The number of searches that contacted the web search provider in the current minute.
+   *
+   * @return the number of upstream searches
+   */
+  public long getUpstreamSearches() {
+    return upstreamSearches;
+  }
+
+  public void setUpstreamSearches(long upstreamSearches) {
+    this.upstreamSearches = upstreamSearches;
+  }
+
+  public int getUpstreamSearchesPerMinute() {
+    return upstreamSearchesPerMinute;
+  }
+
+  public void setUpstreamSearchesPerMinute(int upstreamSearchesPerMinute) {
+    this.upstreamSearchesPerMinute = upstreamSearchesPerMinute;
+  }
+
+  public long getConcurrentSearches() {
+    return concurrentSearches;
+  }
+
+  public void setConcurrentSearches(long concurrentSearches) {
+    this.concurrentSearches = concurrentSearches;
+  }
+
+  public int getMaxConcurrentSearches() {
+    return maxConcurrentSearches;
+  }
+
+  public void setMaxConcurrentSearches(int maxConcurrentSearches) {
+    this.maxConcurrentSearches = maxConcurrentSearches;
+  }
+
+  /**
+   * The number of searches rejected due to the quota since the application started.
+   *
+   * @return the number of rejected searches
+   */
+  public long getRejectedSearches() {
+    return rejectedSearches;
+  }
+
+  public void setRejectedSearches(long rejectedSearches) {
+    this.rejectedSearches = rejectedSearches;
+  }
+}
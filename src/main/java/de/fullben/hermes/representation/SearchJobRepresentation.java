@@ -0,0 +1,148 @@
+package de.fullben.hermes.representation;
+
+import java.util.List;
+
+/**
+ * Represents a bulk search job along with its progress.
+ *
+ * @author Benedikt Full
+ */
+public class SearchJobRepresentation {
+
+  private String id;
+  private String status;
+  private String provider;
+  private int resultCount;
+  private List<String> fields;
+  private int queries;
+  private int processed;
+  private int failed;
+  private double queriesPerMinute;
+  private String createdAt;
+  private String finishedAt;
+
+  public SearchJobRepresentation() {
+    id = null;
+    status = null;
+    provider = null;
+    resultCount = 0;
+    fields = List.of();
+    queries = 0;
+    processed = 0;
+    failed = 0;
+    queriesPerMinute = 0;
+    createdAt = null;
+    finishedAt = null;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public void setId(String id) {
+    this.id = id;
+  }
+
+  /**
+   * The execution status of the job, i.e., {@code QUEUED}, {@code RUNNING}, {@code COMPLETED}, or
+   * {@code FAILED}.
+   *
+   * @return the status
+   */
+  public String getStatus() {
+    return status;
+  }
+
+  public void setStatus(String status) {
+    this.status = status;
+  }
+
+  public String getProvider() {
+    return provider;
+  }
+
+  public void setProvider(String provider) {
+    this.provider = provider;
+  }
+
+  public int getResultCount() {
+    return resultCount;
+  }
+
+  public void setResultCount(int resultCount) {
+    this.resultCount = resultCount;
+  }
+
+  public List<String> getFields() {
+    return fields;
+  }
+
+  public void setFields(List<String> fields) {
+    this.fields = fields;
+  }
+
+  /**
+   * The total number of queries of the job.
+   *
+   * @return the number of queries
+   */
+  public int getQueries() {
+    return queries;
+  }
+
+  public void setQueries(int queries) {
+    this.queries = queries;
+  }
+
+  /**
+   * The number of queries whose outcome is available in the result file, including failed
+   * queries.
+   *
+   * @return the number of processed queries
+   */
+  public int getProcessed() {
+    return processed;
+  }
+
+  public void setProcessed(int processed) {
+    this.processed = processed;
+  }
+
+  public int getFailed() {
+    return failed;
+  }
+
+  public void setFailed(int failed) {
+    this.failed = failed;
+  }
+
+  /**
+   * The number of queries processed per minute since the job was last started, zero if the job is
+   * not running.
+   *
+   * @return the throughput of the job
+   */
+  public double getQueriesPerMinute() {
+    return queriesPerMinute;
+  }
+
+  public void setQueriesPerMinute(double queriesPerMinute) {
+    this.queriesPerMinute = queriesPerMinute;
+  }
+
+  public String getCreatedAt() {
+    return createdAt;
+  }
+
+  public void setCreatedAt(String createdAt) {
+    this.createdAt = createdAt;
+  }
+
+  public String getFinishedAt() {
+    return finishedAt;
+  }
+
+  public void setFinishedAt(String finishedAt) {
+    this.finishedAt = finishedAt;
+  }
+}
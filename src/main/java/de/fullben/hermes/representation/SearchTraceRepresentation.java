@@ -0,0 +1,91 @@
+package de.fullben.hermes.representation;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represents the results of a web search along with a detailed trace of how they were acquired.
+ *
+ * <p>Instances of this class are returned instead of the plain result list if a client explicitly
+ * requests debug output for a search.
+ *
+ * @author Benedikt Full
+ */
+public class SearchTraceRepresentation {
+
+  private String query;
+  private String cacheOutcome;
+  private boolean partial;
+  private Map<String, Double> timings;
+  private List<PageTraceRepresentation> pages;
+  private List<?> results;
+
+  public SearchTraceRepresentation() {
+    query = null;
+    cacheOutcome = null;
+    partial = false;
+    timings = new LinkedHashMap<>();
+    pages = List.of();
+    results = List.of();
+  }
+
+  public String getQuery() {
+    return query;
+  }
+
+  public void setQuery(String query) {
+    this.query = query;
+  }
+
+  public String getCacheOutcome() {
+    return cacheOutcome;
+  }
+
+  public void setCacheOutcome(String cacheOutcome) {
+    this.cacheOutcome = cacheOutcome;
+  }
+
+  /**
+   * Whether fewer results than requested were found, as the deadline of the search passed.
+   *
+   * @return {@code true} if the results are partial
+   */
+  public boolean isPartial() {
+    return partial;
+  }
+
+  public void setPartial(boolean partial) {
+    this.partial = partial;
+  }
+
+  public Map<String, Double> getTimings() {
+    return timings;
+  }
+
+  public void setTimings(Map<String, Double> timings) {
+    this.timings = timings;
+  }
+
+  public List<PageTraceRepresentation> getPages() {
+    return pages;
+  }
+
+  public void setPages(List<PageTraceRepresentation> pages) {
+    this.pages = pages;
+  }
+
+  /**
+   * The results of the search. If the client requested specific result fields, these are property
+   * maps containing only the requested fields (see {@link SearchResultField#project}).
+   *
+   * @return the results
+   */
+  public List<?> getResults() {
+    return results;
+  }
+
+  public void setResults(List<?> results) {
+    this.results = results;
+  }
+}
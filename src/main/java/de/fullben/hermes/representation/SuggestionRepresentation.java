@@ -0,0 +1,44 @@
+package de.fullben.hermes.representation;
+
+/**
+ * Represents a query suggested for completing a partially typed query.
+ *
+ * @author Benedikt Full
+ */
+public class SuggestionRepresentation {
+
+  private String query;
+  private boolean cached;
+
+  public SuggestionRepresentation() {
+    query = null;
+    cached = false;
+  }
+
+  public SuggestionRepresentation(String query, boolean cached) {
+    this.query = query;
+    this.cached = cached;
+  }
+
+  public String getQuery() {
+    return query;
+  }
+
+  public void setQuery(String query) {
+    this.query = query;
+  }
+
+  /**
+   * Whether results for the query are cached, i.e., whether a search for the query is answered
+   * right away.
+   *
+   * @return {@code true} if results are cached
+   */
+  public boolean isCached() {
+    return cached;
+  }
+
+  public void setCached(boolean cached) {
+    this.cached = cached;
+  }
+}
@@ -0,0 +1,51 @@
+package de.fullben.hermes.search;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Configuration for the archive of raw result pages (see {@link PageArchive}).
+ *
+ * @author Benedikt Full
+ */
+@ConfigurationProperties(prefix = "hermes.archive")
+@ConstructorBinding
+@Validated
+public class ArchiveProperties {
+
+  private final boolean enabled;
+
+  @NotBlank private final String directory;
+
+  @Min(1)
+  private final int maxAgeDays;
+
+  @Min(1)
+  private final long maxSizeMb;
+
+  public ArchiveProperties(boolean enabled, String directory, int maxAgeDays, long maxSizeMb) {
+    this.enabled = enabled;
+    this.directory = directory;
+    this.maxAgeDays = maxAgeDays;
+    this.maxSizeMb = maxSizeMb;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public String getDirectory() {
+    return directory;
+  }
+
+  public int getMaxAgeDays() {
+    return maxAgeDays;
+  }
+
+  public long getMaxSizeMb() {
+    return maxSizeMb;
+  }
+}
@@ -0,0 +1,120 @@
+package de.fullben.hermes.search;
+
+import static de.fullben.hermes.util.Preconditions.notNull;
+
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * A rebuild of cached results from the archived result pages of the web search providers (see
+ * {@link ArchiveReparseService}).
+ *
+ * <p>The progress of a rebuild is only updated by the thread executing it, but may be read by any
+ * thread.
+ *
+ * @author Benedikt Full
+ */
+public class ArchiveReparse {
+
+  private final String query;
+  private final boolean backfill;
+  private final Instant startedAt;
+  private final Map<SearchProvider, Integer> rebuilt;
+  private volatile Status status;
+  private volatile Instant finishedAt;
+  private volatile String error;
+
+  public ArchiveReparse(String query, boolean backfill, Instant startedAt) {
+    this.query = query;
+    this.backfill = backfill;
+    this.startedAt = notNull(startedAt);
+    rebuilt = new EnumMap<>(SearchProvider.class);
+    status = Status.RUNNING;
+    finishedAt = null;
+    error = null;
+  }
+
+  /**
+   * The query whose results are rebuilt.
+   *
+   * @return the query, {@code null} if the results of all archived queries are rebuilt
+   */
+  public String getQuery() {
+    return query;
+  }
+
+  /**
+   * Whether results are rebuilt from pages older than the initial cache expiry time as well.
+   *
+   * @return {@code true} if the rebuild is a backfill
+   */
+  public boolean isBackfill() {
+    return backfill;
+  }
+
+  public Instant getStartedAt() {
+    return startedAt;
+  }
+
+  /**
+   * The number of queries whose results have been rebuilt, per provider whose archived pages have
+   * been processed so far.
+   *
+   * @return the number of rebuilt queries per provider
+   */
+  public Map<SearchProvider, Integer> getRebuilt() {
+    synchronized (rebuilt) {
+      return Map.copyOf(rebuilt);
+    }
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  /**
+   * The point in time at which the rebuild completed or failed.
+   *
+   * @return the finish time, {@code null} if the rebuild is still running
+   */
+  public Instant getFinishedAt() {
+    return finishedAt;
+  }
+
+  /**
+   * The message of the error that aborted the rebuild.
+   *
+   * @return the error message, {@code null} unless the rebuild failed
+   */
+  public String getError() {
+    return error;
+  }
+
+  void recordRebuilt(SearchProvider provider, int queries) {
+    synchronized (rebuilt) {
+      rebuilt.put(notNull(provider), queries);
+    }
+  }
+
+  void complete() {
+    finishedAt = Instant.now();
+    status = Status.COMPLETED;
+  }
+
+  void fail(String error) {
+    this.error = error;
+    finishedAt = Instant.now();
+    status = Status.FAILED;
+  }
+
+  /** The execution status of a rebuild. */
+  public enum Status {
+    /** The archived pages are being processed. */
+    RUNNING,
+    /** The archived pages of all requested providers have been processed. */
+    COMPLETED,
+    /** The rebuild was aborted, as a page archive could not be read. */
+    FAILED
+  }
+}
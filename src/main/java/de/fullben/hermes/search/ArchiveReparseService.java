@@ -0,0 +1,100 @@
+package de.fullben.hermes.search;
+
+import static org.apache.logging.log4j.util.Unbox.box;
+
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Rebuilds cached results from the archived result pages of the web search providers in the
+ * background (see {@link CachingWebSearch#reparseArchive(boolean)}), as processing a large archive
+ * may take far longer than an HTTP request should. Only one rebuild runs at a time.
+ *
+ * @author Benedikt Full
+ */
+@Service
+public class ArchiveReparseService implements DisposableBean {
+
+  private static final Logger LOG = LogManager.getLogger(ArchiveReparseService.class);
+  private final WebSearchService webSearchService;
+  private final ExecutorService executor;
+  private volatile ArchiveReparse latest;
+
+  @Autowired
+  public ArchiveReparseService(WebSearchService webSearchService) {
+    this.webSearchService = webSearchService;
+    executor =
+        Executors.newSingleThreadExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "archive-reparse");
+              thread.setDaemon(true);
+              return thread;
+            });
+    latest = null;
+  }
+
+  /**
+   * Starts rebuilding the cached results of the given provider and query, unless another rebuild
+   * is still running.
+   *
+   * @param provider the web search provider whose results are rebuilt, {@code null} for all
+   *     providers
+   * @param query the query whose results are rebuilt, {@code null} for all archived queries
+   * @param backfill whether results are rebuilt from pages older than the initial cache expiry
+   *     time as well
+   * @return the started rebuild, empty if another rebuild is still running
+   */
+  public synchronized Optional<ArchiveReparse> start(
+      SearchProvider provider, String query, boolean backfill) {
+    if (latest != null && latest.getStatus() == ArchiveReparse.Status.RUNNING) {
+      return Optional.empty();
+    }
+    Set<SearchProvider> providers =
+        provider == null ? EnumSet.copyOf(webSearchService.getProviders()) : Set.of(provider);
+    ArchiveReparse reparse = new ArchiveReparse(query, backfill, Instant.now());
+    latest = reparse;
+    executor.execute(() -> run(reparse, providers));
+    return Optional.of(reparse);
+  }
+
+  /**
+   * Returns the most recently started rebuild.
+   *
+   * @return the rebuild, empty if no rebuild has been started yet
+   */
+  public Optional<ArchiveReparse> getLatest() {
+    return Optional.ofNullable(latest);
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdownNow();
+  }
+
+  private void run(ArchiveReparse reparse, Set<SearchProvider> providers) {
+    for (SearchProvider provider : providers) {
+      try {
+        reparse.recordRebuilt(
+            provider,
+            webSearchService.reparseArchive(provider, reparse.getQuery(), reparse.isBackfill()));
+      } catch (SearchException | RuntimeException e) {
+        LOG.warn("Failed to rebuild cached {} results from the page archive", provider, e);
+        reparse.fail(e.getMessage());
+        return;
+      }
+    }
+    reparse.complete();
+    LOG.info(
+        "Rebuilt cached results from the page archive in {} ms",
+        box(reparse.getFinishedAt().toEpochMilli() - reparse.getStartedAt().toEpochMilli()));
+  }
+}
@@ -0,0 +1,119 @@
+package de.fullben.hermes.search;
+
+import static org.apache.logging.log4j.util.Unbox.box;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically probes every web search provider with a canary query (see {@link
+ * CachingWebSearch#probe(String, int)}), so that changes of the providers' page layouts and
+ * challenge pages are noticed before they fail the searches of clients.
+ *
+ * <p>Probes only run if {@code hermes.canary.enabled} is set. Each provider is probed once per
+ * interval, with the configured queries taking turns, thus the upstream cost of the probes is
+ * fixed, regardless of the traffic. The outcome of the most recent probe of each provider is held
+ * by the provider's {@link ProviderHealth}.
+ *
+ * @author Benedikt Full
+ */
+@Component
+@EnableConfigurationProperties(CanaryProperties.class)
+public class CanaryProbes implements ApplicationListener<ApplicationReadyEvent>, DisposableBean {
+
+  private static final Logger LOG = LogManager.getLogger(CanaryProbes.class);
+  private final CanaryProperties canaryProperties;
+  private final ObjectProvider<SearchProviderRegistry> searchProviderRegistry;
+  private final ScheduledExecutorService scheduler;
+  private int round;
+
+  @Autowired
+  public CanaryProbes(
+      CanaryProperties canaryProperties,
+      ObjectProvider<SearchProviderRegistry> searchProviderRegistry) {
+    this.canaryProperties = canaryProperties;
+    this.searchProviderRegistry = searchProviderRegistry;
+    scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "canary-probes");
+              thread.setDaemon(true);
+              return thread;
+            });
+    round = 0;
+  }
+
+  @Override
+  public void onApplicationEvent(ApplicationReadyEvent event) {
+    if (!canaryProperties.isEnabled()) {
+      return;
+    }
+    long interval = canaryProperties.getIntervalSecs();
+    scheduler.scheduleWithFixedDelay(this::probeAll, interval, interval, TimeUnit.SECONDS);
+    LOG.info("Probing search providers every {} seconds", box(interval));
+  }
+
+  @Override
+  public void destroy() {
+    scheduler.shutdownNow();
+  }
+
+  private void probeAll() {
+    // Only ever called by the single scheduler thread, thus no synchronization is needed
+    List<String> queries = canaryProperties.getQueries();
+    SearchProviderRegistry registry = searchProviderRegistry.getObject();
+    for (SearchProvider provider : registry.getProviders()) {
+      // Probe the providers with different queries, so that a query which happens to yield few
+      // results on one provider does not affect all providers at once
+      String query = queries.get((round + provider.ordinal()) % queries.size());
+      try {
+        registry
+            .get(provider)
+            .probe(query, canaryProperties.getResultCount())
+            .ifPresentOrElse(
+                result -> log(provider, result),
+                () -> LOG.debug("Skipped canary probe of {}, as it is busy", provider));
+      } catch (RuntimeException e) {
+        // Must not escape, as the scheduler would not run any further probes otherwise
+        LOG.warn("Canary probe of {} for query '{}' failed", provider, query, e);
+      }
+    }
+    round = (round + 1) % queries.size();
+  }
+
+  private static void log(SearchProvider provider, CanaryResult result) {
+    if (result.isSuccessful()) {
+      LOG.debug(
+          "Canary probe of {} for query '{}' yielded {} results in {} ms",
+          provider,
+          result.getQuery(),
+          box(result.getParsedCount()),
+          box(result.getLatency().toMillis()));
+    } else if (result.getError() != null) {
+      LOG.warn(
+          "Canary probe of {} for query '{}' failed: {}",
+          provider,
+          result.getQuery(),
+          result.getError());
+    } else {
+      LOG.warn(
+          "Canary probe of {} for query '{}' yielded only {} of {} results ({} dropped)",
+          provider,
+          result.getQuery(),
+          box(result.getParsedCount()),
+          box(result.getExpectedCount()),
+          box(result.getDroppedCount()));
+    }
+  }
+}
@@ -0,0 +1,69 @@
+package de.fullben.hermes.search;
+
+import java.util.List;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotEmpty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Configuration for the canary probes of the web search providers (see {@link CanaryProbes}).
+ *
+ * @author Benedikt Full
+ */
+@ConfigurationProperties(prefix = "hermes.canary")
+@ConstructorBinding
+@Validated
+public class CanaryProperties {
+
+  private final boolean enabled;
+
+  @NotEmpty private final List<String> queries;
+
+  @Min(1)
+  private final int resultCount;
+
+  @Min(1)
+  private final int intervalSecs;
+
+  public CanaryProperties(
+      boolean enabled, List<String> queries, int resultCount, int intervalSecs) {
+    this.enabled = enabled;
+    this.queries = queries;
+    this.resultCount = resultCount;
+    this.intervalSecs = intervalSecs;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * The queries searched for by the probes, one query per probe, in turn. Should be queries whose
+   * result pages always contain plenty of results.
+   *
+   * @return the canary queries
+   */
+  public List<String> getQueries() {
+    return queries;
+  }
+
+  /**
+   * The number of results the result pages of each canary query are expected to contain.
+   *
+   * @return the expected number of results
+   */
+  public int getResultCount() {
+    return resultCount;
+  }
+
+  /**
+   * The time between two consecutive probes of each provider.
+   *
+   * @return the interval in seconds
+   */
+  public int getIntervalSecs() {
+    return intervalSecs;
+  }
+}
@@ -0,0 +1,37 @@
+package de.fullben.hermes.search;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configures the archive of raw result pages. Unless {@code hermes.archive.enabled} is set, the
+ * archive is disabled and no pages are stored.
+ *
+ * @author Benedikt Full
+ */
+@Configuration
+@EnableConfigurationProperties(ArchiveProperties.class)
+public class PageArchiveConfiguration {
+
+  private static final Logger LOG = LogManager.getLogger(PageArchiveConfiguration.class);
+
+  public PageArchiveConfiguration() {}
+
+  @Bean(destroyMethod = "close")
+  public PageArchive pageArchive(ArchiveProperties properties) {
+    if (!properties.isEnabled()) {
+      return PageArchive.disabled();
+    }
+    Path directory = Path.of(properties.getDirectory()).toAbsolutePath();
+    LOG.info("Archiving result pages in {}", directory);
+    return new PageArchive(
+        directory,
+        Duration.ofDays(properties.getMaxAgeDays()),
+        properties.getMaxSizeMb() * 1024 * 1024);
+  }
+}
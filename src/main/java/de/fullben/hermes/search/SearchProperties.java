@@ -1,5 +1,9 @@
 package de.fullben.hermes.search;
 
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import javax.validation.Valid;
 import javax.validation.constraints.Min;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.ConstructorBinding;
@@ -8,6 +12,10 @@ import org.springframework.validation.annotation.Validated;
 /**
  * Configuration for the search implementations.
  *
+ * <p>The top-level properties apply to all web search providers. Each of them can be overridden
+ * for a specific provider via {@code hermes.search.providers.<provider>.<property>} (e.g., {@code
+ * hermes.search.providers.bing.max-concurrent-requests}).
+ *
  * @author Benedikt Full
  */
 @ConfigurationProperties(prefix = "hermes.search")
@@ -18,22 +26,110 @@ public class SearchProperties {
   @Min(1)
   private final int cacheExpireAfterMins;
 
+  @Min(1)
+  private final int cacheMinExpireAfterMins;
+
+  @Min(1)
+  private final int cacheMaxExpireAfterMins;
+
   @Min(1)
   private final int cacheMaxSize;
 
   @Min(1)
   private final int maxTries;
 
-  public SearchProperties(int cacheExpireAfterMins, int cacheMaxSize, int maxTries) {
+  @Min(1)
+  private final int maxConcurrentRequests;
+
+  @Min(0)
+  private final long maxRequestWaitMillis;
+
+  @Min(0)
+  private final int fetchRetries;
+
+  @Min(0)
+  private final long fetchRetryBackoffMillis;
+
+  @Min(1)
+  private final int maxConcurrentSearches;
+
+  @Min(0)
+  private final int maxQueuedSearches;
+
+  @Min(0)
+  private final long maxQueueWaitMillis;
+
+  private final boolean prefetch;
+
+  @Min(1)
+  private final long layoutFailureCooldownSecs;
+
+  private final boolean fallbackExtraction;
+
+  private final boolean localFallback;
+
+  @Min(1)
+  private final long defaultTimeoutMillis;
+
+  @Min(1)
+  private final long maxTimeoutMillis;
+
+  @Valid private final Map<SearchProvider, Provider> providers;
+
+  public SearchProperties(
+      int cacheExpireAfterMins,
+      int cacheMinExpireAfterMins,
+      int cacheMaxExpireAfterMins,
+      int cacheMaxSize,
+      int maxTries,
+      int maxConcurrentRequests,
+      long maxRequestWaitMillis,
+      int fetchRetries,
+      long fetchRetryBackoffMillis,
+      int maxConcurrentSearches,
+      int maxQueuedSearches,
+      long maxQueueWaitMillis,
+      boolean prefetch,
+      long layoutFailureCooldownSecs,
+      boolean fallbackExtraction,
+      boolean localFallback,
+      long defaultTimeoutMillis,
+      long maxTimeoutMillis,
+      Map<SearchProvider, Provider> providers) {
     this.cacheExpireAfterMins = cacheExpireAfterMins;
+    this.cacheMinExpireAfterMins = cacheMinExpireAfterMins;
+    this.cacheMaxExpireAfterMins = cacheMaxExpireAfterMins;
     this.cacheMaxSize = cacheMaxSize;
     this.maxTries = maxTries;
+    this.maxConcurrentRequests = maxConcurrentRequests;
+    this.maxRequestWaitMillis = maxRequestWaitMillis;
+    this.fetchRetries = fetchRetries;
+    this.fetchRetryBackoffMillis = fetchRetryBackoffMillis;
+    this.maxConcurrentSearches = maxConcurrentSearches;
+    this.maxQueuedSearches = maxQueuedSearches;
+    this.maxQueueWaitMillis = maxQueueWaitMillis;
+    this.prefetch = prefetch;
+    this.layoutFailureCooldownSecs = layoutFailureCooldownSecs;
+    this.fallbackExtraction = fallbackExtraction;
+    this.localFallback = localFallback;
+    this.defaultTimeoutMillis = defaultTimeoutMillis;
+    this.maxTimeoutMillis = maxTimeoutMillis;
+    this.providers =
+        providers == null ? new EnumMap<>(SearchProvider.class) : new EnumMap<>(providers);
   }
 
   public int getCacheExpireAfterMins() {
     return cacheExpireAfterMins;
   }
 
+  public int getCacheMinExpireAfterMins() {
+    return cacheMinExpireAfterMins;
+  }
+
+  public int getCacheMaxExpireAfterMins() {
+    return cacheMaxExpireAfterMins;
+  }
+
   public int getCacheMaxSize() {
     return cacheMaxSize;
   }
@@ -41,4 +137,286 @@ public class SearchProperties {
   public int getMaxTries() {
     return maxTries;
   }
+
+  public int getMaxConcurrentRequests() {
+    return maxConcurrentRequests;
+  }
+
+  public long getMaxRequestWaitMillis() {
+    return maxRequestWaitMillis;
+  }
+
+  public int getFetchRetries() {
+    return fetchRetries;
+  }
+
+  public long getFetchRetryBackoffMillis() {
+    return fetchRetryBackoffMillis;
+  }
+
+  public int getMaxConcurrentSearches() {
+    return maxConcurrentSearches;
+  }
+
+  public int getMaxQueuedSearches() {
+    return maxQueuedSearches;
+  }
+
+  public long getMaxQueueWaitMillis() {
+    return maxQueueWaitMillis;
+  }
+
+  public boolean isPrefetch() {
+    return prefetch;
+  }
+
+  public long getLayoutFailureCooldownSecs() {
+    return layoutFailureCooldownSecs;
+  }
+
+  public boolean isFallbackExtraction() {
+    return fallbackExtraction;
+  }
+
+  public boolean isLocalFallback() {
+    return localFallback;
+  }
+
+  public long getDefaultTimeoutMillis() {
+    return defaultTimeoutMillis;
+  }
+
+  public long getMaxTimeoutMillis() {
+    return maxTimeoutMillis;
+  }
+
+  public Map<SearchProvider, Provider> getProviders() {
+    return providers;
+  }
+
+  /**
+   * Returns the effective settings of the given provider, i.e., the top-level properties with any
+   * provider-specific overrides applied.
+   *
+   * @param provider a web search provider
+   * @return the settings of the provider
+   */
+  public ProviderSettings forProvider(SearchProvider provider) {
+    Provider overrides = providers.getOrDefault(provider, Provider.NONE);
+    return ProviderSettings.builder()
+        .cacheExpireAfterMins(valueOf(overrides.cacheExpireAfterMins, cacheExpireAfterMins))
+        .cacheMinExpireAfterMins(
+            valueOf(overrides.cacheMinExpireAfterMins, cacheMinExpireAfterMins))
+        .cacheMaxExpireAfterMins(
+            valueOf(overrides.cacheMaxExpireAfterMins, cacheMaxExpireAfterMins))
+        .cacheMaxSize(valueOf(overrides.cacheMaxSize, cacheMaxSize))
+        .maxTries(valueOf(overrides.maxTries, maxTries))
+        .maxConcurrentRequests(valueOf(overrides.maxConcurrentRequests, maxConcurrentRequests))
+        .maxRequestWait(
+            Duration.ofMillis(valueOf(overrides.maxRequestWaitMillis, maxRequestWaitMillis)))
+        .fetchRetries(valueOf(overrides.fetchRetries, fetchRetries))
+        .fetchRetryBackoff(
+            Duration.ofMillis(valueOf(overrides.fetchRetryBackoffMillis, fetchRetryBackoffMillis)))
+        .maxConcurrentSearches(valueOf(overrides.maxConcurrentSearches, maxConcurrentSearches))
+        .maxQueuedSearches(valueOf(overrides.maxQueuedSearches, maxQueuedSearches))
+        .maxQueueWait(Duration.ofMillis(valueOf(overrides.maxQueueWaitMillis, maxQueueWaitMillis)))
+        .prefetch(overrides.prefetch == null ? prefetch : overrides.prefetch)
+        .layoutFailureCooldown(
+            Duration.ofSeconds(
+                valueOf(overrides.layoutFailureCooldownSecs, layoutFailureCooldownSecs)))
+        .fallbackExtraction(
+            overrides.fallbackExtraction == null
+                ? fallbackExtraction
+                : overrides.fallbackExtraction)
+        .localFallback(
+            overrides.localFallback == null ? localFallback : overrides.localFallback)
+        .defaultTimeout(
+            Duration.ofMillis(valueOf(overrides.defaultTimeoutMillis, defaultTimeoutMillis)))
+        .maxTimeout(Duration.ofMillis(valueOf(overrides.maxTimeoutMillis, maxTimeoutMillis)))
+        .build();
+  }
+
+  private static int valueOf(Integer override, int defaultValue) {
+    return override == null ? defaultValue : override;
+  }
+
+  private static long valueOf(Long override, long defaultValue) {
+    return override == null ? defaultValue : override;
+  }
+
+  /**
+   * Provider-specific overrides of the search configuration. Properties which are not set fall
+   * back to the corresponding top-level property.
+   *
+   * @author Benedikt Full
+   */
+  public static class Provider {
+
+    private static final Provider NONE =
+        new Provider(
+            null, null, null, null, null, null, null, null, null, null, null, null, null, null,
+            null, null, null, null);
+
+    @Min(1)
+    private final Integer cacheExpireAfterMins;
+
+    @Min(1)
+    private final Integer cacheMinExpireAfterMins;
+
+    @Min(1)
+    private final Integer cacheMaxExpireAfterMins;
+
+    @Min(1)
+    private final Integer cacheMaxSize;
+
+    @Min(1)
+    private final Integer maxTries;
+
+    @Min(1)
+    private final Integer maxConcurrentRequests;
+
+    @Min(0)
+    private final Long maxRequestWaitMillis;
+
+    @Min(0)
+    private final Integer fetchRetries;
+
+    @Min(0)
+    private final Long fetchRetryBackoffMillis;
+
+    @Min(1)
+    private final Integer maxConcurrentSearches;
+
+    @Min(0)
+    private final Integer maxQueuedSearches;
+
+    @Min(0)
+    private final Long maxQueueWaitMillis;
+
+    private final Boolean prefetch;
+
+    @Min(1)
+    private final Long layoutFailureCooldownSecs;
+
+    private final Boolean fallbackExtraction;
+
+    private final Boolean localFallback;
+
+    @Min(1)
+    private final Long defaultTimeoutMillis;
+
+    @Min(1)
+    private final Long maxTimeoutMillis;
+
+    public Provider(
+        Integer cacheExpireAfterMins,
+        Integer cacheMinExpireAfterMins,
+        Integer cacheMaxExpireAfterMins,
+        Integer cacheMaxSize,
+        Integer maxTries,
+        Integer maxConcurrentRequests,
+        Long maxRequestWaitMillis,
+        Integer fetchRetries,
+        Long fetchRetryBackoffMillis,
+        Integer maxConcurrentSearches,
+        Integer maxQueuedSearches,
+        Long maxQueueWaitMillis,
+        Boolean prefetch,
+        Long layoutFailureCooldownSecs,
+        Boolean fallbackExtraction,
+        Boolean localFallback,
+        Long defaultTimeoutMillis,
+        Long maxTimeoutMillis) {
+      this.cacheExpireAfterMins = cacheExpireAfterMins;
+      this.cacheMinExpireAfterMins = cacheMinExpireAfterMins;
+      this.cacheMaxExpireAfterMins = cacheMaxExpireAfterMins;
+      this.cacheMaxSize = cacheMaxSize;
+      this.maxTries = maxTries;
+      this.maxConcurrentRequests = maxConcurrentRequests;
+      this.maxRequestWaitMillis = maxRequestWaitMillis;
+      this.fetchRetries = fetchRetries;
+      this.fetchRetryBackoffMillis = fetchRetryBackoffMillis;
+      this.maxConcurrentSearches = maxConcurrentSearches;
+      this.maxQueuedSearches = maxQueuedSearches;
+      this.maxQueueWaitMillis = maxQueueWaitMillis;
+      this.prefetch = prefetch;
+      this.layoutFailureCooldownSecs = layoutFailureCooldownSecs;
+      this.fallbackExtraction = fallbackExtraction;
+      this.localFallback = localFallback;
+      this.defaultTimeoutMillis = defaultTimeoutMillis;
+      this.maxTimeoutMillis = maxTimeoutMillis;
+    }
+
+    public Integer getCacheExpireAfterMins() {
+      return cacheExpireAfterMins;
+    }
+
+    public Integer getCacheMinExpireAfterMins() {
+      return cacheMinExpireAfterMins;
+    }
+
+    public Integer getCacheMaxExpireAfterMins() {
+      return cacheMaxExpireAfterMins;
+    }
+
+    public Integer getCacheMaxSize() {
+      return cacheMaxSize;
+    }
+
+    public Integer getMaxTries() {
+      return maxTries;
+    }
+
+    public Integer getMaxConcurrentRequests() {
+      return maxConcurrentRequests;
+    }
+
+    public Long getMaxRequestWaitMillis() {
+      return maxRequestWaitMillis;
+    }
+
+    public Integer getFetchRetries() {
+      return fetchRetries;
+    }
+
+    public Long getFetchRetryBackoffMillis() {
+      return fetchRetryBackoffMillis;
+    }
+
+    public Integer getMaxConcurrentSearches() {
+      return maxConcurrentSearches;
+    }
+
+    public Integer getMaxQueuedSearches() {
+      return maxQueuedSearches;
+    }
+
+    public Long getMaxQueueWaitMillis() {
+      return maxQueueWaitMillis;
+    }
+
+    public Boolean getPrefetch() {
+      return prefetch;
+    }
+
+    public Long getLayoutFailureCooldownSecs() {
+      return layoutFailureCooldownSecs;
+    }
+
+    public Boolean getFallbackExtraction() {
+      return fallbackExtraction;
+    }
+
+    public Boolean getLocalFallback() {
+      return localFallback;
+    }
+
+    public Long getDefaultTimeoutMillis() {
+      return defaultTimeoutMillis;
+    }
+
+    public Long getMaxTimeoutMillis() {
+      return maxTimeoutMillis;
+    }
+  }
 }
@@ -0,0 +1,67 @@
+package de.fullben.hermes.search;
+
+import static de.fullben.hermes.util.Preconditions.notNull;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Registry of all web search implementations available in the application. Implementations are
+ * discovered as beans of type {@link CachingWebSearch} and registered for the provider they
+ * declare, so that adding a provider does not require any changes to the code dispatching
+ * searches.
+ *
+ * @author Benedikt Full
+ */
+@Component
+public class SearchProviderRegistry {
+
+  private final Map<SearchProvider, CachingWebSearch> searches;
+
+  @Autowired
+  public SearchProviderRegistry(List<CachingWebSearch> searches) {
+    Map<SearchProvider, CachingWebSearch> registered = new EnumMap<>(SearchProvider.class);
+    for (CachingWebSearch search : searches) {
+      CachingWebSearch previous = registered.putIfAbsent(notNull(search.getProvider()), search);
+      if (previous != null) {
+        throw new IllegalStateException(
+            "Multiple web search implementations for provider "
+                + search.getProvider()
+                + ": "
+                + previous.getClass().getName()
+                + ", "
+                + search.getClass().getName());
+      }
+    }
+    this.searches = Collections.unmodifiableMap(registered);
+  }
+
+  /**
+   * Returns the web search implementation of the given provider.
+   *
+   * @param provider a web search provider
+   * @return the implementation
+   * @throws IllegalArgumentException if there is no implementation for the given provider
+   */
+  public CachingWebSearch get(SearchProvider provider) {
+    CachingWebSearch search = searches.get(notNull(provider));
+    if (search == null) {
+      throw new IllegalArgumentException("Unsupported search provider: " + provider);
+    }
+    return search;
+  }
+
+  /**
+   * Returns all providers for which a web search implementation is registered.
+   *
+   * @return an unmodifiable set of providers
+   */
+  public Set<SearchProvider> getProviders() {
+    return searches.keySet();
+  }
+}
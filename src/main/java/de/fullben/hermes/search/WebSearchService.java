@@ -1,28 +1,28 @@
 package de.fullben.hermes.search;
 
+import de.fullben.hermes.representation.SearchResultField;
 import de.fullben.hermes.representation.SearchResultRepresentation;
-import de.fullben.hermes.search.bing.BingSearchService;
-import de.fullben.hermes.search.google.GoogleSearchService;
 import java.util.List;
+import java.util.Set;
+import java.util.function.UnaryOperator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 /**
- * Service for running web searches against various web search implementations.
+ * Service for running web searches against various web search implementations. Searches are
+ * dispatched to the implementation registered for the requested provider in the {@link
+ * SearchProviderRegistry}.
  *
  * @author Benedikt Full
  */
 @Service
 public class WebSearchService {
 
-  private final GoogleSearchService googleSearchService;
-  private final BingSearchService bingSearchService;
+  private final SearchProviderRegistry searchProviderRegistry;
 
   @Autowired
-  public WebSearchService(
-      GoogleSearchService googleSearchService, BingSearchService bingSearchService) {
-    this.googleSearchService = googleSearchService;
-    this.bingSearchService = bingSearchService;
+  public WebSearchService(SearchProviderRegistry searchProviderRegistry) {
+    this.searchProviderRegistry = searchProviderRegistry;
   }
 
   /**
@@ -37,12 +37,159 @@ public class WebSearchService {
    */
   public List<SearchResultRepresentation> search(
       String query, int resultCount, SearchProvider provider) throws SearchException {
-    if (provider == SearchProvider.GOOGLE) {
-      return googleSearchService.search(query, resultCount);
-    } else if (provider == SearchProvider.BING) {
-      return bingSearchService.search(query, resultCount);
-    } else {
-      throw new IllegalArgumentException("Unsupported search provider: " + provider);
+    return search(
+        query, resultCount, SearchResultField.all(), provider, SearchContext.create());
+  }
+
+  /**
+   * Runs a web search based on the given parameters and returns the parsed results, limited to the
+   * given fields. Timing and diagnostic data of the search is recorded in the given context.
+   *
+   * @param query the query string, usually case-insensitive
+   * @param resultCount the number of results to be returned
+   * @param fields the fields to be returned for each result
+   * @param provider the web search provider to be employed, e.g., {@code GOOGLE}
+   * @param context the context of the search request
+   * @return the found results
+   * @throws SearchException if an error occurs while executing the web search or processing its
+   *     result data
+   */
+  public List<SearchResultRepresentation> search(
+      String query,
+      int resultCount,
+      Set<SearchResultField> fields,
+      SearchProvider provider,
+      SearchContext context)
+      throws SearchException {
+    return search(query, 0, resultCount, fields, provider, context);
+  }
+
+  /**
+   * Runs a web search based on the given parameters and returns the parsed results starting at the
+   * given offset, limited to the given fields. Timing and diagnostic data of the search is recorded
+   * in the given context.
+   *
+   * @param query the query string, usually case-insensitive
+   * @param offset the number of results to be skipped
+   * @param resultCount the number of results to be returned
+   * @param fields the fields to be returned for each result
+   * @param provider the web search provider to be employed, e.g., {@code GOOGLE}
+   * @param context the context of the search request
+   * @return the found results
+   * @throws SearchException if an error occurs while executing the web search or processing its
+   *     result data
+   */
+  public List<SearchResultRepresentation> search(
+      String query,
+      int offset,
+      int resultCount,
+      Set<SearchResultField> fields,
+      SearchProvider provider,
+      SearchContext context)
+      throws SearchException {
+    return searchProviderRegistry.get(provider).search(query, offset, resultCount, fields, context);
+  }
+
+  /**
+   * Answers the given query from the cached results of the given provider, without contacting the
+   * provider (see {@link CachingWebSearch#searchLocal(String, int, int, Set, SearchContext)}).
+   *
+   * @param query the query string, usually case-insensitive
+   * @param offset the number of results to be skipped
+   * @param resultCount the maximum number of results to be returned
+   * @param fields the fields to be returned for each result
+   * @param provider the web search provider whose cached results are searched
+   * @param context the context of the search request
+   * @return the best matching cached results, may be empty
+   * @throws QuotaExceededException if the quota of the client is exhausted
+   */
+  public List<SearchResultRepresentation> searchLocal(
+      String query,
+      int offset,
+      int resultCount,
+      Set<SearchResultField> fields,
+      SearchProvider provider,
+      SearchContext context)
+      throws QuotaExceededException {
+    return searchProviderRegistry
+        .get(provider)
+        .searchLocal(query, offset, resultCount, fields, context);
+  }
+
+  /**
+   * Suggests queries for the given prefix (see {@link CachingWebSearch#suggest(String, int)}).
+   *
+   * @param prefix the beginning of a query, case-insensitive
+   * @param limit the maximum number of suggestions to be returned
+   * @param provider the web search provider whose queries are suggested
+   * @return the suggested queries
+   */
+  public List<QuerySuggestion> suggest(String prefix, int limit, SearchProvider provider) {
+    return searchProviderRegistry.get(provider).suggest(prefix, limit);
+  }
+
+  /**
+   * Rebuilds the cached results of the given provider from its archived result pages (see {@link
+   * CachingWebSearch#reparseArchive(boolean)}).
+   *
+   * @param provider the web search provider whose results are rebuilt
+   * @param query the query whose results are rebuilt, {@code null} for all archived queries
+   * @param backfill whether results are rebuilt from pages older than the initial cache expiry
+   *     time as well
+   * @return the number of queries for which cached results were rebuilt
+   * @throws SearchException if the archived pages cannot be read or processed
+   */
+  public int reparseArchive(SearchProvider provider, String query, boolean backfill)
+      throws SearchException {
+    CachingWebSearch search = searchProviderRegistry.get(provider);
+    if (query == null) {
+      return search.reparseArchive(backfill);
     }
+    return search.reparseArchived(query, backfill) ? 1 : 0;
+  }
+
+  /**
+   * Returns the canonical form of the given query for the given provider (see {@link
+   * CachingWebSearch#canonicalize(String)}).
+   *
+   * @param query a query, case-insensitive
+   * @param provider the web search provider
+   * @return the canonical form of the query
+   */
+  public String canonicalize(String query, SearchProvider provider) {
+    return searchProviderRegistry.get(provider).canonicalize(query);
+  }
+
+  /**
+   * Returns the settings currently applied to the given provider (see {@link
+   * CachingWebSearch#getSettings()}).
+   *
+   * @param provider the web search provider
+   * @return the current settings of the provider
+   */
+  public ProviderSettings getSettings(SearchProvider provider) {
+    return searchProviderRegistry.get(provider).getSettings();
+  }
+
+  /**
+   * Changes the cache and retry settings of the given provider at runtime (see {@link
+   * CachingWebSearch#updateSettings(UnaryOperator)}).
+   *
+   * @param provider the web search provider
+   * @param update changes the settings of the given builder and returns it
+   * @return the settings of the provider before and after the update
+   */
+  public SettingsUpdate updateSettings(
+      SearchProvider provider, UnaryOperator<ProviderSettings.Builder> update) {
+    return searchProviderRegistry.get(provider).updateSettings(update);
+  }
+
+  /**
+   * Returns all web search providers supported by this service.
+   *
+   * @return the providers
+   */
+  public Set<SearchProvider> getProviders() {
+    return searchProviderRegistry.getProviders();
   }
 }
@@ -1,8 +1,10 @@
 package de.fullben.hermes.search.bing;
 
-import de.fullben.hermes.search.CachingWebSearch;
+import de.fullben.hermes.search.PageArchive;
+import de.fullben.hermes.search.ProviderSettings;
 import de.fullben.hermes.search.SearchProperties;
-import de.fullben.hermes.search.WebSearchClient;
+import de.fullben.hermes.search.SearchProvider;
+import de.fullben.hermes.threads.UpstreamExecutors;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.stereotype.Service;
@@ -14,21 +16,26 @@ import org.springframework.stereotype.Service;
  */
 @Service
 @EnableConfigurationProperties(SearchProperties.class)
-public class BingSearchService extends CachingWebSearch {
+public class BingSearchService extends BingWebSearch {
 
   @Autowired
-  public BingSearchService(SearchProperties searchProperties) {
+  public BingSearchService(
+      SearchProperties searchProperties,
+      UpstreamExecutors upstreamExecutors,
+      PageArchive pageArchive) {
+    this(searchProperties.forProvider(SearchProvider.BING), upstreamExecutors, pageArchive);
+  }
+
+  private BingSearchService(
+      ProviderSettings settings, UpstreamExecutors upstreamExecutors, PageArchive pageArchive) {
+    // On platform threads, the executor only runs prefetches, which admission control limits to
+    // half of the concurrent searches
     super(
-        WebSearchClient.builder()
-            .searchUrl("http://www.bing.com/search")
-            .queryParam("q")
-            .resultsPerPageParam("count")
-            .maxResultsPerPage(50)
-            .pageStartParam("first")
-            .oneBasedPageStart()
-            .firefoxOnWindowsUserAgent()
-            .build(),
-        new BingSearchResultParser(),
-        searchProperties);
+        settings,
+        upstreamExecutors.forPageFetches(
+            SearchProvider.BING.name(), settings.getMaxConcurrentSearches()),
+        upstreamExecutors.forProvider(
+            SearchProvider.BING.name(), settings.getMaxConcurrentSearches()),
+        pageArchive);
   }
 }
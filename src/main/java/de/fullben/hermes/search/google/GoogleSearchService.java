@@ -1,8 +1,10 @@
 package de.fullben.hermes.search.google;
 
-import de.fullben.hermes.search.CachingWebSearch;
+import de.fullben.hermes.search.PageArchive;
+import de.fullben.hermes.search.ProviderSettings;
 import de.fullben.hermes.search.SearchProperties;
-import de.fullben.hermes.search.WebSearchClient;
+import de.fullben.hermes.search.SearchProvider;
+import de.fullben.hermes.threads.UpstreamExecutors;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.stereotype.Service;
@@ -14,21 +16,26 @@ import org.springframework.stereotype.Service;
  */
 @Service
 @EnableConfigurationProperties(SearchProperties.class)
-public class GoogleSearchService extends CachingWebSearch {
+public class GoogleSearchService extends GoogleWebSearch {
 
   @Autowired
-  public GoogleSearchService(SearchProperties searchProperties) {
+  public GoogleSearchService(
+      SearchProperties searchProperties,
+      UpstreamExecutors upstreamExecutors,
+      PageArchive pageArchive) {
+    this(searchProperties.forProvider(SearchProvider.GOOGLE), upstreamExecutors, pageArchive);
+  }
+
+  private GoogleSearchService(
+      ProviderSettings settings, UpstreamExecutors upstreamExecutors, PageArchive pageArchive) {
+    // On platform threads, the executor only runs prefetches, which admission control limits to
+    // half of the concurrent searches
     super(
-        WebSearchClient.builder()
-            .searchUrl("http://www.google.com/search")
-            .queryParam("q")
-            .resultsPerPageParam("num")
-            .maxResultsPerPage(100)
-            .pageStartParam("start")
-            .zeroBasedPageStart()
-            .defaultUserAgent()
-            .build(),
-        new GoogleSearchResultParser(),
-        searchProperties);
+        settings,
+        upstreamExecutors.forPageFetches(
+            SearchProvider.GOOGLE.name(), settings.getMaxConcurrentSearches()),
+        upstreamExecutors.forProvider(
+            SearchProvider.GOOGLE.name(), settings.getMaxConcurrentSearches()),
+        pageArchive);
   }
 }
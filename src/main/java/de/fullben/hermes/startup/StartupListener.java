@@ -0,0 +1,68 @@
+package de.fullben.hermes.startup;
+
+import static org.apache.logging.log4j.util.Unbox.box;
+
+import de.fullben.hermes.search.SearchProviderRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Completes the startup of the application once it is ready to handle requests.
+ *
+ * <p>If {@code hermes.startup.warm-up} is enabled, the search implementations are created and
+ * initialized on a background thread (see {@link
+ * de.fullben.hermes.search.CachingWebSearch#warmUp()}). Combined with lazy bean initialization
+ * (see the {@code fast-startup} profile), this allows the application to accept requests as early
+ * as possible, while the first search request still does not have to pay for loading the classes
+ * of the parser and the HTTP client.
+ *
+ * @author Benedikt Full
+ */
+@Component
+@EnableConfigurationProperties(StartupProperties.class)
+public class StartupListener implements ApplicationListener<ApplicationReadyEvent> {
+
+  private static final Logger LOG = LogManager.getLogger(StartupListener.class);
+  private final StartupProperties startupProperties;
+  private final ObjectProvider<SearchProviderRegistry> searchProviderRegistry;
+
+  @Autowired
+  public StartupListener(
+      StartupProperties startupProperties,
+      ObjectProvider<SearchProviderRegistry> searchProviderRegistry) {
+    this.startupProperties = startupProperties;
+    this.searchProviderRegistry = searchProviderRegistry;
+  }
+
+  @Override
+  public void onApplicationEvent(ApplicationReadyEvent event) {
+    if (startupProperties.isExitOnReady()) {
+      LOG.info("Application is ready, exiting as configured");
+      System.exit(SpringApplication.exit(event.getApplicationContext()));
+    }
+    if (startupProperties.isWarmUp()) {
+      Thread warmUp = new Thread(this::warmUp, "warm-up");
+      warmUp.setDaemon(true);
+      warmUp.start();
+    }
+  }
+
+  private void warmUp() {
+    long startTime = System.currentTimeMillis();
+    try {
+      SearchProviderRegistry registry = searchProviderRegistry.getObject();
+      registry.getProviders().forEach(provider -> registry.get(provider).warmUp());
+      LOG.info("Warm-up took {} ms", box(System.currentTimeMillis() - startTime));
+    } catch (RuntimeException e) {
+      // The search implementations will be initialized on the first request instead
+      LOG.warn("Warm-up failed", e);
+    }
+  }
+}
@@ -0,0 +1,44 @@
+package de.fullben.hermes.startup;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Configuration for the startup of the application.
+ *
+ * @author Benedikt Full
+ */
+@ConfigurationProperties(prefix = "hermes.startup")
+@ConstructorBinding
+@Validated
+public class StartupProperties {
+
+  private final boolean warmUp;
+  private final boolean exitOnReady;
+
+  public StartupProperties(boolean warmUp, boolean exitOnReady) {
+    this.warmUp = warmUp;
+    this.exitOnReady = exitOnReady;
+  }
+
+  /**
+   * Whether the search implementations are initialized in the background once the application is
+   * ready, rather than on the first search request.
+   *
+   * @return {@code true} if the warm-up is enabled
+   */
+  public boolean isWarmUp() {
+    return warmUp;
+  }
+
+  /**
+   * Whether the application shuts down as soon as it is ready. Only intended for training runs,
+   * i.e., for recording the classes loaded during startup.
+   *
+   * @return {@code true} if the application exits once it is ready
+   */
+  public boolean isExitOnReady() {
+    return exitOnReady;
+  }
+}
@@ -0,0 +1,49 @@
+package de.fullben.hermes.threads;
+
+import de.fullben.hermes.util.VirtualThreads;
+import java.util.concurrent.ExecutorService;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configures the threads used by the application for handling requests and for executing upstream
+ * web search requests.
+ *
+ * <p>By default, requests are handled by Tomcat's platform thread pool. If {@code
+ * hermes.threads.virtual} is enabled, both request handling and the upstream requests are executed
+ * on virtual threads instead. As all upstream I/O is blocking, this allows for a large number of
+ * concurrently pending searches without the memory cost of a platform thread each. The number of
+ * concurrent requests against each web search provider remains bounded by the provider's web
+ * search client. Each provider uses an executor of its own (see {@link UpstreamExecutors}).
+ *
+ * @author Benedikt Full
+ */
+@Configuration
+@EnableConfigurationProperties(ThreadingProperties.class)
+public class ThreadingConfiguration {
+
+  private static final Logger LOG = LogManager.getLogger(ThreadingConfiguration.class);
+
+  public ThreadingConfiguration() {}
+
+  @Bean
+  public UpstreamExecutors upstreamExecutors(ThreadingProperties properties) {
+    if (properties.isVirtual()) {
+      LOG.info("Executing upstream web search requests on virtual threads");
+    }
+    return new UpstreamExecutors(properties.isVirtual());
+  }
+
+  @Bean
+  @ConditionalOnProperty(prefix = "hermes.threads", name = "virtual", havingValue = "true")
+  public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+    LOG.info("Handling requests on virtual threads");
+    ExecutorService executor = VirtualThreads.newThreadPerTaskExecutor();
+    return protocolHandler -> protocolHandler.setExecutor(executor);
+  }
+}
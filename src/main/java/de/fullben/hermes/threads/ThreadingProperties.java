@@ -0,0 +1,26 @@
+package de.fullben.hermes.threads;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Configuration for the threads used for handling requests and executing upstream web searches.
+ *
+ * @author Benedikt Full
+ */
+@ConfigurationProperties(prefix = "hermes.threads")
+@ConstructorBinding
+@Validated
+public class ThreadingProperties {
+
+  private final boolean virtual;
+
+  public ThreadingProperties(boolean virtual) {
+    this.virtual = virtual;
+  }
+
+  public boolean isVirtual() {
+    return virtual;
+  }
+}
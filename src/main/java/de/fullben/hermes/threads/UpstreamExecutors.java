@@ -0,0 +1,95 @@
+package de.fullben.hermes.threads;
+
+import static de.fullben.hermes.util.Preconditions.notBlank;
+
+import de.fullben.hermes.util.VirtualThreads;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.beans.factory.DisposableBean;
+
+/**
+ * Provides the executors on which requests against the web search providers are executed. Each
+ * provider is assigned an executor of its own, so that its threads can be told apart from the
+ * threads of other providers (e.g., in thread dumps) and a misbehaving provider cannot exhaust the
+ * threads of the others.
+ *
+ * <p>On virtual threads, the executors start a thread per task, and the result pages of a search
+ * are fetched concurrently. On platform threads, the executors are bounded and only used for
+ * prefetching results, while the pages of a search are fetched one after another on the thread
+ * executing the search, so that neither a burst of searches creates an unbounded number of
+ * threads nor a provider receives bursts of concurrent page requests.
+ *
+ * @author Benedikt Full
+ */
+public class UpstreamExecutors implements DisposableBean {
+
+  private final boolean virtual;
+  private final Map<String, ExecutorService> executors;
+
+  public UpstreamExecutors(boolean virtual) {
+    this.virtual = virtual;
+    executors = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Returns the executor of the given web search provider, creating it if necessary. On platform
+   * threads, tasks submitted while all threads of the executor are busy are rejected.
+   *
+   * @param provider the name of a web search provider
+   * @param maxThreads the maximum number of platform threads of the executor, ignored on virtual
+   *     threads
+   * @return the executor of the provider
+   */
+  public ExecutorService forProvider(String provider, int maxThreads) {
+    String name = notBlank(provider).toLowerCase(Locale.ROOT);
+    return executors.computeIfAbsent(name, key -> newExecutor(key, maxThreads));
+  }
+
+  /**
+   * Returns the executor on which the result pages of a search against the given web search
+   * provider are fetched concurrently, i.e., the executor of the provider on virtual threads.
+   *
+   * @param provider the name of a web search provider
+   * @param maxThreads the maximum number of platform threads of the executor, ignored on virtual
+   *     threads
+   * @return the executor of the provider, {@code null} on platform threads, in which case pages
+   *     are fetched one after another
+   */
+  public ExecutorService forPageFetches(String provider, int maxThreads) {
+    return virtual ? forProvider(provider, maxThreads) : null;
+  }
+
+  @Override
+  public void destroy() {
+    executors.values().forEach(ExecutorService::shutdownNow);
+  }
+
+  private ExecutorService newExecutor(String provider, int maxThreads) {
+    if (virtual) {
+      return VirtualThreads.newThreadPerTaskExecutor();
+    }
+    return new ThreadPoolExecutor(
+        0,
+        maxThreads,
+        60L,
+        TimeUnit.SECONDS,
+        new SynchronousQueue<>(),
+        daemonThreadFactory("upstream-" + provider + "-"));
+  }
+
+  private static ThreadFactory daemonThreadFactory(String namePrefix) {
+    AtomicInteger threadCount = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, namePrefix + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+}
@@ -0,0 +1,77 @@
+package de.fullben.hermes.auth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Unit tests for the credential caching implemented by the {@link CachingPasswordEncoder}.
+ *
+ * @author Benedikt Full
+ */
+public class CachingPasswordEncoderTests {
+
+  private CountingPasswordEncoder delegate;
+  private CachingPasswordEncoder encoder;
+
+  @BeforeEach
+  public void setUp() {
+    delegate = new CountingPasswordEncoder();
+    encoder = new CachingPasswordEncoder(delegate, Duration.ofMinutes(5), 10);
+  }
+
+  @Test
+  public void matchesVerifiesValidCredentialsWithDelegateOnlyOnce() {
+    String encoded = encoder.encode("secret");
+    assertTrue(encoder.matches("secret", encoded));
+    assertTrue(encoder.matches("secret", encoded));
+    assertTrue(encoder.matches("secret", encoded));
+    assertEquals(1, delegate.matchesCalls);
+  }
+
+  @Test
+  public void matchesAlwaysVerifiesInvalidCredentialsWithDelegate() {
+    String encoded = encoder.encode("secret");
+    assertFalse(encoder.matches("guess", encoded));
+    assertFalse(encoder.matches("guess", encoded));
+    assertEquals(2, delegate.matchesCalls);
+  }
+
+  @Test
+  public void matchesRejectsInvalidCredentialsAfterValidCredentialsWereCached() {
+    String encoded = encoder.encode("secret");
+    assertTrue(encoder.matches("secret", encoded));
+    assertFalse(encoder.matches("Secret", encoded));
+    assertFalse(encoder.matches("secret ", encoded));
+  }
+
+  @Test
+  public void matchesDoesNotConfuseCredentialsOfDifferentUsers() {
+    String first = encoder.encode("first");
+    String second = encoder.encode("second");
+    assertTrue(encoder.matches("first", first));
+    assertFalse(encoder.matches("first", second));
+  }
+
+  /** Trivial, reversible encoder that counts how often credentials are verified. */
+  private static class CountingPasswordEncoder implements PasswordEncoder {
+
+    private int matchesCalls;
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+      return "{plain}" + rawPassword;
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+      matchesCalls++;
+      return encode(rawPassword).equals(encodedPassword);
+    }
+  }
+}
@@ -0,0 +1,275 @@
+package de.fullben.hermes.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.fullben.hermes.quota.QuotaProperties;
+import de.fullben.hermes.quota.UserQuotas;
+import de.fullben.hermes.representation.SearchResultField;
+import de.fullben.hermes.representation.SearchResultRepresentation;
+import de.fullben.hermes.search.DocumentStructureException;
+import de.fullben.hermes.search.ProviderUnavailableException;
+import de.fullben.hermes.search.QuotaExceededException;
+import de.fullben.hermes.search.SearchContext;
+import de.fullben.hermes.search.SearchException;
+import de.fullben.hermes.search.SearchProvider;
+import de.fullben.hermes.search.WebSearchService;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for the execution, storage and resumption of jobs by the {@link SearchJobService}
+ * class.
+ *
+ * @author Benedikt Full
+ */
+public class SearchJobServiceTests {
+
+  private static final Set<SearchResultField> FIELDS = Set.of(SearchResultField.TITLE);
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final List<SearchJobService> services = new ArrayList<>();
+
+  @TempDir Path directory;
+
+  @AfterEach
+  public void destroyServices() {
+    services.forEach(SearchJobService::destroy);
+  }
+
+  @Test
+  public void completedJobIsRestoredFromItsFiles() throws Exception {
+    FakeWebSearchService webSearchService = new FakeWebSearchService("weather");
+    SearchJobService service = service(webSearchService);
+    SearchJob job = submit(service, "news\n\nweather\n  maps  \n");
+    await(() -> job.getStatus() == SearchJob.Status.COMPLETED);
+
+    List<JsonNode> outcomes = outcomes(service.getResultFile(job));
+    assertEquals(3, outcomes.size());
+    assertEquals("news", outcomes.get(0).get("query").asText());
+    assertEquals("news", outcomes.get(0).get("results").get(0).get("title").asText());
+    assertEquals(502, outcomes.get(1).get("error").get("code").asInt());
+    assertEquals("maps", outcomes.get(2).get("query").asText());
+    assertEquals(Files.size(service.getResultFile(job)), job.getResultBytes());
+
+    SearchJobService restarted = service(new FakeWebSearchService());
+    restarted.onApplicationEvent(null);
+    SearchJob restored = restarted.getJob(job.getId()).orElseThrow();
+    assertEquals(SearchJob.Status.COMPLETED, restored.getStatus());
+    assertEquals("user", restored.getOwner());
+    assertEquals(SearchProvider.BING, restored.getProvider());
+    assertEquals(5, restored.getResultCount());
+    assertEquals(FIELDS, restored.getFields());
+    assertEquals(3, restored.getQueryCount());
+    assertEquals(3, restored.getProcessed());
+    assertEquals(1, restored.getFailed());
+    assertEquals(job.getResultBytes(), restored.getResultBytes());
+    assertEquals(job.getCreatedAt(), restored.getCreatedAt());
+    assertEquals(job.getFinishedAt(), restored.getFinishedAt());
+  }
+
+  @Test
+  public void interruptedJobResumesAfterLastCompleteOutcome() throws Exception {
+    SearchJobService service = service(new FakeWebSearchService());
+    SearchJob job = submit(service, "news\nweather\nmaps\n");
+    await(() -> job.getStatus() == SearchJob.Status.COMPLETED);
+    service.destroy();
+
+    // Simulate a job interrupted while writing its second outcome, with outdated progress
+    Path resultFile = service.getResultFile(job);
+    String firstLine = Files.readAllLines(resultFile, StandardCharsets.UTF_8).get(0);
+    Files.writeString(resultFile, firstLine + "\n{\"query\":\"weather\",\"res");
+    Path descriptorFile = resultFile.resolveSibling("job.properties");
+    Properties descriptor = new Properties();
+    try (Reader in = Files.newBufferedReader(descriptorFile, StandardCharsets.UTF_8)) {
+      descriptor.load(in);
+    }
+    descriptor.setProperty("status", SearchJob.Status.RUNNING.name());
+    descriptor.setProperty("processed", "0");
+    descriptor.remove("finished-at");
+    try (Writer out = Files.newBufferedWriter(descriptorFile, StandardCharsets.UTF_8)) {
+      descriptor.store(out, null);
+    }
+
+    FakeWebSearchService webSearchService = new FakeWebSearchService();
+    SearchJobService restarted = service(webSearchService);
+    restarted.onApplicationEvent(null);
+    SearchJob resumed = restarted.getJob(job.getId()).orElseThrow();
+    await(() -> resumed.getStatus() == SearchJob.Status.COMPLETED);
+
+    assertEquals(List.of("weather", "maps"), webSearchService.queries);
+    List<JsonNode> outcomes = outcomes(resultFile);
+    assertEquals(3, outcomes.size());
+    assertEquals("news", outcomes.get(0).get("query").asText());
+    assertEquals("weather", outcomes.get(1).get("query").asText());
+    assertEquals("maps", outcomes.get(2).get("query").asText());
+    assertEquals(3, resumed.getProcessed());
+    assertEquals(0, resumed.getFailed());
+    assertEquals(Files.size(resultFile), resumed.getResultBytes());
+  }
+
+  @Test
+  public void deletedRunningJobStopsAndLosesItsFiles() throws Exception {
+    FakeWebSearchService webSearchService = new FakeWebSearchService();
+    webSearchService.blockOn("weather");
+    SearchJobService service = service(webSearchService);
+    SearchJob job = submit(service, "news\nweather\nmaps\n");
+    assertTrue(webSearchService.blocked.await(5, TimeUnit.SECONDS));
+
+    assertTrue(service.delete(job.getId()));
+    webSearchService.release.countDown();
+    Path jobDirectory = service.getResultFile(job).getParent();
+    await(() -> !Files.exists(jobDirectory));
+
+    assertTrue(job.isCancelled());
+    assertFalse(service.getJob(job.getId()).isPresent());
+    assertEquals(List.of("news", "weather"), webSearchService.queries);
+    assertFalse(service.delete(job.getId()));
+  }
+
+  @Test
+  public void pendingJobsArePerUserLimited() throws Exception {
+    FakeWebSearchService webSearchService = new FakeWebSearchService();
+    webSearchService.blockOn("news");
+    SearchJobService service = service(webSearchService);
+    submit(service, "news\n");
+    submit(service, "weather\n");
+
+    assertThrows(QuotaExceededException.class, () -> submit(service, "maps\n"));
+    SearchJob other =
+        service.submit("other", SearchProvider.BING, 5, FIELDS, new StringReader("maps\n"));
+    assertEquals(SearchJob.Status.QUEUED, other.getStatus());
+    webSearchService.release.countDown();
+    await(() -> other.getStatus() == SearchJob.Status.COMPLETED);
+  }
+
+  @Test
+  public void jobOfUnavailableProviderDoesNotBlockOtherJobs() throws Exception {
+    FakeWebSearchService webSearchService = new FakeWebSearchService();
+    webSearchService.unavailable = SearchProvider.GOOGLE;
+    SearchJobService service = service(webSearchService);
+    SearchJob unavailable =
+        service.submit("user", SearchProvider.GOOGLE, 5, FIELDS, new StringReader("news\n"));
+    SearchJob other = submit(service, "weather\nmaps\n");
+
+    await(() -> other.getStatus() == SearchJob.Status.COMPLETED);
+    assertTrue(unavailable.getStatus().isPending());
+    assertEquals(0, unavailable.getProcessed());
+
+    // The query of the unavailable provider is repeated until the job is deleted
+    assertTrue(service.delete(unavailable.getId()));
+    Path jobDirectory = service.getResultFile(unavailable).getParent();
+    await(() -> !Files.exists(jobDirectory));
+    int searches = webSearchService.queries.size();
+    Thread.sleep(100);
+    assertEquals(searches, webSearchService.queries.size());
+  }
+
+  private SearchJobService service(WebSearchService webSearchService) {
+    SearchJobService service =
+        new SearchJobService(
+            new JobProperties(directory.toString(), 60, 100, 2),
+            webSearchService,
+            new UserQuotas(new QuotaProperties(false, 0, 0, 1, null)),
+            objectMapper);
+    services.add(service);
+    return service;
+  }
+
+  private static SearchJob submit(SearchJobService service, String queries)
+      throws IOException, QuotaExceededException {
+    return service.submit("user", SearchProvider.BING, 5, FIELDS, new StringReader(queries));
+  }
+
+  private List<JsonNode> outcomes(Path resultFile) throws IOException {
+    List<JsonNode> outcomes = new ArrayList<>();
+    for (String line : Files.readAllLines(resultFile, StandardCharsets.UTF_8)) {
+      outcomes.add(objectMapper.readTree(line));
+    }
+    return outcomes;
+  }
+
+  private static void await(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (!condition.getAsBoolean()) {
+      assertTrue(System.nanoTime() < deadline);
+      Thread.sleep(10);
+    }
+  }
+
+  /**
+   * Answers every query with a single result titled like the query, except for the given failing
+   * queries, whose result pages cannot be processed, and the queries of the unavailable provider.
+   */
+  private static class FakeWebSearchService extends WebSearchService {
+
+    private final Set<String> failing;
+    private final List<String> queries;
+    private final CountDownLatch blocked;
+    private final CountDownLatch release;
+    private volatile String blocking;
+    private volatile SearchProvider unavailable;
+
+    private FakeWebSearchService(String... failing) {
+      super(null);
+      this.failing = Set.of(failing);
+      queries = new CopyOnWriteArrayList<>();
+      blocked = new CountDownLatch(1);
+      release = new CountDownLatch(1);
+    }
+
+    private void blockOn(String query) {
+      blocking = query;
+    }
+
+    @Override
+    public List<SearchResultRepresentation> search(
+        String query,
+        int resultCount,
+        Set<SearchResultField> fields,
+        SearchProvider provider,
+        SearchContext context)
+        throws SearchException {
+      queries.add(query);
+      context.setCacheOutcome(SearchContext.CacheOutcome.HIT);
+      if (query.equals(blocking)) {
+        blocked.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new SearchException("Interrupted while blocking query '" + query + "'");
+        }
+      }
+      if (provider == unavailable) {
+        throw new ProviderUnavailableException("Unknown layout", Duration.ofMillis(10));
+      }
+      if (failing.contains(query)) {
+        throw new DocumentStructureException("Unknown layout");
+      }
+      SearchResultRepresentation result = new SearchResultRepresentation();
+      result.setTitle(query);
+      return List.of(result);
+    }
+  }
+}
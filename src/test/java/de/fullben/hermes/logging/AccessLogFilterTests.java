@@ -0,0 +1,147 @@
+package de.fullben.hermes.logging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.fullben.hermes.search.QueryDigest;
+import de.fullben.hermes.search.SearchContext;
+import de.fullben.hermes.search.SearchProvider;
+import de.fullben.hermes.search.WebSearchService;
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletResponse;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.Appender;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.Logger;
+import org.apache.logging.log4j.core.appender.AbstractAppender;
+import org.apache.logging.log4j.core.config.Property;
+import org.apache.logging.log4j.message.StringMapMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * Unit tests for the sampling and the content of the access records written by the {@link
+ * AccessLogFilter} class.
+ *
+ * @author Benedikt Full
+ */
+public class AccessLogFilterTests {
+
+  private final List<LogEvent> records = new CopyOnWriteArrayList<>();
+  private Logger accessLog;
+  private Appender appender;
+
+  @BeforeEach
+  public void captureRecords() {
+    accessLog = (Logger) LogManager.getLogger(AccessLogFilter.ACCESS_LOGGER);
+    appender =
+        new AbstractAppender("records", null, null, true, Property.EMPTY_ARRAY) {
+          @Override
+          public void append(LogEvent event) {
+            records.add(event.toImmutable());
+          }
+        };
+    appender.start();
+    accessLog.addAppender(appender);
+    accessLog.setLevel(Level.INFO);
+  }
+
+  @AfterEach
+  public void releaseRecords() {
+    accessLog.removeAppender(appender);
+    appender.stop();
+  }
+
+  @Test
+  public void successfulRequestsAreSampled() throws Exception {
+    filter(0.0, request(" Weather "), (request, response) -> {});
+    assertTrue(records.isEmpty());
+
+    filter(1.0, request(" Weather "), (request, response) -> {});
+    assertEquals(1, records.size());
+    assertEquals(Level.INFO, records.get(0).getLevel());
+    assertEquals("200", field(0, "status"));
+    assertEquals("1.0", field(0, "sample"));
+  }
+
+  @Test
+  public void failedRequestsAreAlwaysRecordedAsWarnings() throws Exception {
+    filter(0.0, request(" Weather "), status(HttpServletResponse.SC_TOO_MANY_REQUESTS));
+    filter(0.0, request("news"), status(HttpServletResponse.SC_SERVICE_UNAVAILABLE));
+
+    assertEquals(2, records.size());
+    assertEquals(Level.WARN, records.get(0).getLevel());
+    assertEquals("429", field(0, "status"));
+    assertEquals("1.0", field(0, "sample"));
+    // Requests failing before the search started are recorded with their canonical query
+    assertEquals(QueryDigest.of("weather"), field(0, "query"));
+    assertEquals("BING", field(0, "provider"));
+    assertEquals(Level.WARN, records.get(1).getLevel());
+    assertEquals("503", field(1, "status"));
+  }
+
+  @Test
+  public void partialResultsAreAlwaysRecorded() throws Exception {
+    MockHttpServletRequest request = request("weather");
+    SearchContext context = SearchContext.create();
+    context.setQuery("weather");
+    context.setCacheOutcome(SearchContext.CacheOutcome.MISS);
+    context.setPartial(true);
+    request.setAttribute(AccessLogFilter.SEARCH_CONTEXT_ATTRIBUTE, context);
+
+    filter(0.0, request, (req, response) -> {});
+
+    assertEquals(1, records.size());
+    assertEquals(Level.INFO, records.get(0).getLevel());
+    assertEquals("true", field(0, "partial"));
+    assertEquals("MISS", field(0, "cache"));
+    String query = field(0, "query");
+    assertEquals(QueryDigest.of("weather"), query);
+    assertEquals(16, query.length());
+    assertFalse(records.get(0).getMessage().getFormattedMessage().contains("weather"));
+  }
+
+  private static void filter(double sampleRate, MockHttpServletRequest request, FilterChain chain)
+      throws IOException, ServletException {
+    new AccessLogFilter(sampleRate, new FakeWebSearchService())
+        .doFilter(request, new MockHttpServletResponse(), chain);
+  }
+
+  private static MockHttpServletRequest request(String query) {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/search");
+    request.setParameter("q", query);
+    request.setParameter("p", "bing");
+    return request;
+  }
+
+  private static FilterChain status(int status) {
+    return (request, response) -> ((HttpServletResponse) response).setStatus(status);
+  }
+
+  private String field(int record, String name) {
+    return ((StringMapMessage) records.get(record).getMessage()).get(name);
+  }
+
+  /** Canonicalizes queries by trimming and lower-casing them. */
+  private static class FakeWebSearchService extends WebSearchService {
+
+    private FakeWebSearchService() {
+      super(null);
+    }
+
+    @Override
+    public String canonicalize(String query, SearchProvider provider) {
+      return query.strip().toLowerCase(Locale.ROOT);
+    }
+  }
+}
@@ -0,0 +1,60 @@
+package de.fullben.hermes.quota;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.fullben.hermes.search.QuotaExceededException;
+import de.fullben.hermes.search.SearchContext.CacheOutcome;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the limits enforced by the {@link UserQuota} class.
+ *
+ * @author Benedikt Full
+ */
+public class UserQuotaTests {
+
+  @Test
+  public void cachedAndUpstreamSearchesAreLimitedSeparately() throws QuotaExceededException {
+    UserQuota quota = new UserQuota("user", new QuotaLimits(3, 1, 1), true);
+    quota.charge(CacheOutcome.MISS);
+    quota.charge(CacheOutcome.HIT);
+    quota.charge(CacheOutcome.COALESCED);
+    quota.charge(CacheOutcome.HIT);
+
+    QuotaExceededException e =
+        assertThrows(QuotaExceededException.class, () -> quota.charge(CacheOutcome.MISS));
+    assertTrue(e.getRetryAfter().compareTo(Duration.ofMinutes(1)) <= 0);
+    assertThrows(QuotaExceededException.class, () -> quota.charge(CacheOutcome.HIT));
+    assertEquals(3, quota.getCachedSearches());
+    assertEquals(1, quota.getUpstreamSearches());
+    assertEquals(2, quota.getRejectedSearches());
+  }
+
+  @Test
+  public void concurrentSearchesAreLimited() throws QuotaExceededException {
+    UserQuota quota = new UserQuota("user", new QuotaLimits(10, 10, 2), true);
+    quota.enter();
+    quota.enter();
+
+    assertThrows(QuotaExceededException.class, quota::enter);
+    assertEquals(2, quota.getConcurrentSearches());
+    quota.exit();
+    assertDoesNotThrow(quota::enter);
+  }
+
+  @Test
+  public void usageIsTrackedIfQuotaIsNotEnforced() {
+    UserQuota quota = new UserQuota("user", new QuotaLimits(0, 0, 1), false);
+
+    assertDoesNotThrow(() -> quota.charge(CacheOutcome.MISS));
+    assertDoesNotThrow(quota::enter);
+    assertDoesNotThrow(quota::enter);
+    assertEquals(1, quota.getUpstreamSearches());
+    assertEquals(2, quota.getConcurrentSearches());
+    assertEquals(0, quota.getRejectedSearches());
+  }
+}
@@ -0,0 +1,67 @@
+package de.fullben.hermes.representation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares the binary encodings offered for search results with JSON with regard to payload size
+ * and verifies that results are not altered by encoding and decoding them. The time spent encoding
+ * and decoding is measured by the {@code benchmark} task instead.
+ *
+ * @author Benedikt Full
+ */
+public class ResultEncodingTests {
+
+  private static final TypeReference<List<SearchResultRepresentation>> RESULT_LIST =
+      new TypeReference<>() {};
+
+  @Test
+  public void binaryEncodingsAreSmallerThanJson() throws IOException {
+    List<SearchResultRepresentation> results = results(100);
+    int jsonSize = encode(new ObjectMapper(), results);
+    int cborSize = encode(new CBORMapper(), results);
+    int smileSize = encode(new SmileMapper(), results);
+
+    assertTrue(cborSize < jsonSize);
+    assertTrue(smileSize < jsonSize);
+  }
+
+  private static int encode(ObjectMapper mapper, List<SearchResultRepresentation> results)
+      throws IOException {
+    byte[] encoded = mapper.writeValueAsBytes(results);
+    List<SearchResultRepresentation> decoded = mapper.readValue(encoded, RESULT_LIST);
+    assertEquals(results.size(), decoded.size());
+    for (int i = 0; i < results.size(); i++) {
+      assertEquals(results.get(i).getTitle(), decoded.get(i).getTitle());
+      assertEquals(results.get(i).getSnippet(), decoded.get(i).getSnippet());
+      assertEquals(results.get(i).getUrl(), decoded.get(i).getUrl());
+      assertEquals(results.get(i).getPageHierarchy(), decoded.get(i).getPageHierarchy());
+    }
+    return encoded.length;
+  }
+
+  private static List<SearchResultRepresentation> results(int count) {
+    List<SearchResultRepresentation> results = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      SearchResultRepresentation result = new SearchResultRepresentation();
+      result.setTitle("Hermes - Wikipedia, result " + i);
+      result.setSnippet(
+          "Hermes is an Olympian deity in ancient Greek religion and mythology. Hermes is "
+              + "considered the herald of the gods. He is also considered the protector of human "
+              + "heralds, travellers, thieves, merchants, and orators.");
+      result.setUrl("https://en.wikipedia.org/wiki/Hermes?result=" + i);
+      result.setPageHierarchy("en.wikipedia.org > wiki > Hermes");
+      results.add(result);
+    }
+    return results;
+  }
+}